@@ -11,6 +11,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -22,14 +23,29 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.curosoft.konvert.R;
+import com.curosoft.konvert.utils.CsvToXlsxConverter;
+import com.curosoft.konvert.utils.DocToDocxConverter;
+import com.curosoft.konvert.utils.DocToPdfConverter;
+import com.curosoft.konvert.utils.DocToTxtConverter;
+import com.curosoft.konvert.utils.DocxToEpubConverter;
 import com.curosoft.konvert.utils.DocxToPdfConverter;
 import com.curosoft.konvert.utils.DocxToTxtConverter;
 import com.curosoft.konvert.utils.EnhancedFilePickerUtils;
 import com.curosoft.konvert.utils.ImageConverter;
+import com.curosoft.konvert.utils.PageRange;
+import com.curosoft.konvert.utils.PdfMergeSplitter;
+import com.curosoft.konvert.utils.PdfSizeOptimizer;
+import com.curosoft.konvert.utils.PdfToEpubConverter;
+import com.curosoft.konvert.utils.PdfToImageConverter;
 import com.curosoft.konvert.utils.PdfToDocxConverter;
 import com.curosoft.konvert.utils.PdfToTxtConverter;
+import com.curosoft.konvert.utils.PptxToDocxConverter;
+import com.curosoft.konvert.utils.PptxToTxtConverter;
 import com.curosoft.konvert.utils.TxtToDocxConverter;
+import com.curosoft.konvert.utils.TxtToEpubConverter;
 import com.curosoft.konvert.utils.TxtToPdfConverter;
+import com.curosoft.konvert.utils.XlsxToCsvConverter;
+import com.curosoft.konvert.utils.XlsxToTxtConverter;
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
@@ -51,6 +67,7 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
     private FormatAdapter formatAdapter;
     private TextView titleText;
     private TextView fileNameText;
+    private EditText pageRangeInput;
     
     private ActivityResultLauncher<String[]> filePicker;
     private File selectedFile;
@@ -86,6 +103,7 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
                 originalFileUri = uri;
                 
                 updateFileNameDisplay(originalName);
+                updatePageRangeVisibility();
                 updateProceedButtonState();
             }
 
@@ -137,6 +155,7 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         btnCancel = view.findViewById(R.id.btn_cancel);
         btnProceed = view.findViewById(R.id.btn_proceed);
         rvFormats = view.findViewById(R.id.rv_formats);
+        pageRangeInput = view.findViewById(R.id.page_range_input);
         
         // Set up title with category name
         titleText.setText(String.format("Convert %s", category));
@@ -212,6 +231,27 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
                         
                         performDocxToTxtConversion();
                     }
+                    // DOC to PDF conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("msword") || 
+                             selectedFileName.toLowerCase().endsWith(".doc")) &&
+                            selectedFormat.equalsIgnoreCase("PDF")) {
+                        
+                        performDocToPdfConversion();
+                    }
+                    // DOC to TXT conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("msword") || 
+                             selectedFileName.toLowerCase().endsWith(".doc")) &&
+                            selectedFormat.equalsIgnoreCase("TXT")) {
+                        
+                        performDocToTxtConversion();
+                    }
+                    // DOC to DOCX conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("msword") || 
+                             selectedFileName.toLowerCase().endsWith(".doc")) &&
+                            selectedFormat.equalsIgnoreCase("DOCX")) {
+                        
+                        performDocToDocxConversion();
+                    }
                     // PDF to TXT conversion
                     else if ((selectedMimeType != null && selectedMimeType.contains("pdf") || 
                              selectedFileName.toLowerCase().endsWith(".pdf")) &&
@@ -219,6 +259,27 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
                         
                         performPdfToTxtConversion();
                     }
+                    // PDF to PDF: optimize the file size
+                    else if ((selectedMimeType != null && selectedMimeType.contains("pdf") || 
+                             selectedFileName.toLowerCase().endsWith(".pdf")) &&
+                            selectedFormat.equalsIgnoreCase("PDF")) {
+                        
+                        performPdfOptimization();
+                    }
+                    // PDF split into parts
+                    else if ((selectedMimeType != null && selectedMimeType.contains("pdf") || 
+                             selectedFileName.toLowerCase().endsWith(".pdf")) &&
+                            selectedFormat.equalsIgnoreCase("SPLIT")) {
+                        
+                        performPdfSplit();
+                    }
+                    // PDF to page images
+                    else if ((selectedMimeType != null && selectedMimeType.contains("pdf") || 
+                             selectedFileName.toLowerCase().endsWith(".pdf")) &&
+                            (selectedFormat.equalsIgnoreCase("JPG") || selectedFormat.equalsIgnoreCase("PNG"))) {
+                        
+                        performPdfToImageConversion();
+                    }
                     // TXT to DOCX conversion
                     else if ((selectedMimeType != null && 
                              (selectedMimeType.contains("text/plain") || 
@@ -236,6 +297,68 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
                             selectedFormat.equalsIgnoreCase("PDF")) {
                         
                         performTxtToPdfConversion();
+                    }
+                    // CSV to XLSX conversion
+                    else if ((selectedMimeType != null && 
+                             (selectedMimeType.contains("csv") || 
+                              selectedMimeType.contains("comma-separated-values")) || 
+                             selectedFileName.toLowerCase().endsWith(".csv")) &&
+                            selectedFormat.equalsIgnoreCase("XLSX")) {
+                        
+                        performCsvToXlsxConversion();
+                    }
+                    // XLSX to CSV conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("spreadsheetml") || 
+                             selectedFileName.toLowerCase().endsWith(".xlsx")) &&
+                            selectedFormat.equalsIgnoreCase("CSV")) {
+                        
+                        performXlsxToCsvConversion();
+                    }
+                    // XLSX to TXT conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("spreadsheetml") || 
+                             selectedFileName.toLowerCase().endsWith(".xlsx")) &&
+                            selectedFormat.equalsIgnoreCase("TXT")) {
+                        
+                        performXlsxToTxtConversion();
+                    }
+                    // PPTX to TXT conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("presentationml") || 
+                             selectedFileName.toLowerCase().endsWith(".pptx")) &&
+                            selectedFormat.equalsIgnoreCase("TXT")) {
+                        
+                        performPptxToTxtConversion();
+                    }
+                    // PPTX to DOCX conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("presentationml") || 
+                             selectedFileName.toLowerCase().endsWith(".pptx")) &&
+                            selectedFormat.equalsIgnoreCase("DOCX")) {
+                        
+                        performPptxToDocxConversion();
+                    }
+                    // TXT to EPUB conversion
+                    else if ((selectedMimeType != null && 
+                             (selectedMimeType.contains("text/plain") || 
+                              selectedMimeType.contains("text/txt")) || 
+                             selectedFileName.toLowerCase().endsWith(".txt")) &&
+                            selectedFormat.equalsIgnoreCase("EPUB")) {
+                        
+                        performTxtToEpubConversion();
+                    }
+                    // DOCX to EPUB conversion
+                    else if ((selectedMimeType != null && 
+                             (selectedMimeType.contains("docx") || 
+                              selectedMimeType.contains("wordprocessingml")) || 
+                             selectedFileName.toLowerCase().endsWith(".docx")) &&
+                            selectedFormat.equalsIgnoreCase("EPUB")) {
+                        
+                        performDocxToEpubConversion();
+                    }
+                    // PDF to EPUB conversion
+                    else if ((selectedMimeType != null && selectedMimeType.contains("pdf") || 
+                             selectedFileName.toLowerCase().endsWith(".pdf")) &&
+                            selectedFormat.equalsIgnoreCase("EPUB")) {
+                        
+                        performPdfToEpubConversion();
                     } else {
                         Log.w("ConversionBottomSheet", "Unsupported conversion type selected");
                         Toast.makeText(requireContext(), 
@@ -258,7 +381,10 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
     }
     
     private void performPdfToDocxConversion() {
-        new PdfToDocxConversionTask(requireContext(), originalFileUri).execute();
+        PageRange pageRange = getSelectedPageRange();
+        if (pageRange != null) {
+            new PdfToDocxConversionTask(requireContext(), originalFileUri, pageRange).execute();
+        }
     }
     
     private void performDocxToPdfConversion() {
@@ -269,8 +395,42 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         new DocxToTxtConversionTask(requireContext(), originalFileUri).execute();
     }
     
+    private void performDocToPdfConversion() {
+        new DocToPdfConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performDocToTxtConversion() {
+        new DocToTxtConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performDocToDocxConversion() {
+        new DocToDocxConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
     private void performPdfToTxtConversion() {
-        new PdfToTxtConversionTask(requireContext(), originalFileUri).execute();
+        PageRange pageRange = getSelectedPageRange();
+        if (pageRange != null) {
+            new PdfToTxtConversionTask(requireContext(), originalFileUri, pageRange).execute();
+        }
+    }
+    
+    private void performPdfOptimization() {
+        new PdfOptimizeTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performPdfSplit() {
+        PageRange pageRange = getSelectedPageRange();
+        if (pageRange != null) {
+            new PdfSplitTask(requireContext(), originalFileUri, pageRange).execute();
+        }
+    }
+    
+    private void performPdfToImageConversion() {
+        PageRange pageRange = getSelectedPageRange();
+        if (pageRange != null) {
+            new PdfToImageConversionTask(requireContext(), originalFileUri, selectedFormat.toUpperCase(), pageRange)
+                    .execute();
+        }
     }
     
     private void performTxtToDocxConversion() {
@@ -281,6 +441,41 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         new TxtToPdfConversionTask(requireContext(), originalFileUri).execute();
     }
     
+    private void performCsvToXlsxConversion() {
+        new CsvToXlsxConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performXlsxToCsvConversion() {
+        new XlsxToCsvConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performXlsxToTxtConversion() {
+        new XlsxToTxtConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performPptxToTxtConversion() {
+        new PptxToTxtConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performPptxToDocxConversion() {
+        new PptxToDocxConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performTxtToEpubConversion() {
+        new TxtToEpubConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performDocxToEpubConversion() {
+        new DocxToEpubConversionTask(requireContext(), originalFileUri).execute();
+    }
+    
+    private void performPdfToEpubConversion() {
+        PageRange pageRange = getSelectedPageRange();
+        if (pageRange != null) {
+            new PdfToEpubConversionTask(requireContext(), originalFileUri, pageRange).execute();
+        }
+    }
+    
     private void updateFileNameDisplay(String fileName) {
         if (fileName != null && !fileName.isEmpty()) {
             fileNameText.setText(fileName);
@@ -292,6 +487,31 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         }
     }
     
+    private void updatePageRangeVisibility() {
+        // Page selection only applies to PDF sources
+        boolean isPdfFile = (selectedMimeType != null && selectedMimeType.contains("pdf") ||
+            selectedFileName != null && selectedFileName.toLowerCase().endsWith(".pdf"));
+        pageRangeInput.setVisibility(isPdfFile ? View.VISIBLE : View.GONE);
+        if (!isPdfFile) {
+            pageRangeInput.setText("");
+        }
+        pageRangeInput.setError(null);
+    }
+    
+    /**
+     * Parse the page range entered by the user
+     *
+     * @return The selected pages, or null if the input is invalid
+     */
+    private PageRange getSelectedPageRange() {
+        try {
+            return PageRange.parse(pageRangeInput.getText().toString());
+        } catch (IllegalArgumentException e) {
+            pageRangeInput.setError(e.getMessage());
+            return null;
+        }
+    }
+    
     private void updateProceedButtonState() {
         if (selectedFile == null || selectedFormat == null) {
             btnProceed.setEnabled(false);
@@ -309,13 +529,39 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
                 selectedFileName != null && selectedFileName.toLowerCase().endsWith(".txt"));
             boolean isPdfToDocx = isPdfFile && selectedFormat.equalsIgnoreCase("DOCX");
             boolean isPdfToTxt = isPdfFile && selectedFormat.equalsIgnoreCase("TXT");
+            boolean isPdfToPdf = isPdfFile && selectedFormat.equalsIgnoreCase("PDF");
+            boolean isPdfSplit = isPdfFile && selectedFormat.equalsIgnoreCase("SPLIT");
+            boolean isPdfToImage = isPdfFile &&
+                (selectedFormat.equalsIgnoreCase("JPG") || selectedFormat.equalsIgnoreCase("PNG"));
             boolean isDocxToPdf = isDocxFile && selectedFormat.equalsIgnoreCase("PDF");
             boolean isDocxToTxt = isDocxFile && selectedFormat.equalsIgnoreCase("TXT");
+            boolean isDocFile = (selectedMimeType != null && selectedMimeType.contains("msword") ||
+                selectedFileName != null && selectedFileName.toLowerCase().endsWith(".doc"));
+            boolean isDocToPdf = isDocFile && selectedFormat.equalsIgnoreCase("PDF");
+            boolean isDocToTxt = isDocFile && selectedFormat.equalsIgnoreCase("TXT");
+            boolean isDocToDocx = isDocFile && selectedFormat.equalsIgnoreCase("DOCX");
             boolean isTxtToDocx = isTxtFile && selectedFormat.equalsIgnoreCase("DOCX");
             boolean isTxtToPdf = isTxtFile && selectedFormat.equalsIgnoreCase("PDF");
-            btnProceed.setEnabled(isPdfToDocx || isPdfToTxt ||
+            boolean isCsvFile = (selectedMimeType != null &&
+                (selectedMimeType.contains("csv") || selectedMimeType.contains("comma-separated-values")) ||
+                selectedFileName != null && selectedFileName.toLowerCase().endsWith(".csv"));
+            boolean isCsvToXlsx = isCsvFile && selectedFormat.equalsIgnoreCase("XLSX");
+            boolean isXlsxFile = (selectedMimeType != null && selectedMimeType.contains("spreadsheetml") ||
+                selectedFileName != null && selectedFileName.toLowerCase().endsWith(".xlsx"));
+            boolean isXlsxToCsv = isXlsxFile && selectedFormat.equalsIgnoreCase("CSV");
+            boolean isXlsxToTxt = isXlsxFile && selectedFormat.equalsIgnoreCase("TXT");
+            boolean isPptxFile = (selectedMimeType != null && selectedMimeType.contains("presentationml") ||
+                selectedFileName != null && selectedFileName.toLowerCase().endsWith(".pptx"));
+            boolean isPptxToTxt = isPptxFile && selectedFormat.equalsIgnoreCase("TXT");
+            boolean isPptxToDocx = isPptxFile && selectedFormat.equalsIgnoreCase("DOCX");
+            boolean isToEpub = (isTxtFile || isDocxFile || isPdfFile) && selectedFormat.equalsIgnoreCase("EPUB");
+            btnProceed.setEnabled(isPdfToDocx || isPdfToTxt || isPdfToPdf || isPdfSplit || isPdfToImage ||
                 isDocxToPdf || isDocxToTxt ||
-                isTxtToDocx || isTxtToPdf);
+                isDocToPdf || isDocToTxt || isDocToDocx ||
+                isTxtToDocx || isTxtToPdf ||
+                isCsvToXlsx || isXlsxToCsv || isXlsxToTxt ||
+                isPptxToTxt || isPptxToDocx ||
+                isToEpub);
             return;
         }
 
@@ -344,6 +590,13 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
                 for (String ext : EnhancedFilePickerUtils.SupportedFileTypes.DOCS) {
                     formats.add(ext.toUpperCase());
                 }
+                // Page images, for PDF sources
+                formats.add("JPG");
+                formats.add("PNG");
+                // E-books, for TXT, DOCX and PDF sources
+                formats.add("EPUB");
+                // Parts of the document, for PDF sources
+                formats.add("SPLIT");
                 break;
             case "images":
                 // Only show valid output formats for each input type in UI logic (handled above)
@@ -378,11 +631,13 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
     private class PdfToDocxConversionTask extends AsyncTask<Void, Void, String> {
         private Context context;
         private Uri pdfUri;
+        private PageRange pageRange;
         private ProgressDialog progressDialog;
         
-        public PdfToDocxConversionTask(Context context, Uri pdfUri) {
+        public PdfToDocxConversionTask(Context context, Uri pdfUri, PageRange pageRange) {
             this.context = context;
             this.pdfUri = pdfUri;
+            this.pageRange = pageRange;
         }
         
         @Override
@@ -396,7 +651,7 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         @Override
         protected String doInBackground(Void... voids) {
             try {
-                return PdfToDocxConverter.convertPdfToDocx(context, pdfUri);
+                return PdfToDocxConverter.convertPdfToDocx(context, pdfUri, pageRange);
             } catch (Exception e) {
                 e.printStackTrace();
                 return null;
@@ -496,7 +751,7 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         @Override
         protected String doInBackground(Void... voids) {
             try {
-                return DocxToTxtConverter.convertDocxToTxt(context, docxUri);
+                return DocxToTxtConverter.convertDocxToTxtFile(context, docxUri);
             } catch (Exception e) {
                 e.printStackTrace();
                 return null;
@@ -524,17 +779,169 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
     
 
     
+    /**
+     * AsyncTask to perform the DOC to PDF conversion in the background
+     */
+    private class DocToPdfConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri docUri;
+        private ProgressDialog progressDialog;
+        
+        public DocToPdfConversionTask(Context context, Uri docUri) {
+            this.context = context;
+            this.docUri = docUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting DOC to PDF...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return DocToPdfConverter.convertDocToPdf(context, docUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the DOC to TXT conversion in the background
+     */
+    private class DocToTxtConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri docUri;
+        private ProgressDialog progressDialog;
+        
+        public DocToTxtConversionTask(Context context, Uri docUri) {
+            this.context = context;
+            this.docUri = docUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting DOC to TXT...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return DocToTxtConverter.convertDocToTxt(context, docUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the DOC to DOCX conversion in the background
+     */
+    private class DocToDocxConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri docUri;
+        private ProgressDialog progressDialog;
+        
+        public DocToDocxConversionTask(Context context, Uri docUri) {
+            this.context = context;
+            this.docUri = docUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting DOC to DOCX...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return DocToDocxConverter.convertDocToDocx(context, docUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
     /**
      * AsyncTask to perform the PDF to TXT conversion in the background
      */
     private class PdfToTxtConversionTask extends AsyncTask<Void, Void, String> {
         private Context context;
         private Uri pdfUri;
+        private PageRange pageRange;
         private ProgressDialog progressDialog;
         
-        public PdfToTxtConversionTask(Context context, Uri pdfUri) {
+        public PdfToTxtConversionTask(Context context, Uri pdfUri, PageRange pageRange) {
             this.context = context;
             this.pdfUri = pdfUri;
+            this.pageRange = pageRange;
         }
         
         @Override
@@ -548,7 +955,7 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         @Override
         protected String doInBackground(Void... voids) {
             try {
-                return PdfToTxtConverter.convertPdfToTxt(context, pdfUri);
+                return PdfToTxtConverter.convertPdfToTxt(context, pdfUri, pageRange);
             } catch (Exception e) {
                 e.printStackTrace();
                 return null;
@@ -574,25 +981,23 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         }
     }
     
-
-    
     /**
-     * AsyncTask to perform the TXT to DOCX conversion in the background
+     * AsyncTask to optimize the size of a PDF file in the background
      */
-    private class TxtToDocxConversionTask extends AsyncTask<Void, Void, String> {
+    private class PdfOptimizeTask extends AsyncTask<Void, Void, String> {
         private Context context;
-        private Uri txtUri;
+        private Uri pdfUri;
         private ProgressDialog progressDialog;
         
-        public TxtToDocxConversionTask(Context context, Uri txtUri) {
+        public PdfOptimizeTask(Context context, Uri pdfUri) {
             this.context = context;
-            this.txtUri = txtUri;
+            this.pdfUri = pdfUri;
         }
         
         @Override
         protected void onPreExecute() {
             progressDialog = new ProgressDialog(context);
-            progressDialog.setMessage("Converting TXT to DOCX...");
+            progressDialog.setMessage("Optimizing PDF...");
             progressDialog.setCancelable(false);
             progressDialog.show();
         }
@@ -600,7 +1005,7 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
         @Override
         protected String doInBackground(Void... voids) {
             try {
-                return TxtToDocxConverter.convertTxtToDocx(context, txtUri);
+                return PdfSizeOptimizer.optimizePdf(context, pdfUri);
             } catch (Exception e) {
                 e.printStackTrace();
                 return null;
@@ -615,42 +1020,611 @@ public class ConversionOptionBottomSheet extends BottomSheetDialogFragment {
             
             if (outputPath != null) {
                 Toast.makeText(context, 
-                        "Conversion successful! File saved to:\n" + outputPath, 
+                        "Optimization successful! File saved to:\n" + outputPath, 
                         Toast.LENGTH_LONG).show();
                 dismiss();
             } else {
                 Toast.makeText(context, 
-                        "Conversion failed. Please try again.", 
+                        "Optimization failed. Please try again.", 
                         Toast.LENGTH_SHORT).show();
             }
         }
     }
     
     /**
-     * AsyncTask to perform the TXT to PDF conversion in the background
+     * AsyncTask to split a PDF into parts in the background
+     * 
+     * Each comma-separated part of the page range becomes one file; with no range,
+     * every page becomes its own file.
      */
-    private class TxtToPdfConversionTask extends AsyncTask<Void, Void, String> {
+    private class PdfSplitTask extends AsyncTask<Void, Void, List<String>> {
         private Context context;
-        private Uri txtUri;
+        private Uri pdfUri;
+        private PageRange pageRange;
         private ProgressDialog progressDialog;
         
-        public TxtToPdfConversionTask(Context context, Uri txtUri) {
+        public PdfSplitTask(Context context, Uri pdfUri, PageRange pageRange) {
             this.context = context;
-            this.txtUri = txtUri;
+            this.pdfUri = pdfUri;
+            this.pageRange = pageRange;
         }
         
         @Override
         protected void onPreExecute() {
             progressDialog = new ProgressDialog(context);
-            progressDialog.setMessage("Converting TXT to PDF...");
+            progressDialog.setMessage("Splitting PDF...");
             progressDialog.setCancelable(false);
             progressDialog.show();
         }
         
         @Override
-        protected String doInBackground(Void... voids) {
+        protected List<String> doInBackground(Void... voids) {
             try {
-                return TxtToPdfConverter.convertTxtToPdf(context, txtUri);
+                if (pageRange.isAll()) {
+                    return PdfMergeSplitter.splitPdf(context, pdfUri, 1);
+                }
+                return PdfMergeSplitter.splitPdf(context, pdfUri, pageRange.getParts());
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(List<String> outputPaths) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPaths != null && !outputPaths.isEmpty()) {
+                Toast.makeText(context, 
+                        "Split successful! " + outputPaths.size() + " files saved to:\n" 
+                                + new File(outputPaths.get(0)).getParent(), 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Split failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to export PDF pages as images in the background
+     */
+    private class PdfToImageConversionTask extends AsyncTask<Void, Void, List<String>> {
+        private Context context;
+        private Uri pdfUri;
+        private String format;
+        private PageRange pageRange;
+        private ProgressDialog progressDialog;
+        
+        public PdfToImageConversionTask(Context context, Uri pdfUri, String format, PageRange pageRange) {
+            this.context = context;
+            this.pdfUri = pdfUri;
+            this.format = format;
+            this.pageRange = pageRange;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting PDF to " + format + "...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected List<String> doInBackground(Void... voids) {
+            try {
+                return PdfToImageConverter.convertPdfToImages(context, pdfUri, format,
+                        PdfToImageConverter.DEFAULT_DPI, pageRange);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(List<String> outputPaths) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPaths != null && !outputPaths.isEmpty()) {
+                Toast.makeText(context, 
+                        "Conversion successful! " + outputPaths.size() + " images saved to:\n" 
+                                + new File(outputPaths.get(0)).getParent(), 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+
+    
+    /**
+     * AsyncTask to perform the TXT to DOCX conversion in the background
+     */
+    private class TxtToDocxConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri txtUri;
+        private ProgressDialog progressDialog;
+        
+        public TxtToDocxConversionTask(Context context, Uri txtUri) {
+            this.context = context;
+            this.txtUri = txtUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting TXT to DOCX...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return TxtToDocxConverter.convertTxtToDocx(context, txtUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the TXT to PDF conversion in the background
+     */
+    private class TxtToPdfConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri txtUri;
+        private ProgressDialog progressDialog;
+        
+        public TxtToPdfConversionTask(Context context, Uri txtUri) {
+            this.context = context;
+            this.txtUri = txtUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting TXT to PDF...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return TxtToPdfConverter.convertTxtToPdf(context, txtUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the CSV to XLSX conversion in the background
+     */
+    private class CsvToXlsxConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri csvUri;
+        private ProgressDialog progressDialog;
+        
+        public CsvToXlsxConversionTask(Context context, Uri csvUri) {
+            this.context = context;
+            this.csvUri = csvUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting CSV to XLSX...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return CsvToXlsxConverter.convertCsvToXlsx(context, csvUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the XLSX to CSV conversion in the background
+     */
+    private class XlsxToCsvConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri xlsxUri;
+        private ProgressDialog progressDialog;
+        
+        public XlsxToCsvConversionTask(Context context, Uri xlsxUri) {
+            this.context = context;
+            this.xlsxUri = xlsxUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting XLSX to CSV...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return XlsxToCsvConverter.convertXlsxToCsv(context, xlsxUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the XLSX to TXT conversion in the background
+     */
+    private class XlsxToTxtConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri xlsxUri;
+        private ProgressDialog progressDialog;
+        
+        public XlsxToTxtConversionTask(Context context, Uri xlsxUri) {
+            this.context = context;
+            this.xlsxUri = xlsxUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting XLSX to TXT...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return XlsxToTxtConverter.convertXlsxToTxt(context, xlsxUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the PPTX to TXT conversion in the background
+     */
+    private class PptxToTxtConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri pptxUri;
+        private ProgressDialog progressDialog;
+        
+        public PptxToTxtConversionTask(Context context, Uri pptxUri) {
+            this.context = context;
+            this.pptxUri = pptxUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting PPTX to TXT...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return PptxToTxtConverter.convertPptxToTxt(context, pptxUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the PPTX to DOCX conversion in the background
+     */
+    private class PptxToDocxConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri pptxUri;
+        private ProgressDialog progressDialog;
+        
+        public PptxToDocxConversionTask(Context context, Uri pptxUri) {
+            this.context = context;
+            this.pptxUri = pptxUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting PPTX to DOCX...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return PptxToDocxConverter.convertPptxToDocx(context, pptxUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the TXT to EPUB conversion in the background
+     */
+    private class TxtToEpubConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri txtUri;
+        private ProgressDialog progressDialog;
+        
+        public TxtToEpubConversionTask(Context context, Uri txtUri) {
+            this.context = context;
+            this.txtUri = txtUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting TXT to EPUB...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return TxtToEpubConverter.convertTxtToEpub(context, txtUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the DOCX to EPUB conversion in the background
+     */
+    private class DocxToEpubConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri docxUri;
+        private ProgressDialog progressDialog;
+        
+        public DocxToEpubConversionTask(Context context, Uri docxUri) {
+            this.context = context;
+            this.docxUri = docxUri;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting DOCX to EPUB...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return DocxToEpubConverter.convertDocxToEpub(context, docxUri);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        
+        @Override
+        protected void onPostExecute(String outputPath) {
+            if (progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+            
+            if (outputPath != null) {
+                Toast.makeText(context, 
+                        "Conversion successful! File saved to:\n" + outputPath, 
+                        Toast.LENGTH_LONG).show();
+                dismiss();
+            } else {
+                Toast.makeText(context, 
+                        "Conversion failed. Please try again.", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+    
+    /**
+     * AsyncTask to perform the PDF to EPUB conversion in the background
+     */
+    private class PdfToEpubConversionTask extends AsyncTask<Void, Void, String> {
+        private Context context;
+        private Uri pdfUri;
+        private PageRange pageRange;
+        private ProgressDialog progressDialog;
+        
+        public PdfToEpubConversionTask(Context context, Uri pdfUri, PageRange pageRange) {
+            this.context = context;
+            this.pdfUri = pdfUri;
+            this.pageRange = pageRange;
+        }
+        
+        @Override
+        protected void onPreExecute() {
+            progressDialog = new ProgressDialog(context);
+            progressDialog.setMessage("Converting PDF to EPUB...");
+            progressDialog.setCancelable(false);
+            progressDialog.show();
+        }
+        
+        @Override
+        protected String doInBackground(Void... voids) {
+            try {
+                return PdfToEpubConverter.convertPdfToEpub(context, pdfUri, pageRange);
             } catch (Exception e) {
                 e.printStackTrace();
                 return null;
@@ -16,6 +16,8 @@ import androidx.core.content.FileProvider;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.curosoft.konvert.R;
+import com.curosoft.konvert.utils.ConversionExecutor;
+import com.curosoft.konvert.utils.PdfMetadataProbe;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
@@ -117,9 +119,13 @@ public class DocsAdapter extends RecyclerView.Adapter<DocsAdapter.DocViewHolder>
             // Set file name
             fileName.setText(document.getName());
             
-            // Set file size
+            // Set file size, with the page count for PDFs
             String formattedSize = FileUtils.formatFileSize(context, document.length());
             fileSize.setText(formattedSize);
+            fileSize.setTag(document);
+            if (document.getName().toLowerCase().endsWith(".pdf")) {
+                bindPageCount(document, formattedSize);
+            }
             
             // Set last modified date
             String formattedDate = FileUtils.formatLastModified(document.lastModified());
@@ -146,6 +152,36 @@ public class DocsAdapter extends RecyclerView.Adapter<DocsAdapter.DocViewHolder>
             actionArrow.setOnClickListener(v -> showContextMenu(v, document));
         }
         
+        /**
+         * Show the page count next to the size, probing the file in the background
+         * the first time it is seen
+         */
+        private void bindPageCount(File document, String formattedSize) {
+            PdfMetadataProbe.PdfMetadata cached = PdfMetadataProbe.getCached(document);
+            if (cached != null) {
+                showPageCount(cached, formattedSize);
+                return;
+            }
+            
+            ConversionExecutor.getProbePool().execute(() -> {
+                PdfMetadataProbe.PdfMetadata metadata = PdfMetadataProbe.probe(document);
+                fileSize.post(() -> {
+                    // The holder may have been rebound to another file meanwhile
+                    if (document.equals(fileSize.getTag())) {
+                        showPageCount(metadata, formattedSize);
+                    }
+                });
+            });
+        }
+        
+        private void showPageCount(PdfMetadataProbe.PdfMetadata metadata, String formattedSize) {
+            if (metadata.hasPageCount()) {
+                int pageCount = metadata.getPageCount();
+                fileSize.setText(formattedSize + " \u00B7 " + 
+                        context.getResources().getQuantityString(R.plurals.page_count, pageCount, pageCount));
+            }
+        }
+        
         /**
          * Open document in DocumentViewerActivity
          */
@@ -271,6 +307,21 @@ public class DocsAdapter extends RecyclerView.Adapter<DocsAdapter.DocViewHolder>
                          "Modified: " + FileUtils.formatLastModified(document.lastModified()) + "\n" +
                          "Path: " + document.getAbsolutePath();
             
+            // Only metadata that is already known, so the dialog never waits on I/O
+            PdfMetadataProbe.PdfMetadata metadata = document.getName().toLowerCase().endsWith(".pdf")
+                    ? PdfMetadataProbe.getCached(document) : null;
+            if (metadata != null) {
+                if (metadata.getTitle() != null) {
+                    info += "\nTitle: " + metadata.getTitle();
+                }
+                if (metadata.hasPageCount()) {
+                    info += "\nPages: " + metadata.getPageCount();
+                }
+                if (metadata.isEncrypted()) {
+                    info += "\nEncrypted: Yes";
+                }
+            }
+            
             new AlertDialog.Builder(context)
                 .setTitle("Document Information")
                 .setMessage(info)
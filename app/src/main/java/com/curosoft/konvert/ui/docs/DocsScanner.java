@@ -17,7 +17,7 @@ import java.util.List;
 public class DocsScanner {
     
     // Supported document extensions
-    private static final String[] SUPPORTED_EXTENSIONS = {".pdf", ".docx", ".txt", ".rtf", ".odt"};
+    private static final String[] SUPPORTED_EXTENSIONS = {".pdf", ".docx", ".doc", ".txt", ".rtf", ".odt", ".csv", ".xlsx", ".pptx"};
     
     // Common document directories to prioritize scanning
     private static final String[] PRIORITY_DIRS = {
@@ -2,6 +2,7 @@ package com.curosoft.konvert.ui.docs;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
+import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Typeface;
 import android.graphics.pdf.PdfRenderer;
@@ -30,8 +31,14 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.cardview.widget.CardView;
 import androidx.core.content.FileProvider;
 import com.curosoft.konvert.R;
+import com.curosoft.konvert.utils.BitmapPool;
+import com.curosoft.konvert.utils.DocxPreviewReader;
+import com.curosoft.konvert.utils.LineIndex;
+import com.curosoft.konvert.utils.TextSource;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DocumentViewerActivity extends AppCompatActivity {
     
@@ -58,6 +65,8 @@ public class DocumentViewerActivity extends AppCompatActivity {
     private int currentPageIndex = 0;
     private int totalPages = 0;
     private Bitmap originalPdfBitmap;
+    // Keeps the previous page's bitmap for the next page; pages are rarely larger than 2048x2048
+    private final BitmapPool pdfBitmapPool = new BitmapPool(2048L * 2048L * 4L);
     
     // Zoom and display state
     private float currentTextSize = 14f;
@@ -72,6 +81,17 @@ public class DocumentViewerActivity extends AppCompatActivity {
     // Dark mode state
     private boolean isDarkMode = false;
     
+    // DOCX preview state
+    private ExecutorService previewExecutor;
+    private volatile DocxPreviewReader docxPreview;
+    private boolean previewLoading = false;
+    
+    // TXT paging state
+    private static final int TEXT_PAGE_LINES = 2000;
+    private LineIndex textIndex;
+    private int textPageIndex = 0;
+    private int textPageCount = 1;
+    
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -180,14 +200,22 @@ public class DocumentViewerActivity extends AppCompatActivity {
         
         // PDF navigation
         btnPrevPage.setOnClickListener(v -> {
-            if (currentPageIndex > 0) {
+            if (documentType != null && documentType.equals("txt")) {
+                if (textPageIndex > 0) {
+                    loadTextPage(textPageIndex - 1);
+                }
+            } else if (currentPageIndex > 0) {
                 currentPageIndex--;
                 renderPdfPage();
             }
         });
         
         btnNextPage.setOnClickListener(v -> {
-            if (currentPageIndex < totalPages - 1) {
+            if (documentType != null && documentType.equals("txt")) {
+                if (textPageIndex < textPageCount - 1) {
+                    loadTextPage(textPageIndex + 1);
+                }
+            } else if (currentPageIndex < totalPages - 1) {
                 currentPageIndex++;
                 renderPdfPage();
             }
@@ -238,13 +266,15 @@ public class DocumentViewerActivity extends AppCompatActivity {
             String lower = fileName.toLowerCase();
             if (lower.endsWith(".pdf")) mimeType = "application/pdf";
             else if (lower.endsWith(".txt")) mimeType = "text/plain";
+            else if (lower.endsWith(".csv")) mimeType = "text/csv";
             else if (lower.endsWith(".docx")) mimeType = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
         }
         
         if ("application/pdf".equals(mimeType)) {
             documentType = "pdf";
             displayPdf();
-        } else if ("text/plain".equals(mimeType)) {
+        } else if ("text/plain".equals(mimeType) || "text/csv".equals(mimeType)
+                || "text/comma-separated-values".equals(mimeType)) {
             documentType = "txt";
             displayTextFile();
         } else if ("application/vnd.openxmlformats-officedocument.wordprocessingml.document".equals(mimeType)) {
@@ -303,12 +333,17 @@ public class DocumentViewerActivity extends AppCompatActivity {
                 height = Math.round(height * scale);
             }
             
-            originalPdfBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            Bitmap previousBitmap = originalPdfBitmap;
+            originalPdfBitmap = pdfBitmapPool.acquire(width, height);
+            originalPdfBitmap.eraseColor(Color.TRANSPARENT);
             currentPage.render(originalPdfBitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
             
             applyPdfZoom();
             updatePdfNavigation();
             
+            // The previous page is no longer shown, so its bitmap can be reused
+            pdfBitmapPool.release(previousBitmap);
+            
         } catch (Exception e) {
             showError("Failed to render PDF page: " + e.getMessage());
         }
@@ -318,70 +353,191 @@ public class DocumentViewerActivity extends AppCompatActivity {
         hideAllCards();
         textContentCard.setVisibility(View.VISIBLE);
         
-        try (java.io.InputStream is = getContentResolver().openInputStream(fileUri)) {
-            if (is == null) {
-                showError("Cannot access text file");
-                return;
-            }
-            
-            java.io.BufferedReader br = new java.io.BufferedReader(new java.io.InputStreamReader(is));
+        // Apply monospace font for TXT files
+        documentContent.setTypeface(Typeface.MONOSPACE);
+        
+        // Show the first page right away
+        try (TextSource source = TextSource.open(this, fileUri)) {
             StringBuilder sb = new StringBuilder();
-            String line;
-            int lineCount = 0;
-            
-            while ((line = br.readLine()) != null && lineCount < 2000) { // Increased limit
-                sb.append(line).append("\n");
-                lineCount++;
-            }
-            br.close();
-            
-            String content = sb.toString();
-            if (lineCount >= 2000) {
-                content += "\n\n... (File truncated - showing first 2000 lines)";
+            int lineCount = readTextPage(source, sb);
+            showTextPage(sb, 0, lineCount, -1);
+            if (lineCount < TEXT_PAGE_LINES) {
+                return;
             }
-            
-            // Format content with header
-            String headerText = String.format("📄 Text Document\n\nFile: %s\nLines: %d\n\n", 
-                fileName != null ? fileName : "Unknown", lineCount);
-            
-            String fullContent = headerText + (content.isEmpty() ? "File appears to be empty" : content);
-            
-            // Apply monospace font for TXT files
-            documentContent.setTypeface(Typeface.MONOSPACE);
-            documentContent.setText(fullContent);
-            applyTextSize();
-            
         } catch (Exception e) {
             showError("Failed to open text file: " + e.getMessage());
+            return;
+        }
+        
+        // Index the lines of a longer file in the background so any page can be opened
+        previewExecutor = Executors.newSingleThreadExecutor();
+        previewExecutor.execute(() -> {
+            try {
+                LineIndex index = LineIndex.get(this, fileUri);
+                runOnUiThread(() -> onTextIndexReady(index));
+            } catch (Exception e) {
+                runOnUiThread(() -> Toast.makeText(this, "Only the first " + TEXT_PAGE_LINES
+                        + " lines can be shown: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+    
+    private int readTextPage(TextSource source, StringBuilder sb) throws IOException {
+        int lineCount = 0;
+        while (lineCount < TEXT_PAGE_LINES && source.readLine(sb)) {
+            sb.append('\n');
+            lineCount++;
+        }
+        return lineCount;
+    }
+    
+    /**
+     * Show one page of a text file
+     * 
+     * @param totalLines Number of lines in the file, or -1 while it is being indexed
+     */
+    private void showTextPage(CharSequence content, long firstLine, int lineCount, long totalLines) {
+        String lines;
+        String footer = "";
+        if (totalLines > TEXT_PAGE_LINES) {
+            lines = String.format("%d-%d of %d", firstLine + 1, firstLine + lineCount, totalLines);
+        } else if (totalLines < 0 && lineCount >= TEXT_PAGE_LINES) {
+            lines = lineCount + "+";
+            footer = "\n\n... (Showing the first " + TEXT_PAGE_LINES + " lines while the file is indexed)";
+        } else {
+            lines = String.valueOf(lineCount);
+        }
+        
+        // Format content with header
+        String headerText = String.format("📄 Text Document\n\nFile: %s\nLines: %s\n\n", 
+            fileName != null ? fileName : "Unknown", lines);
+        
+        String fullContent = headerText + (content.length() == 0 ? "File appears to be empty" : content + footer);
+        documentContent.setText(fullContent);
+        applyTextSize();
+    }
+    
+    private void onTextIndexReady(LineIndex index) {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        
+        textIndex = index;
+        textPageCount = (int) Math.max(1, (index.getLineCount() + TEXT_PAGE_LINES - 1) / TEXT_PAGE_LINES);
+        if (textPageCount > 1) {
+            pdfNavigationBar.setVisibility(View.VISIBLE);
         }
+        loadTextPage(textPageIndex);
+    }
+    
+    private void loadTextPage(int page) {
+        if (previewExecutor == null || textIndex == null || previewLoading) {
+            return;
+        }
+        
+        previewLoading = true;
+        LineIndex index = textIndex;
+        long firstLine = (long) page * TEXT_PAGE_LINES;
+        previewExecutor.execute(() -> {
+            try (TextSource source = index.open(this, fileUri, firstLine)) {
+                StringBuilder sb = new StringBuilder();
+                int lineCount = readTextPage(source, sb);
+                runOnUiThread(() -> {
+                    previewLoading = false;
+                    if (isFinishing() || isDestroyed()) {
+                        return;
+                    }
+                    textPageIndex = page;
+                    showTextPage(sb, firstLine, lineCount, index.getLineCount());
+                    updateTextNavigation();
+                    nestedScrollView.scrollTo(0, 0);
+                });
+            } catch (Exception e) {
+                runOnUiThread(() -> {
+                    previewLoading = false;
+                    Toast.makeText(this, "Failed to load page: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+    
+    private void updateTextNavigation() {
+        pageIndicator.setText((textPageIndex + 1) + " of " + textPageCount);
+        btnPrevPage.setEnabled(textPageIndex > 0);
+        btnNextPage.setEnabled(textPageIndex < textPageCount - 1);
     }
     
     private void displayDocxFile() {
         hideAllCards();
         textContentCard.setVisibility(View.VISIBLE);
         
-        try {
-            String text = com.curosoft.konvert.utils.DocxToTxtConverter.convertDocxToTxt(this, fileUri);
-            
-            if (text == null || text.trim().isEmpty()) {
-                String emptyMessage = String.format("📄 DOCX Document\n\nFile: %s\n\nDocument appears to be empty or contains no readable text", 
-                    fileName != null ? fileName : "Unknown");
-                documentContent.setText(createFormattedText(emptyMessage));
-            } else {
-                // Format content with header
-                String headerText = String.format("📄 DOCX Document\n\nFile: %s\nCharacters: %d\n\n", 
-                    fileName != null ? fileName : "Unknown", text.length());
-                
-                String fullContent = headerText + text;
-                
-                // Apply regular font for DOCX files
-                documentContent.setTypeface(Typeface.DEFAULT);
-                documentContent.setText(createFormattedText(fullContent));
-                applyTextSize();
+        // Show the header right away; the text streams in from a background thread
+        String headerText = String.format("📄 DOCX Document\n\nFile: %s\n\n", 
+            fileName != null ? fileName : "Unknown");
+        documentContent.setTypeface(Typeface.DEFAULT);
+        documentContent.setText(createFormattedText(headerText), TextView.BufferType.EDITABLE);
+        applyTextSize();
+        
+        previewExecutor = Executors.newSingleThreadExecutor();
+        previewLoading = true;
+        previewExecutor.execute(() -> {
+            try {
+                docxPreview = new DocxPreviewReader(this, fileUri);
+                String chunk = docxPreview.readChunk();
+                runOnUiThread(() -> onDocxChunkLoaded(chunk, true));
+            } catch (Exception e) {
+                runOnUiThread(() -> showError("Failed to open DOCX: " + e.getMessage()));
             }
-            
-        } catch (Exception e) {
-            showError("Failed to open DOCX: " + e.getMessage());
+        });
+        
+        // Load further chunks as the user nears the end of what is shown
+        nestedScrollView.setOnScrollChangeListener((v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+            View child = nestedScrollView.getChildAt(0);
+            if (child != null && scrollY + nestedScrollView.getHeight() >= child.getHeight() - nestedScrollView.getHeight()) {
+                loadNextDocxChunk();
+            }
+        });
+    }
+    
+    private void loadNextDocxChunk() {
+        if (previewExecutor == null || docxPreview == null || previewLoading || docxPreview.isFinished()) {
+            return;
+        }
+        
+        previewLoading = true;
+        previewExecutor.execute(() -> {
+            try {
+                String chunk = docxPreview.readChunk();
+                runOnUiThread(() -> onDocxChunkLoaded(chunk, false));
+            } catch (Exception e) {
+                runOnUiThread(() -> {
+                    previewLoading = false;
+                    Toast.makeText(this, "Failed to load more text: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+    
+    private void onDocxChunkLoaded(String chunk, boolean firstChunk) {
+        previewLoading = false;
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        
+        if (chunk != null) {
+            documentContent.append(chunk);
+        } else if (firstChunk) {
+            documentContent.append("Document appears to be empty or contains no readable text");
+        }
+        
+        // A short document may not fill the screen, so keep loading until it scrolls
+        if (docxPreview != null && !docxPreview.isFinished()) {
+            nestedScrollView.post(() -> {
+                View child = nestedScrollView.getChildAt(0);
+                if (child != null && child.getHeight() <= nestedScrollView.getHeight() * 2) {
+                    loadNextDocxChunk();
+                }
+            });
         }
     }
     
@@ -504,6 +660,22 @@ public class DocumentViewerActivity extends AppCompatActivity {
                 originalPdfBitmap.recycle();
                 originalPdfBitmap = null;
             }
+            pdfBitmapPool.clear();
+            if (previewExecutor != null) {
+                // Close the preview on its own thread so it never races a chunk being read
+                previewExecutor.execute(() -> {
+                    try {
+                        DocxPreviewReader preview = docxPreview;
+                        if (preview != null) {
+                            preview.close();
+                        }
+                    } catch (IOException e) {
+                        // Silent cleanup
+                    }
+                });
+                previewExecutor.shutdown();
+                previewExecutor = null;
+            }
         } catch (Exception e) {
             // Silent cleanup
         }
@@ -2,9 +2,8 @@ package com.curosoft.konvert.ui.docs;
 
 import android.content.Context;
 import android.text.format.Formatter;
-import java.io.BufferedReader;
+import com.curosoft.konvert.utils.TextSource;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -25,10 +24,9 @@ public class FileUtils {
      */
     public static String readFileAsText(File file) {
         StringBuilder text = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                text.append(line).append("\n");
+        try (TextSource source = TextSource.open(file)) {
+            while (source.readLine(text)) {
+                text.append('\n');
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -108,12 +106,20 @@ public class FileUtils {
                 return "PDF";
             case "docx":
                 return "DOCX";
+            case "doc":
+                return "DOC";
             case "txt":
                 return "TXT";
             case "rtf":
                 return "RTF";
             case "odt":
                 return "ODT";
+            case "csv":
+                return "CSV";
+            case "xlsx":
+                return "XLSX";
+            case "pptx":
+                return "PPTX";
             default:
                 return "DOC";
         }
@@ -128,11 +134,15 @@ public class FileUtils {
             case "pdf":
                 return com.curosoft.konvert.R.drawable.ic_file_pdf;
             case "docx":
+            case "doc":
                 return com.curosoft.konvert.R.drawable.ic_file_docx;
             case "txt":
                 return com.curosoft.konvert.R.drawable.ic_file_txt;
             case "rtf":
             case "odt":
+            case "csv":
+            case "xlsx":
+            case "pptx":
             default:
                 return com.curosoft.konvert.R.drawable.ic_file_general;
         }
@@ -144,8 +154,9 @@ public class FileUtils {
     public static boolean isSupportedDocument(String fileName) {
         String extension = getFileExtension(fileName);
         return extension.equals("pdf") || extension.equals("docx") || 
-               extension.equals("txt") || extension.equals("rtf") || 
-               extension.equals("odt");
+               extension.equals("doc") || extension.equals("txt") || extension.equals("rtf") || 
+               extension.equals("odt") || extension.equals("csv") ||
+               extension.equals("xlsx") || extension.equals("pptx");
     }
     
     /**
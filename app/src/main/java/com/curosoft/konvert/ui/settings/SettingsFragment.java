@@ -38,7 +38,12 @@ public class SettingsFragment extends Fragment {
     private TextView cacheSize;
     private TextView storageInfo;
     private TextView fontSizeStatus;
+    private TextView imageResolutionStatus;
+    private TextView imageMemoryLimitStatus;
+    private TextView pdfCompressionStatus;
     private Switch darkModeSwitch;
+    private Switch compactPdfSwitch;
+    private Switch recompressImagesSwitch;
     
     // Settings Containers
     private LinearLayout saveLocationSetting;
@@ -46,6 +51,9 @@ public class SettingsFragment extends Fragment {
     private LinearLayout storageSummarySetting;
     private LinearLayout fontSizeSetting;
     private LinearLayout darkModeSetting;
+    private LinearLayout imageResolutionSetting;
+    private LinearLayout imageMemoryLimitSetting;
+    private LinearLayout pdfCompressionSetting;
     private LinearLayout managePermissionsSetting;
     private LinearLayout privacyPolicySetting;
     private LinearLayout rateAppSetting;
@@ -80,9 +88,14 @@ public class SettingsFragment extends Fragment {
         cacheSize = view.findViewById(R.id.cacheSize);
         storageInfo = view.findViewById(R.id.storageInfo);
         fontSizeStatus = view.findViewById(R.id.fontSizeStatus);
+        imageResolutionStatus = view.findViewById(R.id.imageResolutionStatus);
+        imageMemoryLimitStatus = view.findViewById(R.id.imageMemoryLimitStatus);
+        pdfCompressionStatus = view.findViewById(R.id.pdfCompressionStatus);
         
         // Switches
         darkModeSwitch = view.findViewById(R.id.darkModeSwitch);
+        compactPdfSwitch = view.findViewById(R.id.compactPdfSwitch);
+        recompressImagesSwitch = view.findViewById(R.id.recompressImagesSwitch);
         
         // Settings containers
         saveLocationSetting = view.findViewById(R.id.saveLocationSetting);
@@ -90,6 +103,9 @@ public class SettingsFragment extends Fragment {
         storageSummarySetting = view.findViewById(R.id.storageSummarySetting);
         fontSizeSetting = view.findViewById(R.id.fontSizeSetting);
         darkModeSetting = view.findViewById(R.id.darkModeSetting);
+        imageResolutionSetting = view.findViewById(R.id.imageResolutionSetting);
+        imageMemoryLimitSetting = view.findViewById(R.id.imageMemoryLimitSetting);
+        pdfCompressionSetting = view.findViewById(R.id.pdfCompressionSetting);
         managePermissionsSetting = view.findViewById(R.id.managePermissionsSetting);
         privacyPolicySetting = view.findViewById(R.id.privacyPolicySetting);
         rateAppSetting = view.findViewById(R.id.rateAppSetting);
@@ -113,6 +129,16 @@ public class SettingsFragment extends Fragment {
                           ". Restart app to see full effect.", Toast.LENGTH_LONG).show();
         });
         
+        // Conversion
+        imageResolutionSetting.setOnClickListener(v -> showImageResolutionDialog());
+        imageMemoryLimitSetting.setOnClickListener(v -> showImageMemoryLimitDialog());
+        pdfCompressionSetting.setOnClickListener(v -> showPdfCompressionDialog());
+        
+        compactPdfSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                settingsManager.setPdfCompactOutput(isChecked));
+        recompressImagesSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                settingsManager.setPdfRecompressImages(isChecked));
+        
         // Privacy & Permissions
         managePermissionsSetting.setOnClickListener(v -> openAppSettings());
         privacyPolicySetting.setOnClickListener(v -> openPrivacyPolicy());
@@ -146,6 +172,11 @@ public class SettingsFragment extends Fragment {
         
         // Apply current dark mode setting
         applyDarkMode(isDarkModeEnabled);
+        
+        // Load conversion settings
+        updateConversionStatus();
+        compactPdfSwitch.setChecked(settingsManager.isPdfCompactOutput());
+        recompressImagesSwitch.setChecked(settingsManager.isPdfRecompressImages());
     }
 
     private void updateDynamicInfo() {
@@ -191,6 +222,25 @@ public class SettingsFragment extends Fragment {
         fontSizeStatus.setText(fontSize + "sp (" + sizeLabel + ")");
     }
 
+    private void updateConversionStatus() {
+        imageResolutionStatus.setText(settingsManager.getImageTargetDpi() + " dpi");
+        imageMemoryLimitStatus.setText(settingsManager.getImageMemoryLimitMb() + " MB per image");
+        int level = settingsManager.getPdfCompressionLevel();
+        pdfCompressionStatus.setText(level + " (" + getCompressionLabel(level) + ")");
+    }
+
+    private String getCompressionLabel(int level) {
+        if (level <= 0) {
+            return "None";
+        } else if (level <= 3) {
+            return "Fast";
+        } else if (level <= 6) {
+            return "Balanced";
+        } else {
+            return "Best";
+        }
+    }
+
     private void showSaveLocationDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
         builder.setTitle("Change Save Location");
@@ -273,6 +323,73 @@ public class SettingsFragment extends Fragment {
         builder.show();
     }
 
+    private void showImageResolutionDialog() {
+        String[] resolutions = {"96 dpi (Smallest files)", "150 dpi (Default)", 
+                               "200 dpi (Sharper)", "300 dpi (Print quality)"};
+        int[] dpiValues = {96, 150, 200, 300};
+        
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
+        builder.setTitle("Image Resolution");
+        builder.setSingleChoiceItems(resolutions, indexOf(dpiValues, settingsManager.getImageTargetDpi(), 1),
+                (dialog, which) -> {
+            settingsManager.setImageTargetDpi(dpiValues[which]);
+            updateConversionStatus();
+            dialog.dismiss();
+            Toast.makeText(getContext(), "Image resolution updated", Toast.LENGTH_SHORT).show();
+        });
+        
+        builder.setNegativeButton("Cancel", null);
+        builder.show();
+    }
+
+    private void showImageMemoryLimitDialog() {
+        String[] limits = {"8 MB (Low memory devices)", "16 MB (Default)", "32 MB", "64 MB (Large images)"};
+        int[] limitValues = {8, 16, 32, 64};
+        
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
+        builder.setTitle("Image Memory Limit");
+        builder.setSingleChoiceItems(limits, indexOf(limitValues, settingsManager.getImageMemoryLimitMb(), 1),
+                (dialog, which) -> {
+            settingsManager.setImageMemoryLimitMb(limitValues[which]);
+            updateConversionStatus();
+            dialog.dismiss();
+            Toast.makeText(getContext(), "Image memory limit updated", Toast.LENGTH_SHORT).show();
+        });
+        
+        builder.setNegativeButton("Cancel", null);
+        builder.show();
+    }
+
+    private void showPdfCompressionDialog() {
+        String[] levels = {"0 (None)", "1 (Fastest)", "6 (Balanced)", "9 (Best, default)"};
+        int[] levelValues = {0, 1, 6, 9};
+        
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
+        builder.setTitle("PDF Compression Level");
+        builder.setSingleChoiceItems(levels, indexOf(levelValues, settingsManager.getPdfCompressionLevel(), 3),
+                (dialog, which) -> {
+            settingsManager.setPdfCompressionLevel(levelValues[which]);
+            updateConversionStatus();
+            dialog.dismiss();
+            Toast.makeText(getContext(), "PDF compression level updated", Toast.LENGTH_SHORT).show();
+        });
+        
+        builder.setNegativeButton("Cancel", null);
+        builder.show();
+    }
+
+    /**
+     * Find the index of a value among the dialog choices, or a default index if it is not one
+     */
+    private int indexOf(int[] values, int value, int defaultIndex) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return defaultIndex;
+    }
+
     private void openAppSettings() {
         Intent intent = new Intent(Settings.ACTION_APPLICATION_DETAILS_SETTINGS);
         Uri uri = Uri.fromParts("package", requireContext().getPackageName(), null);
@@ -0,0 +1,112 @@
+package com.curosoft.konvert.utils;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of mutable ARGB_8888 bitmaps for repeated page rendering
+ *
+ * Free bitmaps are bucketed by their allocation size. A request is served from the
+ * smallest free bitmap that is large enough, reconfigured to the requested
+ * dimensions, so pages of slightly different sizes share allocations. Bitmaps that
+ * would push the pool over its byte limit are recycled instead of kept.
+ * Instances are thread-safe.
+ */
+public class BitmapPool {
+    private static final String TAG = "BitmapPool";
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final long maxPooledBytes;
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+    private long pooledBytes = 0;
+
+    /**
+     * Create a pool
+     *
+     * @param maxPooledBytes Maximum total size of the free bitmaps kept for reuse
+     */
+    public BitmapPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * Get a bitmap of the given size, reusing a free one when possible
+     *
+     * The content of a reused bitmap is undefined; callers should clear it before drawing.
+     *
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @return A mutable ARGB_8888 bitmap
+     */
+    public Bitmap acquire(int width, int height) {
+        int needed = width * height * BYTES_PER_PIXEL;
+        Bitmap bitmap = null;
+
+        synchronized (this) {
+            // Do not spend a much larger allocation on a small page
+            Map.Entry<Integer, ArrayDeque<Bitmap>> entry = buckets.ceilingEntry(needed);
+            if (entry != null && entry.getKey() <= needed * 2L) {
+                bitmap = entry.getValue().poll();
+                if (entry.getValue().isEmpty()) {
+                    buckets.remove(entry.getKey());
+                }
+                pooledBytes -= entry.getKey();
+            }
+        }
+
+        if (bitmap != null) {
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                return bitmap;
+            }
+            try {
+                bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+                return bitmap;
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Cannot reuse bitmap for " + width + "x" + height);
+                bitmap.recycle();
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Return a bitmap to the pool
+     *
+     * @param bitmap A bitmap from {@link #acquire(int, int)} that is no longer in use
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+
+        int size = bitmap.getAllocationByteCount();
+        synchronized (this) {
+            if (pooledBytes + size <= maxPooledBytes) {
+                buckets.computeIfAbsent(size, key -> new ArrayDeque<>()).push(bitmap);
+                pooledBytes += size;
+                return;
+            }
+        }
+        bitmap.recycle();
+    }
+
+    /**
+     * Recycle all free bitmaps
+     */
+    public void clear() {
+        synchronized (this) {
+            for (ArrayDeque<Bitmap> bucket : buckets.values()) {
+                for (Bitmap bitmap : bucket) {
+                    bitmap.recycle();
+                }
+            }
+            buckets.clear();
+            pooledBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.curosoft.konvert.utils;
+
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pool for CPU-bound conversion work
+ *
+ * Converters that split a document into independent pieces (parts, pages, chunks)
+ * submit them here instead of creating their own threads. Tasks running on the pool
+ * must not block waiting for other tasks on the same pool.
+ */
+public class ConversionExecutor {
+    private static final String TAG = "ConversionExecutor";
+
+    private static volatile ExecutorService cpuPool;
+    private static volatile ExecutorService encodePool;
+    private static volatile ExecutorService probePool;
+
+    /**
+     * Get the number of worker threads in the CPU pool
+     *
+     * @return Number of available processors, at least 1
+     */
+    public static int getParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Get the shared CPU pool, creating it on first use
+     *
+     * @return Executor sized to the number of available processors
+     */
+    public static ExecutorService getCpuPool() {
+        ExecutorService pool = cpuPool;
+        if (pool == null) {
+            synchronized (ConversionExecutor.class) {
+                pool = cpuPool;
+                if (pool == null) {
+                    pool = Executors.newFixedThreadPool(getParallelism(), new WorkerThreadFactory("konvert-cpu-"));
+                    cpuPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Get the shared pool for encoding and writing output, creating it on first use
+     *
+     * Producers on the CPU pool hand finished pieces (rendered pages, image data) to
+     * this pool, so they may wait for its tasks without starving themselves.
+     *
+     * @return Executor sized to the number of available processors
+     */
+    public static ExecutorService getEncodePool() {
+        ExecutorService pool = encodePool;
+        if (pool == null) {
+            synchronized (ConversionExecutor.class) {
+                pool = encodePool;
+                if (pool == null) {
+                    pool = Executors.newFixedThreadPool(getParallelism(), new WorkerThreadFactory("konvert-encode-"));
+                    encodePool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Get the shared pool for reading file metadata for list screens, creating it on first use
+     *
+     * A single thread keeps probing from competing with conversions for I/O.
+     *
+     * @return Single-threaded executor
+     */
+    public static ExecutorService getProbePool() {
+        ExecutorService pool = probePool;
+        if (pool == null) {
+            synchronized (ConversionExecutor.class) {
+                pool = probePool;
+                if (pool == null) {
+                    pool = Executors.newSingleThreadExecutor(new WorkerThreadFactory("konvert-probe-"));
+                    probePool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Creates daemon worker threads with background priority so conversions never
+     * compete with the UI thread
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        WorkerThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, namePrefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
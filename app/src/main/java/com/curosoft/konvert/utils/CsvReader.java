@@ -0,0 +1,213 @@
+package com.curosoft.konvert.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming tokenizer for delimiter-separated values (RFC 4180)
+ *
+ * Fields may be quoted with '"', and quoted fields may contain delimiters, line
+ * breaks and doubled quotes. Records end at "\r\n", "\n" or "\r". Text after the
+ * closing quote of a field is kept rather than rejected, as spreadsheet applications
+ * do. All fields of the current record are held in one reused buffer, so reading a
+ * file allocates nothing per record.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final char QUOTE = '"';
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    // Characters of all fields of the current record, and where each field ends
+    private final StringBuilder record = new StringBuilder();
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+    private long recordNumber = 0;
+
+    /**
+     * Create a reader for text with the given delimiter
+     *
+     * @param reader The text to read; it is closed by {@link #close()}
+     * @param delimiter The field delimiter, such as ',', ';' or '\t'
+     */
+    public CsvReader(Reader reader, char delimiter) {
+        if (delimiter == QUOTE || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Invalid delimiter");
+        }
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return false at the end of the text
+     * @throws IOException If reading fails
+     */
+    public boolean nextRecord() throws IOException {
+        record.setLength(0);
+        fieldCount = 0;
+
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        while (true) {
+            if (c == QUOTE) {
+                // Quoted field, up to the quote that isn't doubled
+                while ((c = read()) >= 0) {
+                    if (c == QUOTE) {
+                        c = read();
+                        if (c != QUOTE) {
+                            break;
+                        }
+                    }
+                    record.append((char) c);
+                }
+            }
+            while (c >= 0 && c != delimiter && c != '\r' && c != '\n') {
+                record.append((char) c);
+                c = read();
+            }
+            endField();
+
+            if (c == delimiter) {
+                c = read();
+                if (c < 0 || c == '\r' || c == '\n') {
+                    // A trailing delimiter ends with an empty field
+                    endField();
+                } else {
+                    continue;
+                }
+            }
+            if (c == '\r' && peek() == '\n') {
+                position++;
+            }
+            recordNumber++;
+            return true;
+        }
+    }
+
+    /**
+     * @return The number of fields in the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @param index Index of the field, from 0
+     * @return The unquoted text of a field of the current record
+     */
+    public String getField(int index) {
+        return record.substring(getFieldStart(index), fieldEnds[index]);
+    }
+
+    /**
+     * @param index Index of the field, from 0
+     * @return The length of a field of the current record
+     */
+    public int getFieldLength(int index) {
+        return fieldEnds[index] - getFieldStart(index);
+    }
+
+    /**
+     * @param index Index of the field, from 0
+     * @param offset Index of the character within the field
+     * @return A character of a field of the current record
+     */
+    public char charAt(int index, int offset) {
+        return record.charAt(getFieldStart(index) + offset);
+    }
+
+    /**
+     * @return The number of records read so far, counting the current one
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Guess the delimiter of a file from a sample of its first lines
+     *
+     * Commas, semicolons, tabs and vertical bars outside quotes are counted, and the
+     * most frequent one wins; a sample without any of them gives ','.
+     *
+     * @param sample The start of the text
+     * @return The delimiter
+     */
+    public static char detectDelimiter(CharSequence sample) {
+        char[] candidates = {',', ';', '\t', '|'};
+        int[] counts = new int[candidates.length];
+        boolean quoted = false;
+        for (int i = 0, length = sample.length(); i < length; i++) {
+            char c = sample.charAt(i);
+            if (c == QUOTE) {
+                quoted = !quoted;
+            } else if (!quoted) {
+                for (int j = 0; j < candidates.length; j++) {
+                    if (c == candidates[j]) {
+                        counts[j]++;
+                    }
+                }
+            }
+        }
+
+        int best = 0;
+        for (int j = 1; j < candidates.length; j++) {
+            if (counts[j] > counts[best]) {
+                best = j;
+            }
+        }
+        return candidates[best];
+    }
+
+    private int getFieldStart(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldEnds[fieldCount++] = record.length();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fillBuffer()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fillBuffer()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fillBuffer() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
@@ -0,0 +1,294 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Utility class to convert CSV files to XLSX format
+ *
+ * Rows are written through POI's streaming SXSSF workbook: only the last
+ * {@link #ROW_ACCESS_WINDOW} rows are kept in memory, older rows are flushed to a
+ * compressed temporary file, and strings are stored inline rather than in a shared
+ * strings table, so memory use does not grow with the number of rows.
+ */
+public class CsvToXlsxConverter {
+    private static final String TAG = "CsvToXlsxConverter";
+
+    public static final String XLSX_MIME_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private static final int ROW_ACCESS_WINDOW = 100;
+    private static final int SAMPLE_LINES = 10;
+    // Longer digit strings such as IDs and phone numbers would lose digits as numbers
+    private static final int MAX_NUMBER_DIGITS = 15;
+
+    /**
+     * Convert a CSV file to XLSX format, detecting its delimiter
+     *
+     * @param context Application context
+     * @param csvUri URI of the CSV file to convert
+     * @return Path to the generated XLSX file or null if conversion failed
+     */
+    public static String convertCsvToXlsx(Context context, Uri csvUri) {
+        try {
+            StringBuilder sample = new StringBuilder();
+            try (TextSource text = TextSource.open(context, csvUri)) {
+                for (int i = 0; i < SAMPLE_LINES && text.readLine(sample); i++) {
+                    sample.append('\n');
+                }
+            }
+            return convertCsvToXlsx(context, csvUri, CsvReader.detectDelimiter(sample));
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading CSV file", e);
+            return null;
+        }
+    }
+
+    /**
+     * Convert a CSV file to XLSX format
+     *
+     * @param context Application context
+     * @param csvUri URI of the CSV file to convert
+     * @param delimiter The field delimiter of the CSV file
+     * @return Path to the generated XLSX file or null if conversion failed
+     */
+    public static String convertCsvToXlsx(Context context, Uri csvUri, char delimiter) {
+        Log.d(TAG, "Starting CSV to XLSX conversion");
+
+        try {
+            // Get the file name from the URI
+            String fileName = EnhancedFilePickerUtils.getFileName(context, csvUri);
+            Log.d(TAG, "Converting CSV file: " + fileName);
+
+            // Create output file name
+            String outputFileName = getOutputFileName(fileName);
+
+            // Get the output directory
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            File outputFile = new File(outputDir, outputFileName);
+
+            // Make sure the output directory exists
+            if (!outputDir.exists()) {
+                outputDir.mkdirs();
+            }
+
+            // Write the rows as the records are read
+            boolean success;
+            try (CsvReader csv = new CsvReader(TextSource.open(context, csvUri), delimiter)) {
+                success = createXlsxFromCsv(csv, outputFile);
+            }
+            if (!success) {
+                Log.e(TAG, "Failed to create XLSX file");
+                return null;
+            }
+
+            // Add the file to MediaStore so it appears in Gallery apps
+            addToMediaStore(context, outputFile, XLSX_MIME_TYPE);
+
+            Log.d(TAG, "CSV to XLSX conversion completed successfully");
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting CSV to XLSX", e);
+            return null;
+        }
+    }
+
+    /**
+     * Create an XLSX file with one row per CSV record
+     *
+     * Records past the last row of a sheet continue on a new sheet, and fields past
+     * the last column or longer than a cell can hold are cut off.
+     *
+     * @param csv The records to convert
+     * @param outputFile The output XLSX file
+     * @return true if successful, false otherwise
+     */
+    static boolean createXlsxFromCsv(CsvReader csv, File outputFile) {
+        SpreadsheetVersion version = SpreadsheetVersion.EXCEL2007;
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, ROW_ACCESS_WINDOW, true);
+        try {
+            Sheet sheet = null;
+            int rowIndex = version.getMaxRows();
+            boolean truncated = false;
+            while (csv.nextRecord()) {
+                if (rowIndex == version.getMaxRows()) {
+                    sheet = workbook.createSheet("Sheet" + (workbook.getNumberOfSheets() + 1));
+                    rowIndex = 0;
+                }
+                Row row = sheet.createRow(rowIndex++);
+
+                int fieldCount = csv.getFieldCount();
+                if (fieldCount > version.getMaxColumns()) {
+                    fieldCount = version.getMaxColumns();
+                    truncated = true;
+                }
+                for (int i = 0; i < fieldCount; i++) {
+                    int length = csv.getFieldLength(i);
+                    if (length == 0) {
+                        continue;
+                    }
+                    if (isNumber(csv, i, length)) {
+                        row.createCell(i).setCellValue(Double.parseDouble(csv.getField(i)));
+                    } else {
+                        String value = csv.getField(i);
+                        if (length > version.getMaxTextLength()) {
+                            value = value.substring(0, version.getMaxTextLength());
+                            truncated = true;
+                        }
+                        row.createCell(i).setCellValue(value);
+                    }
+                }
+            }
+            if (sheet == null) {
+                workbook.createSheet("Sheet1");
+            }
+            if (truncated) {
+                Log.w(TAG, "Some fields did not fit in a cell and were cut off");
+            }
+
+            try (FileOutputStream out = new FileOutputStream(outputFile)) {
+                workbook.write(out);
+            }
+            Log.d(TAG, "Wrote " + csv.getRecordNumber() + " rows");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error creating XLSX file", e);
+            outputFile.delete();
+            return false;
+        } finally {
+            // Delete the temporary sheet files
+            workbook.dispose();
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing workbook", e);
+            }
+        }
+    }
+
+    /**
+     * Check whether a field is a plain decimal number that survives conversion to a
+     * double, so it can be stored as a numeric cell
+     */
+    private static boolean isNumber(CsvReader csv, int field, int length) {
+        int i = 0;
+        char c = csv.charAt(field, 0);
+        if (c == '-' || c == '+') {
+            i++;
+        }
+        int integerStart = i;
+        while (i < length && isDigit(csv.charAt(field, i))) {
+            i++;
+        }
+        int integerDigits = i - integerStart;
+        int fractionDigits = 0;
+        if (i < length && csv.charAt(field, i) == '.') {
+            i++;
+            int fractionStart = i;
+            while (i < length && isDigit(csv.charAt(field, i))) {
+                i++;
+            }
+            fractionDigits = i - fractionStart;
+        }
+        if (i != length || integerDigits + fractionDigits == 0
+                || integerDigits + fractionDigits > MAX_NUMBER_DIGITS) {
+            return false;
+        }
+        // Leading zeros usually mark codes such as "007" that must stay text
+        return integerDigits <= 1 || csv.charAt(field, integerStart) != '0';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Generate an output file name based on the input file name
+     *
+     * @param inputFileName The input file name
+     * @return The output file name
+     */
+    private static String getOutputFileName(String inputFileName) {
+        String baseName = inputFileName;
+
+        // Remove the .csv extension if present
+        if (baseName.toLowerCase().endsWith(".csv")) {
+            baseName = baseName.substring(0, baseName.length() - 4);
+        }
+
+        return baseName + ".xlsx";
+    }
+
+    /**
+     * Add the file to the MediaStore so it's visible in file browsers
+     * 
+     * @param context The context
+     * @param file The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+        values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+        
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // For Android 10+ (API 29+), use relative path and is_pending flag
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                // If we're using app-specific storage, copy the file to the MediaStore
+                if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                    try (OutputStream os = resolver.openOutputStream(uri);
+                         FileInputStream fis = new FileInputStream(file)) {
+                        
+                        if (os != null) {
+                            byte[] buffer = new byte[4096];
+                            int bytesRead;
+                            while ((bytesRead = fis.read(buffer)) != -1) {
+                                os.write(buffer, 0, bytesRead);
+                            }
+                            os.flush();
+                        }
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error copying file to MediaStore", e);
+                    }
+                }
+                
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        } else {
+            // For older Android versions, use DATA field with absolute path
+            values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.curosoft.konvert.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer for delimiter-separated values (RFC 4180)
+ *
+ * Fields that contain the delimiter, a quote or a line break are quoted, with quotes
+ * doubled; other fields are written as they are. Records end with "\r\n".
+ */
+public class CsvWriter implements Closeable {
+    private static final char QUOTE = '"';
+
+    private final Writer writer;
+    private final char delimiter;
+    private boolean firstField = true;
+
+    /**
+     * Create a writer with the given delimiter
+     *
+     * @param writer Destination for the text; it is closed by {@link #close()}
+     * @param delimiter The field delimiter, such as ',', ';' or '\t'
+     */
+    public CsvWriter(Writer writer, char delimiter) {
+        this.writer = writer;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Write a field of the current record
+     *
+     * @param value Text of the field; null is written as an empty field
+     * @throws IOException If writing fails
+     */
+    public void writeField(CharSequence value) throws IOException {
+        if (!firstField) {
+            writer.write(delimiter);
+        }
+        firstField = false;
+        if (value == null) {
+            return;
+        }
+
+        int length = value.length();
+        boolean quote = false;
+        for (int i = 0; i < length && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == delimiter || c == QUOTE || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.append(value);
+            return;
+        }
+
+        writer.write(QUOTE);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                writer.write(QUOTE);
+            }
+            writer.write(c);
+        }
+        writer.write(QUOTE);
+    }
+
+    /**
+     * End the current record
+     *
+     * @throws IOException If writing fails
+     */
+    public void endRecord() throws IOException {
+        writer.write("\r\n");
+        firstField = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,228 @@
+package com.curosoft.konvert.utils;
+
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.model.StyleDescription;
+import org.apache.poi.hwpf.model.StyleSheet;
+import org.apache.poi.hwpf.usermodel.Paragraph;
+import org.apache.poi.hwpf.usermodel.Range;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for the paragraphs of legacy Word (.doc) documents
+ *
+ * The document is opened with POI's HWPF from a file, so the OLE2 container is read
+ * through a file channel instead of being copied into memory first. HWPF assembles
+ * the text from the piece table once, and {@link #readParagraph(StringBuilder)}
+ * appends one paragraph at a time from it to a caller's builder, rather than building
+ * the whole document as one String as WordExtractor.getText() does. Field codes are
+ * left out and their results kept, each table row becomes one paragraph with its
+ * cells separated by tabs, and the other control characters Word uses are removed.
+ */
+public class DocReader implements Closeable {
+    private static final int MAX_HEADING_LEVEL = 9;
+    // Outline level of paragraphs that are body text
+    private static final int BODY_TEXT_LEVEL = 9;
+
+    private final POIFSFileSystem fileSystem;
+    private final StyleSheet styles;
+    private final Range range;
+    private final CharSequence text;
+    private final int paragraphCount;
+    private final TextFilter filter = new TextFilter();
+    private int nextParagraph = 0;
+    private int headingLevel = 0;
+
+    /**
+     * Open a document
+     *
+     * @param file The DOC file
+     * @throws IOException If the file cannot be read or is not a Word 97 or later document
+     */
+    public DocReader(File file) throws IOException {
+        try {
+            fileSystem = new POIFSFileSystem(file, true);
+        } catch (RuntimeException e) {
+            throw new IOException("Not a valid DOC file", e);
+        }
+        try {
+            HWPFDocument document = new HWPFDocument(fileSystem.getRoot());
+            styles = document.getStyleSheet();
+            range = document.getRange();
+            text = document.getText();
+            paragraphCount = range.numParagraphs();
+        } catch (IOException | RuntimeException e) {
+            fileSystem.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Not a valid DOC file", e);
+        }
+    }
+
+    /**
+     * @return The number of paragraphs in the main text, counting each table cell and row end
+     */
+    public int getParagraphCount() {
+        return paragraphCount;
+    }
+
+    /**
+     * Append the text of the next paragraph or table row to a builder
+     *
+     * Line breaks within a paragraph are appended as '\n'.
+     *
+     * @param out The builder to append the text to
+     * @return false if there are no more paragraphs
+     */
+    public boolean readParagraph(StringBuilder out) {
+        if (nextParagraph >= paragraphCount) {
+            return false;
+        }
+        Paragraph paragraph = range.getParagraph(nextParagraph++);
+        if (!paragraph.isInTable()) {
+            headingLevel = getHeadingLevel(paragraph);
+            filter.append(text, paragraph.getStartOffset(), paragraph.getEndOffset(), false, out);
+            return true;
+        }
+
+        // Each cell ends with a cell mark and each row with a paragraph holding only the row mark
+        headingLevel = 0;
+        int rowStart = out.length();
+        while (!paragraph.isTableRowEnd()) {
+            filter.append(text, paragraph.getStartOffset(), paragraph.getEndOffset(), true, out);
+            if (nextParagraph >= paragraphCount) {
+                break;
+            }
+            paragraph = range.getParagraph(nextParagraph++);
+            if (!paragraph.isInTable()) {
+                nextParagraph--;
+                break;
+            }
+        }
+        if (out.length() > rowStart && out.charAt(out.length() - 1) == '\t') {
+            out.setLength(out.length() - 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return The heading level (1-9) of the paragraph read last, or 0 if it is not a heading
+     */
+    public int getHeadingLevel() {
+        return headingLevel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileSystem.close();
+    }
+
+    /**
+     * Heading level from the outline level of a paragraph, or from its style name for
+     * documents whose heading styles have no outline level
+     */
+    private int getHeadingLevel(Paragraph paragraph) {
+        int level = paragraph.getLvl();
+        if (level >= 0 && level < BODY_TEXT_LEVEL) {
+            return level + 1;
+        }
+        StyleDescription style = styles.getStyleDescription(paragraph.getStyleIndex());
+        String name = style != null ? style.getName() : null;
+        if (name != null && name.length() == 9 && name.regionMatches(true, 0, "heading ", 0, 8)) {
+            int number = name.charAt(8) - '0';
+            if (number >= 1 && number <= MAX_HEADING_LEVEL) {
+                return number;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Copies the visible characters of document text, tracking fields across paragraphs
+     *
+     * A field is stored as a begin mark, its code, a separator, its result and an end
+     * mark, and fields can nest; only the results are visible.
+     */
+    static class TextFilter {
+        private static final char FIELD_BEGIN = 0x13;
+        private static final char FIELD_SEPARATOR = 0x14;
+        private static final char FIELD_END = 0x15;
+        private static final char CELL_MARK = 0x07;
+        private static final char LINE_BREAK = 0x0b;
+        private static final char NON_BREAKING_HYPHEN = 0x1e;
+
+        // For each open field, whether its code is still being read
+        private boolean[] inCode = new boolean[8];
+        private int depth = 0;
+        private int codeDepth = 0;
+
+        /**
+         * Append the visible text of a paragraph
+         *
+         * @param text The document text
+         * @param start Offset of the paragraph in the text
+         * @param end Offset just past its paragraph or cell mark
+         * @param inTable Whether the paragraph is in a table cell; cell marks then become
+         *                tabs and paragraph marks spaces
+         * @param out The builder to append to
+         */
+        void append(CharSequence text, int start, int end, boolean inTable, StringBuilder out) {
+            end = Math.min(end, text.length());
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case FIELD_BEGIN:
+                        if (depth == inCode.length) {
+                            inCode = Arrays.copyOf(inCode, depth * 2);
+                        }
+                        inCode[depth++] = true;
+                        codeDepth++;
+                        continue;
+                    case FIELD_SEPARATOR:
+                        if (depth > 0 && inCode[depth - 1]) {
+                            inCode[depth - 1] = false;
+                            codeDepth--;
+                        }
+                        continue;
+                    case FIELD_END:
+                        if (depth > 0 && inCode[--depth]) {
+                            codeDepth--;
+                        }
+                        continue;
+                }
+                if (codeDepth > 0) {
+                    continue;
+                }
+                switch (c) {
+                    case '\r':
+                        if (inTable) {
+                            out.append(' ');
+                        }
+                        break;
+                    case CELL_MARK:
+                        if (inTable) {
+                            out.append('\t');
+                        }
+                        break;
+                    case LINE_BREAK:
+                        out.append('\n');
+                        break;
+                    case NON_BREAKING_HYPHEN:
+                        out.append('-');
+                        break;
+                    case '\t':
+                        out.append(c);
+                        break;
+                    default:
+                        // Page breaks, object anchors, note references, optional hyphens and the like
+                        if (c >= 0x20) {
+                            out.append(c);
+                        }
+                        break;
+                }
+            }
+        }
+    }
+}
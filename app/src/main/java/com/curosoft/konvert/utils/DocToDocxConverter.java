@@ -0,0 +1,195 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Utility class to convert legacy Word (DOC) files to DOCX format
+ *
+ * Paragraphs are read one at a time with {@link DocReader} and streamed into the
+ * package by {@link DocxWriter}; headings keep their level.
+ */
+public class DocToDocxConverter {
+    private static final String TAG = "DocToDocxConverter";
+
+    /**
+     * Convert a DOC file to DOCX format
+     *
+     * @param context Application context
+     * @param docUri URI of the DOC file to convert
+     * @return Path to the generated DOCX file or null if conversion failed
+     */
+    public static String convertDocToDocx(Context context, Uri docUri) {
+        Log.d(TAG, "Starting DOC to DOCX conversion");
+
+        File tempInput = null;
+        File outputFile = null;
+        try {
+            // Get the file name from the URI
+            String fileName = EnhancedFilePickerUtils.getFileName(context, docUri);
+            Log.d(TAG, "Converting DOC file: " + fileName);
+
+            // Get the output directory
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            if (!outputDir.exists()) {
+                outputDir.mkdirs();
+            }
+            outputFile = new File(outputDir, getOutputFileName(fileName));
+
+            tempInput = copyToTempFile(context, docUri);
+            try (DocReader reader = new DocReader(tempInput)) {
+                Log.d(TAG, "Reading " + reader.getParagraphCount() + " paragraphs");
+                createDocxFromDoc(reader, outputFile);
+            }
+
+            // Add the file to MediaStore so it appears in file browsers
+            addToMediaStore(context, outputFile, "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+
+            Log.d(TAG, "DOC to DOCX conversion completed successfully");
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting DOC to DOCX", e);
+            if (outputFile != null) {
+                outputFile.delete();
+            }
+            return null;
+        } finally {
+            if (tempInput != null) {
+                tempInput.delete();
+            }
+        }
+    }
+
+    /**
+     * Write the paragraphs of a document to a DOCX file
+     *
+     * @param reader The document
+     * @param outputFile The output DOCX file
+     * @throws IOException If writing fails
+     */
+    private static void createDocxFromDoc(DocReader reader, File outputFile) throws IOException {
+        try (DocxWriter writer = new DocxWriter(new FileOutputStream(outputFile))) {
+            writer.writeHeader();
+
+            StringBuilder paragraph = new StringBuilder();
+            while (reader.readParagraph(paragraph)) {
+                int headingLevel = reader.getHeadingLevel();
+                if (headingLevel > 0) {
+                    writer.writeHeading(paragraph, headingLevel);
+                } else {
+                    writer.writeParagraph(paragraph);
+                }
+                paragraph.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Copy the document to a temporary file, so HWPF can read it through a file channel
+     */
+    private static File copyToTempFile(Context context, Uri uri) throws IOException {
+        File tempFile = File.createTempFile("doc_input", ".doc", context.getCacheDir());
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
+             OutputStream outputStream = new FileOutputStream(tempFile)) {
+            if (inputStream == null) {
+                throw new IOException("Cannot open input stream for DOC file");
+            }
+            byte[] buffer = new byte[16 * 1024];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * Generate an output file name based on the input file name
+     * 
+     * @param inputFileName The input file name
+     * @return The output file name
+     */
+    private static String getOutputFileName(String inputFileName) {
+        String baseName = inputFileName;
+        
+        // Remove the .doc extension if present
+        if (baseName.toLowerCase().endsWith(".doc")) {
+            baseName = baseName.substring(0, baseName.length() - 4);
+        }
+        
+        return baseName + ".docx";
+    }
+
+    /**
+     * Add the file to the MediaStore so it's visible in file browsers
+     * 
+     * @param context The context
+     * @param file The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+        values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+        
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // For Android 10+ (API 29+), use relative path and is_pending flag
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                // If we're using app-specific storage, copy the file to the MediaStore
+                if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                    try (OutputStream os = resolver.openOutputStream(uri);
+                         FileInputStream fis = new FileInputStream(file)) {
+                        
+                        if (os != null) {
+                            byte[] buffer = new byte[4096];
+                            int bytesRead;
+                            while ((bytesRead = fis.read(buffer)) != -1) {
+                                os.write(buffer, 0, bytesRead);
+                            }
+                            os.flush();
+                        }
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error copying file to MediaStore", e);
+                    }
+                }
+                
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        } else {
+            // For older Android versions, use DATA field with absolute path
+            values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        }
+    }
+}
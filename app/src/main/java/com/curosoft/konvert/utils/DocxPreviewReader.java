@@ -0,0 +1,131 @@
+package com.curosoft.konvert.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Utility class to read DOCX text incrementally for on-screen preview
+ *
+ * The body is streamed paragraph by paragraph and each call to {@link #readChunk()}
+ * stops as soon as its character or paragraph budget is reached, so the first screenful
+ * is available without parsing the rest of the document. The underlying stream stays
+ * open between chunks; call {@link #close()} when the preview is no longer needed.
+ * Instances are not thread-safe and should be used from a single background thread.
+ */
+public class DocxPreviewReader implements Closeable {
+    private static final String TAG = "DocxPreviewReader";
+
+    // Default budget for one chunk: roughly a screenful of text
+    public static final int DEFAULT_MAX_CHARS = 4000;
+    public static final int DEFAULT_MAX_PARAGRAPHS = 80;
+
+    private final ZipInputStream zis;
+    private final DocxReader.ParagraphCursor cursor;
+    private final int maxChars;
+    private final int maxParagraphs;
+    // Read from the UI thread to decide whether more chunks are needed
+    private volatile boolean finished = false;
+
+    /**
+     * Open a preview over a DOCX file with the default chunk budget
+     *
+     * @param context Application context
+     * @param docxUri Uri of the DOCX file
+     * @throws IOException If the file cannot be opened or has no document body
+     */
+    public DocxPreviewReader(Context context, Uri docxUri) throws IOException {
+        this(context, docxUri, DEFAULT_MAX_CHARS, DEFAULT_MAX_PARAGRAPHS);
+    }
+
+    /**
+     * Open a preview over a DOCX file
+     *
+     * @param context Application context
+     * @param docxUri Uri of the DOCX file
+     * @param maxChars Character budget per chunk; a chunk ends after the paragraph that reaches it
+     * @param maxParagraphs Paragraph budget per chunk
+     * @throws IOException If the file cannot be opened or has no document body
+     */
+    public DocxPreviewReader(Context context, Uri docxUri, int maxChars, int maxParagraphs) throws IOException {
+        this.maxChars = Math.max(1, maxChars);
+        this.maxParagraphs = Math.max(1, maxParagraphs);
+
+        InputStream inputStream = context.getContentResolver().openInputStream(docxUri);
+        if (inputStream == null) {
+            throw new IOException("Cannot open input stream for DOCX file");
+        }
+        zis = new ZipInputStream(new BufferedInputStream(inputStream));
+
+        try {
+            // word/document.xml is normally near the start of the archive, ahead of any media
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (DocxReader.DOCUMENT_PART.equals(entry.getName())) {
+                    break;
+                }
+            }
+            if (entry == null) {
+                throw new IOException("Not a DOCX file: " + DocxReader.DOCUMENT_PART + " is missing");
+            }
+            cursor = new DocxReader.ParagraphCursor(zis);
+        } catch (IOException e) {
+            zis.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the next chunk of text
+     *
+     * @return Text of the next paragraphs, each ending with a newline, or null at the end
+     * @throws IOException If reading fails
+     */
+    public String readChunk() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        long startTime = System.currentTimeMillis();
+        StringBuilder chunk = new StringBuilder();
+        int paragraphs = 0;
+
+        while (chunk.length() < maxChars && paragraphs < maxParagraphs) {
+            DocxReader.Paragraph paragraph = cursor.next();
+            if (paragraph == null) {
+                finished = true;
+                break;
+            }
+            for (DocxReader.Run run : paragraph.runs) {
+                chunk.append(run.text);
+            }
+            chunk.append('\n');
+            paragraphs++;
+        }
+
+        Log.d(TAG, "Read " + paragraphs + " paragraphs in " + (System.currentTimeMillis() - startTime) + " ms");
+        return paragraphs > 0 ? chunk.toString() : null;
+    }
+
+    /**
+     * Check whether the whole document has been read
+     *
+     * @return true once the last paragraph has been returned
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        cursor.close();
+    }
+}
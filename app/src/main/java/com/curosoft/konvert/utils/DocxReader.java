@@ -0,0 +1,812 @@
+package com.curosoft.konvert.utils;
+
+import android.util.Log;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Utility class to read the text content of DOCX files
+ *
+ * Each XML part (body, headers, footers, footnotes, endnotes, comments) is parsed with
+ * its own streaming pull parser. Parts are independent, so {@link #read(File)} parses
+ * them concurrently on the shared CPU pool over a random-access ZipFile and then merges
+ * the results back into document order.
+ */
+public class DocxReader {
+    private static final String TAG = "DocxReader";
+
+    public static final String DOCUMENT_PART = "word/document.xml";
+
+    // Header and footer parts are numbered, e.g. word/header2.xml
+    private static final Pattern NUMBERED_PART = Pattern.compile("word/(header|footer)(\\d*)\\.xml");
+
+    // Bits used in Run.formatMask and Run.formatValues
+    public static final int BOLD = 1;
+    public static final int ITALIC = 2;
+    public static final int UNDERLINE = 4;
+
+    /**
+     * Kinds of XML parts that carry document text, in the order they are merged
+     */
+    public enum PartType {
+        HEADER, BODY, FOOTER, FOOTNOTES, ENDNOTES, COMMENTS
+    }
+
+    /**
+     * An image placed in a run, referenced by relationship id
+     */
+    public static class ImageRef {
+        public final String relationshipId;
+        // Display size in EMU (914400 per inch), or 0 when not given
+        public final long widthEmu;
+        public final long heightEmu;
+
+        public ImageRef(String relationshipId, long widthEmu, long heightEmu) {
+            this.relationshipId = relationshipId;
+            this.widthEmu = widthEmu;
+            this.heightEmu = heightEmu;
+        }
+    }
+
+    /**
+     * A run of text sharing the same character formatting
+     */
+    public static class Run {
+        public final String text;
+        public final String styleId;
+        // Which of BOLD, ITALIC and UNDERLINE are set directly on the run
+        public final int formatMask;
+        // Values of the directly set flags; bits outside formatMask are always 0
+        public final int formatValues;
+        // Image drawn by this run, or null for text runs; image runs have empty text
+        public final ImageRef image;
+
+        public Run(String text, String styleId, int formatMask, int formatValues) {
+            this(text, styleId, formatMask, formatValues, null);
+        }
+
+        public Run(String text, String styleId, int formatMask, int formatValues, ImageRef image) {
+            this.text = text;
+            this.styleId = styleId;
+            this.formatMask = formatMask;
+            this.formatValues = formatValues & formatMask;
+            this.image = image;
+        }
+    }
+
+    /**
+     * A top-level item of a document body: a paragraph or a table row
+     */
+    public interface Block {
+    }
+
+    /**
+     * A paragraph made of runs
+     */
+    public static class Paragraph implements Block {
+        public final String styleId;
+        // Direct list numbering, or null/0 when the paragraph has none of its own
+        public final String numId;
+        public final int numLevel;
+        public final List<Run> runs;
+
+        public Paragraph(String styleId, String numId, int numLevel, List<Run> runs) {
+            this.styleId = styleId;
+            this.numId = numId;
+            this.numLevel = numLevel;
+            this.runs = runs;
+        }
+
+        /**
+         * Get the plain text of the paragraph
+         *
+         * @return Concatenated text of all runs
+         */
+        public String getText() {
+            if (runs.size() == 1) {
+                return runs.get(0).text;
+            }
+            StringBuilder text = new StringBuilder();
+            for (Run run : runs) {
+                text.append(run.text);
+            }
+            return text.toString();
+        }
+
+        /**
+         * Check whether the paragraph contains any text or images
+         *
+         * @return true if all runs are empty
+         */
+        public boolean isEmpty() {
+            for (Run run : runs) {
+                if (!run.text.isEmpty() || run.image != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A table cell; paragraphs of nested tables are flattened into it
+     */
+    public static class TableCell {
+        // Values of vMerge
+        public static final int MERGE_NONE = 0;
+        public static final int MERGE_RESTART = 1;
+        public static final int MERGE_CONTINUE = 2;
+
+        // Number of grid columns the cell spans
+        public final int gridSpan;
+        // Whether the cell starts or continues a vertical merge with the cell above
+        public final int vMerge;
+        public final List<Paragraph> paragraphs;
+
+        public TableCell(int gridSpan, List<Paragraph> paragraphs) {
+            this(gridSpan, MERGE_NONE, paragraphs);
+        }
+
+        public TableCell(int gridSpan, int vMerge, List<Paragraph> paragraphs) {
+            this.gridSpan = gridSpan;
+            this.vMerge = vMerge;
+            this.paragraphs = paragraphs;
+        }
+    }
+
+    /**
+     * A row of a top-level table
+     *
+     * Rows are returned one at a time so large tables never need to be held in memory.
+     * Consecutive rows with the same tableIndex belong to the same table.
+     */
+    public static class TableRow implements Block {
+        public final int tableIndex;
+        public final boolean header;
+        public final List<TableCell> cells;
+
+        public TableRow(int tableIndex, boolean header, List<TableCell> cells) {
+            this.tableIndex = tableIndex;
+            this.header = header;
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * The paragraphs of one XML part
+     */
+    public static class Part {
+        public final String name;
+        public final PartType type;
+        public final List<Paragraph> paragraphs;
+
+        public Part(String name, PartType type, List<Paragraph> paragraphs) {
+            this.name = name;
+            this.type = type;
+            this.paragraphs = paragraphs;
+        }
+    }
+
+    /**
+     * The text content of a DOCX file, with parts in merge order
+     */
+    public static class Document {
+        public final List<Part> parts;
+
+        public Document(List<Part> parts) {
+            this.parts = parts;
+        }
+
+        /**
+         * Get all parts of the given type
+         *
+         * @param type Part type to select
+         * @return Matching parts in document order
+         */
+        public List<Part> getParts(PartType type) {
+            List<Part> result = new ArrayList<>();
+            for (Part part : parts) {
+                if (part.type == type) {
+                    result.add(part);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Read all text-bearing parts of a DOCX file, parsing them concurrently
+     *
+     * Must not be called from a task already running on the CPU pool.
+     *
+     * @param docxFile DOCX file to read
+     * @return Parsed document
+     * @throws IOException If the file cannot be read or a part is malformed
+     */
+    public static Document read(File docxFile) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        try (ZipFile zipFile = new ZipFile(docxFile)) {
+            List<PartEntry> entries = findParts(zipFile);
+            if (entries.isEmpty()) {
+                throw new IOException("Not a DOCX file: " + DOCUMENT_PART + " is missing");
+            }
+
+            // Submit the largest parts first so the slowest one starts immediately
+            List<PartEntry> bySize = new ArrayList<>(entries);
+            Collections.sort(bySize, (a, b) -> Long.compare(b.entry.getSize(), a.entry.getSize()));
+
+            ExecutorService pool = ConversionExecutor.getCpuPool();
+            List<Future<Part>> futures = new ArrayList<>(Collections.nCopies(entries.size(), null));
+            for (PartEntry partEntry : bySize) {
+                futures.set(partEntry.order, pool.submit(() -> readPart(zipFile, partEntry)));
+            }
+
+            // Collect results in document order
+            List<Part> parts = new ArrayList<>(entries.size());
+            try {
+                for (Future<Part> future : futures) {
+                    parts.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading DOCX parts", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Failed to read DOCX part: " + cause.getMessage(), cause);
+            } finally {
+                // Stop remaining parts before the zip file is closed
+                for (Future<Part> future : futures) {
+                    future.cancel(true);
+                }
+            }
+
+            Log.d(TAG, "Read " + parts.size() + " parts in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+            return new Document(parts);
+        }
+    }
+
+    /**
+     * Parse paragraphs from an XML part one at a time
+     *
+     * @param in Stream positioned at the start of the XML part
+     * @param handler Receives each paragraph in order
+     * @throws IOException If reading or the handler fails
+     */
+    public static void readParagraphs(InputStream in, ParagraphHandler handler) throws IOException {
+        ParagraphCursor cursor = new ParagraphCursor(in);
+        Paragraph paragraph;
+        while ((paragraph = cursor.next()) != null) {
+            handler.onParagraph(paragraph);
+        }
+    }
+
+    /**
+     * Callback for streaming paragraphs out of an XML part
+     */
+    public interface ParagraphHandler {
+        void onParagraph(Paragraph paragraph) throws IOException;
+    }
+
+    /**
+     * Pull-based paragraph reader over a single XML part
+     *
+     * Nested paragraphs (text boxes) are merged into the enclosing paragraph, and
+     * fallback content of alternate-content blocks is skipped so text is not repeated.
+     * {@link #nextBlock()} returns top-level tables row by row; {@link #next()} flattens
+     * them into their paragraphs.
+     */
+    public static class ParagraphCursor implements Closeable {
+        private final InputStream in;
+        private final XmlPullParser parser;
+        private final int[] holder = new int[2];
+        private final ArrayDeque<Paragraph> pending = new ArrayDeque<>();
+        private boolean finished = false;
+        // Table nesting survives between calls because rows are returned mid-table
+        private int tableDepth = 0;
+        private int tableCount = 0;
+
+        /**
+         * Create a cursor over an XML part
+         *
+         * @param in Stream positioned at the start of the XML part; closed by {@link #close()}
+         * @throws IOException If the parser cannot be created
+         */
+        public ParagraphCursor(InputStream in) throws IOException {
+            this.in = in;
+            try {
+                parser = Xml.newPullParser();
+                parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+                parser.setInput(in, null);
+            } catch (XmlPullParserException e) {
+                throw new IOException("Failed to create XML parser: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Read the next paragraph, including paragraphs inside table cells
+         *
+         * @return The next paragraph, or null at the end of the part
+         * @throws IOException If reading fails or the XML is malformed
+         */
+        public Paragraph next() throws IOException {
+            while (pending.isEmpty()) {
+                Block block = nextBlock();
+                if (block == null) {
+                    return null;
+                }
+                if (block instanceof Paragraph) {
+                    return (Paragraph) block;
+                }
+                for (TableCell cell : ((TableRow) block).cells) {
+                    pending.addAll(cell.paragraphs);
+                }
+            }
+            return pending.poll();
+        }
+
+        /**
+         * Read the next top-level paragraph or table row
+         *
+         * @return The next block, or null at the end of the part
+         * @throws IOException If reading fails or the XML is malformed
+         */
+        public Block nextBlock() throws IOException {
+            if (finished) {
+                return null;
+            }
+            try {
+                return parseNext();
+            } catch (XmlPullParserException e) {
+                throw new IOException("Malformed DOCX XML: " + e.getMessage(), e);
+            }
+        }
+
+        private Block parseNext() throws IOException, XmlPullParserException {
+            List<TableCell> rowCells = null;
+            boolean headerRow = false;
+            List<Paragraph> cellParagraphs = null;
+            int gridSpan = 1;
+            int vMerge = TableCell.MERGE_NONE;
+
+            int paragraphDepth = 0;
+            String paragraphStyle = null;
+            String numId = null;
+            int numLevel = 0;
+            List<Run> runs = null;
+
+            boolean inRun = false;
+            boolean inText = false;
+            String runStyle = null;
+            int formatMask = 0;
+            int formatValues = 0;
+            StringBuilder runText = new StringBuilder();
+            String imageId = null;
+            long imageWidth = 0;
+            long imageHeight = 0;
+
+            int eventType = parser.next();
+            while (eventType != XmlPullParser.END_DOCUMENT) {
+                if (eventType == XmlPullParser.START_TAG) {
+                    String name = parser.getName();
+                    switch (name) {
+                        case "w:p":
+                            if (paragraphDepth++ == 0) {
+                                paragraphStyle = null;
+                                numId = null;
+                                numLevel = 0;
+                                runs = new ArrayList<>();
+                            }
+                            break;
+                        case "mc:Fallback":
+                            skipSubtree();
+                            break;
+                        case "w:tbl":
+                            // Tables inside text boxes are left to the paragraph merging
+                            if (paragraphDepth == 0 && tableDepth++ == 0) {
+                                tableCount++;
+                            }
+                            break;
+                        case "w:tr":
+                            if (paragraphDepth == 0 && tableDepth == 1) {
+                                rowCells = new ArrayList<>();
+                                headerRow = false;
+                            }
+                            break;
+                        case "w:tblHeader":
+                            if (rowCells != null && cellParagraphs == null) {
+                                headerRow = isToggleOn(parser.getAttributeValue(null, "w:val"));
+                            }
+                            break;
+                        case "w:tc":
+                            if (paragraphDepth == 0 && tableDepth == 1) {
+                                cellParagraphs = new ArrayList<>();
+                                gridSpan = 1;
+                                vMerge = TableCell.MERGE_NONE;
+                            }
+                            break;
+                        case "w:gridSpan":
+                            if (cellParagraphs != null && tableDepth == 1) {
+                                gridSpan = Math.max(1, parseInt(parser.getAttributeValue(null, "w:val"), 1));
+                            }
+                            break;
+                        case "w:vMerge":
+                            // Without a value the cell continues the merge above it
+                            if (cellParagraphs != null && tableDepth == 1 && paragraphDepth == 0) {
+                                vMerge = "restart".equals(parser.getAttributeValue(null, "w:val"))
+                                        ? TableCell.MERGE_RESTART : TableCell.MERGE_CONTINUE;
+                            }
+                            break;
+                        case "w:pStyle":
+                            if (paragraphDepth == 1 && !inRun) {
+                                paragraphStyle = parser.getAttributeValue(null, "w:val");
+                            }
+                            break;
+                        case "w:numId":
+                            if (paragraphDepth == 1 && !inRun) {
+                                numId = parser.getAttributeValue(null, "w:val");
+                            }
+                            break;
+                        case "w:ilvl":
+                            if (paragraphDepth == 1 && !inRun) {
+                                numLevel = parseInt(parser.getAttributeValue(null, "w:val"), 0);
+                            }
+                            break;
+                        case "w:r":
+                            if (paragraphDepth > 0) {
+                                inRun = true;
+                                runStyle = null;
+                                formatMask = 0;
+                                formatValues = 0;
+                                runText.setLength(0);
+                            }
+                            break;
+                        case "w:rStyle":
+                            if (inRun) {
+                                runStyle = parser.getAttributeValue(null, "w:val");
+                            }
+                            break;
+                        case "w:b":
+                        case "w:i":
+                        case "w:u":
+                            if (inRun) {
+                                int flag = "w:b".equals(name) ? BOLD : "w:i".equals(name) ? ITALIC : UNDERLINE;
+                                String val = parser.getAttributeValue(null, "w:val");
+                                boolean on = flag == UNDERLINE ? !"none".equals(val) : isToggleOn(val);
+                                formatMask |= flag;
+                                formatValues = on ? formatValues | flag : formatValues & ~flag;
+                            }
+                            break;
+                        case "w:t":
+                            inText = inRun;
+                            break;
+                        case "wp:extent":
+                            if (inRun) {
+                                imageWidth = parseLong(parser.getAttributeValue(null, "cx"));
+                                imageHeight = parseLong(parser.getAttributeValue(null, "cy"));
+                            }
+                            break;
+                        case "a:blip":
+                            if (inRun) {
+                                imageId = parser.getAttributeValue(null, "r:embed");
+                            }
+                            break;
+                        case "v:imagedata":
+                            if (inRun) {
+                                imageId = parser.getAttributeValue(null, "r:id");
+                            }
+                            break;
+                        case "w:tab":
+                            if (inRun) {
+                                runText.append('\t');
+                            }
+                            break;
+                        case "w:br":
+                        case "w:cr":
+                            if (inRun) {
+                                runText.append('\n');
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (eventType == XmlPullParser.TEXT) {
+                    if (inText) {
+                        char[] chars = parser.getTextCharacters(holder);
+                        runText.append(chars, holder[0], holder[1]);
+                    }
+                } else if (eventType == XmlPullParser.END_TAG) {
+                    String name = parser.getName();
+                    switch (name) {
+                        case "w:t":
+                            inText = false;
+                            break;
+                        case "w:drawing":
+                        case "w:pict":
+                            if (inRun && imageId != null) {
+                                // Keep text before the image in its own run so order is preserved
+                                if (runText.length() > 0) {
+                                    runs.add(new Run(runText.toString(), runStyle, formatMask, formatValues));
+                                    runText.setLength(0);
+                                }
+                                runs.add(new Run("", runStyle, formatMask, formatValues,
+                                        new ImageRef(imageId, imageWidth, imageHeight)));
+                            }
+                            imageId = null;
+                            imageWidth = 0;
+                            imageHeight = 0;
+                            break;
+                        case "w:r":
+                            if (inRun) {
+                                if (runText.length() > 0) {
+                                    runs.add(new Run(runText.toString(), runStyle, formatMask, formatValues));
+                                }
+                                inRun = false;
+                            }
+                            break;
+                        case "w:p":
+                            if (paragraphDepth > 0 && --paragraphDepth == 0) {
+                                Paragraph paragraph = new Paragraph(paragraphStyle, numId, numLevel, runs);
+                                if (tableDepth == 0) {
+                                    return paragraph;
+                                }
+                                if (cellParagraphs != null) {
+                                    cellParagraphs.add(paragraph);
+                                }
+                            }
+                            break;
+                        case "w:tc":
+                            if (paragraphDepth == 0 && tableDepth == 1 && cellParagraphs != null) {
+                                if (rowCells != null) {
+                                    rowCells.add(new TableCell(gridSpan, vMerge, cellParagraphs));
+                                }
+                                cellParagraphs = null;
+                            }
+                            break;
+                        case "w:tr":
+                            if (paragraphDepth == 0 && tableDepth == 1 && rowCells != null) {
+                                return new TableRow(tableCount, headerRow, rowCells);
+                            }
+                            break;
+                        case "w:tbl":
+                            if (paragraphDepth == 0 && tableDepth > 0) {
+                                tableDepth--;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                eventType = parser.next();
+            }
+
+            finished = true;
+            return null;
+        }
+
+        /**
+         * Skip the current element and everything inside it
+         */
+        private void skipSubtree() throws IOException, XmlPullParserException {
+            int depth = 1;
+            while (depth > 0) {
+                int eventType = parser.next();
+                if (eventType == XmlPullParser.START_TAG) {
+                    depth++;
+                } else if (eventType == XmlPullParser.END_TAG) {
+                    depth--;
+                } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            in.close();
+        }
+    }
+
+    /**
+     * Check whether an OOXML on/off attribute value means "on"
+     *
+     * @param val Value of the w:val attribute, or null when absent
+     * @return true unless the value explicitly turns the property off
+     */
+    public static boolean isToggleOn(String val) {
+        return val == null || !("0".equals(val) || "false".equals(val) || "off".equals(val));
+    }
+
+    /**
+     * Parse an integer attribute value
+     *
+     * @param val Attribute value, or null when absent
+     * @param defaultValue Value returned when the attribute is absent or not a number
+     * @return Parsed value
+     */
+    public static int parseInt(String val, int defaultValue) {
+        if (val == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(val.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parse a long attribute value, returning 0 when absent or not a number
+     */
+    private static long parseLong(String val) {
+        if (val == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(val.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Read the relationships of a part, e.g. the images referenced by document.xml
+     *
+     * External targets are skipped, and internal targets are resolved to zip entry names.
+     *
+     * @param zipFile Open DOCX archive
+     * @param partName Name of the part, e.g. "word/document.xml"
+     * @return Map from relationship id to zip entry name; empty if the part has none
+     * @throws IOException If the relationships part cannot be read or is malformed
+     */
+    public static Map<String, String> readRelationships(ZipFile zipFile, String partName) throws IOException {
+        Map<String, String> relationships = new HashMap<>();
+        int slash = partName.lastIndexOf('/');
+        String directory = slash >= 0 ? partName.substring(0, slash + 1) : "";
+        ZipEntry entry = zipFile.getEntry(directory + "_rels/" + partName.substring(slash + 1) + ".rels");
+        if (entry == null) {
+            return relationships;
+        }
+
+        try (InputStream in = new BufferedInputStream(zipFile.getInputStream(entry))) {
+            XmlPullParser parser = Xml.newPullParser();
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+            parser.setInput(in, null);
+
+            int event = parser.getEventType();
+            while (event != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.START_TAG && "Relationship".equals(parser.getName())) {
+                    String id = parser.getAttributeValue(null, "Id");
+                    String target = parser.getAttributeValue(null, "Target");
+                    if (id != null && target != null
+                            && !"External".equals(parser.getAttributeValue(null, "TargetMode"))) {
+                        relationships.put(id, resolveTarget(directory, target));
+                    }
+                }
+                event = parser.next();
+            }
+        } catch (XmlPullParserException e) {
+            throw new IOException("Malformed DOCX relationships: " + e.getMessage(), e);
+        }
+        return relationships;
+    }
+
+    /**
+     * Resolve a relationship target against the directory of its source part
+     */
+    private static String resolveTarget(String directory, String target) {
+        if (target.startsWith("/")) {
+            return target.substring(1);
+        }
+        String path = directory;
+        while (target.startsWith("../")) {
+            target = target.substring(3);
+            int parent = path.lastIndexOf('/', path.length() - 2);
+            path = parent >= 0 ? path.substring(0, parent + 1) : "";
+        }
+        return path + target;
+    }
+
+    /**
+     * A zip entry for a text-bearing part, with its position in merge order
+     */
+    private static class PartEntry {
+        final ZipEntry entry;
+        final PartType type;
+        final int number;
+        int order;
+
+        PartEntry(ZipEntry entry, PartType type, int number) {
+            this.entry = entry;
+            this.type = type;
+            this.number = number;
+        }
+    }
+
+    /**
+     * Find the text-bearing parts in the archive and sort them into merge order
+     */
+    private static List<PartEntry> findParts(ZipFile zipFile) {
+        List<PartEntry> entries = new ArrayList<>();
+        boolean hasBody = false;
+
+        Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry entry = zipEntries.nextElement();
+            String name = entry.getName();
+            PartType type = null;
+            int number = 0;
+
+            if (DOCUMENT_PART.equals(name)) {
+                type = PartType.BODY;
+                hasBody = true;
+            } else if ("word/footnotes.xml".equals(name)) {
+                type = PartType.FOOTNOTES;
+            } else if ("word/endnotes.xml".equals(name)) {
+                type = PartType.ENDNOTES;
+            } else if ("word/comments.xml".equals(name)) {
+                type = PartType.COMMENTS;
+            } else {
+                Matcher matcher = NUMBERED_PART.matcher(name);
+                if (matcher.matches()) {
+                    type = "header".equals(matcher.group(1)) ? PartType.HEADER : PartType.FOOTER;
+                    number = matcher.group(2).isEmpty() ? 0 : Integer.parseInt(matcher.group(2));
+                }
+            }
+
+            if (type != null) {
+                entries.add(new PartEntry(entry, type, number));
+            }
+        }
+
+        if (!hasBody) {
+            return new ArrayList<>();
+        }
+
+        Collections.sort(entries, (a, b) -> a.type != b.type
+                ? a.type.compareTo(b.type)
+                : Integer.compare(a.number, b.number));
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).order = i;
+        }
+        return entries;
+    }
+
+    /**
+     * Parse a single part; runs on the CPU pool
+     */
+    private static Part readPart(ZipFile zipFile, PartEntry partEntry) throws IOException {
+        List<Paragraph> paragraphs = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(zipFile.getInputStream(partEntry.entry))) {
+            readParagraphs(in, paragraphs::add);
+        }
+        return new Part(partEntry.entry.getName(), partEntry.type, paragraphs);
+    }
+}
@@ -0,0 +1,241 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Utility class to convert DOCX files to EPUB e-books
+ */
+public class DocxToEpubConverter {
+    private static final String TAG = "DocxToEpubConverter";
+
+    /**
+     * Convert a DOCX file to EPUB
+     * 
+     * @param context Application context
+     * @param docxUri Uri of the DOCX file to convert
+     * @return Path to the generated EPUB file
+     * @throws Exception If conversion fails
+     */
+    public static String convertDocxToEpub(Context context, Uri docxUri) throws Exception {
+        Log.d(TAG, "Starting DOCX to EPUB conversion");
+        
+        // Get the file name from the URI
+        String fileName = getFileName(context, docxUri);
+        String outputFileName = getOutputFileName(fileName);
+        
+        // Get the output directory using the FileStorageUtils
+        File outputDir = FileStorageUtils.getOutputDirectory(context);
+        
+        // Create temporary input and output files
+        File tempInput = new File(context.getCacheDir(), "temp_input.docx");
+        File outputFile = new File(outputDir, outputFileName);
+        
+        try {
+            // Copy input stream to temporary file
+            copyInputStreamToFile(context.getContentResolver().openInputStream(docxUri), tempInput);
+            
+            // Convert DOCX to EPUB
+            convertDocxToEpubFile(tempInput, outputFile, getTitle(fileName));
+            
+            // Make the file visible in the media store
+            addToMediaStore(context, outputFile);
+            
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting DOCX to EPUB", e);
+            
+            if (outputFile.exists()) {
+                outputFile.delete();
+            }
+            
+            throw e;
+        } finally {
+            // Clean up temporary files
+            tempInput.delete();
+        }
+    }
+    
+    /**
+     * Convert DOCX file to EPUB format
+     * 
+     * Paragraphs are read from document.xml with a pull parser and written to the EPUB
+     * package as they are parsed, so neither document is held in memory. Heading
+     * styles become headings, and top-level headings start new chapters.
+     * 
+     * @param docxFile Input DOCX file
+     * @param epubFile Output EPUB file
+     * @param title Title of the book
+     * @throws IOException If conversion fails
+     */
+    private static void convertDocxToEpubFile(File docxFile, File epubFile, String title) throws IOException {
+        Log.d(TAG, "Converting DOCX to EPUB");
+        
+        try (ZipFile zipFile = new ZipFile(docxFile);
+             EpubPackageWriter writer = new EpubPackageWriter(new FileOutputStream(epubFile),
+                     title, Locale.getDefault().toLanguageTag())) {
+            
+            ZipEntry documentEntry = zipFile.getEntry(DocxReader.DOCUMENT_PART);
+            if (documentEntry == null) {
+                throw new IOException("Not a DOCX file: " + DocxReader.DOCUMENT_PART + " is missing");
+            }
+            
+            // Heading styles decide where chapters start and what the table of contents lists
+            StyleResolver styles = StyleResolver.load(zipFile);
+            
+            writer.writeHeader();
+            try (DocxReader.ParagraphCursor cursor = new DocxReader.ParagraphCursor(
+                    new BufferedInputStream(zipFile.getInputStream(documentEntry)))) {
+                DocxReader.Paragraph paragraph;
+                while ((paragraph = cursor.next()) != null) {
+                    int headingLevel = styles.resolveParagraph(paragraph).headingLevel;
+                    if (headingLevel > 0) {
+                        writer.writeHeading(paragraph.getText(), headingLevel);
+                    } else {
+                        writer.writeParagraph(paragraph.getText());
+                    }
+                }
+            }
+        }
+        
+        Log.d(TAG, "DOCX to EPUB conversion completed");
+    }
+    
+    /**
+     * Copy input stream to file
+     * 
+     * @param inputStream Input stream
+     * @param outputFile Output file
+     * @throws IOException If copying fails
+     */
+    private static void copyInputStreamToFile(InputStream inputStream, File outputFile) throws IOException {
+        try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+            outputStream.flush();
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing input stream", e);
+            }
+        }
+    }
+    
+    /**
+     * Get the original file name from the URI
+     * 
+     * @param context Application context
+     * @param uri Uri of the file
+     * @return Original file name
+     */
+    private static String getFileName(Context context, Uri uri) {
+        return EnhancedFilePickerUtils.getFileName(context, uri);
+    }
+    
+    /**
+     * Generate the output file name by replacing the extension with .epub
+     * 
+     * @param inputFileName Original file name
+     * @return Output file name with .epub extension
+     */
+    private static String getOutputFileName(String inputFileName) {
+        String baseName = inputFileName;
+        
+        // Remove the .docx extension if present
+        if (baseName.toLowerCase().endsWith(".docx")) {
+            baseName = baseName.substring(0, baseName.length() - 5);
+        }
+        
+        return baseName + ".epub";
+    }
+    
+    /**
+     * Use the input file name without its extension as the title of the book
+     */
+    private static String getTitle(String inputFileName) {
+        int dot = inputFileName.lastIndexOf('.');
+        return dot > 0 ? inputFileName.substring(0, dot) : inputFileName;
+    }
+    
+    /**
+     * Add the generated file to the MediaStore so it appears in the gallery
+     * 
+     * @param context Application context
+     * @param file File to add
+     */
+    private static void addToMediaStore(Context context, File file) {
+        try {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+            values.put(MediaStore.MediaColumns.MIME_TYPE, EpubPackageWriter.MIME_TYPE);
+            
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                // For Android 10+ (API 29+), use relative path and is_pending flag
+                values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+                values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+                
+                // On Android 10+, we should use the MediaStore API to make files visible
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+                
+                if (uri != null) {
+                    // If we're using app-specific storage, copy the file to the MediaStore
+                    if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                        try (OutputStream os = resolver.openOutputStream(uri);
+                             FileInputStream fis = new FileInputStream(file)) {
+                            
+                            if (os != null) {
+                                byte[] buffer = new byte[4096];
+                                int bytesRead;
+                                while ((bytesRead = fis.read(buffer)) != -1) {
+                                    os.write(buffer, 0, bytesRead);
+                                }
+                                os.flush();
+                            }
+                        }
+                    }
+                    
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            } else {
+                // For older Android versions, use DATA field with absolute path
+                values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+                
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+                
+                if (uri != null) {
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding file to MediaStore", e);
+            // Don't throw the exception, just log it
+            // The conversion is still successful even if the file isn't added to MediaStore
+        }
+    }
+}
@@ -9,27 +9,51 @@ import android.os.Environment;
 import android.provider.MediaStore;
 import android.util.Log;
 
+import com.itextpdf.io.image.ImageData;
 import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.element.Text;
+import com.itextpdf.layout.properties.UnitValue;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Utility class to convert DOCX files to PDF format
  */
 public class DocxToPdfConverter {
     private static final String TAG = "DocxToPdfConverter";
+    
+    // Rows used to decide table column widths before the table is added
+    private static final int COLUMN_SAMPLE_ROWS = 20;
+    // Rows added to a large table between flushes to the PDF
+    private static final int FLUSH_ROWS = 50;
+    // Limits for the relative weight of a table column, in characters
+    private static final float MIN_COLUMN_WEIGHT = 4f;
+    private static final float MAX_COLUMN_WEIGHT = 60f;
+    
+    // DrawingML sizes are in EMU: 914400 per inch, 72 points per inch
+    private static final float EMU_PER_POINT = 12700f;
+    
+    // Font sizes for heading levels 1-3; deeper levels use the last size
+    private static final float[] HEADING_FONT_SIZES = {18f, 14f, 12f};
 
     /**
      * Convert a DOCX file to PDF
@@ -57,9 +81,11 @@ public class DocxToPdfConverter {
             // Copy input stream to temporary file
             copyInputStreamToFile(context.getContentResolver().openInputStream(docxUri), tempInput);
             
-            // Extract text from DOCX and create PDF
-            String textContent = extractTextFromDocx(tempInput);
-            createPdfFromText(textContent, outputFile);
+            // Stream content from DOCX into the PDF, downsampling images per the settings
+            SettingsManager settings = new SettingsManager(context);
+            PdfImageFactory imageFactory = new PdfImageFactory(settings.getImageTargetDpi(),
+                    settings.getImageMemoryLimitMb() * 1024L * 1024L);
+            createPdfFromDocx(tempInput, outputFile, imageFactory, PdfOutputProfile.fromSettings(context));
             
             // Clean up temporary files
             tempInput.delete();
@@ -82,117 +108,401 @@ public class DocxToPdfConverter {
     }
     
     /**
-     * Extract text from a DOCX file
+     * Create a PDF file from the body of a DOCX file
      * 
      * DOCX files are ZIP archives containing XML files
      * The main content is in word/document.xml
      * 
      * @param docxFile Input DOCX file
-     * @return Extracted text content
-     * @throws IOException If reading fails
+     * @param pdfFile Output PDF file
+     * @param imageFactory Factory that prepares embedded images
+     * @param profile Output profile for the PDF writer
+     * @throws Exception If PDF creation fails
      */
-    private static String extractTextFromDocx(File docxFile) throws IOException {
-        StringBuilder textContent = new StringBuilder();
+    private static void createPdfFromDocx(File docxFile, File pdfFile, PdfImageFactory imageFactory,
+                                          PdfOutputProfile profile) throws Exception {
+        Log.d(TAG, "Creating PDF file at: " + pdfFile.getAbsolutePath());
+        
+        // Ensure parent directory exists
+        File parentDir = pdfFile.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            boolean created = parentDir.mkdirs();
+            Log.d(TAG, "Created parent directory: " + created);
+            if (!created) {
+                throw new IOException("Failed to create parent directory for PDF file");
+            }
+        }
         
-        try (FileInputStream fis = new FileInputStream(docxFile);
-             ZipInputStream zis = new ZipInputStream(fis)) {
+        try (ZipFile zipFile = new ZipFile(docxFile)) {
+            ZipEntry documentEntry = zipFile.getEntry(DocxReader.DOCUMENT_PART);
+            if (documentEntry == null) {
+                throw new IOException("Not a DOCX file: " + DocxReader.DOCUMENT_PART + " is missing");
+            }
+            StyleResolver styles = StyleResolver.load(zipFile);
+            Map<String, String> relationships = DocxReader.readRelationships(zipFile, DocxReader.DOCUMENT_PART);
             
-            ZipEntry zipEntry;
-            while ((zipEntry = zis.getNextEntry()) != null) {
-                if (zipEntry.getName().equals("word/document.xml")) {
-                    textContent.append(extractTextFromXML(zis));
-                    break;
+            try (DocxReader.ParagraphCursor cursor = new DocxReader.ParagraphCursor(
+                         new BufferedInputStream(zipFile.getInputStream(documentEntry)));
+                 Document document = new Document(new PdfDocument(profile.createWriter(pdfFile)))) {
+                DocumentImages images = new DocumentImages(zipFile, relationships, imageFactory,
+                        document.getPdfDocument());
+                writeBody(cursor, styles, images, document);
+            }
+            Log.d(TAG, "PDF creation successful");
+        } catch (IOException e) {
+            Log.e(TAG, "Error creating PDF file", e);
+            throw new Exception("Failed to create PDF file: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Stream paragraphs and tables from document.xml into the PDF document
+     * 
+     * Tables use iText's large-table mode: the table is added to the document before
+     * its rows, and completed rows are flushed to the PDF every FLUSH_ROWS rows, so
+     * only a bounded number of rows is held in memory however long the table is.
+     * 
+     * @param cursor Block cursor over document.xml
+     * @param styles Resolver for inherited style and list formatting
+     * @param images Images referenced by the document
+     * @param document PDF document to add content to
+     * @throws IOException If reading fails
+     */
+    private static void writeBody(DocxReader.ParagraphCursor cursor, StyleResolver styles,
+                                  DocumentImages images, Document document) throws IOException {
+        DocxReader.Block block = cursor.nextBlock();
+        while (block != null) {
+            if (block instanceof DocxReader.Paragraph) {
+                DocxReader.Paragraph paragraph = (DocxReader.Paragraph) block;
+                if (!paragraph.isEmpty()) {
+                    document.add(buildParagraph(paragraph, styles, images));
                 }
+                block = cursor.nextBlock();
+            } else {
+                block = writeTable((DocxReader.TableRow) block, cursor, styles, images, document);
             }
         }
-        
-        return textContent.toString();
     }
     
     /**
-     * Extract text from XML content in the DOCX file
+     * Write a table starting at the given row and return the first block after it
+     * 
+     * Column widths are decided from the first COLUMN_SAMPLE_ROWS rows, which are the
+     * only rows buffered before the table is added to the document.
      * 
-     * @param zis ZipInputStream positioned at the XML entry
-     * @return Extracted text
+     * @param firstRow First row of the table
+     * @param cursor Block cursor positioned after the first row
+     * @param styles Resolver for inherited style and list formatting
+     * @param images Images referenced by the document
+     * @param document PDF document to add the table to
+     * @return The block following the table, or null at the end of the document
      * @throws IOException If reading fails
      */
-    private static String extractTextFromXML(ZipInputStream zis) throws IOException {
-        StringBuilder result = new StringBuilder();
-        BufferedReader br = new BufferedReader(new InputStreamReader(zis));
-        String line;
+    private static DocxReader.Block writeTable(DocxReader.TableRow firstRow, DocxReader.ParagraphCursor cursor,
+                                               StyleResolver styles, DocumentImages images,
+                                               Document document) throws IOException {
+        // Buffer a sample of rows to size the columns
+        List<DocxReader.TableRow> sample = new ArrayList<>();
+        sample.add(firstRow);
+        DocxReader.Block block = cursor.nextBlock();
+        while (sample.size() < COLUMN_SAMPLE_ROWS && isSameTable(block, firstRow)) {
+            sample.add((DocxReader.TableRow) block);
+            block = cursor.nextBlock();
+        }
         
-        while ((line = br.readLine()) != null) {
-            // Simple XML parsing to extract text from <w:t> tags
-            int startIndex = 0;
-            while (true) {
-                int startTag = line.indexOf("<w:t", startIndex);
-                if (startTag == -1) break;
-                
-                int endTag = line.indexOf("</w:t>", startTag);
-                if (endTag == -1) break;
-                
-                int contentStart = line.indexOf(">", startTag) + 1;
-                if (contentStart > 0 && contentStart < endTag) {
-                    String text = line.substring(contentStart, endTag);
-                    result.append(text).append(" ");
+        float[] widths = getColumnWidths(sample);
+        Table table = new Table(UnitValue.createPercentArray(widths), true).useAllAvailableWidth();
+        document.add(table);
+        
+        // Only leading rows can repeat as headers
+        boolean inHeader = true;
+        int rowCount = 0;
+        for (int i = 0; i < sample.size(); i++) {
+            DocxReader.TableRow row = sample.get(i);
+            DocxReader.Block next = i + 1 < sample.size() ? sample.get(i + 1) : block;
+            inHeader &= row.header;
+            addRow(table, row, getNextRow(next, firstRow), widths.length, inHeader, styles, images);
+            if (++rowCount % FLUSH_ROWS == 0) {
+                table.flush();
+            }
+        }
+        
+        // Stream the remaining rows, flushing in chunks; one row is read ahead so
+        // vertical merges can be drawn
+        while (isSameTable(block, firstRow)) {
+            DocxReader.TableRow row = (DocxReader.TableRow) block;
+            block = cursor.nextBlock();
+            inHeader &= row.header;
+            addRow(table, row, getNextRow(block, firstRow), widths.length, inHeader, styles, images);
+            if (++rowCount % FLUSH_ROWS == 0) {
+                table.flush();
+            }
+        }
+        
+        table.complete();
+        Log.d(TAG, "Wrote table with " + rowCount + " rows and " + widths.length + " columns");
+        return block;
+    }
+    
+    /**
+     * Check whether a block is a row of the same table as the given row
+     */
+    private static boolean isSameTable(DocxReader.Block block, DocxReader.TableRow row) {
+        return block instanceof DocxReader.TableRow
+                && ((DocxReader.TableRow) block).tableIndex == row.tableIndex;
+    }
+    
+    /**
+     * @return The block as a row of the same table as the given row, or null if it is not one
+     */
+    private static DocxReader.TableRow getNextRow(DocxReader.Block block, DocxReader.TableRow row) {
+        return isSameTable(block, row) ? (DocxReader.TableRow) block : null;
+    }
+    
+    /**
+     * Check whether the cell of a row that starts at the given grid column continues
+     * a vertical merge
+     */
+    private static boolean continuesMerge(DocxReader.TableRow row, int column) {
+        if (row == null) {
+            return false;
+        }
+        int start = 0;
+        for (DocxReader.TableCell cell : row.cells) {
+            if (start == column) {
+                return cell.vMerge == DocxReader.TableCell.MERGE_CONTINUE;
+            }
+            if (start > column) {
+                break;
+            }
+            start += cell.gridSpan;
+        }
+        return false;
+    }
+    
+    /**
+     * Decide relative column widths from the text length of sampled rows
+     * 
+     * @param sample First rows of the table
+     * @return Relative width per column
+     */
+    private static float[] getColumnWidths(List<DocxReader.TableRow> sample) {
+        int columns = 1;
+        for (DocxReader.TableRow row : sample) {
+            int rowColumns = 0;
+            for (DocxReader.TableCell cell : row.cells) {
+                rowColumns += cell.gridSpan;
+            }
+            columns = Math.max(columns, rowColumns);
+        }
+        
+        // Weight each column by the longest text seen in it, within limits
+        float[] widths = new float[columns];
+        for (DocxReader.TableRow row : sample) {
+            int column = 0;
+            for (DocxReader.TableCell cell : row.cells) {
+                if (cell.gridSpan == 1 && column < columns) {
+                    int length = 0;
+                    for (DocxReader.Paragraph paragraph : cell.paragraphs) {
+                        length = Math.max(length, paragraph.getText().length());
+                    }
+                    widths[column] = Math.max(widths[column], Math.min(length, MAX_COLUMN_WEIGHT));
                 }
-                
-                startIndex = endTag + 5;
+                column += cell.gridSpan;
+            }
+        }
+        for (int i = 0; i < columns; i++) {
+            widths[i] = Math.max(widths[i], MIN_COLUMN_WEIGHT);
+        }
+        return widths;
+    }
+    
+    /**
+     * Add one row to the table, padding or clamping it to the column count
+     * 
+     * Rows are streamed, so vertically merged cells cannot use a row span. Instead the
+     * cells of a merge are drawn without the borders between them, and the cells that
+     * continue the merge are left empty.
+     * 
+     * @param next The following row of the same table, or null if this is the last row
+     */
+    private static void addRow(Table table, DocxReader.TableRow row, DocxReader.TableRow next,
+                               int columns, boolean header,
+                               StyleResolver styles, DocumentImages images) throws IOException {
+        int column = 0;
+        Cell lastCell = null;
+        for (DocxReader.TableCell tableCell : row.cells) {
+            if (column >= columns) {
+                // Later rows may be wider than the sampled ones; keep their text in the last cell
+                for (DocxReader.Paragraph paragraph : tableCell.paragraphs) {
+                    if (lastCell != null && !paragraph.isEmpty()) {
+                        lastCell.add(buildParagraph(paragraph, styles, images));
+                    }
+                }
+                continue;
+            }
+            int span = Math.min(tableCell.gridSpan, columns - column);
+            Cell cell = new Cell(1, span);
+            boolean continuation = tableCell.vMerge == DocxReader.TableCell.MERGE_CONTINUE;
+            for (DocxReader.Paragraph paragraph : tableCell.paragraphs) {
+                if (!continuation || !paragraph.isEmpty()) {
+                    cell.add(buildParagraph(paragraph, styles, images));
+                }
+            }
+            if (continuation) {
+                cell.setBorderTop(Border.NO_BORDER);
             }
+            if (tableCell.vMerge != DocxReader.TableCell.MERGE_NONE && continuesMerge(next, column)) {
+                cell.setBorderBottom(Border.NO_BORDER);
+            }
+            addCell(table, cell, header);
+            lastCell = cell;
+            column += span;
         }
         
-        return result.toString();
+        // Pad short rows so the next row starts in the first column
+        while (column < columns) {
+            addCell(table, new Cell(), header);
+            column++;
+        }
     }
     
     /**
-     * Create a PDF file from extracted text
+     * Add a cell as a repeated header cell or a body cell
+     */
+    private static void addCell(Table table, Cell cell, boolean header) {
+        if (header) {
+            table.addHeaderCell(cell);
+        } else {
+            table.addCell(cell);
+        }
+    }
+    
+    /**
+     * Build a PDF paragraph with the effective formatting of each run
      * 
-     * @param textContent Text content to write to PDF
-     * @param pdfFile Output PDF file
-     * @throws Exception If PDF creation fails
+     * @param paragraph Paragraph from the DOCX reader
+     * @param styles Resolver for inherited style and list formatting
+     * @param images Images referenced by the document
+     * @return PDF paragraph
+     * @throws IOException If an image cannot be read
      */
-    private static void createPdfFromText(String textContent, File pdfFile) throws Exception {
-        Log.d(TAG, "Creating PDF file at: " + pdfFile.getAbsolutePath());
+    private static Paragraph buildParagraph(DocxReader.Paragraph paragraph, StyleResolver styles,
+                                            DocumentImages images) throws IOException {
+        StyleResolver.ParagraphProperties properties = styles.resolveParagraph(paragraph);
+        Paragraph result = new Paragraph();
         
-        // Ensure parent directory exists
-        File parentDir = pdfFile.getParentFile();
-        if (parentDir != null && !parentDir.exists()) {
-            boolean created = parentDir.mkdirs();
-            Log.d(TAG, "Created parent directory: " + created);
-            if (!created) {
-                throw new IOException("Failed to create parent directory for PDF file");
+        if (properties.headingLevel > 0) {
+            int index = Math.min(properties.headingLevel, HEADING_FONT_SIZES.length) - 1;
+            result.setFontSize(HEADING_FONT_SIZES[index]);
+            result.setBold();
+        }
+        
+        String listLabel = styles.nextListLabel(properties);
+        if (listLabel != null) {
+            result.add(new Text(listLabel + " "));
+        }
+        
+        for (DocxReader.Run run : paragraph.runs) {
+            if (run.image != null) {
+                Image image = images.get(run.image);
+                if (image != null) {
+                    result.add(image);
+                }
+                continue;
             }
+            Text text = new Text(run.text.replace('\t', ' '));
+            int flags = styles.resolveRun(properties, run);
+            if ((flags & DocxReader.BOLD) != 0) {
+                text.setBold();
+            }
+            if ((flags & DocxReader.ITALIC) != 0) {
+                text.setItalic();
+            }
+            if ((flags & DocxReader.UNDERLINE) != 0) {
+                text.setUnderline();
+            }
+            result.add(text);
         }
+        return result;
+    }
+    
+    /**
+     * Images of one document, embedded on first use and shared by every run that shows them
+     * 
+     * Each image is written to the PDF as soon as it is created, so its encoded bytes
+     * are not kept in memory for the rest of the conversion.
+     */
+    private static class DocumentImages {
+        private final ZipFile zipFile;
+        private final Map<String, String> relationships;
+        private final PdfImageFactory factory;
+        private final PdfDocument pdfDocument;
+        // Relationship id -> embedded image, or null if the image could not be used
+        private final Map<String, PdfImageXObject> embedded = new HashMap<>();
         
-        // Create the output stream for the PDF file
-        FileOutputStream outputStream = null;
-        try {
-            outputStream = new FileOutputStream(pdfFile);
-            PdfWriter writer = new PdfWriter(outputStream);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            Document document = new Document(pdfDoc);
+        DocumentImages(ZipFile zipFile, Map<String, String> relationships, PdfImageFactory factory,
+                       PdfDocument pdfDocument) {
+            this.zipFile = zipFile;
+            this.relationships = relationships;
+            this.factory = factory;
+            this.pdfDocument = pdfDocument;
+        }
+        
+        /**
+         * Get a layout image for an image reference, sized as in the document
+         * 
+         * @param ref Image reference from a run
+         * @return Image element, or null if the image is missing or unsupported
+         * @throws IOException If the image cannot be read
+         */
+        Image get(DocxReader.ImageRef ref) throws IOException {
+            float width = ref.widthEmu / EMU_PER_POINT;
+            float height = ref.heightEmu / EMU_PER_POINT;
             
-            // Split text into paragraphs and add to document
-            String[] paragraphs = textContent.split("\\s*\\n\\s*");
-            for (String paragraph : paragraphs) {
-                if (!paragraph.trim().isEmpty()) {
-                    document.add(new Paragraph(paragraph));
-                }
+            PdfImageXObject xObject;
+            if (embedded.containsKey(ref.relationshipId)) {
+                xObject = embedded.get(ref.relationshipId);
+            } else {
+                xObject = embed(ref.relationshipId, width, height);
+                embedded.put(ref.relationshipId, xObject);
+            }
+            if (xObject == null) {
+                return null;
             }
             
-            document.close();
-            Log.d(TAG, "PDF creation successful");
-        } catch (IOException e) {
-            Log.e(TAG, "Error creating PDF file", e);
-            throw new Exception("Failed to create PDF file: " + e.getMessage(), e);
-        } finally {
-            if (outputStream != null) {
-                try {
-                    outputStream.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error closing output stream", e);
-                }
+            Image image = new Image(xObject);
+            if (width > 0 && height > 0) {
+                image.scaleAbsolute(width, height);
             }
+            // Never wider than the page or cell it is placed in
+            image.setMaxWidth(UnitValue.createPercentValue(100));
+            return image;
+        }
+        
+        private PdfImageXObject embed(String relationshipId, float width, float height) throws IOException {
+            String target = relationships.get(relationshipId);
+            ZipEntry entry = target != null ? zipFile.getEntry(target) : null;
+            if (entry == null) {
+                Log.w(TAG, "Missing image part for relationship " + relationshipId);
+                return null;
+            }
+            
+            ImageData imageData;
+            try {
+                imageData = factory.create(zipFile, entry, width, height);
+            } catch (com.itextpdf.io.exceptions.IOException e) {
+                Log.w(TAG, "Unsupported image " + target + ": " + e.getMessage());
+                return null;
+            }
+            if (imageData == null) {
+                return null;
+            }
+            
+            PdfImageXObject xObject = new PdfImageXObject(imageData);
+            xObject.makeIndirect(pdfDocument);
+            xObject.flush();
+            return xObject;
         }
     }
     
@@ -9,17 +9,15 @@ import android.os.Environment;
 import android.provider.MediaStore;
 import android.util.Log;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Utility class to convert DOCX files to Rich Text Format (RTF)
@@ -53,10 +51,8 @@ public class DocxToRtfConverter {
             // Copy input stream to temporary file
             copyInputStreamToFile(context.getContentResolver().openInputStream(docxUri), tempInput);
             
-            // Extract content from DOCX and save as RTF
-            String textContent = extractContentFromDocx(tempInput);
-            String rtfContent = convertToRtf(textContent);
-            saveRtfFile(rtfContent, outputFile);
+            // Stream content from DOCX straight into the RTF file
+            convertDocxFileToRtf(tempInput, outputFile);
             
             // Clean up temporary files
             tempInput.delete();
@@ -79,172 +75,16 @@ public class DocxToRtfConverter {
     }
     
     /**
-     * Extract content from a DOCX file
+     * Convert a DOCX file to RTF in a single streaming pass
      * 
      * DOCX files are ZIP archives containing XML files
      * The main content is in word/document.xml
      * 
      * @param docxFile Input DOCX file
-     * @return Extracted text content with basic style markers
-     * @throws IOException If reading fails
-     */
-    private static String extractContentFromDocx(File docxFile) throws IOException {
-        StringBuilder content = new StringBuilder();
-        
-        try (FileInputStream fis = new FileInputStream(docxFile);
-             ZipInputStream zis = new ZipInputStream(fis)) {
-            
-            ZipEntry zipEntry;
-            while ((zipEntry = zis.getNextEntry()) != null) {
-                if (zipEntry.getName().equals("word/document.xml")) {
-                    content.append(extractStyledContentFromXML(zis));
-                    break;
-                }
-            }
-        }
-        
-        return content.toString();
-    }
-    
-    /**
-     * Extract text with basic style information from XML content in the DOCX file
-     * 
-     * @param zis ZipInputStream positioned at the XML entry
-     * @return Extracted text with style markers
-     * @throws IOException If reading fails
-     */
-    private static String extractStyledContentFromXML(ZipInputStream zis) throws IOException {
-        StringBuilder result = new StringBuilder();
-        BufferedReader br = new BufferedReader(new InputStreamReader(zis));
-        String line;
-        
-        boolean inBold = false;
-        boolean inItalic = false;
-        boolean inUnderline = false;
-        
-        while ((line = br.readLine()) != null) {
-            // Track styles
-            if (line.contains("<w:b/>") || line.contains("<w:b w:val=\"true\"")) {
-                inBold = true;
-            }
-            if (line.contains("</w:b>") || line.contains("<w:b w:val=\"false\"")) {
-                inBold = false;
-            }
-            
-            if (line.contains("<w:i/>") || line.contains("<w:i w:val=\"true\"")) {
-                inItalic = true;
-            }
-            if (line.contains("</w:i>") || line.contains("<w:i w:val=\"false\"")) {
-                inItalic = false;
-            }
-            
-            if (line.contains("<w:u ") || line.contains("<w:u/>")) {
-                inUnderline = true;
-            }
-            if (line.contains("</w:u>")) {
-                inUnderline = false;
-            }
-            
-            // Extract text from <w:t> tags
-            int startIndex = 0;
-            while (true) {
-                int startTag = line.indexOf("<w:t", startIndex);
-                if (startTag == -1) break;
-                
-                int endTag = line.indexOf("</w:t>", startTag);
-                if (endTag == -1) break;
-                
-                int contentStart = line.indexOf(">", startTag) + 1;
-                if (contentStart > 0 && contentStart < endTag) {
-                    String text = line.substring(contentStart, endTag);
-                    
-                    // Add style markers
-                    if (inBold) result.append("{{BOLD}}");
-                    if (inItalic) result.append("{{ITALIC}}");
-                    if (inUnderline) result.append("{{UNDERLINE}}");
-                    
-                    result.append(text).append(" ");
-                    
-                    // Close style markers
-                    if (inUnderline) result.append("{{/UNDERLINE}}");
-                    if (inItalic) result.append("{{/ITALIC}}");
-                    if (inBold) result.append("{{/BOLD}}");
-                }
-                
-                startIndex = endTag + 5;
-            }
-            
-            // Look for paragraph breaks
-            if (line.contains("<w:p ") || line.contains("</w:p>")) {
-                result.append("\n");
-            }
-            
-            // Look for heading styles
-            if (line.contains("<w:pStyle w:val=\"Heading1\"")) {
-                result.append("{{HEADING1}}");
-            } else if (line.contains("<w:pStyle w:val=\"Heading2\"")) {
-                result.append("{{HEADING2}}");
-            } else if (line.contains("<w:pStyle w:val=\"Heading3\"")) {
-                result.append("{{HEADING3}}");
-            }
-        }
-        
-        return result.toString();
-    }
-    
-    /**
-     * Convert the extracted content with style markers to RTF format
-     * 
-     * @param content Content with style markers
-     * @return RTF formatted content
-     */
-    private static String convertToRtf(String content) {
-        // RTF header
-        StringBuilder rtfBuilder = new StringBuilder();
-        rtfBuilder.append("{\\rtf1\\ansi\\ansicpg1252\\cocoartf2580\\cocoasubrtf220\n");
-        rtfBuilder.append("{\\fonttbl\\f0\\fswiss\\fcharset0 Helvetica;}\n");
-        rtfBuilder.append("{\\colortbl;\\red0\\green0\\blue0;}\n");
-        rtfBuilder.append("\\vieww12000\\viewh15840\\viewkind0\n");
-        rtfBuilder.append("\\deftab720\n");
-        
-        // Process the content and replace style markers with RTF commands
-        String rtfContent = content
-            .replace("{{BOLD}}", "{\\b ")
-            .replace("{{/BOLD}}", "}")
-            .replace("{{ITALIC}}", "{\\i ")
-            .replace("{{/ITALIC}}", "}")
-            .replace("{{UNDERLINE}}", "{\\ul ")
-            .replace("{{/UNDERLINE}}", "}")
-            .replace("{{HEADING1}}", "{\\f0\\fs36\\b ")
-            .replace("{{HEADING2}}", "{\\f0\\fs28\\b ")
-            .replace("{{HEADING3}}", "{\\f0\\fs24\\b ")
-            .replace("\n", "\\par\n")
-            // Escape RTF special characters
-            .replace("\\", "\\\\")
-            .replace("{", "\\{")
-            .replace("}", "\\}")
-            // But don't double-escape our RTF commands that we just added
-            .replace("\\\\{\\\\b ", "{\\b ")
-            .replace("\\\\{\\\\i ", "{\\i ")
-            .replace("\\\\{\\\\ul ", "{\\ul ")
-            .replace("\\\\{\\\\f0", "{\\f0");
-        
-        rtfBuilder.append(rtfContent);
-        
-        // RTF footer
-        rtfBuilder.append("}\n");
-        
-        return rtfBuilder.toString();
-    }
-    
-    /**
-     * Save RTF content to a file
-     * 
-     * @param rtfContent RTF content to write
      * @param rtfFile Output RTF file
-     * @throws Exception If file creation fails
+     * @throws Exception If conversion fails
      */
-    private static void saveRtfFile(String rtfContent, File rtfFile) throws Exception {
+    private static void convertDocxFileToRtf(File docxFile, File rtfFile) throws Exception {
         Log.d(TAG, "Creating RTF file at: " + rtfFile.getAbsolutePath());
         
         // Ensure parent directory exists
@@ -257,9 +97,22 @@ public class DocxToRtfConverter {
             }
         }
         
-        // Create the output stream for the RTF file
-        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(rtfFile))) {
-            writer.write(rtfContent);
+        try (ZipFile zipFile = new ZipFile(docxFile);
+             RtfWriter writer = new RtfWriter(new FileOutputStream(rtfFile))) {
+            
+            ZipEntry documentEntry = zipFile.getEntry(DocxReader.DOCUMENT_PART);
+            if (documentEntry == null) {
+                throw new IOException("Not a DOCX file: " + DocxReader.DOCUMENT_PART + " is missing");
+            }
+            
+            // Styles are resolved once up front so each run costs a table lookup
+            StyleResolver styles = StyleResolver.load(zipFile);
+            
+            writer.writeHeader();
+            try (DocxReader.ParagraphCursor cursor = new DocxReader.ParagraphCursor(
+                    new BufferedInputStream(zipFile.getInputStream(documentEntry)))) {
+                writeStyledContent(cursor, styles, writer);
+            }
             Log.d(TAG, "RTF file created successfully");
         } catch (IOException e) {
             Log.e(TAG, "Error creating RTF file", e);
@@ -267,6 +120,50 @@ public class DocxToRtfConverter {
         }
     }
     
+    /**
+     * Stream paragraphs from document.xml into the RTF writer with their effective formatting
+     * 
+     * Paragraphs are written as soon as they are parsed, so memory use does not
+     * depend on the size of the document.
+     * 
+     * @param cursor Paragraph cursor over document.xml
+     * @param styles Resolver for inherited style and list formatting
+     * @param writer RTF writer to emit content to
+     * @throws IOException If reading or writing fails
+     */
+    private static void writeStyledContent(DocxReader.ParagraphCursor cursor, StyleResolver styles,
+                                           RtfWriter writer) throws IOException {
+        DocxReader.Paragraph paragraph;
+        while ((paragraph = cursor.next()) != null) {
+            StyleResolver.ParagraphProperties properties = styles.resolveParagraph(paragraph);
+            
+            writer.beginParagraph();
+            if (properties.headingLevel > 0) {
+                writer.beginHeading(properties.headingLevel);
+            }
+            
+            String listLabel = styles.nextListLabel(properties);
+            if (listLabel != null) {
+                writer.writeText(listLabel);
+                writer.writeTab();
+            }
+            
+            for (DocxReader.Run run : paragraph.runs) {
+                int flags = styles.resolveRun(properties, run);
+                writer.beginRun((flags & DocxReader.BOLD) != 0,
+                        (flags & DocxReader.ITALIC) != 0,
+                        (flags & DocxReader.UNDERLINE) != 0);
+                writer.writeText(run.text);
+                writer.endGroup();
+            }
+            
+            if (properties.headingLevel > 0) {
+                writer.endGroup();
+            }
+            writer.endParagraph();
+        }
+    }
+    
     /**
      * Copy input stream to file
      * 
@@ -10,6 +10,7 @@ import android.provider.MediaStore;
 import android.util.Log;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -18,6 +19,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -76,9 +79,9 @@ public class DocxToTxtConverter {
             // Copy input stream to temporary file
             copyInputStreamToFile(context.getContentResolver().openInputStream(docxUri), tempInput);
             
-            // Extract text from DOCX and save as TXT
-            String textContent = extractTextFromDocx(tempInput);
-            saveTxtFile(textContent, outputFile);
+            // Read all text-bearing parts of the DOCX and save as TXT
+            DocxReader.Document document = DocxReader.read(tempInput);
+            saveTxtFile(document, outputFile);
             
             // Clean up temporary files
             tempInput.delete();
@@ -100,34 +103,6 @@ public class DocxToTxtConverter {
         }
     }
     
-    /**
-     * Extract text from a DOCX file
-     * 
-     * DOCX files are ZIP archives containing XML files
-     * The main content is in word/document.xml
-     * 
-     * @param docxFile Input DOCX file
-     * @return Extracted text content
-     * @throws IOException If reading fails
-     */
-    private static String extractTextFromDocx(File docxFile) throws IOException {
-        StringBuilder textContent = new StringBuilder();
-        
-        try (FileInputStream fis = new FileInputStream(docxFile);
-             ZipInputStream zis = new ZipInputStream(fis)) {
-            
-            ZipEntry zipEntry;
-            while ((zipEntry = zis.getNextEntry()) != null) {
-                if (zipEntry.getName().equals("word/document.xml")) {
-                    textContent.append(extractTextFromXML(zis));
-                    break;
-                }
-            }
-        }
-        
-        return textContent.toString();
-    }
-    
     /**
      * Extract text from XML content in the DOCX file
      * 
@@ -169,13 +144,15 @@ public class DocxToTxtConverter {
     }
     
     /**
-     * Save extracted text to a TXT file
+     * Save the document text to a TXT file
      * 
-     * @param textContent Text content to write
+     * Headers come first, then the body, footers, footnotes, endnotes and comments.
+     * 
+     * @param document Parsed DOCX document
      * @param txtFile Output TXT file
      * @throws Exception If file creation fails
      */
-    private static void saveTxtFile(String textContent, File txtFile) throws Exception {
+    private static void saveTxtFile(DocxReader.Document document, File txtFile) throws Exception {
         Log.d(TAG, "Creating TXT file at: " + txtFile.getAbsolutePath());
         
         // Ensure parent directory exists
@@ -189,8 +166,39 @@ public class DocxToTxtConverter {
         }
         
         // Create the output stream for the TXT file
-        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(txtFile))) {
-            writer.write(textContent);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(txtFile), StandardCharsets.UTF_8))) {
+            DocxReader.PartType previousType = null;
+            for (DocxReader.Part part : document.parts) {
+                boolean body = part.type == DocxReader.PartType.BODY;
+                boolean partStarted = false;
+                
+                for (DocxReader.Paragraph paragraph : part.paragraphs) {
+                    // Outside the body, empty paragraphs are separators and spacing only
+                    if (!body && paragraph.isEmpty()) {
+                        continue;
+                    }
+                    
+                    // Start each kind of part on its own block, labelling notes and comments
+                    if (!partStarted && part.type != previousType) {
+                        if (previousType != null) {
+                            writer.write('\n');
+                        }
+                        String label = getSectionLabel(part.type);
+                        if (label != null) {
+                            writer.write(label);
+                            writer.write('\n');
+                        }
+                        previousType = part.type;
+                    }
+                    partStarted = true;
+                    
+                    for (DocxReader.Run run : paragraph.runs) {
+                        writer.write(run.text);
+                    }
+                    writer.write('\n');
+                }
+            }
             Log.d(TAG, "TXT file created successfully");
         } catch (IOException e) {
             Log.e(TAG, "Error creating TXT file", e);
@@ -198,6 +206,25 @@ public class DocxToTxtConverter {
         }
     }
     
+    /**
+     * Get the heading written before a block of notes or comments
+     * 
+     * @param type Part type
+     * @return Label text, or null for parts that are written without a label
+     */
+    private static String getSectionLabel(DocxReader.PartType type) {
+        switch (type) {
+            case FOOTNOTES:
+                return "Footnotes:";
+            case ENDNOTES:
+                return "Endnotes:";
+            case COMMENTS:
+                return "Comments:";
+            default:
+                return null;
+        }
+    }
+    
     /**
      * Copy input stream to file
      * 
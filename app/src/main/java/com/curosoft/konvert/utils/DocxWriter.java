@@ -0,0 +1,221 @@
+package com.curosoft.konvert.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming writer for Office Open XML (DOCX) documents
+ *
+ * The package parts that never change are written from precomputed bytes, and
+ * word/document.xml is streamed straight into the zip one paragraph at a time, so
+ * memory use does not depend on the length of the document and POI is not loaded.
+ * Text is escaped one character at a time; characters that XML 1.0 does not allow
+ * are dropped.
+ */
+public class DocxWriter implements Closeable {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final String XML_DECLARATION =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private static final byte[] CONTENT_TYPES = (XML_DECLARATION +
+            "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+            "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+            "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+            "<Override PartName=\"/word/document.xml\" " +
+            "ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>" +
+            "<Override PartName=\"/word/styles.xml\" " +
+            "ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.styles+xml\"/>" +
+            "</Types>").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] PACKAGE_RELATIONSHIPS = (XML_DECLARATION +
+            "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+            "<Relationship Id=\"rId1\" " +
+            "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" " +
+            "Target=\"word/document.xml\"/>" +
+            "</Relationships>").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] DOCUMENT_RELATIONSHIPS = (XML_DECLARATION +
+            "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+            "<Relationship Id=\"rId1\" " +
+            "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" " +
+            "Target=\"styles.xml\"/>" +
+            "</Relationships>").getBytes(StandardCharsets.UTF_8);
+
+    // Calibri 11pt body text and three heading levels
+    private static final byte[] STYLES = (XML_DECLARATION +
+            "<w:styles xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">" +
+            "<w:docDefaults><w:rPrDefault><w:rPr>" +
+            "<w:rFonts w:ascii=\"Calibri\" w:hAnsi=\"Calibri\" w:eastAsia=\"Calibri\" w:cs=\"Calibri\"/>" +
+            "<w:sz w:val=\"22\"/><w:szCs w:val=\"22\"/>" +
+            "</w:rPr></w:rPrDefault></w:docDefaults>" +
+            "<w:style w:type=\"paragraph\" w:default=\"1\" w:styleId=\"Normal\">" +
+            "<w:name w:val=\"Normal\"/><w:qFormat/></w:style>" +
+            headingStyle(1, 32) +
+            headingStyle(2, 26) +
+            headingStyle(3, 24) +
+            "</w:styles>").getBytes(StandardCharsets.UTF_8);
+
+    private static final String DOCUMENT_START = XML_DECLARATION +
+            "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\" " +
+            "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+            "<w:body>";
+
+    // A4 with 1 inch margins
+    private static final String DOCUMENT_END =
+            "<w:sectPr><w:pgSz w:w=\"11906\" w:h=\"16838\"/>" +
+            "<w:pgMar w:top=\"1440\" w:right=\"1440\" w:bottom=\"1440\" w:left=\"1440\" " +
+            "w:header=\"708\" w:footer=\"708\" w:gutter=\"0\"/></w:sectPr>" +
+            "</w:body></w:document>";
+
+    private static final int MAX_HEADING_LEVEL = 3;
+
+    private final ZipOutputStream zip;
+    private Writer xml;
+    private int paragraphCount = 0;
+
+    /**
+     * Create a writer over the given output stream
+     *
+     * @param out Destination stream for the DOCX file; it is closed by {@link #close()}
+     */
+    public DocxWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(out instanceof BufferedOutputStream
+                ? out : new BufferedOutputStream(out, BUFFER_SIZE));
+    }
+
+    /**
+     * Write the fixed package parts and start the document body
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeHeader() throws IOException {
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", PACKAGE_RELATIONSHIPS);
+        writeEntry("word/_rels/document.xml.rels", DOCUMENT_RELATIONSHIPS);
+        writeEntry("word/styles.xml", STYLES);
+
+        zip.putNextEntry(new ZipEntry("word/document.xml"));
+        xml = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        xml.write(DOCUMENT_START);
+    }
+
+    /**
+     * Write a paragraph of body text
+     *
+     * @param text Text of the paragraph; '\n' becomes a line break and '\t' a tab
+     * @throws IOException If writing fails
+     */
+    public void writeParagraph(CharSequence text) throws IOException {
+        writeParagraph(null, text);
+    }
+
+    /**
+     * Write a heading paragraph
+     *
+     * @param text Text of the heading
+     * @param level Heading level (1-3); other values are clamped into that range
+     * @throws IOException If writing fails
+     */
+    public void writeHeading(CharSequence text, int level) throws IOException {
+        writeParagraph("Heading" + Math.max(1, Math.min(level, MAX_HEADING_LEVEL)), text);
+    }
+
+    /**
+     * @return The number of paragraphs and headings written so far
+     */
+    public int getParagraphCount() {
+        return paragraphCount;
+    }
+
+    /**
+     * Finish the document and close the underlying stream
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (xml != null) {
+                xml.write(DOCUMENT_END);
+                xml.flush();
+                zip.closeEntry();
+                xml = null;
+            }
+            zip.finish();
+        } finally {
+            zip.close();
+        }
+    }
+
+    private void writeParagraph(String styleId, CharSequence text) throws IOException {
+        xml.write("<w:p>");
+        if (styleId != null) {
+            xml.write("<w:pPr><w:pStyle w:val=\"");
+            xml.write(styleId);
+            xml.write("\"/></w:pPr>");
+        }
+        if (text.length() > 0) {
+            xml.write("<w:r><w:t xml:space=\"preserve\">");
+            for (int i = 0, length = text.length(); i < length; i++) {
+                writeChar(text.charAt(i));
+            }
+            xml.write("</w:t></w:r>");
+        }
+        xml.write("</w:p>");
+        paragraphCount++;
+    }
+
+    /**
+     * Write one character of run text, escaping it if needed
+     */
+    private void writeChar(char c) throws IOException {
+        switch (c) {
+            case '&':
+                xml.write("&amp;");
+                break;
+            case '<':
+                xml.write("&lt;");
+                break;
+            case '>':
+                xml.write("&gt;");
+                break;
+            case '\t':
+                xml.write("</w:t><w:tab/><w:t xml:space=\"preserve\">");
+                break;
+            case '\n':
+                xml.write("</w:t><w:br/><w:t xml:space=\"preserve\">");
+                break;
+            default:
+                // Other control characters and non-characters are not allowed in XML
+                if (c >= 0x20 && c != 0xfffe && c != 0xffff) {
+                    xml.write(c);
+                }
+                break;
+        }
+    }
+
+    private void writeEntry(String name, byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static String headingStyle(int level, int halfPoints) {
+        return "<w:style w:type=\"paragraph\" w:styleId=\"Heading" + level + "\">" +
+                "<w:name w:val=\"heading " + level + "\"/><w:basedOn w:val=\"Normal\"/>" +
+                "<w:next w:val=\"Normal\"/><w:qFormat/>" +
+                "<w:pPr><w:keepNext/><w:spacing w:before=\"240\" w:after=\"120\"/>" +
+                "<w:outlineLvl w:val=\"" + (level - 1) + "\"/></w:pPr>" +
+                "<w:rPr><w:b/><w:sz w:val=\"" + halfPoints + "\"/><w:szCs w:val=\"" + halfPoints + "\"/></w:rPr>" +
+                "</w:style>";
+    }
+}
@@ -44,7 +44,7 @@ public class EnhancedFilePickerUtils {
     public static final class SupportedFileTypes {
         // Document formats
         public static final String[] DOCS = {
-            "docx", "pdf", "txt"
+            "docx", "doc", "pdf", "txt", "csv", "xlsx", "pptx"
         };
         
         // Image formats
@@ -73,8 +73,12 @@ public class EnhancedFilePickerUtils {
         static {
             // Document MIME types
             MIME_TYPES.put("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+            MIME_TYPES.put("doc", "application/msword");
             MIME_TYPES.put("pdf", "application/pdf");
             MIME_TYPES.put("txt", "text/plain");
+            MIME_TYPES.put("csv", "text/csv");
+            MIME_TYPES.put("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            MIME_TYPES.put("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
             
             // Image MIME types
             MIME_TYPES.put("jpg", "image/jpeg");
@@ -0,0 +1,293 @@
+package com.curosoft.konvert.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Streaming writer for EPUB 3 books
+ *
+ * Paragraphs are streamed into XHTML chapter files one at a time. A new chapter
+ * starts at each heading of level {@link #CHAPTER_HEADING_LEVEL} or above, and
+ * whenever the current chapter has grown past {@link #CHAPTER_BYTES}, so e-readers
+ * only ever load a small file. The manifest, spine and table of contents get one
+ * entry as each chapter starts, and the package document is written from them when
+ * the book is closed; zip entries may come in any order after the mimetype.
+ */
+public class EpubPackageWriter extends ZipPackageWriter {
+    public static final String MIME_TYPE = "application/epub+zip";
+
+    // Chapters are split at level 1 and 2 headings
+    private static final int CHAPTER_HEADING_LEVEL = 2;
+    // Approximate size of a chapter's text before a new chapter is started
+    private static final int CHAPTER_BYTES = 64 * 1024;
+    private static final int MAX_HEADING_LEVEL = 6;
+
+    private static final String CONTENT_DIRECTORY = "OEBPS/";
+    private static final String PACKAGE_DOCUMENT = CONTENT_DIRECTORY + "content.opf";
+
+    private static final byte[] CONTAINER = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<container version=\"1.0\" xmlns=\"urn:oasis:names:tc:opendocument:xmlns:container\">\n" +
+            " <rootfiles>\n" +
+            "  <rootfile full-path=\"" + PACKAGE_DOCUMENT + "\" media-type=\"application/oebps-package+xml\"/>\n" +
+            " </rootfiles>\n" +
+            "</container>").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] STYLESHEET = ("body { margin: 0 5%; line-height: 1.4; }\n" +
+            "p { margin: 0 0 0.6em 0; }\n" +
+            "h1, h2, h3, h4, h5, h6 { margin: 1.2em 0 0.6em 0; line-height: 1.2; }\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final String XHTML_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<!DOCTYPE html>\n" +
+            "<html xmlns=\"http://www.w3.org/1999/xhtml\" xmlns:epub=\"http://www.idpf.org/2007/ops\">\n" +
+            "<head>\n" +
+            "  <title>";
+
+    private final String title;
+    private final String language;
+    private final String identifier = "urn:uuid:" + UUID.randomUUID();
+
+    // Entries for each chapter, appended as the chapters start
+    private final StringBuilder manifest = new StringBuilder();
+    private final StringBuilder spine = new StringBuilder();
+    private final StringWriter navigation = new StringWriter();
+    private final StringWriter navigationPoints = new StringWriter();
+
+    private Writer chapter;
+    private int chapterCount = 0;
+    private int navigationCount = 0;
+    private boolean headingChapters = false;
+    private long chapterBytes = 0;
+    private int paragraphCount = 0;
+
+    /**
+     * Create a writer over the given output stream
+     *
+     * @param out Destination stream for the EPUB file; it is closed by {@link #close()}
+     * @param title Title of the book
+     * @param language Language of the book as a BCP 47 tag, such as "en"
+     */
+    public EpubPackageWriter(OutputStream out, String title, String language) {
+        super(out);
+        this.title = title;
+        this.language = language;
+    }
+
+    /**
+     * Write the fixed package parts
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeHeader() throws IOException {
+        writeMimetype(MIME_TYPE);
+        writeEntry("META-INF/container.xml", CONTAINER);
+        writeEntry(CONTENT_DIRECTORY + "style.css", STYLESHEET);
+    }
+
+    /**
+     * Write a paragraph; text that is empty or only whitespace is skipped
+     *
+     * @param text Text of the paragraph; '\n' becomes a line break
+     * @throws IOException If writing fails
+     */
+    public void writeParagraph(CharSequence text) throws IOException {
+        if (isBlank(text)) {
+            return;
+        }
+        if (chapter == null || chapterBytes >= CHAPTER_BYTES) {
+            startChapter(null);
+        }
+        chapter.write("<p>");
+        writeText(text);
+        chapter.write("</p>\n");
+        paragraphCount++;
+    }
+
+    /**
+     * Write a heading, starting a new chapter at the top levels
+     *
+     * @param text Text of the heading
+     * @param level Heading level, starting at 1; levels past 6 are written as 6
+     * @throws IOException If writing fails
+     */
+    public void writeHeading(CharSequence text, int level) throws IOException {
+        if (isBlank(text)) {
+            return;
+        }
+        level = Math.max(1, Math.min(level, MAX_HEADING_LEVEL));
+        if (chapter == null || level <= CHAPTER_HEADING_LEVEL && chapterBytes > 0
+                || chapterBytes >= CHAPTER_BYTES) {
+            startChapter(level <= CHAPTER_HEADING_LEVEL ? text : null);
+        }
+        chapter.write("<h" + level + ">");
+        writeText(text);
+        chapter.write("</h" + level + ">\n");
+        paragraphCount++;
+    }
+
+    /**
+     * @return The number of paragraphs and headings written so far
+     */
+    public int getParagraphCount() {
+        return paragraphCount;
+    }
+
+    /**
+     * @return The number of chapter files started so far
+     */
+    public int getChapterCount() {
+        return chapterCount;
+    }
+
+    /**
+     * Finish the last chapter, write the package document and navigation, and close
+     * the underlying stream
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            // A book needs at least one chapter in its spine
+            if (chapterCount == 0) {
+                startChapter(null);
+            }
+            endChapter();
+            writeEntry(CONTENT_DIRECTORY + "nav.xhtml", createNavigationDocument());
+            writeEntry(CONTENT_DIRECTORY + "toc.ncx", createNcx());
+            writeEntry(PACKAGE_DOCUMENT, createPackageDocument());
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * Start the next chapter file and add it to the manifest, spine and table of contents
+     *
+     * @param heading The heading the chapter starts with, or null
+     */
+    private void startChapter(CharSequence heading) throws IOException {
+        endChapter();
+        chapterCount++;
+        String id = String.format(Locale.US, "chapter%04d", chapterCount);
+        String href = id + ".xhtml";
+
+        chapter = beginEntry(CONTENT_DIRECTORY + href);
+        chapter.write(XHTML_START);
+        writeEscaped(chapter, heading != null ? heading : title);
+        chapter.write("</title>\n" +
+                "  <link rel=\"stylesheet\" type=\"text/css\" href=\"style.css\"/>\n" +
+                "</head>\n" +
+                "<body>\n");
+        chapterBytes = 0;
+
+        manifest.append("    <item id=\"").append(id).append("\" href=\"").append(href)
+                .append("\" media-type=\"application/xhtml+xml\"/>\n");
+        spine.append("    <itemref idref=\"").append(id).append("\"/>\n");
+
+        // Chapters split off for size are listed only while the book has no headings
+        headingChapters |= heading != null;
+        if (heading != null || !headingChapters) {
+            navigationCount++;
+            CharSequence label = heading != null ? heading
+                    : chapterCount == 1 ? title : "Part " + chapterCount;
+            navigation.write("      <li><a href=\"" + href + "\">");
+            writeEscaped(navigation, label);
+            navigation.write("</a></li>\n");
+
+            navigationPoints.write("    <navPoint id=\"nav" + navigationCount + "\" playOrder=\""
+                    + navigationCount + "\"><navLabel><text>");
+            writeEscaped(navigationPoints, label);
+            navigationPoints.write("</text></navLabel><content src=\"" + href + "\"/></navPoint>\n");
+        }
+    }
+
+    private void endChapter() throws IOException {
+        if (chapter != null) {
+            chapter.write("</body>\n</html>\n");
+            endEntry();
+            chapter = null;
+        }
+    }
+
+    /**
+     * Write escaped text, using line break elements for '\n', and count its UTF-8 size
+     * towards the chapter budget
+     */
+    private void writeText(CharSequence text) throws IOException {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                chapter.write("<br/>");
+            } else if (c != '\r') {
+                writeEscaped(chapter, c);
+            }
+            chapterBytes += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+    }
+
+    private byte[] createPackageDocument() throws IOException {
+        StringWriter opf = new StringWriter();
+        opf.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<package xmlns=\"http://www.idpf.org/2007/opf\" version=\"3.0\" " +
+                "unique-identifier=\"book-id\">\n" +
+                "  <metadata xmlns:dc=\"http://purl.org/dc/elements/1.1/\">\n" +
+                "    <dc:identifier id=\"book-id\">" + identifier + "</dc:identifier>\n" +
+                "    <dc:title>");
+        writeEscaped(opf, title);
+        opf.write("</dc:title>\n    <dc:language>");
+        writeEscaped(opf, language);
+        opf.write("</dc:language>\n" +
+                "    <meta property=\"dcterms:modified\">" +
+                Instant.now().truncatedTo(ChronoUnit.SECONDS) + "</meta>\n" +
+                "    <meta name=\"generator\" content=\"Konvert App\"/>\n" +
+                "  </metadata>\n" +
+                "  <manifest>\n" +
+                "    <item id=\"nav\" href=\"nav.xhtml\" media-type=\"application/xhtml+xml\" properties=\"nav\"/>\n" +
+                "    <item id=\"ncx\" href=\"toc.ncx\" media-type=\"application/x-dtbncx+xml\"/>\n" +
+                "    <item id=\"style\" href=\"style.css\" media-type=\"text/css\"/>\n");
+        opf.write(manifest.toString());
+        opf.write("  </manifest>\n  <spine toc=\"ncx\">\n");
+        opf.write(spine.toString());
+        opf.write("  </spine>\n</package>\n");
+        return opf.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] createNavigationDocument() throws IOException {
+        StringWriter nav = new StringWriter();
+        nav.write(XHTML_START);
+        writeEscaped(nav, title);
+        nav.write("</title>\n" +
+                "</head>\n" +
+                "<body>\n" +
+                "  <nav epub:type=\"toc\" id=\"toc\">\n" +
+                "    <h1>Contents</h1>\n" +
+                "    <ol>\n");
+        nav.write(navigation.toString());
+        nav.write("    </ol>\n  </nav>\n</body>\n</html>\n");
+        return nav.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * NCX table of contents for EPUB 2 reading systems
+     */
+    private byte[] createNcx() throws IOException {
+        StringWriter ncx = new StringWriter();
+        ncx.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<ncx xmlns=\"http://www.daisy.org/z3986/2005/ncx/\" version=\"2005-1\">\n" +
+                "  <head><meta name=\"dtb:uid\" content=\"" + identifier + "\"/></head>\n" +
+                "  <docTitle><text>");
+        writeEscaped(ncx, title);
+        ncx.write("</text></docTitle>\n  <navMap>\n");
+        ncx.write(navigationPoints.toString());
+        ncx.write("  </navMap>\n</ncx>\n");
+        return ncx.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
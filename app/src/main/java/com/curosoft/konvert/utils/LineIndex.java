@@ -0,0 +1,417 @@
+package com.curosoft.konvert.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Index of the line start offsets of a text file, for seeking to any line without
+ * reading the text before it
+ *
+ * The index is built in one pass over the memory-mapped file. Every
+ * {@link #CHECKPOINT_INTERVAL}th line start is kept as an absolute offset, and the
+ * lines in between as varint-encoded distances from the line before, so a typical
+ * line costs one or two bytes of index. Looking up a line reads one checkpoint and at
+ * most {@link #CHECKPOINT_INTERVAL} - 1 deltas, whatever the size of the file.
+ * Indexes are saved in the cache directory and reused while the file's size and
+ * modification time are unchanged.
+ *
+ * Lines end at "\n", "\r" or "\r\n", as with {@link TextSource#readLine(StringBuilder)}.
+ */
+public class LineIndex {
+    private static final String TAG = "LineIndex";
+
+    private static final int CHECKPOINT_INTERVAL = 64;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CACHE_DIR = "line_index";
+    private static final int MAGIC = 0x4b4c4958; // "KLIX"
+    private static final int VERSION = 1;
+
+    private final long fileLength;
+    private final long lastModified;
+    private final Charset charset;
+    private final long lineCount;
+    // Offset of every CHECKPOINT_INTERVAL-th line, and where its block starts in deltas
+    private final long[] checkpoints;
+    private final int[] deltaPositions;
+    private final byte[] deltas;
+
+    private LineIndex(long fileLength, long lastModified, Charset charset, long lineCount,
+                      long[] checkpoints, int[] deltaPositions, byte[] deltas) {
+        this.fileLength = fileLength;
+        this.lastModified = lastModified;
+        this.charset = charset;
+        this.lineCount = lineCount;
+        this.checkpoints = checkpoints;
+        this.deltaPositions = deltaPositions;
+        this.deltas = deltas;
+    }
+
+    /**
+     * Get the line index of a text file, from the cache if it is still current
+     *
+     * This reads the whole file when the index has to be built, so call it off the
+     * main thread.
+     *
+     * @param context The application context
+     * @param uri URI of the text file
+     * @return The line index
+     * @throws IOException If the file cannot be read
+     */
+    public static LineIndex get(Context context, Uri uri) throws IOException {
+        ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(uri, "r");
+        if (descriptor == null) {
+            throw new FileNotFoundException("Cannot open " + uri);
+        }
+
+        try (FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+             FileChannel channel = in.getChannel()) {
+            long lastModified;
+            try {
+                lastModified = Os.fstat(descriptor.getFileDescriptor()).st_mtime;
+            } catch (ErrnoException e) {
+                throw e.rethrowAsIOException();
+            }
+
+            File cacheFile = getCacheFile(context, uri);
+            LineIndex index = load(cacheFile, channel.size(), lastModified);
+            if (index != null) {
+                return index;
+            }
+
+            long start = System.currentTimeMillis();
+            index = build(channel, lastModified);
+            Log.d(TAG, "Indexed " + index.lineCount + " lines in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            try {
+                index.save(cacheFile);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save line index", e);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * @return The number of lines in the file
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return The charset the file was detected to be in
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Get the byte offset where a line starts
+     *
+     * @param line Index of the line, from 0; the line count gives the length of the file
+     * @return The byte offset of the line
+     */
+    public long getLineOffset(long line) {
+        if (line < 0 || line > lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + " of " + lineCount);
+        }
+        if (line == lineCount) {
+            return fileLength;
+        }
+
+        int block = (int) (line / CHECKPOINT_INTERVAL);
+        long offset = checkpoints[block];
+        int position = deltaPositions[block];
+        for (int i = (int) (line % CHECKPOINT_INTERVAL); i > 0; i--) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = deltas[position++];
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            offset += delta;
+        }
+        return offset;
+    }
+
+    /**
+     * Find the line that contains a byte offset
+     *
+     * @param offset Byte offset in the file
+     * @return Index of the line containing the offset; offsets before the first line
+     *         give 0 and offsets past the last give the line count
+     */
+    public long getLineAt(long offset) {
+        if (lineCount == 0 || offset >= fileLength) {
+            return lineCount;
+        }
+        int block = Arrays.binarySearch(checkpoints, offset);
+        if (block >= 0) {
+            return (long) block * CHECKPOINT_INTERVAL;
+        }
+        block = Math.max(0, -block - 2);
+
+        long first = (long) block * CHECKPOINT_INTERVAL;
+        long last = Math.min(first + CHECKPOINT_INTERVAL, lineCount);
+        for (long line = first + 1; line < last; line++) {
+            if (getLineOffset(line) > offset) {
+                return line - 1;
+            }
+        }
+        return last - 1;
+    }
+
+    /**
+     * Open the text of a file from the start of a line
+     *
+     * @param context The application context
+     * @param uri URI of the text file this index was built for
+     * @param line Index of the first line to read
+     * @return The text source, positioned at the line; the caller must close it
+     * @throws IOException If the file cannot be read
+     */
+    public TextSource open(Context context, Uri uri, long line) throws IOException {
+        long offset = getLineOffset(line);
+        InputStream in = context.getContentResolver().openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException("Cannot open " + uri);
+        }
+        try {
+            if (in instanceof FileInputStream) {
+                ((FileInputStream) in).getChannel().position(offset);
+            } else {
+                skipFully(in, offset);
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+        return TextSource.open(in, charset);
+    }
+
+    /**
+     * Build the index of a file in one pass over its memory-mapped content
+     */
+    static LineIndex build(FileChannel channel, long lastModified) throws IOException {
+        long length = channel.size();
+        byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+
+        // Detect the charset from the first bytes, and start the first line after the BOM
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(length, TextSource.SNIFF_LENGTH));
+        int headLength = head.remaining();
+        head.get(buffer, 0, headLength);
+        Charset charset = TextSource.detectCharset(buffer, headLength);
+        int bomLength = TextSource.bomLength(buffer, headLength);
+
+        // '\r' and '\n' are single bytes that never occur inside a multi-byte character,
+        // except in UTF-16 where every character is made of 2-byte units
+        boolean littleEndian = charset.equals(StandardCharsets.UTF_16LE);
+        int unit = littleEndian || charset.equals(StandardCharsets.UTF_16BE) ? 2 : 1;
+
+        Builder builder = new Builder();
+        long lineStart = bomLength;
+        boolean afterCr = false;
+        for (long windowStart = bomLength; windowStart < length; windowStart += MAP_WINDOW) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(MAP_WINDOW, length - windowStart));
+            long offset = windowStart;
+            while (window.remaining() >= unit) {
+                int count = Math.min(buffer.length, window.remaining());
+                count -= count % unit;
+                window.get(buffer, 0, count);
+                for (int i = 0; i < count; i += unit) {
+                    int c;
+                    if (unit == 1) {
+                        c = buffer[i];
+                    } else if (littleEndian) {
+                        c = (buffer[i] & 0xff) | (buffer[i + 1] & 0xff) << 8;
+                    } else {
+                        c = (buffer[i] & 0xff) << 8 | (buffer[i + 1] & 0xff);
+                    }
+                    if (c != '\n' && c != '\r') {
+                        afterCr = false;
+                        continue;
+                    }
+
+                    long next = offset + i + unit;
+                    if (c == '\n' && afterCr) {
+                        // The '\n' of "\r\n" only moves the start of the next line
+                        afterCr = false;
+                    } else {
+                        builder.addLine(lineStart);
+                        afterCr = c == '\r';
+                    }
+                    lineStart = next;
+                }
+                offset += count;
+            }
+        }
+        if (lineStart < length) {
+            builder.addLine(lineStart);
+        }
+        return builder.build(length, lastModified, charset);
+    }
+
+    /**
+     * Load a saved index if it was built for a file of the given size and modification time
+     *
+     * @return The index, or null if there is no current one
+     */
+    static LineIndex load(File file, long fileLength, long lastModified) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != CHECKPOINT_INTERVAL
+                    || in.readLong() != fileLength || in.readLong() != lastModified) {
+                return null;
+            }
+            Charset charset = Charset.forName(in.readUTF());
+            long lineCount = in.readLong();
+            long[] checkpoints = new long[in.readInt()];
+            for (int i = 0; i < checkpoints.length; i++) {
+                checkpoints[i] = in.readLong();
+            }
+            int[] deltaPositions = new int[checkpoints.length];
+            for (int i = 0; i < deltaPositions.length; i++) {
+                deltaPositions[i] = in.readInt();
+            }
+            byte[] deltas = new byte[in.readInt()];
+            in.readFully(deltas);
+            return new LineIndex(fileLength, lastModified, charset, lineCount, checkpoints, deltaPositions, deltas);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Ignoring unreadable line index " + file.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Save the index, replacing any earlier one in the same file
+     */
+    void save(File file) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(CHECKPOINT_INTERVAL);
+            out.writeLong(fileLength);
+            out.writeLong(lastModified);
+            out.writeUTF(charset.name());
+            out.writeLong(lineCount);
+            out.writeInt(checkpoints.length);
+            for (long checkpoint : checkpoints) {
+                out.writeLong(checkpoint);
+            }
+            for (int position : deltaPositions) {
+                out.writeInt(position);
+            }
+            out.writeInt(deltas.length);
+            out.write(deltas);
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to save " + file.getName());
+        }
+    }
+
+    private static File getCacheFile(Context context, Uri uri) throws IOException {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + 4);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return new File(new File(context.getCacheDir(), CACHE_DIR), name.append(".idx").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * Collects line starts into checkpoints and varint deltas as they are found
+     */
+    private static class Builder {
+        private long[] checkpoints = new long[64];
+        private int[] deltaPositions = new int[64];
+        private byte[] deltas = new byte[4096];
+        private int deltaLength = 0;
+        private long lineCount = 0;
+        private long previous = 0;
+
+        void addLine(long offset) {
+            if (lineCount % CHECKPOINT_INTERVAL == 0) {
+                int block = (int) (lineCount / CHECKPOINT_INTERVAL);
+                if (block == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, block * 2);
+                    deltaPositions = Arrays.copyOf(deltaPositions, block * 2);
+                }
+                checkpoints[block] = offset;
+                deltaPositions[block] = deltaLength;
+            } else {
+                if (deltaLength + 10 > deltas.length) {
+                    deltas = Arrays.copyOf(deltas, deltas.length * 2);
+                }
+                long delta = offset - previous;
+                while (delta >= 0x80) {
+                    deltas[deltaLength++] = (byte) (delta | 0x80);
+                    delta >>>= 7;
+                }
+                deltas[deltaLength++] = (byte) delta;
+            }
+            previous = offset;
+            lineCount++;
+        }
+
+        LineIndex build(long fileLength, long lastModified, Charset charset) {
+            int blocks = (int) ((lineCount + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL);
+            return new LineIndex(fileLength, lastModified, charset, lineCount,
+                    Arrays.copyOf(checkpoints, blocks), Arrays.copyOf(deltaPositions, blocks),
+                    Arrays.copyOf(deltas, deltaLength));
+        }
+    }
+}
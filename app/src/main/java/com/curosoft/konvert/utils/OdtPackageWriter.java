@@ -0,0 +1,182 @@
+package com.curosoft.konvert.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+
+/**
+ * Streaming writer for OpenDocument Text (ODT) packages
+ *
+ * The manifest and styles are written from precomputed bytes and content.xml is
+ * streamed paragraph by paragraph straight into the zip, so converters never hold
+ * the document in memory or stage it on disk. Tabs, line breaks and runs of spaces
+ * are written as their ODF elements so they survive whitespace collapsing.
+ */
+public class OdtPackageWriter extends ZipPackageWriter {
+    public static final String MIME_TYPE = "application/vnd.oasis.opendocument.text";
+
+    private static final byte[] MANIFEST = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<manifest:manifest xmlns:manifest=\"urn:oasis:names:tc:opendocument:xmlns:manifest:1.0\">\n" +
+            " <manifest:file-entry manifest:media-type=\"" + MIME_TYPE + "\" manifest:full-path=\"/\"/>\n" +
+            " <manifest:file-entry manifest:media-type=\"text/xml\" manifest:full-path=\"content.xml\"/>\n" +
+            " <manifest:file-entry manifest:media-type=\"text/xml\" manifest:full-path=\"meta.xml\"/>\n" +
+            " <manifest:file-entry manifest:media-type=\"text/xml\" manifest:full-path=\"styles.xml\"/>\n" +
+            "</manifest:manifest>").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] STYLES = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<office:document-styles xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\">\n" +
+            "</office:document-styles>").getBytes(StandardCharsets.UTF_8);
+
+    private static final String CONTENT_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<office:document-content xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\" " +
+            "xmlns:text=\"urn:oasis:names:tc:opendocument:xmlns:text:1.0\" " +
+            "xmlns:style=\"urn:oasis:names:tc:opendocument:xmlns:style:1.0\">\n" +
+            "  <office:body>\n" +
+            "    <office:text>\n";
+
+    private static final String CONTENT_END = "    </office:text>\n" +
+            "  </office:body>\n" +
+            "</office:document-content>";
+
+    private Writer content;
+    private int paragraphCount = 0;
+
+    /**
+     * Create a writer over the given output stream
+     *
+     * @param out Destination stream for the ODT file; it is closed by {@link #close()}
+     */
+    public OdtPackageWriter(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Write the fixed package parts and start content.xml
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeHeader() throws IOException {
+        writeMimetype(MIME_TYPE);
+        writeEntry("META-INF/manifest.xml", MANIFEST);
+        writeEntry("meta.xml", createMeta());
+        writeEntry("styles.xml", STYLES);
+
+        content = beginEntry("content.xml");
+        content.write(CONTENT_START);
+    }
+
+    /**
+     * Write a paragraph; text that is empty or only whitespace becomes an empty paragraph
+     *
+     * @param text Text of the paragraph
+     * @throws IOException If writing fails
+     */
+    public void writeParagraph(CharSequence text) throws IOException {
+        if (isBlank(text)) {
+            content.write("      <text:p/>\n");
+        } else {
+            content.write("      <text:p>");
+            writeText(text);
+            content.write("</text:p>\n");
+        }
+        paragraphCount++;
+    }
+
+    /**
+     * Write a heading
+     *
+     * @param text Text of the heading
+     * @param level Outline level, starting at 1
+     * @throws IOException If writing fails
+     */
+    public void writeHeading(CharSequence text, int level) throws IOException {
+        content.write("      <text:h text:outline-level=\"");
+        content.write(Integer.toString(Math.max(1, level)));
+        content.write("\">");
+        writeText(text);
+        content.write("</text:h>\n");
+        paragraphCount++;
+    }
+
+    /**
+     * @return The number of paragraphs and headings written so far
+     */
+    public int getParagraphCount() {
+        return paragraphCount;
+    }
+
+    /**
+     * Finish content.xml and the package, and close the underlying stream
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (content != null) {
+                content.write(CONTENT_END);
+                content = null;
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * Write escaped paragraph text, using ODF elements for tabs, line breaks and
+     * spaces that would otherwise be collapsed
+     */
+    private void writeText(CharSequence text) throws IOException {
+        // Leading spaces are collapsed too, so start as if after a space
+        boolean afterSpace = true;
+        int pendingSpaces = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c == ' ') {
+                if (afterSpace) {
+                    pendingSpaces++;
+                } else {
+                    content.write(' ');
+                    afterSpace = true;
+                }
+                continue;
+            }
+            writeSpaces(pendingSpaces);
+            pendingSpaces = 0;
+            afterSpace = false;
+
+            if (c == '\t') {
+                content.write("<text:tab/>");
+            } else if (c == '\n') {
+                content.write("<text:line-break/>");
+                afterSpace = true;
+            } else if (c != '\r') {
+                writeEscaped(content, c);
+            }
+        }
+        writeSpaces(pendingSpaces);
+    }
+
+    private void writeSpaces(int count) throws IOException {
+        if (count == 1) {
+            content.write("<text:s/>");
+        } else if (count > 1) {
+            content.write("<text:s text:c=\"");
+            content.write(Integer.toString(count));
+            content.write("\"/>");
+        }
+    }
+
+    private static byte[] createMeta() {
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<office:document-meta xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\" " +
+                "xmlns:meta=\"urn:oasis:names:tc:opendocument:xmlns:meta:1.0\">\n" +
+                " <office:meta>\n" +
+                "  <meta:generator>Konvert App</meta:generator>\n" +
+                "  <meta:creation-date>" + OffsetDateTime.now().toString() + "</meta:creation-date>\n" +
+                " </office:meta>\n" +
+                "</office:document-meta>").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,165 @@
+package com.curosoft.konvert.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A selection of pages within a document
+ *
+ * Parsed from a comma-separated list of single pages ("8"), ranges ("40-55"),
+ * open ranges ("40-" for page 40 to the end) and "last N" for the final N pages,
+ * for example "1-3, 8, last 2". An empty string or "all" selects every page.
+ * The selection is resolved against the page count only once the document is open,
+ * so pages past the end are ignored rather than rejected.
+ */
+public class PageRange {
+    public static final PageRange ALL = new PageRange("all", new ArrayList<>());
+
+    private final String spec;
+    private final List<int[]> parts;
+
+    private PageRange(String spec, List<int[]> parts) {
+        this.spec = spec;
+        this.parts = parts;
+    }
+
+    /**
+     * Parse a page selection
+     *
+     * @param spec Page selection such as "1-3, 8, last 2", or empty for all pages
+     * @return Parsed page range
+     * @throws IllegalArgumentException If the selection is not valid
+     */
+    public static PageRange parse(String spec) {
+        if (spec == null || spec.trim().isEmpty() || spec.trim().equalsIgnoreCase("all")) {
+            return ALL;
+        }
+
+        // Each part is {first, last} with 0 meaning the last page, or {-N} for the last N pages
+        List<int[]> parts = new ArrayList<>();
+        for (String token : spec.split(",")) {
+            String part = token.trim().toLowerCase(Locale.ROOT);
+            if (part.isEmpty()) {
+                continue;
+            }
+            if (part.startsWith("last")) {
+                int count = parsePage(part.substring(4).trim(), token);
+                parts.add(new int[]{-count});
+            } else if (part.contains("-")) {
+                int dash = part.indexOf('-');
+                int first = parsePage(part.substring(0, dash).trim(), token);
+                String end = part.substring(dash + 1).trim();
+                int last = end.isEmpty() ? 0 : parsePage(end, token);
+                if (last != 0 && last < first) {
+                    throw new IllegalArgumentException("Invalid page range: " + token.trim());
+                }
+                parts.add(new int[]{first, last});
+            } else {
+                int page = parsePage(part, token);
+                parts.add(new int[]{page, page});
+            }
+        }
+        if (parts.isEmpty()) {
+            return ALL;
+        }
+        return new PageRange(spec.trim(), parts);
+    }
+
+    /**
+     * Parse a positive page number or count
+     */
+    private static int parsePage(String value, String token) {
+        try {
+            int page = Integer.parseInt(value);
+            if (page < 1) {
+                throw new IllegalArgumentException("Page numbers start at 1: " + token.trim());
+            }
+            return page;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page range: " + token.trim());
+        }
+    }
+
+    /**
+     * Check whether every page is selected
+     *
+     * @return true if the range selects the whole document
+     */
+    public boolean isAll() {
+        return parts.isEmpty();
+    }
+
+    /**
+     * Resolve the selection against a document
+     *
+     * @param pageCount Number of pages in the document
+     * @return Selected 1-based page numbers in ascending order, without duplicates
+     */
+    public int[] resolve(int pageCount) {
+        BitSet selected = new BitSet(pageCount + 1);
+        if (isAll()) {
+            selected.set(1, pageCount + 1);
+        }
+        for (int[] part : parts) {
+            int first;
+            int last;
+            if (part.length == 1) {
+                first = Math.max(1, pageCount + part[0] + 1);
+                last = pageCount;
+            } else {
+                first = part[0];
+                last = part[1] == 0 ? pageCount : Math.min(part[1], pageCount);
+            }
+            if (first <= last) {
+                selected.set(first, last + 1);
+            }
+        }
+
+        int[] pages = new int[selected.cardinality()];
+        int index = 0;
+        for (int page = selected.nextSetBit(1); page >= 0; page = selected.nextSetBit(page + 1)) {
+            pages[index++] = page;
+        }
+        return pages;
+    }
+
+    /**
+     * Split the selection into one range per comma-separated part, for example to
+     * write each part to its own file
+     *
+     * @return The parts in the order given, or just this range if every page is selected
+     */
+    public List<PageRange> getParts() {
+        List<PageRange> ranges = new ArrayList<>();
+        if (isAll()) {
+            ranges.add(this);
+            return ranges;
+        }
+        for (int[] part : parts) {
+            List<int[]> single = new ArrayList<>();
+            single.add(part);
+            ranges.add(new PageRange(describe(part), single));
+        }
+        return ranges;
+    }
+
+    /**
+     * Format one part the way it is parsed
+     */
+    private static String describe(int[] part) {
+        if (part.length == 1) {
+            return "last " + (-part[0]);
+        }
+        if (part[1] == 0) {
+            return part[0] + "-";
+        }
+        return part[0] == part[1] ? String.valueOf(part[0]) : part[0] + "-" + part[1];
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
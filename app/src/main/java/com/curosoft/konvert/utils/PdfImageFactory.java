@@ -0,0 +1,164 @@
+package com.curosoft.konvert.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Utility class to prepare embedded document images for PDF output
+ *
+ * JPEG images are passed through as DCTDecode streams without being decoded. Other
+ * formats are decoded with a power-of-two sample size chosen from the image bounds, so
+ * the decoded bitmap never exceeds the memory ceiling, then scaled to the target DPI
+ * for their display size and recompressed.
+ */
+public class PdfImageFactory {
+    private static final String TAG = "PdfImageFactory";
+
+    public static final int DEFAULT_TARGET_DPI = 150;
+    public static final long DEFAULT_MAX_IMAGE_BYTES = 16L * 1024 * 1024;
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int JPEG_QUALITY = 85;
+    private static final float POINTS_PER_INCH = 72f;
+    // Images whose display size is unknown are sized for a full page width
+    private static final float DEFAULT_WIDTH_POINTS = 468f;
+
+    private final int targetDpi;
+    private final long maxImageBytes;
+
+    /**
+     * Create a factory with the given limits
+     *
+     * @param targetDpi Resolution to downsample non-JPEG images to, at their display size
+     * @param maxImageBytes Ceiling for the decoded size of a single image, in bytes
+     */
+    public PdfImageFactory(int targetDpi, long maxImageBytes) {
+        this.targetDpi = Math.max(36, targetDpi);
+        this.maxImageBytes = Math.max(256 * 1024, maxImageBytes);
+    }
+
+    /**
+     * Create PDF image data for an image part
+     *
+     * @param zipFile Archive containing the image
+     * @param entry Image entry
+     * @param widthPoints Display width in points, or 0 if unknown
+     * @param heightPoints Display height in points, or 0 if unknown
+     * @return Image data, or null if the format is not supported
+     * @throws IOException If the image cannot be read
+     */
+    public ImageData create(ZipFile zipFile, ZipEntry entry, float widthPoints, float heightPoints) throws IOException {
+        // JPEGs within the ceiling are embedded as they are
+        if (isJpeg(zipFile, entry) && entry.getSize() >= 0 && entry.getSize() <= maxImageBytes) {
+            return ImageDataFactory.create(readBytes(zipFile, entry));
+        }
+        return createDownsampled(zipFile, entry, widthPoints, heightPoints);
+    }
+
+    /**
+     * Decode an image within the memory ceiling, scale it to the target DPI and recompress it
+     */
+    private ImageData createDownsampled(ZipFile zipFile, ZipEntry entry, float widthPoints, float heightPoints)
+            throws IOException {
+        // Read the bounds only
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = new BufferedInputStream(zipFile.getInputStream(entry))) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            Log.w(TAG, "Unsupported image format: " + entry.getName());
+            return null;
+        }
+
+        // Pixel size needed for the display size at the target DPI
+        float displayWidth = widthPoints > 0 ? widthPoints : DEFAULT_WIDTH_POINTS;
+        float displayHeight = heightPoints > 0 ? heightPoints
+                : displayWidth * options.outHeight / options.outWidth;
+        int targetWidth = Math.max(1, Math.round(displayWidth / POINTS_PER_INCH * targetDpi));
+        int targetHeight = Math.max(1, Math.round(displayHeight / POINTS_PER_INCH * targetDpi));
+
+        // Largest power-of-two sample that still covers the target, then grow until within the ceiling
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= targetWidth
+                && options.outHeight / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        while ((long) (options.outWidth / sampleSize) * (options.outHeight / sampleSize) * BYTES_PER_PIXEL
+                > maxImageBytes) {
+            sampleSize *= 2;
+        }
+
+        BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+        decodeOptions.inSampleSize = sampleSize;
+        Bitmap bitmap;
+        try (InputStream in = new BufferedInputStream(zipFile.getInputStream(entry))) {
+            bitmap = BitmapFactory.decodeStream(in, null, decodeOptions);
+        }
+        if (bitmap == null) {
+            Log.w(TAG, "Failed to decode image: " + entry.getName());
+            return null;
+        }
+
+        try {
+            // Finish with an exact scale when sampling left the image well above the target
+            if (bitmap.getWidth() > targetWidth * 3 / 2) {
+                int scaledHeight = Math.max(1, Math.round((float) bitmap.getHeight() * targetWidth / bitmap.getWidth()));
+                Bitmap scaled = Bitmap.createScaledBitmap(bitmap, targetWidth, scaledHeight, true);
+                if (scaled != bitmap) {
+                    bitmap.recycle();
+                    bitmap = scaled;
+                }
+            }
+
+            // Opaque images compress far better as JPEG; keep PNG where transparency matters
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (bitmap.hasAlpha()) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } else {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+            Log.d(TAG, "Downsampled " + entry.getName() + " from " + options.outWidth + "x" + options.outHeight
+                    + " to " + bitmap.getWidth() + "x" + bitmap.getHeight());
+            return ImageDataFactory.create(out.toByteArray());
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Check the JPEG signature at the start of an entry
+     */
+    private static boolean isJpeg(ZipFile zipFile, ZipEntry entry) throws IOException {
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            return in.read() == 0xFF && in.read() == 0xD8 && in.read() == 0xFF;
+        }
+    }
+
+    /**
+     * Read a whole entry into memory
+     */
+    private static byte[] readBytes(ZipFile zipFile, ZipEntry entry) throws IOException {
+        int size = entry.getSize() > 0 ? (int) entry.getSize() : 8192;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,348 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for merging several PDF files into one and splitting a PDF into parts
+ *
+ * Pages are copied one at a time with {@link PdfDocument#copyPagesTo} and flushed to
+ * the output straight away, and each source is closed before the next is opened, so
+ * memory use does not grow with the number or size of the inputs. The output is
+ * written in smart mode, which stores fonts, images and other objects shared between
+ * pages or inputs only once. Otherwise the output follows the PDF output profile from
+ * the settings.
+ */
+public class PdfMergeSplitter {
+    private static final String TAG = "PdfMergeSplitter";
+
+    // Pages copied from the source of a split before it is closed and opened again
+    private static final int PAGES_PER_SOURCE = 100;
+
+    /**
+     * Merge PDF files into a single PDF
+     *
+     * @param context The context
+     * @param pdfUris The URIs of the PDF files, in output order
+     * @return The path to the merged PDF file, or null if merging failed
+     */
+    public static String mergePdfs(Context context, List<Uri> pdfUris) {
+        Log.d(TAG, "Merging " + pdfUris.size() + " PDF files");
+        if (pdfUris.isEmpty()) {
+            return null;
+        }
+
+        File outputFile = null;
+        try {
+            // Name the result after the first input
+            String firstFileName = EnhancedFilePickerUtils.getFileName(context, pdfUris.get(0));
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            outputFile = new File(outputDir, getBaseName(firstFileName) + "_merged.pdf");
+
+            PdfOutputProfile profile = PdfOutputProfile.fromSettings(context);
+            try (PdfDocument destination = createDocument(outputFile, profile)) {
+                for (Uri pdfUri : pdfUris) {
+                    // Only one source is copied to the cache at a time
+                    File tempFile = createTempFileFromUri(context, pdfUri);
+                    try {
+                        copyAllPages(tempFile, destination);
+                    } finally {
+                        tempFile.delete();
+                    }
+                }
+            }
+
+            addToMediaStore(context, outputFile, "application/pdf");
+            Log.d(TAG, "Merge successful. Output file: " + outputFile.getAbsolutePath());
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error merging PDF files", e);
+            if (outputFile != null) {
+                outputFile.delete();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Split a PDF into one file per page range
+     *
+     * @param context    The context
+     * @param pdfUri     The URI of the PDF file
+     * @param pageRanges The pages to put in each output file
+     * @return The paths to the created PDF files, or null if splitting failed
+     */
+    public static List<String> splitPdf(Context context, Uri pdfUri, List<PageRange> pageRanges) {
+        return splitPdf(context, pdfUri, pageRanges, 0);
+    }
+
+    /**
+     * Split a PDF into files of at most the given number of pages
+     *
+     * @param context      The context
+     * @param pdfUri       The URI of the PDF file
+     * @param pagesPerFile The maximum number of pages in each output file
+     * @return The paths to the created PDF files, or null if splitting failed
+     */
+    public static List<String> splitPdf(Context context, Uri pdfUri, int pagesPerFile) {
+        if (pagesPerFile < 1) {
+            Log.e(TAG, "Invalid pages per file: " + pagesPerFile);
+            return null;
+        }
+        return splitPdf(context, pdfUri, null, pagesPerFile);
+    }
+
+    /**
+     * Split a PDF by page ranges, or into chunks of pages when no ranges are given
+     */
+    private static List<String> splitPdf(Context context, Uri pdfUri, List<PageRange> pageRanges,
+                                         int pagesPerFile) {
+        File tempFile = null;
+        try {
+            String pdfFileName = EnhancedFilePickerUtils.getFileName(context, pdfUri);
+            tempFile = createTempFileFromUri(context, pdfUri);
+
+            List<File> outputFiles = split(tempFile, pageRanges, pagesPerFile,
+                    FileStorageUtils.getOutputDirectory(context), getBaseName(pdfFileName),
+                    PdfOutputProfile.fromSettings(context));
+
+            List<String> outputPaths = new ArrayList<>(outputFiles.size());
+            for (File outputFile : outputFiles) {
+                addToMediaStore(context, outputFile, "application/pdf");
+                outputPaths.add(outputFile.getAbsolutePath());
+            }
+            Log.d(TAG, "Split successful. Created " + outputPaths.size() + " files");
+            return outputPaths;
+        } catch (Exception e) {
+            Log.e(TAG, "Error splitting PDF file", e);
+            return null;
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Split a PDF file into one file per page range
+     *
+     * The source is reopened between parts after every {@link #PAGES_PER_SOURCE} or so
+     * copied pages, which frees the objects parsed for the parts already written.
+     *
+     * @param pdfFile      The PDF file
+     * @param pageRanges   The pages to put in each output file, or null to split by page count
+     * @param pagesPerFile The maximum number of pages in each output file when no ranges are given
+     * @param outputDir    The directory for the output files
+     * @param baseName     The name to number the output files from
+     * @param profile      Output profile for the PDF writer
+     * @return The created files; ranges that select no pages produce no file
+     * @throws IOException if there's an error reading or writing a PDF
+     */
+    static List<File> split(File pdfFile, List<PageRange> pageRanges, int pagesPerFile, File outputDir,
+                            String baseName, PdfOutputProfile profile) throws IOException {
+        List<File> outputFiles = new ArrayList<>();
+        PdfDocument source = new PdfDocument(new PdfReader(pdfFile));
+        try {
+            int numberOfPages = source.getNumberOfPages();
+            if (pageRanges == null) {
+                pageRanges = new ArrayList<>();
+                for (int first = 1; first <= numberOfPages; first += pagesPerFile) {
+                    int last = Math.min(numberOfPages, first + pagesPerFile - 1);
+                    pageRanges.add(PageRange.parse(first + "-" + last));
+                }
+            }
+            Log.d(TAG, "Splitting " + numberOfPages + " pages into " + pageRanges.size() + " parts");
+
+            int pagesFromSource = 0;
+            for (PageRange pageRange : pageRanges) {
+                int[] pages = pageRange.resolve(numberOfPages);
+                if (pages.length == 0) {
+                    Log.w(TAG, "No pages selected by range " + pageRange);
+                    continue;
+                }
+
+                // The source keeps every object read from it until it is closed, so
+                // reopen it between parts once enough pages have been copied
+                if (pagesFromSource >= PAGES_PER_SOURCE) {
+                    source.close();
+                    source = null;
+                    source = new PdfDocument(new PdfReader(pdfFile));
+                    pagesFromSource = 0;
+                }
+
+                File outputFile = new File(outputDir, baseName + "_part" + (outputFiles.size() + 1) + ".pdf");
+                try (PdfDocument destination = createDocument(outputFile, profile)) {
+                    for (int page : pages) {
+                        copyPage(source, page, destination);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    outputFile.delete();
+                    for (File created : outputFiles) {
+                        created.delete();
+                    }
+                    throw e;
+                }
+                outputFiles.add(outputFile);
+                pagesFromSource += pages.length;
+            }
+        } finally {
+            if (source != null) {
+                source.close();
+            }
+        }
+        return outputFiles;
+    }
+
+    /**
+     * Open a destination document that stores identical objects only once
+     */
+    private static PdfDocument createDocument(File outputFile, PdfOutputProfile profile) throws IOException {
+        return new PdfDocument(new PdfWriter(outputFile.getAbsolutePath(),
+                profile.toWriterProperties().useSmartMode()));
+    }
+
+    /**
+     * Copy every page of a PDF file to the end of a destination document
+     */
+    private static void copyAllPages(File pdfFile, PdfDocument destination) throws IOException {
+        try (PdfDocument source = new PdfDocument(new PdfReader(pdfFile))) {
+            int numberOfPages = source.getNumberOfPages();
+            for (int i = 1; i <= numberOfPages; i++) {
+                copyPage(source, i, destination);
+            }
+            Log.d(TAG, "Copied " + numberOfPages + " pages from " + pdfFile.getName());
+        }
+    }
+
+    /**
+     * Copy one page to the end of a destination document and write it out
+     */
+    private static void copyPage(PdfDocument source, int pageNumber, PdfDocument destination) {
+        List<PdfPage> copied = source.copyPagesTo(pageNumber, pageNumber, destination);
+        for (PdfPage page : copied) {
+            // Also write the page's images and forms so nothing is kept for the close
+            page.flush(true);
+        }
+    }
+
+    /**
+     * Get a file name without its .pdf extension
+     */
+    private static String getBaseName(String fileName) {
+        if (fileName.toLowerCase().endsWith(".pdf")) {
+            return fileName.substring(0, fileName.length() - 4);
+        }
+        return fileName;
+    }
+
+    /**
+     * Create a temporary file from a URI
+     *
+     * @param context The context
+     * @param uri     The URI of the file
+     * @return A temporary File object
+     * @throws IOException if there's an error creating the file
+     */
+    private static File createTempFileFromUri(Context context, Uri uri) throws IOException {
+        File tempFile = File.createTempFile("pdf_temp", ".pdf", context.getCacheDir());
+
+        // Copy the content from the URI to the temporary file
+        try (InputStream is = context.getContentResolver().openInputStream(uri);
+             OutputStream os = new FileOutputStream(tempFile)) {
+            if (is == null) {
+                throw new IOException("Could not open input stream from URI");
+            }
+
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) != -1) {
+                os.write(buffer, 0, bytesRead);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        return tempFile;
+    }
+
+    /**
+     * Add a file to the MediaStore so it's visible in the device's file explorer
+     *
+     * @param context  The context
+     * @param file     The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        try {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                // For Android 10+ (API 29+), use relative path and is_pending flag
+                values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+                values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+
+                if (uri != null) {
+                    // If we're using app-specific storage, copy the file to the MediaStore
+                    if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                        try (OutputStream os = resolver.openOutputStream(uri);
+                             FileInputStream fis = new FileInputStream(file)) {
+
+                            if (os != null) {
+                                byte[] buffer = new byte[4096];
+                                int bytesRead;
+                                while ((bytesRead = fis.read(buffer)) != -1) {
+                                    os.write(buffer, 0, bytesRead);
+                                }
+                                os.flush();
+                            }
+                        }
+                    }
+
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            } else {
+                // For older Android versions, use DATA field with absolute path
+                values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+
+                if (uri != null) {
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding file to MediaStore", e);
+            // Don't throw the exception, just log it
+        }
+    }
+}
@@ -0,0 +1,1016 @@
+package com.curosoft.konvert.utils;
+
+import android.util.Log;
+
+import com.itextpdf.kernel.exceptions.BadPasswordException;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Lightweight reader for the page count, title and encryption status of PDF files
+ *
+ * Only the trailer, the cross-reference sections and the Catalog, Pages root and Info
+ * objects are read; the page tree is never walked and no content is parsed, so a
+ * probe costs a few small reads regardless of the file size. Cross-reference tables,
+ * cross-reference streams and objects stored in object streams are supported. Files
+ * whose cross-references are damaged fall back to a full open with iText.
+ *
+ * Results are cached by path, size and modification time, so list screens can call
+ * {@link #getCached(File)} while binding and probe only the files they haven't seen.
+ */
+public class PdfMetadataProbe {
+    private static final String TAG = "PdfMetadataProbe";
+
+    private static final int CACHE_SIZE = 4096;
+    private static final int TAIL_SIZE = 4096;
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAX_XREF_SECTIONS = 64;
+    private static final int MAX_REFERENCE_DEPTH = 16;
+
+    // A plain LRU map rather than LruCache, so the probe also runs in JVM unit tests
+    private static final Map<String, PdfMetadata> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, PdfMetadata>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PdfMetadata> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    /**
+     * Metadata of a PDF file
+     */
+    public static class PdfMetadata {
+        public static final int UNKNOWN_PAGE_COUNT = -1;
+
+        static final PdfMetadata UNKNOWN = new PdfMetadata(UNKNOWN_PAGE_COUNT, null, false);
+
+        private final int pageCount;
+        private final String title;
+        private final boolean encrypted;
+
+        PdfMetadata(int pageCount, String title, boolean encrypted) {
+            this.pageCount = pageCount;
+            this.title = title;
+            this.encrypted = encrypted;
+        }
+
+        /**
+         * @return The number of pages, or {@link #UNKNOWN_PAGE_COUNT} if it couldn't be read
+         */
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        public boolean hasPageCount() {
+            return pageCount >= 0;
+        }
+
+        /**
+         * @return The document title, or null if it has none or it is encrypted
+         */
+        public String getTitle() {
+            return title;
+        }
+
+        public boolean isEncrypted() {
+            return encrypted;
+        }
+    }
+
+    /**
+     * Get the cached metadata of a PDF file without touching the file contents
+     *
+     * @param file The PDF file
+     * @return The metadata, or null if the file hasn't been probed since it last changed
+     */
+    public static PdfMetadata getCached(File file) {
+        return cache.get(getCacheKey(file));
+    }
+
+    /**
+     * Read the metadata of a PDF file, using the cache when possible
+     *
+     * This does file I/O and must not be called on the main thread.
+     *
+     * @param file The PDF file
+     * @return The metadata; the page count is unknown if the file couldn't be read
+     */
+    public static PdfMetadata probe(File file) {
+        String key = getCacheKey(file);
+        PdfMetadata metadata = cache.get(key);
+        if (metadata == null) {
+            metadata = read(file);
+            cache.put(key, metadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * Read the metadata of a PDF file, bypassing the cache
+     */
+    static PdfMetadata read(File file) {
+        try {
+            return readQuickly(file);
+        } catch (Exception e) {
+            Log.d(TAG, "Quick probe failed for " + file.getName() + ": " + e.getMessage());
+        }
+        return readFully(file);
+    }
+
+    /**
+     * Read the metadata from the cross-references alone, without the iText fallback
+     */
+    static PdfMetadata readQuickly(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            return new Probe(input).read();
+        }
+    }
+
+    /**
+     * Read the metadata by opening the file with iText, which rebuilds damaged
+     * cross-references by scanning the whole file
+     */
+    private static PdfMetadata readFully(File file) {
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(file))) {
+            return new PdfMetadata(pdfDocument.getNumberOfPages(), pdfDocument.getDocumentInfo().getTitle(),
+                    pdfDocument.getReader().isEncrypted());
+        } catch (BadPasswordException e) {
+            return new PdfMetadata(PdfMetadata.UNKNOWN_PAGE_COUNT, null, true);
+        } catch (Exception e) {
+            Log.e(TAG, "Cannot read PDF metadata of " + file.getName(), e);
+            return PdfMetadata.UNKNOWN;
+        }
+    }
+
+    private static String getCacheKey(File file) {
+        return file.getAbsolutePath() + '\n' + file.length() + '\n' + file.lastModified();
+    }
+
+    /**
+     * Reads the trailer, cross-references and document-level objects of one file
+     */
+    private static class Probe {
+        private final RandomAccessFile input;
+        private final long fileLength;
+        private final Lexer lexer;
+        // Sections of each incremental update, newest update first
+        private final List<List<XrefSection>> updates = new ArrayList<>();
+        private List<XrefSection> sections;
+        private final Map<String, Object> trailer = new HashMap<>();
+        private final Map<Long, ObjectStream> objectStreams = new HashMap<>();
+
+        Probe(RandomAccessFile input) throws IOException {
+            this.input = input;
+            this.fileLength = input.length();
+            this.lexer = new Lexer(input, fileLength);
+        }
+
+        PdfMetadata read() throws IOException {
+            // Follow the chain of incremental updates from the newest section
+            long offset = findStartXref();
+            Set<Long> visited = new HashSet<>();
+            while (offset >= 0 && visited.add(offset)) {
+                if (visited.size() > MAX_XREF_SECTIONS) {
+                    throw new IOException("Too many cross-reference sections");
+                }
+                sections = new ArrayList<>();
+                updates.add(sections);
+                Map<String, Object> sectionTrailer = readXref(offset);
+                for (Map.Entry<String, Object> entry : sectionTrailer.entrySet()) {
+                    trailer.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                Object prev = sectionTrailer.get("Prev");
+                offset = prev instanceof Number ? ((Number) prev).longValue() : -1;
+            }
+
+            // Object streams of encrypted files can't be decoded here; those files
+            // fail over to iText, which can open them if they have no user password
+            boolean encrypted = trailer.containsKey("Encrypt");
+            int pageCount = readPageCount();
+            // Strings in encrypted files are encrypted too
+            String title = encrypted ? null : readTitle();
+            return new PdfMetadata(pageCount, title, encrypted);
+        }
+
+        private long findStartXref() throws IOException {
+            int tailLength = (int) Math.min(TAIL_SIZE, fileLength);
+            byte[] tail = new byte[tailLength];
+            input.seek(fileLength - tailLength);
+            input.readFully(tail);
+
+            byte[] keyword = "startxref".getBytes(StandardCharsets.US_ASCII);
+            for (int i = tailLength - keyword.length; i >= 0; i--) {
+                if (regionMatches(tail, i, keyword)) {
+                    lexer.seek(fileLength - tailLength + i + keyword.length);
+                    return parseLong(lexer.readKeyword());
+                }
+            }
+            throw new IOException("startxref not found");
+        }
+
+        private Map<String, Object> readXref(long offset) throws IOException {
+            lexer.seek(offset);
+            if (!"xref".equals(lexer.readKeyword())) {
+                return readXrefStream(offset);
+            }
+
+            while (true) {
+                lexer.skipWhitespace();
+                if (!isDigit(lexer.peek())) {
+                    break;
+                }
+                long start = parseLong(lexer.readKeyword());
+                int count = (int) parseLong(lexer.readKeyword());
+                lexer.skipWhitespace();
+                long entriesStart = lexer.position();
+                int entrySize = count > 0 ? detectEntrySize(entriesStart) : 20;
+                sections.add(new TableSection(start, count, entriesStart, entrySize));
+                lexer.seek(entriesStart + (long) count * entrySize);
+            }
+            if (!"trailer".equals(lexer.readKeyword())) {
+                throw new IOException("trailer not found at " + offset);
+            }
+
+            Map<String, Object> sectionTrailer = asDictionary(lexer.readObject());
+            // Hybrid files list objects in object streams in a separate stream
+            Object xrefStream = sectionTrailer.get("XRefStm");
+            if (xrefStream instanceof Number) {
+                readXrefStream(((Number) xrefStream).longValue());
+            }
+            return sectionTrailer;
+        }
+
+        /**
+         * Entries are 20 bytes by the spec, but some writers end them with a single byte
+         */
+        private int detectEntrySize(long entriesStart) throws IOException {
+            lexer.seek(entriesStart + 19);
+            return isWhitespace(lexer.peek()) ? 20 : 19;
+        }
+
+        private Map<String, Object> readXrefStream(long offset) throws IOException {
+            StreamObject stream = readStream(offset);
+            if (!"XRef".equals(stream.dictionary.get("Type"))) {
+                throw new IOException("No cross-reference section at " + offset);
+            }
+
+            List<Object> widths = asArray(stream.dictionary.get("W"));
+            if (widths.size() != 3) {
+                throw new IOException("Invalid cross-reference stream widths");
+            }
+            int[] w = new int[3];
+            for (int i = 0; i < 3; i++) {
+                w[i] = (int) asLong(widths.get(i));
+            }
+
+            Object indexObject = stream.dictionary.get("Index");
+            long[] index;
+            if (indexObject instanceof List) {
+                List<Object> indexArray = asArray(indexObject);
+                index = new long[indexArray.size()];
+                for (int i = 0; i < index.length; i++) {
+                    index[i] = asLong(indexArray.get(i));
+                }
+            } else {
+                index = new long[] {0, asLong(stream.dictionary.get("Size"))};
+            }
+
+            sections.add(new StreamSection(stream.data, w, index));
+            return stream.dictionary;
+        }
+
+        private int readPageCount() throws IOException {
+            Map<String, Object> catalog = asDictionary(resolve(trailer.get("Root")));
+            Map<String, Object> pages = asDictionary(resolve(catalog.get("Pages")));
+            return (int) asLong(resolve(pages.get("Count")));
+        }
+
+        private String readTitle() {
+            try {
+                Object info = resolve(trailer.get("Info"));
+                if (info instanceof Map) {
+                    Object title = resolve(asDictionary(info).get("Title"));
+                    if (title instanceof byte[]) {
+                        String text = decodeText((byte[]) title).trim();
+                        return text.isEmpty() ? null : text;
+                    }
+                }
+            } catch (IOException e) {
+                Log.d(TAG, "Cannot read document title: " + e.getMessage());
+            }
+            return null;
+        }
+
+        /**
+         * Follow indirect references to the object they point to
+         */
+        private Object resolve(Object object) throws IOException {
+            for (int depth = 0; object instanceof Reference; depth++) {
+                if (depth == MAX_REFERENCE_DEPTH) {
+                    throw new IOException("Reference chain too long");
+                }
+                object = getObject(((Reference) object).number);
+            }
+            return object;
+        }
+
+        private Object getObject(long number) throws IOException {
+            long[] entry = findEntry(number);
+            if (entry == null) {
+                return null;
+            }
+            if (entry[0] == 2) {
+                return getObjectStream(entry[1]).getObject(number);
+            }
+            lexer.seek(entry[1]);
+            readObjectHeader(number);
+            return lexer.readObject();
+        }
+
+        /**
+         * Find the newest in-use cross-reference entry for an object
+         *
+         * An object freed by an update hides its older definitions. Within one update a
+         * free table entry is only a placeholder when the update's /XRefStm stream lists
+         * the object, as hybrid files do for objects in object streams.
+         *
+         * @return The entry type (1 for an offset, 2 for an object stream) and its two fields
+         */
+        private long[] findEntry(long number) throws IOException {
+            for (List<XrefSection> update : updates) {
+                boolean freed = false;
+                for (XrefSection section : update) {
+                    long[] entry = section.find(number, lexer);
+                    if (entry == null) {
+                        continue;
+                    }
+                    if (entry[0] == 1 || entry[0] == 2) {
+                        return entry;
+                    }
+                    freed = true;
+                }
+                if (freed) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private ObjectStream getObjectStream(long number) throws IOException {
+            ObjectStream objectStream = objectStreams.get(number);
+            if (objectStream == null) {
+                long[] entry = findEntry(number);
+                if (entry == null || entry[0] != 1) {
+                    throw new IOException("Object stream " + number + " not found");
+                }
+                objectStream = new ObjectStream(readStream(entry[1]));
+                objectStreams.put(number, objectStream);
+            }
+            return objectStream;
+        }
+
+        private void readObjectHeader(long expectedNumber) throws IOException {
+            long number = parseLong(lexer.readKeyword());
+            lexer.readKeyword();
+            if (!"obj".equals(lexer.readKeyword()) || (expectedNumber >= 0 && number != expectedNumber)) {
+                throw new IOException("Cross-reference entry doesn't point to object " + expectedNumber);
+            }
+        }
+
+        /**
+         * Read and decode a stream object at a file offset
+         */
+        private StreamObject readStream(long offset) throws IOException {
+            lexer.seek(offset);
+            readObjectHeader(-1);
+            Map<String, Object> dictionary = asDictionary(lexer.readObject());
+            if (!"stream".equals(lexer.readKeyword())) {
+                throw new IOException("Stream expected at " + offset);
+            }
+            // The keyword is followed by CRLF or LF
+            if (lexer.read() == '\r' && lexer.peek() == '\n') {
+                lexer.read();
+            }
+            long dataStart = lexer.position();
+
+            long length = asLong(resolve(dictionary.get("Length")));
+            if (length < 0 || dataStart + length > fileLength) {
+                throw new IOException("Invalid stream length at " + offset);
+            }
+            byte[] data = new byte[(int) length];
+            input.seek(dataStart);
+            input.readFully(data);
+            return new StreamObject(dictionary, decode(dictionary, data));
+        }
+    }
+
+    /**
+     * A cross-reference table or stream section
+     */
+    private interface XrefSection {
+        /**
+         * @return The entry for an object, or null if this section doesn't list it
+         */
+        long[] find(long number, Lexer lexer) throws IOException;
+    }
+
+    /**
+     * A subsection of a classic cross-reference table, read on demand
+     */
+    private static class TableSection implements XrefSection {
+        private final long start;
+        private final int count;
+        private final long entriesStart;
+        private final int entrySize;
+
+        TableSection(long start, int count, long entriesStart, int entrySize) {
+            this.start = start;
+            this.count = count;
+            this.entriesStart = entriesStart;
+            this.entrySize = entrySize;
+        }
+
+        @Override
+        public long[] find(long number, Lexer lexer) throws IOException {
+            if (number < start || number >= start + count) {
+                return null;
+            }
+            lexer.seek(entriesStart + (number - start) * entrySize);
+            long offset = parseLong(lexer.readKeyword());
+            lexer.readKeyword();
+            boolean inUse = "n".equals(lexer.readKeyword());
+            return new long[] {inUse ? 1 : 0, offset, 0};
+        }
+    }
+
+    /**
+     * A decoded cross-reference stream
+     */
+    private static class StreamSection implements XrefSection {
+        private final byte[] data;
+        private final int[] widths;
+        private final long[] index;
+
+        StreamSection(byte[] data, int[] widths, long[] index) {
+            this.data = data;
+            this.widths = widths;
+            this.index = index;
+        }
+
+        @Override
+        public long[] find(long number, Lexer lexer) {
+            int rowSize = widths[0] + widths[1] + widths[2];
+            long row = 0;
+            for (int i = 0; i + 1 < index.length; i += 2) {
+                long start = index[i];
+                long count = index[i + 1];
+                if (number >= start && number < start + count) {
+                    long position = (row + number - start) * rowSize;
+                    if (position + rowSize > data.length) {
+                        return null;
+                    }
+                    int p = (int) position;
+                    // The type defaults to 1 when its field is omitted
+                    long type = widths[0] == 0 ? 1 : readField(p, widths[0]);
+                    long field2 = readField(p + widths[0], widths[1]);
+                    long field3 = readField(p + widths[0] + widths[1], widths[2]);
+                    return new long[] {type, field2, field3};
+                }
+                row += count;
+            }
+            return null;
+        }
+
+        private long readField(int position, int width) {
+            long value = 0;
+            for (int i = 0; i < width; i++) {
+                value = (value << 8) | (data[position + i] & 0xff);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * A decoded object stream with its table of object offsets
+     */
+    private static class ObjectStream {
+        private final Lexer lexer;
+        private final long first;
+        private final Map<Long, Long> offsets = new HashMap<>();
+
+        ObjectStream(StreamObject stream) throws IOException {
+            this.lexer = new Lexer(stream.data);
+            this.first = asLong(stream.dictionary.get("First"));
+            long count = asLong(stream.dictionary.get("N"));
+            for (long i = 0; i < count; i++) {
+                long number = parseLong(lexer.readKeyword());
+                long offset = parseLong(lexer.readKeyword());
+                offsets.put(number, offset);
+            }
+        }
+
+        Object getObject(long number) throws IOException {
+            Long offset = offsets.get(number);
+            if (offset == null) {
+                throw new IOException("Object " + number + " not in its object stream");
+            }
+            lexer.seek(first + offset);
+            return lexer.readObject();
+        }
+    }
+
+    private static class StreamObject {
+        final Map<String, Object> dictionary;
+        final byte[] data;
+
+        StreamObject(Map<String, Object> dictionary, byte[] data) {
+            this.dictionary = dictionary;
+            this.data = data;
+        }
+    }
+
+    /**
+     * An indirect reference; the generation number isn't needed to find objects
+     */
+    private static class Reference {
+        final long number;
+
+        Reference(long number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * Reads PDF tokens and objects from a file or a decoded stream
+     *
+     * Names are returned as String, strings as byte[], numbers as Long or Double,
+     * arrays as List and dictionaries as Map.
+     */
+    private static class Lexer {
+        private final RandomAccessFile input;
+        private final long length;
+        private final byte[] buffer;
+        private long bufferStart = 0;
+        private int bufferLength;
+        private long position = 0;
+
+        Lexer(RandomAccessFile input, long length) {
+            this.input = input;
+            this.length = length;
+            this.buffer = new byte[BUFFER_SIZE];
+            this.bufferLength = 0;
+        }
+
+        Lexer(byte[] data) {
+            this.input = null;
+            this.length = data.length;
+            this.buffer = data;
+            this.bufferLength = data.length;
+        }
+
+        void seek(long position) {
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        int peek() throws IOException {
+            long index = position - bufferStart;
+            if (index >= 0 && index < bufferLength) {
+                return buffer[(int) index] & 0xff;
+            }
+            if (input == null || position < 0 || position >= length) {
+                return -1;
+            }
+            input.seek(position);
+            bufferStart = position;
+            bufferLength = Math.max(0, input.read(buffer, 0, buffer.length));
+            return bufferLength > 0 ? buffer[0] & 0xff : -1;
+        }
+
+        int read() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                position++;
+            }
+            return c;
+        }
+
+        void skipWhitespace() throws IOException {
+            while (true) {
+                int c = peek();
+                if (c == '%') {
+                    while (c >= 0 && c != '\n' && c != '\r') {
+                        position++;
+                        c = peek();
+                    }
+                } else if (isWhitespace(c)) {
+                    position++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Read a run of regular characters, such as a keyword or a number
+         */
+        String readKeyword() throws IOException {
+            skipWhitespace();
+            StringBuilder keyword = new StringBuilder();
+            int c;
+            while ((c = peek()) >= 0 && !isWhitespace(c) && !isDelimiter(c)) {
+                keyword.append((char) c);
+                position++;
+            }
+            return keyword.toString();
+        }
+
+        Object readObject() throws IOException {
+            skipWhitespace();
+            int c = peek();
+            if (c < 0) {
+                throw new EOFException("Unexpected end of data");
+            }
+            switch (c) {
+                case '/':
+                    position++;
+                    return readName();
+                case '[':
+                    position++;
+                    return readArray();
+                case '<':
+                    position++;
+                    if (peek() == '<') {
+                        position++;
+                        return readDictionary();
+                    }
+                    return readHexString();
+                case '(':
+                    position++;
+                    return readLiteralString();
+                default:
+                    if (isDigit(c) || c == '+' || c == '-' || c == '.') {
+                        return readNumberOrReference();
+                    }
+                    String keyword = readKeyword();
+                    if ("true".equals(keyword)) {
+                        return Boolean.TRUE;
+                    } else if ("false".equals(keyword)) {
+                        return Boolean.FALSE;
+                    } else if ("null".equals(keyword)) {
+                        return null;
+                    }
+                    throw new IOException("Unexpected token '" + keyword + "' at " + position);
+            }
+        }
+
+        private String readName() throws IOException {
+            StringBuilder name = new StringBuilder();
+            int c;
+            while ((c = peek()) >= 0 && !isWhitespace(c) && !isDelimiter(c)) {
+                position++;
+                if (c == '#') {
+                    int high = Character.digit(read(), 16);
+                    int low = Character.digit(read(), 16);
+                    c = high >= 0 && low >= 0 ? (high << 4) | low : '#';
+                }
+                name.append((char) c);
+            }
+            return name.toString();
+        }
+
+        private List<Object> readArray() throws IOException {
+            List<Object> array = new ArrayList<>();
+            while (true) {
+                skipWhitespace();
+                if (peek() == ']') {
+                    position++;
+                    return array;
+                }
+                array.add(readObject());
+            }
+        }
+
+        private Map<String, Object> readDictionary() throws IOException {
+            Map<String, Object> dictionary = new HashMap<>();
+            while (true) {
+                skipWhitespace();
+                int c = read();
+                if (c == '>') {
+                    read();
+                    return dictionary;
+                }
+                if (c != '/') {
+                    throw new IOException("Dictionary key expected at " + (position - 1));
+                }
+                String key = readName();
+                dictionary.put(key, readObject());
+            }
+        }
+
+        private byte[] readHexString() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int high = -1;
+            int c;
+            while ((c = read()) >= 0 && c != '>') {
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    continue;
+                }
+                if (high < 0) {
+                    high = digit;
+                } else {
+                    bytes.write((high << 4) | digit);
+                    high = -1;
+                }
+            }
+            // An odd final digit is followed by an implied 0
+            if (high >= 0) {
+                bytes.write(high << 4);
+            }
+            return bytes.toByteArray();
+        }
+
+        private byte[] readLiteralString() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int depth = 1;
+            int c;
+            while ((c = read()) >= 0) {
+                if (c == '\\') {
+                    c = read();
+                    switch (c) {
+                        case 'n': bytes.write('\n'); break;
+                        case 'r': bytes.write('\r'); break;
+                        case 't': bytes.write('\t'); break;
+                        case 'b': bytes.write('\b'); break;
+                        case 'f': bytes.write('\f'); break;
+                        case '\r':
+                            // Line continuation
+                            if (peek() == '\n') {
+                                position++;
+                            }
+                            break;
+                        case '\n':
+                            break;
+                        default:
+                            if (c >= '0' && c <= '7') {
+                                int value = c - '0';
+                                for (int i = 0; i < 2 && peek() >= '0' && peek() <= '7'; i++) {
+                                    value = value * 8 + read() - '0';
+                                }
+                                bytes.write(value);
+                            } else if (c >= 0) {
+                                bytes.write(c);
+                            }
+                            break;
+                    }
+                } else if (c == '(') {
+                    depth++;
+                    bytes.write(c);
+                } else if (c == ')') {
+                    if (--depth == 0) {
+                        break;
+                    }
+                    bytes.write(c);
+                } else {
+                    bytes.write(c);
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        private Object readNumberOrReference() throws IOException {
+            String token = readKeyword();
+            if (token.indexOf('.') >= 0) {
+                try {
+                    return Double.parseDouble(token);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid number '" + token + "'");
+                }
+            }
+            long number = parseLong(token);
+
+            // "number generation R" is a reference
+            long mark = position;
+            skipWhitespace();
+            if (isDigit(peek())) {
+                String generation = readKeyword();
+                skipWhitespace();
+                if (isInteger(generation) && peek() == 'R') {
+                    position++;
+                    int next = peek();
+                    if (next < 0 || isWhitespace(next) || isDelimiter(next)) {
+                        return new Reference(number);
+                    }
+                }
+            }
+            position = mark;
+            return number;
+        }
+    }
+
+    /**
+     * Apply the stream's filter; only Flate with optional PNG predictors is needed
+     * for cross-reference and object streams
+     */
+    private static byte[] decode(Map<String, Object> dictionary, byte[] data) throws IOException {
+        Object filter = dictionary.get("Filter");
+        Object parameters = dictionary.get("DecodeParms");
+        if (filter instanceof List) {
+            List<?> filters = (List<?>) filter;
+            if (filters.size() > 1) {
+                throw new IOException("Unsupported filter chain " + filters);
+            }
+            filter = filters.isEmpty() ? null : filters.get(0);
+            if (parameters instanceof List) {
+                List<?> parameterList = (List<?>) parameters;
+                parameters = parameterList.isEmpty() ? null : parameterList.get(0);
+            }
+        }
+        if (filter == null) {
+            return data;
+        }
+        if (!"FlateDecode".equals(filter)) {
+            throw new IOException("Unsupported filter " + filter);
+        }
+
+        byte[] inflated = inflate(data);
+        if (parameters instanceof Map) {
+            Map<?, ?> decodeParameters = (Map<?, ?>) parameters;
+            long predictor = getLong(decodeParameters.get("Predictor"), 1);
+            if (predictor >= 10) {
+                int colors = (int) getLong(decodeParameters.get("Colors"), 1);
+                int bitsPerComponent = (int) getLong(decodeParameters.get("BitsPerComponent"), 8);
+                int columns = (int) getLong(decodeParameters.get("Columns"), 1);
+                return unpredict(inflated, colors, bitsPerComponent, columns);
+            } else if (predictor != 1) {
+                throw new IOException("Unsupported predictor " + predictor);
+            }
+        }
+        return inflated;
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 4);
+        try (InputStream input = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) != -1) {
+                output.write(buffer, 0, bytesRead);
+            }
+        } catch (EOFException e) {
+            // Some writers drop the end of the deflate stream; keep what was decoded
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Reverse PNG row predictors
+     */
+    private static byte[] unpredict(byte[] data, int colors, int bitsPerComponent, int columns) {
+        int bytesPerPixel = Math.max(1, colors * bitsPerComponent / 8);
+        int rowLength = (columns * colors * bitsPerComponent + 7) / 8;
+        int rows = data.length / (rowLength + 1);
+        byte[] output = new byte[rows * rowLength];
+        byte[] previous = new byte[rowLength];
+
+        for (int row = 0; row < rows; row++) {
+            int in = row * (rowLength + 1);
+            int out = row * rowLength;
+            int type = data[in] & 0xff;
+            for (int i = 0; i < rowLength; i++) {
+                int raw = data[in + 1 + i] & 0xff;
+                int left = i >= bytesPerPixel ? output[out + i - bytesPerPixel] & 0xff : 0;
+                int up = previous[i] & 0xff;
+                int upLeft = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xff : 0;
+                int value;
+                switch (type) {
+                    case 1: value = raw + left; break;
+                    case 2: value = raw + up; break;
+                    case 3: value = raw + ((left + up) >> 1); break;
+                    case 4: value = raw + paeth(left, up, upLeft); break;
+                    default: value = raw; break;
+                }
+                output[out + i] = (byte) value;
+            }
+            System.arraycopy(output, out, previous, 0, rowLength);
+        }
+        return output;
+    }
+
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceUp = Math.abs(estimate - up);
+        int distanceUpLeft = Math.abs(estimate - upLeft);
+        if (distanceLeft <= distanceUp && distanceLeft <= distanceUpLeft) {
+            return left;
+        }
+        return distanceUp <= distanceUpLeft ? up : upLeft;
+    }
+
+    /**
+     * Decode a PDF text string, which is UTF-16BE with a byte order mark, UTF-8 with a
+     * byte order mark (PDF 2.0) or PDFDocEncoding, approximated here by Latin-1
+     */
+    private static String decodeText(byte[] bytes) {
+        if (bytes.length >= 2 && (bytes[0] & 0xff) == 0xfe && (bytes[1] & 0xff) == 0xff) {
+            return new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_16BE);
+        }
+        if (bytes.length >= 3 && (bytes[0] & 0xff) == 0xef && (bytes[1] & 0xff) == 0xbb
+                && (bytes[2] & 0xff) == 0xbf) {
+            return new String(bytes, 3, bytes.length - 3, StandardCharsets.UTF_8);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asDictionary(Object object) throws IOException {
+        if (!(object instanceof Map)) {
+            throw new IOException("Dictionary expected");
+        }
+        return (Map<String, Object>) object;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asArray(Object object) throws IOException {
+        if (!(object instanceof List)) {
+            throw new IOException("Array expected");
+        }
+        return (List<Object>) object;
+    }
+
+    private static long asLong(Object object) throws IOException {
+        if (!(object instanceof Number)) {
+            throw new IOException("Number expected");
+        }
+        return ((Number) object).longValue();
+    }
+
+    private static long getLong(Object object, long defaultValue) {
+        return object instanceof Number ? ((Number) object).longValue() : defaultValue;
+    }
+
+    private static long parseLong(String token) throws IOException {
+        try {
+            return Long.parseLong(token.startsWith("+") ? token.substring(1) : token);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid integer '" + token + "'");
+        }
+    }
+
+    private static boolean isInteger(String token) {
+        if (token.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (!isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(byte[] data, int offset, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (data[offset + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0;
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == '(' || c == ')' || c == '<' || c == '>' || c == '[' || c == ']'
+                || c == '{' || c == '}' || c == '/' || c == '%';
+    }
+}
@@ -0,0 +1,112 @@
+package com.curosoft.konvert.utils;
+
+import android.content.Context;
+
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Settings that control how PDF output is written
+ *
+ * The compact profile writes objects into compressed object streams with a
+ * cross-reference stream (full compression, PDF 1.5) and deflates content at the
+ * chosen level. Image recompression applies when optimizing existing PDFs. iText
+ * already embeds only the used glyphs of any embedded font, so subsetting needs no
+ * setting here.
+ */
+public class PdfOutputProfile {
+    public static final int DEFAULT_COMPRESSION_LEVEL = CompressionConstants.BEST_COMPRESSION;
+    public static final int DEFAULT_JPEG_QUALITY = 75;
+
+    /** Classic cross-reference table and iText's default deflate level */
+    public static final PdfOutputProfile STANDARD = new PdfOutputProfile(
+            false, CompressionConstants.DEFAULT_COMPRESSION, false, PdfImageFactory.DEFAULT_TARGET_DPI,
+            DEFAULT_JPEG_QUALITY);
+
+    /** Object and cross-reference streams at the best deflate level */
+    public static final PdfOutputProfile COMPACT = new PdfOutputProfile(
+            true, DEFAULT_COMPRESSION_LEVEL, true, PdfImageFactory.DEFAULT_TARGET_DPI, DEFAULT_JPEG_QUALITY);
+
+    private final boolean fullCompression;
+    private final int compressionLevel;
+    private final boolean recompressImages;
+    private final int imageTargetDpi;
+    private final int jpegQuality;
+
+    /**
+     * Create an output profile
+     *
+     * @param fullCompression Whether to write object streams and a cross-reference stream
+     * @param compressionLevel Deflate level from 0 (none) to 9 (best)
+     * @param recompressImages Whether to re-encode JPEG images and downsample oversized ones when optimizing
+     * @param imageTargetDpi Resolution images are downsampled to, relative to the page size
+     * @param jpegQuality JPEG quality for recompressed images, from 1 to 100
+     */
+    public PdfOutputProfile(boolean fullCompression, int compressionLevel, boolean recompressImages,
+                            int imageTargetDpi, int jpegQuality) {
+        this.fullCompression = fullCompression;
+        this.compressionLevel = Math.max(CompressionConstants.NO_COMPRESSION,
+                Math.min(CompressionConstants.BEST_COMPRESSION, compressionLevel));
+        this.recompressImages = recompressImages;
+        this.imageTargetDpi = Math.max(36, imageTargetDpi);
+        this.jpegQuality = Math.max(1, Math.min(100, jpegQuality));
+    }
+
+    /**
+     * Build the profile selected in the app settings
+     *
+     * @param context The context
+     * @return The configured profile
+     */
+    public static PdfOutputProfile fromSettings(Context context) {
+        SettingsManager settings = new SettingsManager(context);
+        return new PdfOutputProfile(settings.isPdfCompactOutput(), settings.getPdfCompressionLevel(),
+                settings.isPdfRecompressImages(), settings.getImageTargetDpi(), DEFAULT_JPEG_QUALITY);
+    }
+
+    /**
+     * Get writer properties for this profile
+     *
+     * @return New writer properties
+     */
+    public WriterProperties toWriterProperties() {
+        return new WriterProperties()
+                .setFullCompressionMode(fullCompression)
+                .setCompressionLevel(compressionLevel);
+    }
+
+    /**
+     * Create a PDF writer for a file with this profile
+     *
+     * @param file The output file
+     * @return A new PDF writer
+     * @throws IOException if the file cannot be created
+     */
+    public PdfWriter createWriter(File file) throws IOException {
+        return new PdfWriter(file.getAbsolutePath(), toWriterProperties());
+    }
+
+    public boolean isFullCompression() {
+        return fullCompression;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isRecompressImages() {
+        return recompressImages;
+    }
+
+    public int getImageTargetDpi() {
+        return imageTargetDpi;
+    }
+
+    public int getJpegQuality() {
+        return jpegQuality;
+    }
+}
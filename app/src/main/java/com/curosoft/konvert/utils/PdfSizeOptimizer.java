@@ -0,0 +1,379 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Utility class to reduce the size of existing PDF files
+ *
+ * The document is rewritten with the output profile: objects are packed into
+ * compressed object streams and uncompressed streams are deflated. If image
+ * recompression is enabled, JPEG images are re-encoded and images well above the
+ * target resolution for their page are downsampled and stored as JPEG; losslessly
+ * stored images at a sensible resolution, such as screenshots and line art, are left
+ * as they are. Pages are flushed as soon as they are processed.
+ */
+public class PdfSizeOptimizer {
+    private static final String TAG = "PdfSizeOptimizer";
+
+    private static final float POINTS_PER_INCH = 72f;
+    // Form XObjects nested deeper than this are not searched for images
+    private static final int MAX_FORM_DEPTH = 4;
+
+    /**
+     * Optimize a PDF file with the profile from the app settings
+     *
+     * @param context The context
+     * @param pdfUri  The URI of the PDF file
+     * @return The path to the optimized PDF file, or null if optimization failed
+     */
+    public static String optimizePdf(Context context, Uri pdfUri) {
+        PdfOutputProfile profile = PdfOutputProfile.fromSettings(context);
+        // An explicit optimize request always packs the output, whatever the converter setting
+        if (!profile.isFullCompression()) {
+            profile = new PdfOutputProfile(true, PdfOutputProfile.DEFAULT_COMPRESSION_LEVEL,
+                    profile.isRecompressImages(), profile.getImageTargetDpi(), profile.getJpegQuality());
+        }
+        return optimizePdf(context, pdfUri, profile);
+    }
+
+    /**
+     * Optimize a PDF file
+     *
+     * @param context The context
+     * @param pdfUri  The URI of the PDF file
+     * @param profile The output profile
+     * @return The path to the optimized PDF file, or null if optimization failed
+     */
+    public static String optimizePdf(Context context, Uri pdfUri, PdfOutputProfile profile) {
+        File tempFile = null;
+        File outputFile = null;
+        try {
+            String pdfFileName = EnhancedFilePickerUtils.getFileName(context, pdfUri);
+            Log.d(TAG, "Optimizing PDF: " + pdfFileName);
+
+            tempFile = createTempFileFromUri(context, pdfUri);
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            outputFile = new File(outputDir, getOutputFileName(pdfFileName));
+
+            optimize(tempFile, outputFile, profile);
+            Log.d(TAG, "Optimized " + tempFile.length() + " bytes to " + outputFile.length() + " bytes");
+
+            addToMediaStore(context, outputFile, "application/pdf");
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error optimizing PDF", e);
+            if (outputFile != null) {
+                outputFile.delete();
+            }
+            return null;
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Rewrite a PDF file with an output profile
+     *
+     * @param pdfFile    The PDF file
+     * @param outputFile The optimized output file
+     * @param profile    The output profile
+     * @throws IOException if there's an error reading or writing the PDF
+     */
+    static void optimize(File pdfFile, File outputFile, PdfOutputProfile profile) throws IOException {
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(pdfFile), profile.createWriter(outputFile))) {
+            Set<PdfIndirectReference> visited = new HashSet<>();
+            int recompressed = 0;
+            int numberOfPages = pdfDoc.getNumberOfPages();
+
+            for (int i = 1; i <= numberOfPages; i++) {
+                PdfPage page = pdfDoc.getPage(i);
+                if (profile.isRecompressImages()) {
+                    Rectangle pageSize = page.getPageSize();
+                    recompressed += recompressImages(page.getResources().getPdfObject(), pageSize, profile,
+                            visited, 0);
+                }
+                page.flush(true);
+            }
+            Log.d(TAG, "Processed " + numberOfPages + " pages, recompressed " + recompressed + " images");
+        } catch (com.itextpdf.kernel.exceptions.PdfException e) {
+            throw new IOException("Failed to optimize PDF: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recompress the images in a resource dictionary, including those inside forms
+     *
+     * @return The number of images replaced
+     */
+    private static int recompressImages(PdfDictionary resources, Rectangle pageSize, PdfOutputProfile profile,
+                                        Set<PdfIndirectReference> visited, int depth) {
+        PdfDictionary xObjects = resources == null ? null : resources.getAsDictionary(PdfName.XObject);
+        if (xObjects == null) {
+            return 0;
+        }
+
+        int recompressed = 0;
+        for (PdfName name : xObjects.keySet()) {
+            PdfStream stream = xObjects.getAsStream(name);
+            if (stream == null) {
+                continue;
+            }
+            // Images and forms shared between pages are handled once
+            PdfIndirectReference reference = stream.getIndirectReference();
+            if (reference != null && !visited.add(reference)) {
+                continue;
+            }
+
+            PdfName subtype = stream.getAsName(PdfName.Subtype);
+            if (PdfName.Image.equals(subtype)) {
+                try {
+                    if (recompressImage(stream, pageSize, profile)) {
+                        recompressed++;
+                    }
+                } catch (Exception e) {
+                    // Leave images that cannot be decoded as they are
+                    Log.w(TAG, "Skipping image " + name + ": " + e.getMessage());
+                }
+            } else if (PdfName.Form.equals(subtype) && depth < MAX_FORM_DEPTH) {
+                recompressed += recompressImages(stream.getAsDictionary(PdfName.Resources), pageSize, profile,
+                        visited, depth + 1);
+            }
+        }
+        return recompressed;
+    }
+
+    /**
+     * Re-encode a JPEG image, or downsample an oversized image to the target resolution
+     * for the page, and store it as JPEG
+     *
+     * Other images are stored losslessly on purpose and are not touched.
+     *
+     * @return true if the image was replaced
+     */
+    private static boolean recompressImage(PdfStream stream, Rectangle pageSize, PdfOutputProfile profile) {
+        // Transparency, masks and unusual sample formats would not survive a JPEG round trip
+        if (stream.containsKey(PdfName.SMask) || stream.containsKey(PdfName.Mask)
+                || stream.containsKey(PdfName.Decode) || stream.containsKey(PdfName.ImageMask)) {
+            return false;
+        }
+        PdfNumber bitsPerComponent = stream.getAsNumber(PdfName.BitsPerComponent);
+        PdfNumber widthNumber = stream.getAsNumber(PdfName.Width);
+        PdfNumber heightNumber = stream.getAsNumber(PdfName.Height);
+        if (bitsPerComponent == null || bitsPerComponent.intValue() != 8
+                || widthNumber == null || heightNumber == null) {
+            return false;
+        }
+
+        // An image cannot be displayed larger than its page
+        int width = widthNumber.intValue();
+        int height = heightNumber.intValue();
+        int targetWidth = Math.max(1, Math.round(pageSize.getWidth() / POINTS_PER_INCH * profile.getImageTargetDpi()));
+        int targetHeight = Math.max(1, Math.round(pageSize.getHeight() / POINTS_PER_INCH * profile.getImageTargetDpi()));
+        boolean oversized = width > targetWidth * 3 / 2 && height > targetHeight * 3 / 2;
+        boolean isJpeg = PdfName.DCTDecode.equals(stream.getAsName(PdfName.Filter));
+        if (!isJpeg && !oversized) {
+            return false;
+        }
+
+        byte[] encoded = new PdfImageXObject(stream).getImageBytes();
+
+        // Largest power-of-two sample that still covers the target
+        int sampleSize = 1;
+        if (oversized) {
+            while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+                sampleSize *= 2;
+            }
+        }
+        while ((long) (width / sampleSize) * (height / sampleSize) * 4 > PdfImageFactory.DEFAULT_MAX_IMAGE_BYTES) {
+            sampleSize *= 2;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(encoded, 0, encoded.length, options);
+        if (bitmap == null) {
+            return false;
+        }
+
+        byte[] jpeg;
+        int newWidth;
+        int newHeight;
+        try {
+            // Finish with an exact scale when sampling left the image well above the target
+            if (bitmap.getWidth() > targetWidth * 3 / 2 && bitmap.getHeight() > targetHeight * 3 / 2) {
+                float scale = Math.max((float) targetWidth / bitmap.getWidth(), (float) targetHeight / bitmap.getHeight());
+                Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                        Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+                if (scaled != bitmap) {
+                    bitmap.recycle();
+                    bitmap = scaled;
+                }
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, profile.getJpegQuality(), out);
+            jpeg = out.toByteArray();
+            newWidth = bitmap.getWidth();
+            newHeight = bitmap.getHeight();
+        } finally {
+            bitmap.recycle();
+        }
+
+        // Keep the original when recompression does not pay off
+        if (jpeg.length >= stream.getLength()) {
+            return false;
+        }
+
+        stream.setData(jpeg);
+        stream.put(PdfName.Filter, PdfName.DCTDecode);
+        stream.remove(PdfName.DecodeParms);
+        stream.put(PdfName.Width, new PdfNumber(newWidth));
+        stream.put(PdfName.Height, new PdfNumber(newHeight));
+        stream.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+        stream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        // JPEG data is already compressed
+        stream.setCompressionLevel(CompressionConstants.NO_COMPRESSION);
+        return true;
+    }
+
+    /**
+     * Generate an output file name based on the input file name
+     *
+     * @param inputFileName The input file name
+     * @return The output file name
+     */
+    private static String getOutputFileName(String inputFileName) {
+        String baseName = inputFileName;
+
+        // Remove the .pdf extension if present
+        if (baseName.toLowerCase().endsWith(".pdf")) {
+            baseName = baseName.substring(0, baseName.length() - 4);
+        }
+
+        return baseName + "_optimized.pdf";
+    }
+
+    /**
+     * Create a temporary file from a URI
+     *
+     * @param context The context
+     * @param uri     The URI of the file
+     * @return A temporary File object
+     * @throws IOException if there's an error creating the file
+     */
+    private static File createTempFileFromUri(Context context, Uri uri) throws IOException {
+        File tempFile = File.createTempFile("pdf_temp", ".pdf", context.getCacheDir());
+
+        // Copy the content from the URI to the temporary file
+        try (InputStream is = context.getContentResolver().openInputStream(uri);
+             OutputStream os = new FileOutputStream(tempFile)) {
+            if (is == null) {
+                throw new IOException("Could not open input stream from URI");
+            }
+
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) != -1) {
+                os.write(buffer, 0, bytesRead);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        return tempFile;
+    }
+
+    /**
+     * Add a file to the MediaStore so it's visible in the device's file explorer
+     *
+     * @param context  The context
+     * @param file     The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        try {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                // For Android 10+ (API 29+), use relative path and is_pending flag
+                values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+                values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+
+                if (uri != null) {
+                    // If we're using app-specific storage, copy the file to the MediaStore
+                    if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                        try (OutputStream os = resolver.openOutputStream(uri);
+                             FileInputStream fis = new FileInputStream(file)) {
+
+                            if (os != null) {
+                                byte[] buffer = new byte[4096];
+                                int bytesRead;
+                                while ((bytesRead = fis.read(buffer)) != -1) {
+                                    os.write(buffer, 0, bytesRead);
+                                }
+                                os.flush();
+                            }
+                        }
+                    }
+
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            } else {
+                // For older Android versions, use DATA field with absolute path
+                values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+
+                if (uri != null) {
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding file to MediaStore", e);
+            // Don't throw the exception, just log it
+        }
+    }
+}
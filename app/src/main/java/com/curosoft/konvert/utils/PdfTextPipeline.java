@@ -0,0 +1,347 @@
+package com.curosoft.konvert.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.LocationTextExtractionStrategy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class to extract text from PDF files page by page with iText
+ *
+ * Each page's text is handed to a consumer in page order as soon as it is available,
+ * so converters can write it straight to their output and never hold the whole text.
+ */
+public class PdfTextPipeline {
+    private static final String TAG = "PdfTextPipeline";
+
+    // Documents are split across workers only when each gets at least this many pages
+    private static final int MIN_PAGES_PER_WORKER = 4;
+    // Pages each worker may extract ahead of the page being delivered
+    private static final int REORDER_PAGES_PER_WORKER = 4;
+
+    /**
+     * Receives the text of each selected page in ascending page order
+     */
+    public interface PageConsumer {
+        /**
+         * @param pageNumber 1-based page number in the document
+         * @param text Text of the page, lines separated by '\n'
+         * @throws IOException If writing the text fails
+         */
+        void onPage(int pageNumber, String text) throws IOException;
+    }
+
+    /**
+     * Extract the text of every page of a PDF from a content Uri
+     *
+     * The PDF is copied to the cache first so iText can read it with random access
+     * instead of loading the whole stream into memory.
+     *
+     * @param context Application context
+     * @param pdfUri Uri of the PDF file
+     * @param consumer Receives each page's text
+     * @return Number of pages processed
+     * @throws IOException If the PDF cannot be read or the consumer fails
+     */
+    public static int extract(Context context, Uri pdfUri, PageConsumer consumer) throws IOException {
+        return extract(context, pdfUri, PageRange.ALL, consumer);
+    }
+
+    /**
+     * Extract the text of the selected pages of a PDF from a content Uri
+     *
+     * @param context Application context
+     * @param pdfUri Uri of the PDF file
+     * @param pageRange Pages to extract
+     * @param consumer Receives each page's text
+     * @return Number of pages processed
+     * @throws IOException If the PDF cannot be read or the consumer fails
+     */
+    public static int extract(Context context, Uri pdfUri, PageRange pageRange, PageConsumer consumer)
+            throws IOException {
+        File tempFile = File.createTempFile("pdf_temp", ".pdf", context.getCacheDir());
+        try {
+            copyUriToFile(context, pdfUri, tempFile);
+            return extract(tempFile, pageRange, consumer);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Extract the text of every page of a PDF file
+     *
+     * The file is memory-mapped once and, for documents of more than a few pages, the
+     * pages are extracted on the shared CPU pool by workers that each open their own
+     * {@link PdfDocument} over the mapping. Results pass through a bounded reorder
+     * buffer so the consumer still receives pages in order, on the calling thread,
+     * while at most a few pages per worker are held in memory.
+     *
+     * @param pdfFile PDF file
+     * @param consumer Receives each page's text
+     * @return Number of pages processed
+     * @throws IOException If the PDF cannot be read or the consumer fails
+     */
+    public static int extract(File pdfFile, PageConsumer consumer) throws IOException {
+        return extract(pdfFile, PageRange.ALL, consumer);
+    }
+
+    /**
+     * Extract the text of the selected pages of a PDF file
+     *
+     * Pages outside the range are never loaded, so their content streams are not
+     * decoded and the cost follows the number of selected pages.
+     *
+     * @param pdfFile PDF file
+     * @param pageRange Pages to extract
+     * @param consumer Receives each page's text
+     * @return Number of pages processed
+     * @throws IOException If the PDF cannot be read or the consumer fails
+     */
+    public static int extract(File pdfFile, PageRange pageRange, PageConsumer consumer) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        try (RandomAccessFile file = new RandomAccessFile(pdfFile, "r");
+             FileChannel channel = file.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("PDF file is too large: " + channel.size() + " bytes");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int[] pages;
+            int workers;
+            try (PdfDocument pdfDoc = openDocument(buffer)) {
+                int numberOfPages = pdfDoc.getNumberOfPages();
+                pages = pageRange.resolve(numberOfPages);
+                workers = Math.min(ConversionExecutor.getParallelism(), pages.length / MIN_PAGES_PER_WORKER);
+                Log.d(TAG, "PDF has " + numberOfPages + " pages, extracting " + pages.length
+                        + " using " + Math.max(1, workers) + " workers");
+
+                // Short selections are not worth the extra parsing of one document per worker
+                if (workers < 2) {
+                    for (int page : pages) {
+                        consumer.onPage(page, extractPage(pdfDoc, page));
+                    }
+                }
+            }
+            if (workers >= 2) {
+                extractParallel(buffer, pages, workers, consumer);
+            }
+
+            Log.d(TAG, "Extracted " + pages.length + " pages in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+            return pages.length;
+        } catch (com.itextpdf.kernel.exceptions.PdfException e) {
+            throw new IOException("Failed to read PDF: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Extract pages on the CPU pool and deliver them to the consumer in page order
+     */
+    private static void extractParallel(ByteBuffer buffer, int[] pages, int workers, PageConsumer consumer)
+            throws IOException {
+        ReorderBuffer reorderBuffer = new ReorderBuffer(workers * REORDER_PAGES_PER_WORKER);
+        // 1-based position in the selected pages, so the reorder window is independent of gaps
+        AtomicInteger nextIndex = new AtomicInteger(1);
+
+        // Workers take pages in increasing order, so the pages ahead of the one being
+        // delivered are always being extracted and a full window cannot deadlock
+        ExecutorService pool = ConversionExecutor.getCpuPool();
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            futures.add(pool.submit(() -> {
+                try (PdfDocument pdfDoc = openDocument(buffer)) {
+                    int index;
+                    while ((index = nextIndex.getAndIncrement()) <= pages.length) {
+                        if (!reorderBuffer.awaitSlot(index)) {
+                            return;
+                        }
+                        reorderBuffer.put(index, extractPage(pdfDoc, pages[index - 1]));
+                    }
+                } catch (Throwable e) {
+                    reorderBuffer.fail(e);
+                }
+            }));
+        }
+
+        try {
+            for (int page : pages) {
+                consumer.onPage(page, reorderBuffer.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting PDF text");
+        } finally {
+            // Stop remaining workers if the consumer failed or the thread was interrupted
+            reorderBuffer.close();
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Open a PDF document over its own view of a shared mapped buffer
+     */
+    private static PdfDocument openDocument(ByteBuffer buffer) throws IOException {
+        return new PdfDocument(new PdfReader(new MappedSource(buffer), new ReaderProperties()));
+    }
+
+    /**
+     * Extract the text of one page
+     */
+    private static String extractPage(PdfDocument pdfDoc, int pageNumber) {
+        LocationTextExtractionStrategy strategy = new LocationTextExtractionStrategy();
+        return PdfTextExtractor.getTextFromPage(pdfDoc.getPage(pageNumber), strategy);
+    }
+
+    /**
+     * Holds extracted pages until they can be delivered in order
+     *
+     * Pages are identified by their 1-based position in the selection. Only positions
+     * within {@code capacity} of the next one to deliver may be added; workers wait
+     * for a slot before extracting a page further ahead.
+     */
+    private static class ReorderBuffer {
+        private final String[] slots;
+        private int nextIndex = 1;
+        private boolean closed = false;
+        private Throwable failure;
+
+        ReorderBuffer(int capacity) {
+            slots = new String[capacity];
+        }
+
+        /**
+         * Wait until a position is within the window
+         *
+         * @return false if extraction has stopped
+         */
+        synchronized boolean awaitSlot(int index) throws InterruptedException {
+            while (index >= nextIndex + slots.length && !closed && failure == null) {
+                wait();
+            }
+            return !closed && failure == null;
+        }
+
+        synchronized void put(int index, String text) {
+            slots[index % slots.length] = text;
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+            notifyAll();
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        /**
+         * Wait for the next page in order and remove it from the buffer
+         */
+        synchronized String take() throws IOException, InterruptedException {
+            int slot = nextIndex % slots.length;
+            while (slots[slot] == null && failure == null) {
+                wait();
+            }
+            if (slots[slot] == null) {
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                throw new IOException("Failed to extract PDF page: " + failure.getMessage(), failure);
+            }
+            String text = slots[slot];
+            slots[slot] = null;
+            nextIndex++;
+            notifyAll();
+            return text;
+        }
+    }
+
+    /**
+     * Random access source over a private duplicate of a shared buffer, so each
+     * reader has its own position while the mapped bytes are shared
+     */
+    private static class MappedSource implements IRandomAccessSource {
+        private final ByteBuffer buffer;
+
+        MappedSource(ByteBuffer shared) {
+            buffer = shared.duplicate();
+        }
+
+        @Override
+        public int get(long position) {
+            if (position >= buffer.limit()) {
+                return -1;
+            }
+            return buffer.get((int) position) & 0xFF;
+        }
+
+        @Override
+        public int get(long position, byte[] bytes, int off, int len) {
+            if (position >= buffer.limit()) {
+                return -1;
+            }
+            int count = (int) Math.min(len, buffer.limit() - position);
+            buffer.position((int) position);
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public void close() {
+            // The mapping is released when the buffer is garbage collected
+        }
+    }
+
+    /**
+     * Copy the content of a Uri to a file
+     */
+    private static void copyUriToFile(Context context, Uri uri, File file) throws IOException {
+        try (InputStream is = context.getContentResolver().openInputStream(uri);
+             OutputStream os = new FileOutputStream(file)) {
+            if (is == null) {
+                throw new IOException("Could not open input stream from URI");
+            }
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) != -1) {
+                os.write(buffer, 0, bytesRead);
+            }
+        }
+    }
+}
@@ -11,28 +11,17 @@ import android.provider.MediaStore;
 import android.provider.OpenableColumns;
 import android.util.Log;
 
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfReader;
-import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
-import com.itextpdf.kernel.pdf.canvas.parser.listener.LocationTextExtractionStrategy;
-
-import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
-
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
 /**
- * Utility class for converting PDF files to DOCX format using iText7 and Apache POI
+ * Utility class for converting PDF files to DOCX format using iText7
  */
 public class PdfToDocxConverter {
     private static final String TAG = "PdfToDocxConverter";
@@ -45,6 +34,18 @@ public class PdfToDocxConverter {
      * @return The path to the converted DOCX file, or null if conversion failed
      */
     public static String convertPdfToDocx(Context context, Uri pdfUri) {
+        return convertPdfToDocx(context, pdfUri, PageRange.ALL);
+    }
+    
+    /**
+     * Convert selected pages of a PDF file to DOCX format
+     *
+     * @param context   The context
+     * @param pdfUri    The URI of the PDF file
+     * @param pageRange The pages to convert
+     * @return The path to the converted DOCX file, or null if conversion failed
+     */
+    public static String convertPdfToDocx(Context context, Uri pdfUri, PageRange pageRange) {
         try {
             // Get the PDF file name
             String pdfFileName = getFileName(context, pdfUri);
@@ -53,15 +54,12 @@ public class PdfToDocxConverter {
             // Create output file name based on the input name
             String docxFileName = getOutputFileName(pdfFileName);
             
-            // Extract text from PDF using iText7
-            String pdfText = extractTextFromPdf(context, pdfUri);
-            if (pdfText == null || pdfText.trim().isEmpty()) {
+            // Extract text from PDF using iText7 and create the DOCX file
+            String outputPath = createDocxFile(context, pdfUri, pageRange, docxFileName);
+            if (outputPath == null) {
                 Log.e(TAG, "Failed to extract text from PDF");
                 return null;
             }
-            
-            // Create DOCX file
-            String outputPath = createDocxFile(context, pdfText, docxFileName);
             Log.d(TAG, "Conversion successful. Output file: " + outputPath);
             
             return outputPath;
@@ -72,103 +70,48 @@ public class PdfToDocxConverter {
     }
     
     /**
-     * Extract text from a PDF file using iText7
-     *
-     * @param context The context
-     * @param pdfUri  The URI of the PDF file
-     * @return The extracted text
-     * @throws IOException if there's an error accessing the PDF
-     */
-    private static String extractTextFromPdf(Context context, Uri pdfUri) throws IOException {
-        PdfDocument pdfDoc = null;
-        try {
-            InputStream inputStream = context.getContentResolver().openInputStream(pdfUri);
-            if (inputStream == null) {
-                throw new IOException("Could not open PDF file: input stream is null");
-            }
-            
-            PdfReader reader = new PdfReader(inputStream);
-            pdfDoc = new PdfDocument(reader);
-            
-            StringBuilder textBuilder = new StringBuilder();
-            int numberOfPages = pdfDoc.getNumberOfPages();
-            
-            // Extract text from each page
-            for (int i = 1; i <= numberOfPages; i++) {
-                LocationTextExtractionStrategy strategy = new LocationTextExtractionStrategy();
-                String pageText = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(i), strategy);
-                textBuilder.append(pageText).append("\n\n"); // Add extra line breaks between pages
-            }
-            
-            return textBuilder.toString();
-        } finally {
-            if (pdfDoc != null) {
-                try {
-                    pdfDoc.close();
-                } catch (Exception e) {
-                    Log.e(TAG, "Error closing PDF document", e);
-                    // Don't rethrow as we're in finally block
-                }
-            }
-        }
-    }
-    
-    /**
-     * Create a DOCX file with the extracted text
+     * Create a DOCX file with the text extracted from a PDF
      *
-     * @param context     The context
-     * @param text        The text to write to the DOCX file
-     * @param fileName    The name of the output file
-     * @return The path to the created DOCX file
-     * @throws IOException if there's an error creating the DOCX file
+     * @param context   The context
+     * @param pdfUri    The URI of the PDF file
+     * @param pageRange The pages to convert
+     * @param fileName  The name of the output file
+     * @return The path to the created DOCX file, or null if the PDF has no text
+     * @throws IOException if there's an error reading the PDF or creating the DOCX file
      */
-    private static String createDocxFile(Context context, String text, String fileName) throws IOException {
+    private static String createDocxFile(Context context, Uri pdfUri, PageRange pageRange, String fileName) throws IOException {
         Log.d(TAG, "Creating DOCX file: " + fileName);
-        XWPFDocument document = new XWPFDocument();
-        
-        // Split text by lines and create paragraphs
-        String[] paragraphs = text.split("\\r?\\n");
-        for (String paragraph : paragraphs) {
-            if (!paragraph.trim().isEmpty()) {
-                XWPFParagraph p = document.createParagraph();
-                p.setAlignment(ParagraphAlignment.LEFT);
-                
-                XWPFRun run = p.createRun();
-                run.setText(paragraph);
-                run.setFontFamily("Calibri");
-                run.setFontSize(11);
-            }
-        }
         
         // Get the output directory using the FileStorageUtils
         File outputDir = FileStorageUtils.getOutputDirectory(context);
         
         File outputFile = new File(outputDir, fileName);
         
-        // Save the document
-        OutputStream outputStream = null;
-        try {
-            outputStream = new FileOutputStream(outputFile);
-            document.write(outputStream);
-            
-            // Add to MediaStore for visibility in file browsers
-            addToMediaStore(context, outputFile);
-            
-            return outputFile.getAbsolutePath();
-        } finally {
-            if (outputStream != null) {
-                try {
-                    outputStream.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error closing output stream", e);
+        // Split each page's text by lines and write paragraphs as the page is extracted
+        int paragraphCount;
+        try (DocxWriter writer = new DocxWriter(new FileOutputStream(outputFile))) {
+            writer.writeHeader();
+            PdfTextPipeline.extract(context, pdfUri, pageRange, (pageNumber, pageText) -> {
+                for (String paragraph : pageText.split("\\r?\\n")) {
+                    if (!paragraph.trim().isEmpty()) {
+                        writer.writeParagraph(paragraph);
+                    }
                 }
-            }
-            try {
-                document.close();
-            } catch (IOException e) {
-                Log.e(TAG, "Error closing document", e);
-            }
+            });
+            paragraphCount = writer.getParagraphCount();
+        } catch (IOException | RuntimeException e) {
+            outputFile.delete();
+            throw e;
+        }
+        if (paragraphCount == 0) {
+            outputFile.delete();
+            return null;
         }
+        
+        // Add to MediaStore for visibility in file browsers
+        addToMediaStore(context, outputFile);
+        
+        return outputFile.getAbsolutePath();
     }
     
     /**
@@ -0,0 +1,205 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Utility class for converting PDF files to EPUB e-books
+ */
+public class PdfToEpubConverter {
+    private static final String TAG = "PdfToEpubConverter";
+    
+    /**
+     * Convert a PDF file to EPUB format
+     *
+     * @param context The context
+     * @param pdfUri  The URI of the PDF file
+     * @return The path to the converted EPUB file, or null if conversion failed
+     */
+    public static String convertPdfToEpub(Context context, Uri pdfUri) {
+        return convertPdfToEpub(context, pdfUri, PageRange.ALL);
+    }
+    
+    /**
+     * Convert selected pages of a PDF file to EPUB format
+     *
+     * @param context   The context
+     * @param pdfUri    The URI of the PDF file
+     * @param pageRange The pages to convert
+     * @return The path to the converted EPUB file, or null if conversion failed
+     */
+    public static String convertPdfToEpub(Context context, Uri pdfUri, PageRange pageRange) {
+        Log.d(TAG, "Starting PDF to EPUB conversion");
+        
+        try {
+            // Get the PDF file name
+            String pdfFileName = EnhancedFilePickerUtils.getFileName(context, pdfUri);
+            Log.d(TAG, "Converting PDF: " + pdfFileName);
+            
+            // Create output file name based on the input name
+            String epubFileName = getOutputFileName(pdfFileName);
+            
+            // Get output directory using FileStorageUtils
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            File outputFile = new File(outputDir, epubFileName);
+            
+            // Extract text page by page straight into the EPUB package
+            long textLength;
+            try {
+                textLength = createEpubFile(context, pdfUri, pageRange, outputFile, getTitle(pdfFileName));
+            } catch (IOException | RuntimeException e) {
+                outputFile.delete();
+                throw e;
+            }
+            if (textLength == 0) {
+                Log.e(TAG, "Failed to extract text from PDF");
+                outputFile.delete();
+                return null;
+            }
+            
+            // Make the file visible in the MediaStore
+            addToMediaStore(context, outputFile, EpubPackageWriter.MIME_TYPE);
+            
+            Log.d(TAG, "Conversion successful. Output file: " + outputFile.getAbsolutePath());
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting PDF to EPUB", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Create the EPUB file with the text of the PDF
+     *
+     * Pages are extracted one at a time and each line is written as a paragraph as
+     * soon as its page is available; chapters are split by size.
+     *
+     * @param context    The context
+     * @param pdfUri     The URI of the PDF file
+     * @param pageRange  The pages to convert
+     * @param outputFile The EPUB file to write
+     * @param title      The title of the book
+     * @return The number of non-whitespace characters written
+     * @throws IOException if there's an error reading the PDF or writing the file
+     */
+    private static long createEpubFile(Context context, Uri pdfUri, PageRange pageRange, File outputFile,
+                                       String title) throws IOException {
+        Log.d(TAG, "Creating EPUB file");
+        long[] textLength = {0};
+        
+        try (EpubPackageWriter writer = new EpubPackageWriter(new FileOutputStream(outputFile),
+                title, Locale.getDefault().toLanguageTag())) {
+            writer.writeHeader();
+            
+            // Add the text content as paragraphs
+            PdfTextPipeline.extract(context, pdfUri, pageRange, (pageNumber, pageText) -> {
+                for (String paragraph : pageText.split("\\r?\\n")) {
+                    writer.writeParagraph(paragraph);
+                    textLength[0] += paragraph.trim().length();
+                }
+            });
+        }
+        
+        return textLength[0];
+    }
+    
+    /**
+     * Generate an output file name based on the input file name
+     *
+     * @param inputFileName The input file name
+     * @return The output file name
+     */
+    private static String getOutputFileName(String inputFileName) {
+        String baseName = inputFileName;
+        
+        // Remove the .pdf extension if present
+        if (baseName.toLowerCase().endsWith(".pdf")) {
+            baseName = baseName.substring(0, baseName.length() - 4);
+        }
+        
+        return baseName + ".epub";
+    }
+    
+    /**
+     * Use the input file name without its extension as the title of the book
+     */
+    private static String getTitle(String inputFileName) {
+        int dot = inputFileName.lastIndexOf('.');
+        return dot > 0 ? inputFileName.substring(0, dot) : inputFileName;
+    }
+    
+    /**
+     * Add the file to the MediaStore so it's visible in file browsers
+     *
+     * @param context  The context
+     * @param file     The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        try {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+            
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                // For Android 10+ (API 29+), use relative path and is_pending flag
+                values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+                values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+                
+                // On Android 10+, we should use the MediaStore API to make files visible
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+                
+                if (uri != null) {
+                    // If we're using app-specific storage, copy the file to the MediaStore
+                    if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                        try (OutputStream os = resolver.openOutputStream(uri);
+                             FileInputStream fis = new FileInputStream(file)) {
+                            
+                            if (os != null) {
+                                byte[] buffer = new byte[4096];
+                                int bytesRead;
+                                while ((bytesRead = fis.read(buffer)) != -1) {
+                                    os.write(buffer, 0, bytesRead);
+                                }
+                                os.flush();
+                            }
+                        }
+                    }
+                    
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            } else {
+                // For older Android versions, use DATA field with absolute path
+                values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+                
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+                
+                if (uri != null) {
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding file to MediaStore", e);
+            // Don't throw the exception, just log it
+            // The conversion is still successful even if the file isn't added to MediaStore
+        }
+    }
+}
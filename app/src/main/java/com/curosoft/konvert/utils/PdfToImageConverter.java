@@ -0,0 +1,340 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.pdf.PdfRenderer;
+import android.net.Uri;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Utility class for exporting PDF pages as PNG or JPEG images
+ *
+ * The framework runs every PdfRenderer call under one process-wide lock, so pages
+ * cannot be rendered in parallel, and each extra renderer would only hold another
+ * parsed copy of the document in native memory. A single renderer therefore renders
+ * the pages in order on the calling thread into bitmaps from a {@link BitmapPool}
+ * and hands them to the encode pool, which compresses and writes them in parallel
+ * while rendering continues. A byte budget bounds the number of bitmaps in flight.
+ */
+public class PdfToImageConverter {
+    private static final String TAG = "PdfToImageConverter";
+
+    public static final int DEFAULT_DPI = 150;
+    private static final int JPEG_QUALITY = 90;
+    private static final float POINTS_PER_INCH = 72f;
+    private static final int BYTES_PER_PIXEL = 4;
+    // Largest page bitmap; bigger pages are rendered at a lower resolution
+    private static final long MAX_PAGE_PIXELS = 16L * 1024 * 1024;
+    // Budget permits are counted in KB so large pages fit in an int
+    private static final int PERMIT_BYTES = 1024;
+
+    /**
+     * Export every page of a PDF at the default resolution
+     *
+     * @param context The context
+     * @param pdfUri  The URI of the PDF file
+     * @param format  The image format, "PNG" or "JPG"
+     * @return The paths to the images in page order, or null if the export failed
+     */
+    public static List<String> convertPdfToImages(Context context, Uri pdfUri, String format) {
+        return convertPdfToImages(context, pdfUri, format, DEFAULT_DPI, PageRange.ALL);
+    }
+
+    /**
+     * Export selected pages of a PDF as images
+     *
+     * @param context   The context
+     * @param pdfUri    The URI of the PDF file
+     * @param format    The image format, "PNG" or "JPG"
+     * @param dpi       The resolution to render at
+     * @param pageRange The pages to export
+     * @return The paths to the images in page order, or null if the export failed
+     */
+    public static List<String> convertPdfToImages(Context context, Uri pdfUri, String format, int dpi,
+                                                  PageRange pageRange) {
+        boolean png = "PNG".equalsIgnoreCase(format);
+        String extension = png ? ".png" : ".jpg";
+        String pdfFileName = EnhancedFilePickerUtils.getFileName(context, pdfUri);
+        Log.d(TAG, "Exporting " + pdfFileName + " as " + extension + " at " + dpi + " dpi");
+
+        long startTime = System.currentTimeMillis();
+        File[] outputFiles = null;
+        boolean success = false;
+        ParcelFileDescriptor fd = null;
+        try {
+            fd = context.getContentResolver().openFileDescriptor(pdfUri, "r");
+            if (fd == null) {
+                Log.e(TAG, "Cannot open PDF file");
+                return null;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open PDF file", e);
+            return null;
+        }
+
+        // The renderer takes ownership of the descriptor and closes it
+        try (PdfRenderer renderer = new PdfRenderer(fd)) {
+            int[] pages = pageRange.resolve(renderer.getPageCount());
+            if (pages.length == 0) {
+                Log.e(TAG, "No pages selected");
+                return null;
+            }
+
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            String baseName = getBaseName(pdfFileName);
+            outputFiles = new File[pages.length];
+            for (int i = 0; i < pages.length; i++) {
+                outputFiles[i] = new File(outputDir, baseName + "_page" + pages[i] + extension);
+            }
+
+            renderPages(renderer, pages, dpi, png, outputFiles);
+            success = true;
+
+            List<String> outputPaths = new ArrayList<>(outputFiles.length);
+            for (File outputFile : outputFiles) {
+                addToMediaStore(context, outputFile, png ? "image/png" : "image/jpeg");
+                outputPaths.add(outputFile.getAbsolutePath());
+            }
+            Log.d(TAG, "Exported " + pages.length + " pages in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+            return outputPaths;
+        } catch (Exception e) {
+            Log.e(TAG, "Error exporting PDF pages", e);
+            return null;
+        } finally {
+            if (!success && outputFiles != null) {
+                for (File outputFile : outputFiles) {
+                    outputFile.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Render pages in order and encode them on the encode pool
+     */
+    private static void renderPages(PdfRenderer renderer, int[] pages, int dpi, boolean png,
+                                    File[] outputFiles) throws IOException {
+        // Bitmaps in flight are limited to a quarter of the heap limit
+        long budgetBytes = Math.max(MAX_PAGE_PIXELS * BYTES_PER_PIXEL, Runtime.getRuntime().maxMemory() / 4);
+        int budgetPermits = (int) (budgetBytes / PERMIT_BYTES);
+        Semaphore budget = new Semaphore(budgetPermits);
+        BitmapPool bitmapPool = new BitmapPool(budgetBytes);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<?>> encodeFutures = new ArrayList<>(pages.length);
+        ExecutorService encodePool = ConversionExecutor.getEncodePool();
+
+        try {
+            for (int index = 0; index < pages.length && failure.get() == null; index++) {
+                Bitmap bitmap = null;
+                int permits = 0;
+                try (PdfRenderer.Page page = renderer.openPage(pages[index] - 1)) {
+                    int[] size = getBitmapSize(page, dpi);
+                    int needed = (int) Math.min(budgetPermits,
+                            ((long) size[0] * size[1] * BYTES_PER_PIXEL + PERMIT_BYTES - 1) / PERMIT_BYTES);
+                    // Waits for the encoders when too many pages are waiting to be written
+                    budget.acquire(needed);
+                    permits = needed;
+
+                    bitmap = bitmapPool.acquire(size[0], size[1]);
+                    // Pages have no background of their own
+                    bitmap.eraseColor(Color.WHITE);
+                    page.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    bitmapPool.release(bitmap);
+                    budget.release(permits);
+                    break;
+                }
+
+                // Encoding overlaps with rendering of the next page
+                Bitmap rendered = bitmap;
+                int releasePermits = permits;
+                File outputFile = outputFiles[index];
+                encodeFutures.add(encodePool.submit(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            writeImage(rendered, png, outputFile);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        bitmapPool.release(rendered);
+                        budget.release(releasePermits);
+                    }
+                }));
+            }
+
+            for (Future<?> future : encodeFutures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } finally {
+            // Pooled bitmaps are recycled by clear(), so no encoder may still hold one
+            awaitEncoders(encodeFutures);
+            bitmapPool.clear();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while exporting PDF pages");
+        } else if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error != null) {
+            throw new IOException("Failed to export PDF pages: " + error.getMessage(), error);
+        }
+    }
+
+    /**
+     * Wait for every encode task to finish, even when interrupted
+     *
+     * A cancelled future reports done while its task may still be running, so the
+     * tasks are not cancelled; once a failure is recorded, those that haven't
+     * started skip the encoding and return at once.
+     */
+    private static void awaitEncoders(List<Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // Already recorded by the task itself
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the bitmap size for a page at a resolution, capped at the maximum page size
+     */
+    private static int[] getBitmapSize(PdfRenderer.Page page, int dpi) {
+        float scale = dpi / POINTS_PER_INCH;
+        long pixels = (long) (page.getWidth() * scale) * (long) (page.getHeight() * scale);
+        if (pixels > MAX_PAGE_PIXELS) {
+            scale *= (float) Math.sqrt((double) MAX_PAGE_PIXELS / pixels);
+        }
+        return new int[]{
+                Math.max(1, Math.round(page.getWidth() * scale)),
+                Math.max(1, Math.round(page.getHeight() * scale))
+        };
+    }
+
+    /**
+     * Compress a bitmap to a file
+     */
+    private static void writeImage(Bitmap bitmap, boolean png, File outputFile) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            boolean written = png
+                    ? bitmap.compress(Bitmap.CompressFormat.PNG, 100, os)
+                    : bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, os);
+            if (!written) {
+                throw new IOException("Failed to encode " + outputFile.getName());
+            }
+        }
+    }
+
+    /**
+     * Get a file name without its .pdf extension
+     */
+    private static String getBaseName(String fileName) {
+        if (fileName.toLowerCase().endsWith(".pdf")) {
+            return fileName.substring(0, fileName.length() - 4);
+        }
+        return fileName;
+    }
+
+    /**
+     * Add a file to the MediaStore so it's visible in the device's file explorer
+     *
+     * @param context  The context
+     * @param file     The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        try {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                // For Android 10+ (API 29+), use relative path and is_pending flag
+                values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+                values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+
+                if (uri != null) {
+                    // If we're using app-specific storage, copy the file to the MediaStore
+                    if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                        try (OutputStream os = resolver.openOutputStream(uri);
+                             FileInputStream fis = new FileInputStream(file)) {
+
+                            if (os != null) {
+                                byte[] buffer = new byte[4096];
+                                int bytesRead;
+                                while ((bytesRead = fis.read(buffer)) != -1) {
+                                    os.write(buffer, 0, bytesRead);
+                                }
+                                os.flush();
+                            }
+                        }
+                    }
+
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            } else {
+                // For older Android versions, use DATA field with absolute path
+                values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+
+                ContentResolver resolver = context.getContentResolver();
+                Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+
+                if (uri != null) {
+                    Log.d(TAG, "Added file to MediaStore: " + uri);
+                } else {
+                    Log.w(TAG, "Failed to add file to MediaStore");
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding file to MediaStore", e);
+            // Don't throw the exception, just log it
+        }
+    }
+}
@@ -3,11 +3,8 @@ package com.curosoft.konvert.utils;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.pdf.PdfRenderer;
 import android.net.Uri;
 import android.os.Build;
-import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
 import android.util.Log;
 
@@ -16,8 +13,6 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 
 /**
  * Utility class for converting PDF files to RTF format
@@ -33,6 +28,18 @@ public class PdfToRtfConverter {
      * @return The path to the converted RTF file, or null if conversion failed
      */
     public static String convertPdfToRtf(Context context, Uri pdfUri) {
+        return convertPdfToRtf(context, pdfUri, PageRange.ALL);
+    }
+    
+    /**
+     * Convert selected pages of a PDF file to RTF format
+     *
+     * @param context   The context
+     * @param pdfUri    The URI of the PDF file
+     * @param pageRange The pages to convert
+     * @return The path to the converted RTF file, or null if conversion failed
+     */
+    public static String convertPdfToRtf(Context context, Uri pdfUri, PageRange pageRange) {
         Log.d(TAG, "Starting PDF to RTF conversion");
         
         try {
@@ -43,18 +50,8 @@ public class PdfToRtfConverter {
             // Create output file name based on the input name
             String rtfFileName = getOutputFileName(pdfFileName);
             
-            // Extract text from PDF
-            String extractedText = extractTextFromPdf(context, pdfUri);
-            if (extractedText == null || extractedText.trim().isEmpty()) {
-                Log.e(TAG, "Failed to extract text from PDF");
-                return null;
-            }
-            
-            // Convert the extracted text to RTF format
-            String rtfContent = convertToRtf(extractedText);
-            
-            // Save the RTF content to a file
-            File outputFile = saveRtfFile(context, rtfContent, rtfFileName);
+            // Extract text page by page straight into the RTF file
+            File outputFile = saveRtfFile(context, pdfUri, pageRange, rtfFileName);
             if (outputFile != null) {
                 Log.d(TAG, "Conversion successful. Output file: " + outputFile.getAbsolutePath());
                 
@@ -73,165 +70,81 @@ public class PdfToRtfConverter {
     }
     
     /**
-     * Extract text from a PDF file using Android's PdfRenderer
-     *
-     * @param context The context
-     * @param pdfUri  The URI of the PDF file
-     * @return The extracted text
-     * @throws IOException if there's an error accessing the PDF
-     */
-    private static String extractTextFromPdf(Context context, Uri pdfUri) throws IOException {
-        // For Android's PdfRenderer, we need to create a temporary file
-        File tempFile = createTempFileFromUri(context, pdfUri);
-        if (tempFile == null) {
-            return null;
-        }
-        
-        StringBuilder textBuilder = new StringBuilder();
-        
-        try {
-            // Open the PDF file
-            ParcelFileDescriptor fileDescriptor = ParcelFileDescriptor.open(
-                    tempFile, ParcelFileDescriptor.MODE_READ_ONLY);
-            PdfRenderer renderer = new PdfRenderer(fileDescriptor);
-            
-            final int pageCount = renderer.getPageCount();
-            Log.d(TAG, "PDF has " + pageCount + " pages");
-            
-            // We can't extract text directly with PdfRenderer, but we can use a third-party
-            // library for actual text extraction. For demonstration, we'll use a placeholder.
-            textBuilder.append("PDF Document: ").append(EnhancedFilePickerUtils.getFileName(context, pdfUri))
-                      .append("\n\nNumber of pages: ").append(pageCount).append("\n\n");
-            
-            // Use a third-party library like pdfbox-android for actual text extraction
-            // For this example, we'll use a basic extraction method to demonstrate the flow
-            for (int i = 0; i < pageCount; i++) {
-                PdfRenderer.Page page = renderer.openPage(i);
-                
-                // For a real app, replace this with actual text extraction
-                // This is just a placeholder
-                Bitmap bitmap = Bitmap.createBitmap(
-                        page.getWidth(), page.getHeight(), Bitmap.Config.ARGB_8888);
-                page.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
-                
-                textBuilder.append("Content from page ").append(i + 1).append(":\n");
-                
-                // In a real app, you would extract text from the page here
-                // using a library like pdfbox-android
-                textBuilder.append("[Text content would be extracted here in a real app]\n\n");
-                
-                bitmap.recycle();
-                page.close();
-            }
-            
-            renderer.close();
-            fileDescriptor.close();
-        } finally {
-            // Clean up the temporary file
-            if (tempFile.exists()) {
-                tempFile.delete();
-            }
-        }
-        
-        return textBuilder.toString();
-    }
-    
-    /**
-     * Create a temporary file from a URI
-     *
-     * @param context The context
-     * @param uri     The URI of the file
-     * @return A temporary File object
-     * @throws IOException if there's an error creating the file
-     */
-    private static File createTempFileFromUri(Context context, Uri uri) throws IOException {
-        ContentResolver resolver = context.getContentResolver();
-        
-        // Create a temporary file
-        File tempFile = File.createTempFile("pdf_temp", ".pdf", context.getCacheDir());
-        
-        // Copy the content from the URI to the temporary file
-        try (OutputStream os = new FileOutputStream(tempFile)) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            
-            try (java.io.InputStream is = resolver.openInputStream(uri)) {
-                if (is == null) {
-                    throw new IOException("Could not open input stream from URI");
-                }
-                
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
-                }
-            }
-        }
-        
-        return tempFile;
-    }
-    
-    /**
-     * Convert plain text to RTF format
+     * Extract text from a PDF and save it as an RTF file
      *
-     * @param text The text to convert
-     * @return RTF formatted text
-     */
-    private static String convertToRtf(String text) {
-        // RTF header
-        StringBuilder rtfBuilder = new StringBuilder();
-        rtfBuilder.append("{\\rtf1\\ansi\\ansicpg1252\\cocoartf2580\\cocoasubrtf220\n");
-        rtfBuilder.append("{\\fonttbl\\f0\\fswiss\\fcharset0 Helvetica;}\n");
-        rtfBuilder.append("{\\colortbl;\\red0\\green0\\blue0;}\n");
-        rtfBuilder.append("\\vieww12000\\viewh15840\\viewkind0\n");
-        rtfBuilder.append("\\deftab720\n");
-        rtfBuilder.append("\\pard\\pardeftab720\\partightenfactor0\n\n");
-        
-        // Process the text and add it to the RTF document
-        // Replace newlines with RTF newline command
-        String rtfContent = text.replace("\n", "\\par\n")
-                               // Escape RTF special characters
-                               .replace("\\", "\\\\")
-                               .replace("{", "\\{")
-                               .replace("}", "\\}");
-        
-        rtfBuilder.append(rtfContent);
-        
-        // RTF footer
-        rtfBuilder.append("}\n");
-        
-        return rtfBuilder.toString();
-    }
-    
-    /**
-     * Save RTF content to a file
+     * Each page's text is escaped and written through {@link RtfWriter} as soon as it
+     * is extracted, one paragraph per line, with an empty paragraph between pages.
      *
      * @param context   The context
-     * @param rtfContent The RTF content to save
+     * @param pdfUri    The URI of the PDF file
+     * @param pageRange The pages to convert
      * @param fileName  The name of the output file
-     * @return The created File object, or null if creation failed
+     * @return The created File object, or null if creation failed or the PDF has no text
      */
-    private static File saveRtfFile(Context context, String rtfContent, String fileName) {
+    private static File saveRtfFile(Context context, Uri pdfUri, PageRange pageRange, String fileName) {
+        File outputFile = null;
         try {
             // Get output directory using FileStorageUtils
             File outputDir = FileStorageUtils.getOutputDirectory(context);
-            File outputFile = new File(outputDir, fileName);
+            outputFile = new File(outputDir, fileName);
             
             // Create parent directories if needed
             if (!outputFile.getParentFile().exists()) {
                 outputFile.getParentFile().mkdirs();
             }
             
-            // Write the RTF content to the file
-            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile))) {
-                writer.write(rtfContent);
+            // Write the text to the file, one RTF paragraph per line
+            int[] pagesWritten = {0};
+            long[] textLength = {0};
+            try (RtfWriter writer = new RtfWriter(new FileOutputStream(outputFile))) {
+                writer.writeHeader();
+                PdfTextPipeline.extract(context, pdfUri, pageRange, (pageNumber, pageText) -> {
+                    if (pagesWritten[0]++ > 0) {
+                        writer.beginParagraph();
+                        writer.endParagraph();
+                    }
+                    writeLines(writer, pageText);
+                    textLength[0] += pageText.trim().length();
+                });
             }
             
+            if (textLength[0] == 0) {
+                Log.e(TAG, "Failed to extract text from PDF");
+                outputFile.delete();
+                return null;
+            }
             return outputFile;
         } catch (IOException e) {
             Log.e(TAG, "Error saving RTF file", e);
+            if (outputFile != null) {
+                outputFile.delete();
+            }
             return null;
         }
     }
     
+    /**
+     * Write text as RTF paragraphs, one per line
+     *
+     * @param writer The RTF writer
+     * @param text   The text to write
+     * @throws IOException if writing fails
+     */
+    private static void writeLines(RtfWriter writer, String text) throws IOException {
+        int lineStart = 0;
+        int length = text.length();
+        while (lineStart < length) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd == -1) {
+                lineEnd = length;
+            }
+            writer.beginParagraph();
+            writer.writeText(text, lineStart, lineEnd);
+            writer.endParagraph();
+            lineStart = lineEnd + 1;
+        }
+    }
+    
     /**
      * Generate an output file name based on the input file name
      *
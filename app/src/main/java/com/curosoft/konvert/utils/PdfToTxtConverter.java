@@ -3,14 +3,12 @@ package com.curosoft.konvert.utils;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.pdf.PdfRenderer;
 import android.net.Uri;
 import android.os.Build;
-import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
 import android.util.Log;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -18,6 +16,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Utility class for converting PDF files to TXT format
@@ -33,6 +32,18 @@ public class PdfToTxtConverter {
      * @return The path to the converted TXT file, or null if conversion failed
      */
     public static String convertPdfToTxt(Context context, Uri pdfUri) {
+        return convertPdfToTxt(context, pdfUri, PageRange.ALL);
+    }
+    
+    /**
+     * Convert selected pages of a PDF file to TXT format
+     *
+     * @param context   The context
+     * @param pdfUri    The URI of the PDF file
+     * @param pageRange The pages to convert
+     * @return The path to the converted TXT file, or null if conversion failed
+     */
+    public static String convertPdfToTxt(Context context, Uri pdfUri, PageRange pageRange) {
         Log.d(TAG, "Starting PDF to TXT conversion");
         
         try {
@@ -43,15 +54,8 @@ public class PdfToTxtConverter {
             // Create output file name based on the input name
             String txtFileName = getOutputFileName(pdfFileName);
             
-            // Extract text from PDF
-            String extractedText = extractTextFromPdf(context, pdfUri);
-            if (extractedText == null || extractedText.trim().isEmpty()) {
-                Log.e(TAG, "Failed to extract text from PDF");
-                return null;
-            }
-            
-            // Save the extracted text to a TXT file
-            File outputFile = saveTxtFile(context, extractedText, txtFileName);
+            // Extract text page by page straight into the TXT file
+            File outputFile = saveTxtFile(context, pdfUri, pageRange, txtFileName);
             if (outputFile != null) {
                 Log.d(TAG, "Conversion successful. Output file: " + outputFile.getAbsolutePath());
                 
@@ -70,129 +74,53 @@ public class PdfToTxtConverter {
     }
     
     /**
-     * Extract text from a PDF file using Android's PdfRenderer
+     * Extract text from a PDF and save it to a TXT file
      *
-     * @param context The context
-     * @param pdfUri  The URI of the PDF file
-     * @return The extracted text
-     * @throws IOException if there's an error accessing the PDF
-     */
-    private static String extractTextFromPdf(Context context, Uri pdfUri) throws IOException {
-        // For Android's PdfRenderer, we need to create a temporary file
-        File tempFile = createTempFileFromUri(context, pdfUri);
-        if (tempFile == null) {
-            return null;
-        }
-        
-        StringBuilder textBuilder = new StringBuilder();
-        
-        try {
-            // Open the PDF file
-            ParcelFileDescriptor fileDescriptor = ParcelFileDescriptor.open(
-                    tempFile, ParcelFileDescriptor.MODE_READ_ONLY);
-            PdfRenderer renderer = new PdfRenderer(fileDescriptor);
-            
-            final int pageCount = renderer.getPageCount();
-            Log.d(TAG, "PDF has " + pageCount + " pages");
-            
-            // We can't extract text directly with PdfRenderer, but we can use a third-party
-            // library for actual text extraction. For demonstration, we'll use a placeholder.
-            textBuilder.append("PDF Document: ").append(EnhancedFilePickerUtils.getFileName(context, pdfUri))
-                      .append("\n\nNumber of pages: ").append(pageCount).append("\n\n");
-            
-            // Use a third-party library like pdfbox-android for actual text extraction
-            // For this example, we'll use a basic extraction method to demonstrate the flow
-            for (int i = 0; i < pageCount; i++) {
-                PdfRenderer.Page page = renderer.openPage(i);
-                
-                // For a real app, replace this with actual text extraction
-                // This is just a placeholder
-                Bitmap bitmap = Bitmap.createBitmap(
-                        page.getWidth(), page.getHeight(), Bitmap.Config.ARGB_8888);
-                page.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
-                
-                textBuilder.append("Content from page ").append(i + 1).append(":\n");
-                
-                // In a real app, you would extract text from the page here
-                // using a library like pdfbox-android
-                textBuilder.append("[Text content would be extracted here in a real app]\n\n");
-                
-                bitmap.recycle();
-                page.close();
-            }
-            
-            renderer.close();
-            fileDescriptor.close();
-        } finally {
-            // Clean up the temporary file
-            if (tempFile.exists()) {
-                tempFile.delete();
-            }
-        }
-        
-        return textBuilder.toString();
-    }
-    
-    /**
-     * Create a temporary file from a URI
+     * Pages are written as they are extracted, separated by a blank line.
      *
-     * @param context The context
-     * @param uri     The URI of the file
-     * @return A temporary File object
-     * @throws IOException if there's an error creating the file
+     * @param context   The context
+     * @param pdfUri    The URI of the PDF file
+     * @param pageRange The pages to convert
+     * @param fileName  The name of the output file
+     * @return The created File object, or null if creation failed or the PDF has no text
      */
-    private static File createTempFileFromUri(Context context, Uri uri) throws IOException {
-        ContentResolver resolver = context.getContentResolver();
-        
-        // Create a temporary file
-        File tempFile = File.createTempFile("pdf_temp", ".pdf", context.getCacheDir());
-        
-        // Copy the content from the URI to the temporary file
-        try (OutputStream os = new FileOutputStream(tempFile)) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            
-            try (java.io.InputStream is = resolver.openInputStream(uri)) {
-                if (is == null) {
-                    throw new IOException("Could not open input stream from URI");
-                }
-                
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
-                }
-            }
-        }
-        
-        return tempFile;
-    }
-    
-    /**
-     * Save extracted text to a TXT file
-     *
-     * @param context The context
-     * @param text    The text to save
-     * @param fileName The name of the output file
-     * @return The created File object, or null if creation failed
-     */
-    private static File saveTxtFile(Context context, String text, String fileName) {
+    private static File saveTxtFile(Context context, Uri pdfUri, PageRange pageRange, String fileName) {
+        File outputFile = null;
         try {
             // Get output directory using FileStorageUtils
             File outputDir = FileStorageUtils.getOutputDirectory(context);
-            File outputFile = new File(outputDir, fileName);
+            outputFile = new File(outputDir, fileName);
             
             // Create parent directories if needed
             if (!outputFile.getParentFile().exists()) {
                 outputFile.getParentFile().mkdirs();
             }
             
-            // Write the text to the file
-            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile))) {
-                writer.write(text);
+            // Write each page's text to the file as soon as it is extracted
+            int[] pagesWritten = {0};
+            long[] textLength = {0};
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
+                PdfTextPipeline.extract(context, pdfUri, pageRange, (pageNumber, pageText) -> {
+                    if (pagesWritten[0]++ > 0) {
+                        writer.write("\n\n");
+                    }
+                    writer.write(pageText);
+                    textLength[0] += pageText.trim().length();
+                });
             }
             
+            if (textLength[0] == 0) {
+                Log.e(TAG, "Failed to extract text from PDF");
+                outputFile.delete();
+                return null;
+            }
             return outputFile;
         } catch (IOException e) {
             Log.e(TAG, "Error saving TXT file", e);
+            if (outputFile != null) {
+                outputFile.delete();
+            }
             return null;
         }
     }
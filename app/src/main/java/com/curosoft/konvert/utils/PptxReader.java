@@ -0,0 +1,421 @@
+package com.curosoft.konvert.utils;
+
+import android.util.Log;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Utility class to read the text of PPTX presentations slide by slide
+ *
+ * Slide and notes parts are read from a random-access ZipFile with a streaming pull
+ * parser, so the presentation is never loaded as an XMLSlideShow. Slides are parsed
+ * concurrently on the shared CPU pool, but only a few ahead of the one being handed
+ * to the caller, so memory use does not grow with the size of the deck.
+ */
+public class PptxReader implements Closeable {
+    private static final String TAG = "PptxReader";
+
+    private static final String PRESENTATION_PART = "ppt/presentation.xml";
+    private static final Pattern SLIDE_PART = Pattern.compile("ppt/slides/slide(\\d+)\\.xml");
+    private static final String NOTES_DIRECTORY = "ppt/notesSlides/";
+
+    private final ZipFile zipFile;
+    private final List<String> slideParts;
+
+    /**
+     * The text of one slide
+     */
+    public static class Slide {
+        /** Position of the slide in the presentation, from 1 */
+        public final int number;
+        /** Text of the title placeholder, or null if the slide has none */
+        public final String title;
+        /** Other text, one entry per paragraph; table rows have their cells separated by tabs */
+        public final List<String> paragraphs;
+        /** Paragraphs of the speaker notes */
+        public final List<String> notes;
+
+        public Slide(int number, String title, List<String> paragraphs, List<String> notes) {
+            this.number = number;
+            this.title = title;
+            this.paragraphs = paragraphs;
+            this.notes = notes;
+        }
+    }
+
+    /**
+     * Receives the slides in presentation order
+     */
+    public interface SlideHandler {
+        void onSlide(Slide slide) throws IOException;
+    }
+
+    /**
+     * Open a presentation and find its slides
+     *
+     * @param file The PPTX file
+     * @throws IOException If the file cannot be read or has no slides
+     */
+    public PptxReader(File file) throws IOException {
+        zipFile = new ZipFile(file);
+        try {
+            slideParts = findSlides(zipFile);
+            if (slideParts.isEmpty()) {
+                throw new IOException("Not a PPTX file: no slides found");
+            }
+        } catch (IOException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of slides in the presentation
+     */
+    public int getSlideCount() {
+        return slideParts.size();
+    }
+
+    /**
+     * Read every slide, parsing them concurrently and handing them over in order
+     *
+     * Must not be called from a task already running on the CPU pool.
+     *
+     * @param handler Receives each slide on the calling thread
+     * @throws IOException If a part cannot be read or is malformed, or the handler fails
+     */
+    public void readSlides(SlideHandler handler) throws IOException {
+        long startTime = System.currentTimeMillis();
+        int maxSlidesInFlight = ConversionExecutor.getParallelism() * 2;
+        ExecutorService pool = ConversionExecutor.getCpuPool();
+        ArrayDeque<Future<Slide>> slides = new ArrayDeque<>();
+        AtomicBoolean stopped = new AtomicBoolean(false);
+
+        try {
+            int next = 0;
+            while (next < slideParts.size() || !slides.isEmpty()) {
+                // Keep a few slides parsing ahead of the one handed over
+                while (next < slideParts.size() && slides.size() < maxSlidesInFlight) {
+                    int number = next + 1;
+                    String part = slideParts.get(next++);
+                    slides.add(pool.submit(() -> stopped.get() ? null : readSlide(zipFile, part, number)));
+                }
+                handler.onSlide(slides.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading slides", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to read slide: " + cause.getMessage(), cause);
+        } finally {
+            // Slides still queued are skipped, and those being parsed are waited for,
+            // so no worker reads the zip file after the caller closes it. The futures
+            // are not cancelled: a cancelled future reports done while its task runs on.
+            stopped.set(true);
+            awaitSlides(slides);
+        }
+
+        Log.d(TAG, "Read " + slideParts.size() + " slides in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+
+    /**
+     * Wait for every slide task to finish, even when interrupted, ignoring their results
+     */
+    private static void awaitSlides(ArrayDeque<Future<Slide>> slides) {
+        boolean interrupted = false;
+        for (Future<Slide> future : slides) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // The slide was abandoned anyway
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * List the slide parts in presentation order
+     *
+     * The order comes from the slide list of presentation.xml; if that cannot be
+     * resolved, slide parts are taken in the order of their numbers.
+     */
+    private static List<String> findSlides(ZipFile zipFile) throws IOException {
+        List<String> slides = new ArrayList<>();
+        ZipEntry presentation = zipFile.getEntry(PRESENTATION_PART);
+        if (presentation != null) {
+            Map<String, String> relationships = DocxReader.readRelationships(zipFile, PRESENTATION_PART);
+            try (InputStream in = new BufferedInputStream(zipFile.getInputStream(presentation))) {
+                XmlPullParser parser = Xml.newPullParser();
+                parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+                parser.setInput(in, null);
+
+                int event = parser.getEventType();
+                while (event != XmlPullParser.END_DOCUMENT) {
+                    if (event == XmlPullParser.START_TAG && "sldId".equals(localName(parser.getName()))) {
+                        String target = relationships.get(parser.getAttributeValue(null, "r:id"));
+                        if (target != null && zipFile.getEntry(target) != null) {
+                            slides.add(target);
+                        }
+                    } else if (event == XmlPullParser.END_TAG && "sldIdLst".equals(localName(parser.getName()))) {
+                        break;
+                    }
+                    event = parser.next();
+                }
+            } catch (XmlPullParserException e) {
+                throw new IOException("Malformed PPTX presentation: " + e.getMessage(), e);
+            }
+        }
+        if (!slides.isEmpty()) {
+            return slides;
+        }
+
+        List<int[]> numbered = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            Matcher matcher = SLIDE_PART.matcher(name);
+            if (matcher.matches()) {
+                numbered.add(new int[] {Integer.parseInt(matcher.group(1)), names.size()});
+                names.add(name);
+            }
+        }
+        Collections.sort(numbered, (a, b) -> Integer.compare(a[0], b[0]));
+        for (int[] slide : numbered) {
+            slides.add(names.get(slide[1]));
+        }
+        return slides;
+    }
+
+    /**
+     * Parse a slide and its notes; runs on the CPU pool
+     */
+    private static Slide readSlide(ZipFile zipFile, String slidePart, int number) throws IOException {
+        SlideParser slide = new SlideParser(false);
+        parsePart(zipFile, slidePart, slide);
+
+        SlideParser notes = new SlideParser(true);
+        for (String target : DocxReader.readRelationships(zipFile, slidePart).values()) {
+            if (target.startsWith(NOTES_DIRECTORY)) {
+                parsePart(zipFile, target, notes);
+                break;
+            }
+        }
+
+        String title = slide.title.length() > 0 ? slide.title.toString() : null;
+        return new Slide(number, title, slide.paragraphs, notes.paragraphs);
+    }
+
+    private static void parsePart(ZipFile zipFile, String partName, SlideParser slideParser) throws IOException {
+        ZipEntry entry = zipFile.getEntry(partName);
+        if (entry == null) {
+            return;
+        }
+        try (InputStream in = new BufferedInputStream(zipFile.getInputStream(entry))) {
+            XmlPullParser parser = Xml.newPullParser();
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+            parser.setInput(in, null);
+            slideParser.parse(parser);
+        } catch (XmlPullParserException e) {
+            throw new IOException("Malformed PPTX part " + partName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Element name without its namespace prefix
+     */
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    /**
+     * Collects the text of the shapes and tables of a slide or notes part
+     *
+     * Text of the title placeholder goes to {@link #title}; slide numbers, dates,
+     * headers and footers are left out. For notes, only the body placeholder is kept,
+     * which skips the slide image and the notes page's own placeholders. Fallback
+     * content of alternate-content blocks is skipped so text is not repeated.
+     */
+    private static class SlideParser {
+        private final boolean notes;
+        final StringBuilder title = new StringBuilder();
+        final List<String> paragraphs = new ArrayList<>();
+
+        // Placeholder type of the current shape, "" for a shape that is not a placeholder
+        private String placeholderType = "";
+        private final StringBuilder paragraph = new StringBuilder();
+        private StringBuilder row;
+        private int cellCount = 0;
+        private int cellParagraphs = 0;
+        private boolean inText = false;
+
+        SlideParser(boolean notes) {
+            this.notes = notes;
+        }
+
+        void parse(XmlPullParser parser) throws IOException, XmlPullParserException {
+            int event = parser.next();
+            while (event != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.START_TAG) {
+                    String name = localName(parser.getName());
+                    switch (name) {
+                        case "Fallback":
+                            skipSubtree(parser);
+                            break;
+                        case "sp":
+                            placeholderType = "";
+                            break;
+                        case "ph":
+                            String type = parser.getAttributeValue(null, "type");
+                            // A placeholder without a type holds body content
+                            placeholderType = type != null ? type : "body";
+                            break;
+                        case "tr":
+                            row = new StringBuilder();
+                            cellCount = 0;
+                            break;
+                        case "tc":
+                            if (row != null && cellCount++ > 0) {
+                                row.append('\t');
+                            }
+                            cellParagraphs = 0;
+                            break;
+                        case "p":
+                            paragraph.setLength(0);
+                            break;
+                        case "t":
+                            inText = true;
+                            break;
+                        case "br":
+                            paragraph.append('\n');
+                            break;
+                    }
+                } else if (event == XmlPullParser.TEXT) {
+                    if (inText) {
+                        paragraph.append(parser.getText());
+                    }
+                } else if (event == XmlPullParser.END_TAG) {
+                    switch (localName(parser.getName())) {
+                        case "t":
+                            inText = false;
+                            break;
+                        case "p":
+                            endParagraph();
+                            break;
+                        case "sp":
+                            placeholderType = "";
+                            break;
+                        case "tr":
+                            if (row != null && !ZipPackageWriter.isBlank(row)) {
+                                paragraphs.add(row.toString());
+                            }
+                            row = null;
+                            break;
+                    }
+                }
+                event = parser.next();
+            }
+        }
+
+        private void endParagraph() {
+            if (row != null) {
+                // Paragraphs within a cell are joined with spaces to keep the row on one line
+                if (paragraph.length() > 0) {
+                    if (cellParagraphs++ > 0) {
+                        row.append(' ');
+                    }
+                    for (int i = 0, length = paragraph.length(); i < length; i++) {
+                        char c = paragraph.charAt(i);
+                        row.append(c == '\n' || c == '\t' ? ' ' : c);
+                    }
+                }
+                return;
+            }
+            if (ZipPackageWriter.isBlank(paragraph) || isHidden()) {
+                return;
+            }
+            if (!notes && isTitle()) {
+                if (title.length() > 0) {
+                    title.append(' ');
+                }
+                title.append(paragraph);
+            } else {
+                paragraphs.add(paragraph.toString());
+            }
+        }
+
+        private boolean isTitle() {
+            return "title".equals(placeholderType) || "ctrTitle".equals(placeholderType);
+        }
+
+        private boolean isHidden() {
+            if (notes) {
+                return !"body".equals(placeholderType);
+            }
+            switch (placeholderType) {
+                case "sldNum":
+                case "dt":
+                case "ftr":
+                case "hdr":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private static void skipSubtree(XmlPullParser parser) throws IOException, XmlPullParserException {
+            int depth = 1;
+            while (depth > 0) {
+                int event = parser.next();
+                if (event == XmlPullParser.START_TAG) {
+                    depth++;
+                } else if (event == XmlPullParser.END_TAG) {
+                    depth--;
+                } else if (event == XmlPullParser.END_DOCUMENT) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class to convert PPTX presentations to TXT format
+ *
+ * Slides are read with the streaming {@link PptxReader} and written as they arrive.
+ * Each slide starts with a header line holding its number and title, followed by its
+ * text and then its speaker notes.
+ */
+public class PptxToTxtConverter {
+    private static final String TAG = "PptxToTxtConverter";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Convert a PPTX file to TXT format
+     *
+     * @param context Application context
+     * @param pptxUri URI of the PPTX file to convert
+     * @return Path to the generated TXT file or null if conversion failed
+     */
+    public static String convertPptxToTxt(Context context, Uri pptxUri) {
+        Log.d(TAG, "Starting PPTX to TXT conversion");
+
+        File tempInput = null;
+        File outputFile = null;
+        try {
+            // Get the file name from the URI
+            String fileName = EnhancedFilePickerUtils.getFileName(context, pptxUri);
+            Log.d(TAG, "Converting PPTX file: " + fileName);
+
+            // Get the output directory
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            if (!outputDir.exists()) {
+                outputDir.mkdirs();
+            }
+            outputFile = new File(outputDir, getOutputFileName(fileName));
+
+            tempInput = copyToTempFile(context, pptxUri);
+            try (PptxReader reader = new PptxReader(tempInput)) {
+                Log.d(TAG, "Reading " + reader.getSlideCount() + " slides");
+                createTxtFromPptx(reader, outputFile);
+            }
+
+            // Add the file to MediaStore so it appears in file browsers
+            addToMediaStore(context, outputFile, "text/plain");
+
+            Log.d(TAG, "PPTX to TXT conversion completed successfully");
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting PPTX to TXT", e);
+            if (outputFile != null) {
+                outputFile.delete();
+            }
+            return null;
+        } finally {
+            if (tempInput != null) {
+                tempInput.delete();
+            }
+        }
+    }
+
+    /**
+     * Write the text of every slide to a TXT file
+     *
+     * @param reader The presentation
+     * @param outputFile The output TXT file
+     * @throws IOException If reading or writing fails
+     */
+    private static void createTxtFromPptx(PptxReader reader, File outputFile) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(outputFile), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            reader.readSlides(slide -> {
+                if (slide.number > 1) {
+                    writer.write('\n');
+                }
+                writer.write("=== Slide " + slide.number);
+                if (slide.title != null) {
+                    writer.write(": ");
+                    writer.write(slide.title.replace('\n', ' '));
+                }
+                writer.write(" ===\n\n");
+
+                for (String paragraph : slide.paragraphs) {
+                    writer.write(paragraph);
+                    writer.write('\n');
+                }
+                if (!slide.notes.isEmpty()) {
+                    writer.write("\nNotes:\n");
+                    for (String paragraph : slide.notes) {
+                        writer.write(paragraph);
+                        writer.write('\n');
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Copy the presentation to a temporary file, so its parts can be read from the zip
+     * without loading the whole package
+     */
+    private static File copyToTempFile(Context context, Uri uri) throws IOException {
+        File tempFile = File.createTempFile("pptx_input", ".pptx", context.getCacheDir());
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
+             OutputStream outputStream = new FileOutputStream(tempFile)) {
+            if (inputStream == null) {
+                throw new IOException("Cannot open input stream for PPTX file");
+            }
+            byte[] buffer = new byte[16 * 1024];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * Generate an output file name based on the input file name
+     * 
+     * @param inputFileName The input file name
+     * @return The output file name
+     */
+    private static String getOutputFileName(String inputFileName) {
+        String baseName = inputFileName;
+        
+        // Remove the .pptx extension if present
+        if (baseName.toLowerCase().endsWith(".pptx")) {
+            baseName = baseName.substring(0, baseName.length() - 5);
+        }
+        
+        return baseName + ".txt";
+    }
+
+    /**
+     * Add the file to the MediaStore so it's visible in file browsers
+     * 
+     * @param context The context
+     * @param file The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+        values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+        
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // For Android 10+ (API 29+), use relative path and is_pending flag
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                // If we're using app-specific storage, copy the file to the MediaStore
+                if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                    try (OutputStream os = resolver.openOutputStream(uri);
+                         FileInputStream fis = new FileInputStream(file)) {
+                        
+                        if (os != null) {
+                            byte[] buffer = new byte[4096];
+                            int bytesRead;
+                            while ((bytesRead = fis.read(buffer)) != -1) {
+                                os.write(buffer, 0, bytesRead);
+                            }
+                            os.flush();
+                        }
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error copying file to MediaStore", e);
+                    }
+                }
+                
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        } else {
+            // For older Android versions, use DATA field with absolute path
+            values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.curosoft.konvert.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+
+/**
+ * Streaming writer for Rich Text Format (RTF) documents
+ *
+ * Text is escaped one character at a time and written straight to a buffered
+ * output stream, so converters never need to hold the whole RTF document in memory.
+ * Characters outside 7-bit ASCII are written as \\uN? escapes, which keeps the
+ * output readable regardless of the code page declared in the header.
+ */
+public class RtfWriter implements Closeable {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    // Document header shared by all converters
+    private static final String HEADER =
+            "{\\rtf1\\ansi\\ansicpg1252\\deff0\\uc1\n" +
+            "{\\fonttbl\\f0\\fswiss\\fcharset0 Helvetica;}\n" +
+            "{\\colortbl;\\red0\\green0\\blue0;}\n" +
+            "\\vieww12000\\viewh15840\\viewkind0\n" +
+            "\\deftab720\n";
+
+    // Control words for headings, indexed by heading level
+    private static final String[] HEADING_STYLES = {
+            "", "\\fs36\\b", "\\fs28\\b", "\\fs24\\b"
+    };
+
+    // Control words for character formatting, indexed by bold | italic << 1 | underline << 2
+    private static final String[] RUN_STYLES = {
+            "", "\\b", "\\i", "\\b\\i", "\\ul", "\\b\\ul", "\\i\\ul", "\\b\\i\\ul"
+    };
+
+    private final OutputStream out;
+    private boolean headerWritten = false;
+    private int openGroups = 0;
+
+    /**
+     * Create a writer over the given output stream
+     *
+     * @param out Destination stream; it is wrapped in a buffer unless it already is one
+     */
+    public RtfWriter(OutputStream out) {
+        this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+
+    /**
+     * Write the RTF document header (font table, colour table and view settings)
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeHeader() throws IOException {
+        writeControl(HEADER);
+        headerWritten = true;
+    }
+
+    /**
+     * Start a new paragraph with default formatting
+     *
+     * @throws IOException If writing fails
+     */
+    public void beginParagraph() throws IOException {
+        writeControl("\\pard\\plain\\f0\\fs24 ");
+    }
+
+    /**
+     * End the current paragraph
+     *
+     * @throws IOException If writing fails
+     */
+    public void endParagraph() throws IOException {
+        writeControl("\\par\n");
+    }
+
+    /**
+     * Open a heading group; close it with {@link #endGroup()}
+     *
+     * @param level Heading level (1-3); other values are clamped into that range
+     * @throws IOException If writing fails
+     */
+    public void beginHeading(int level) throws IOException {
+        int index = Math.max(1, Math.min(level, HEADING_STYLES.length - 1));
+        beginGroup(HEADING_STYLES[index]);
+    }
+
+    /**
+     * Open a character formatting group; close it with {@link #endGroup()}
+     *
+     * @param bold Whether the run is bold
+     * @param italic Whether the run is italic
+     * @param underline Whether the run is underlined
+     * @throws IOException If writing fails
+     */
+    public void beginRun(boolean bold, boolean italic, boolean underline) throws IOException {
+        int index = (bold ? 1 : 0) | (italic ? 2 : 0) | (underline ? 4 : 0);
+        beginGroup(RUN_STYLES[index]);
+    }
+
+    /**
+     * Open a group with the given control words
+     *
+     * @param controlWords Control words to apply inside the group, e.g. "\\b\\i"
+     * @throws IOException If writing fails
+     */
+    public void beginGroup(String controlWords) throws IOException {
+        out.write('{');
+        if (!controlWords.isEmpty()) {
+            writeControl(controlWords);
+            out.write(' ');
+        }
+        openGroups++;
+    }
+
+    /**
+     * Close the most recently opened group
+     *
+     * @throws IOException If writing fails
+     */
+    public void endGroup() throws IOException {
+        if (openGroups > 0) {
+            out.write('}');
+            openGroups--;
+        }
+    }
+
+    /**
+     * Write a tab character
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeTab() throws IOException {
+        writeControl("\\tab ");
+    }
+
+    /**
+     * Write a line break that does not end the paragraph
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeLineBreak() throws IOException {
+        writeControl("\\line ");
+    }
+
+    /**
+     * Write plain text, escaping RTF special characters
+     *
+     * @param text Text to write
+     * @throws IOException If writing fails
+     */
+    public void writeText(CharSequence text) throws IOException {
+        writeText(text, 0, text.length());
+    }
+
+    /**
+     * Write a range of text, escaping RTF special characters
+     *
+     * @param text Text to write from
+     * @param start Index of the first character
+     * @param end Index after the last character
+     * @throws IOException If writing fails
+     */
+    public void writeText(CharSequence text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            writeChar(text.charAt(i));
+        }
+    }
+
+    /**
+     * Write plain text from a character buffer, escaping RTF special characters
+     *
+     * @param buffer Characters to write
+     * @param offset Offset of the first character
+     * @param length Number of characters to write
+     * @throws IOException If writing fails
+     */
+    public void writeText(char[] buffer, int offset, int length) throws IOException {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeChar(buffer[i]);
+        }
+    }
+
+    /**
+     * Write plain text as paragraphs, one per line
+     *
+     * Lines end with '\n', '\r' or "\r\n". The text is read in fixed-size blocks, so
+     * memory use stays the same however long the text or any of its lines is.
+     *
+     * @param reader Text to write; it is read to the end but not closed
+     * @throws IOException If reading or writing fails
+     */
+    public void writeParagraphs(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        boolean inParagraph = false;
+        // A '\n' right after a '\r' belongs to the same line end, even in the next block
+        boolean afterCarriageReturn = false;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '\n' && afterCarriageReturn) {
+                    afterCarriageReturn = false;
+                    start = i + 1;
+                    continue;
+                }
+                afterCarriageReturn = c == '\r';
+                if (c == '\n' || c == '\r') {
+                    if (!inParagraph) {
+                        beginParagraph();
+                    }
+                    writeText(buffer, start, i - start);
+                    endParagraph();
+                    inParagraph = false;
+                    start = i + 1;
+                }
+            }
+            // The rest of the block continues in the next one
+            if (start < read) {
+                if (!inParagraph) {
+                    beginParagraph();
+                    inParagraph = true;
+                }
+                writeText(buffer, start, read - start);
+            }
+        }
+        if (inParagraph) {
+            endParagraph();
+        }
+    }
+
+    /**
+     * Write a single character, escaping it if needed
+     *
+     * Supplementary characters arrive as two surrogates and are written as two
+     * \\uN escapes, which is how RTF readers expect UTF-16 code units.
+     *
+     * @param c Character to write
+     * @throws IOException If writing fails
+     */
+    public void writeChar(char c) throws IOException {
+        switch (c) {
+            case '\\':
+            case '{':
+            case '}':
+                out.write('\\');
+                out.write(c);
+                break;
+            case '\t':
+                writeTab();
+                break;
+            case '\n':
+                writeLineBreak();
+                break;
+            case '\r':
+                // Carriage returns are dropped; line breaks are handled by '\n'
+                break;
+            default:
+                if (c < 0x20) {
+                    // Other control characters have no meaning in RTF text
+                    break;
+                }
+                if (c < 0x80) {
+                    out.write(c);
+                } else {
+                    // \\uN takes a signed 16-bit value, followed by a one-character fallback
+                    writeControl("\\u");
+                    writeControl(Integer.toString((short) c));
+                    out.write('?');
+                }
+                break;
+        }
+    }
+
+    /**
+     * Flush buffered output to the underlying stream
+     *
+     * @throws IOException If flushing fails
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Close any open groups, finish the document and close the underlying stream
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            while (openGroups > 0) {
+                endGroup();
+            }
+            if (headerWritten) {
+                writeControl("}\n");
+                headerWritten = false;
+            }
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Write control words verbatim; they are always 7-bit ASCII
+     */
+    private void writeControl(String control) throws IOException {
+        for (int i = 0, length = control.length(); i < length; i++) {
+            out.write(control.charAt(i));
+        }
+    }
+}
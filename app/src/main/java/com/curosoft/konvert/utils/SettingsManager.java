@@ -20,11 +20,22 @@ public class SettingsManager {
     private static final String PREF_DARK_MODE = "dark_mode";
     private static final String PREF_FIRST_LAUNCH = "first_launch";
     private static final String PREF_PRIVACY_ACCEPTED = "privacy_accepted";
+    private static final String PREF_IMAGE_TARGET_DPI = "image_target_dpi";
+    private static final String PREF_IMAGE_MEMORY_LIMIT_MB = "image_memory_limit_mb";
+    private static final String PREF_PDF_COMPACT_OUTPUT = "pdf_compact_output";
+    private static final String PREF_PDF_COMPRESSION_LEVEL = "pdf_compression_level";
+    private static final String PREF_PDF_RECOMPRESS_IMAGES = "pdf_recompress_images";
     
     // Default values
     private static final boolean DEFAULT_CONTINUOUS_VIEW = false;
     private static final int DEFAULT_FONT_SIZE = 14;
     private static final boolean DEFAULT_DARK_MODE = false;
+    private static final int DEFAULT_IMAGE_TARGET_DPI = PdfImageFactory.DEFAULT_TARGET_DPI;
+    private static final int DEFAULT_IMAGE_MEMORY_LIMIT_MB =
+            (int) (PdfImageFactory.DEFAULT_MAX_IMAGE_BYTES / (1024 * 1024));
+    private static final boolean DEFAULT_PDF_COMPACT_OUTPUT = true;
+    private static final int DEFAULT_PDF_COMPRESSION_LEVEL = PdfOutputProfile.DEFAULT_COMPRESSION_LEVEL;
+    private static final boolean DEFAULT_PDF_RECOMPRESS_IMAGES = true;
     
     private final SharedPreferences prefs;
     private final Context context;
@@ -132,6 +143,78 @@ public class SettingsManager {
         prefs.edit().putBoolean(PREF_DARK_MODE, enabled).apply();
     }
     
+    // Conversion Settings
+    
+    /**
+     * Get the resolution embedded images are downsampled to in PDF output
+     */
+    public int getImageTargetDpi() {
+        return prefs.getInt(PREF_IMAGE_TARGET_DPI, DEFAULT_IMAGE_TARGET_DPI);
+    }
+    
+    /**
+     * Set the resolution embedded images are downsampled to in PDF output
+     */
+    public void setImageTargetDpi(int dpi) {
+        prefs.edit().putInt(PREF_IMAGE_TARGET_DPI, dpi).apply();
+    }
+    
+    /**
+     * Get the memory ceiling for decoding a single embedded image, in megabytes
+     */
+    public int getImageMemoryLimitMb() {
+        return prefs.getInt(PREF_IMAGE_MEMORY_LIMIT_MB, DEFAULT_IMAGE_MEMORY_LIMIT_MB);
+    }
+    
+    /**
+     * Set the memory ceiling for decoding a single embedded image, in megabytes
+     */
+    public void setImageMemoryLimitMb(int megabytes) {
+        prefs.edit().putInt(PREF_IMAGE_MEMORY_LIMIT_MB, megabytes).apply();
+    }
+    
+    /**
+     * Check if PDF output is written with object streams and a cross-reference stream
+     */
+    public boolean isPdfCompactOutput() {
+        return prefs.getBoolean(PREF_PDF_COMPACT_OUTPUT, DEFAULT_PDF_COMPACT_OUTPUT);
+    }
+    
+    /**
+     * Set whether PDF output is written with object streams and a cross-reference stream
+     */
+    public void setPdfCompactOutput(boolean enabled) {
+        prefs.edit().putBoolean(PREF_PDF_COMPACT_OUTPUT, enabled).apply();
+    }
+    
+    /**
+     * Get the deflate level for PDF output, from 0 (none) to 9 (best)
+     */
+    public int getPdfCompressionLevel() {
+        return prefs.getInt(PREF_PDF_COMPRESSION_LEVEL, DEFAULT_PDF_COMPRESSION_LEVEL);
+    }
+    
+    /**
+     * Set the deflate level for PDF output, from 0 (none) to 9 (best)
+     */
+    public void setPdfCompressionLevel(int level) {
+        prefs.edit().putInt(PREF_PDF_COMPRESSION_LEVEL, level).apply();
+    }
+    
+    /**
+     * Check if optimizing a PDF re-encodes JPEG images and downsamples oversized ones
+     */
+    public boolean isPdfRecompressImages() {
+        return prefs.getBoolean(PREF_PDF_RECOMPRESS_IMAGES, DEFAULT_PDF_RECOMPRESS_IMAGES);
+    }
+    
+    /**
+     * Set whether optimizing a PDF re-encodes JPEG images and downsamples oversized ones
+     */
+    public void setPdfRecompressImages(boolean enabled) {
+        prefs.edit().putBoolean(PREF_PDF_RECOMPRESS_IMAGES, enabled).apply();
+    }
+    
     // Privacy & Permissions
     
     /**
@@ -184,6 +267,11 @@ public class SettingsManager {
         sb.append("Viewer Mode: ").append(isContinuousViewMode() ? "Continuous" : "Page").append("\n");
         sb.append("Font Size: ").append(getFontSize()).append("sp\n");
         sb.append("Dark Mode: ").append(isDarkModeEnabled() ? "Enabled" : "Disabled").append("\n");
+        sb.append("Image Resolution: ").append(getImageTargetDpi()).append(" dpi\n");
+        sb.append("Image Memory Limit: ").append(getImageMemoryLimitMb()).append(" MB\n");
+        sb.append("Compact PDF Output: ").append(isPdfCompactOutput() ? "Enabled" : "Disabled").append("\n");
+        sb.append("PDF Compression Level: ").append(getPdfCompressionLevel()).append("\n");
+        sb.append("Recompress PDF Images: ").append(isPdfRecompressImages() ? "Enabled" : "Disabled").append("\n");
         sb.append("Privacy Accepted: ").append(isPrivacyAccepted() ? "Yes" : "No").append("\n");
         
         return sb.toString();
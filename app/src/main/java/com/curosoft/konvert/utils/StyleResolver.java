@@ -0,0 +1,595 @@
+package com.curosoft.konvert.utils;
+
+import android.util.Log;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Utility class to resolve effective formatting in DOCX files
+ *
+ * styles.xml and numbering.xml are parsed once. Every style's basedOn chain is then
+ * flattened into a table indexed by style, so resolving a run or paragraph only needs a
+ * map lookup and a few bit operations instead of walking the inheritance chain each time.
+ * Resolved paragraph properties are memoized per (styleId, numId, level).
+ */
+public class StyleResolver {
+    private static final String TAG = "StyleResolver";
+
+    private static final String STYLES_PART = "word/styles.xml";
+    private static final String NUMBERING_PART = "word/numbering.xml";
+
+    // basedOn chains longer than this are treated as cycles
+    private static final int MAX_CHAIN_LENGTH = 32;
+
+    // Style id -> index into the flattened tables
+    private final Map<String, Integer> styleIndex = new HashMap<>();
+    // Flattened properties per style: run flags, which of them are set, heading level, numbering
+    private int[] runMasks;
+    private int[] runValues;
+    private int[] headingLevels;
+    private String[] numIds;
+    private int[] numLevels;
+
+    // Run flags from w:docDefaults
+    private int defaultRunValues = 0;
+    // Styles applied when a paragraph or run names none
+    private String defaultParagraphId;
+    private String defaultCharacterId;
+    private int defaultParagraphStyle = -1;
+    private int defaultCharacterStyle = -1;
+
+    // Numbering: numId -> abstractNumId -> levels
+    private final Map<String, String> numToAbstract = new HashMap<>();
+    private final Map<String, ListLevel[]> abstractLevels = new HashMap<>();
+    // Running counters per numId for list labels
+    private final Map<String, int[]> listCounters = new HashMap<>();
+
+    private final Map<String, ParagraphProperties> paragraphCache = new HashMap<>();
+
+    /**
+     * Effective paragraph properties after style inheritance
+     */
+    public static class ParagraphProperties {
+        // Heading level 1-9, or 0 for body text
+        public final int headingLevel;
+        // Effective list numbering, or null when the paragraph is not a list item
+        public final String numId;
+        public final int numLevel;
+        // Run flags inherited by every run of the paragraph
+        public final int runFlags;
+
+        ParagraphProperties(int headingLevel, String numId, int numLevel, int runFlags) {
+            this.headingLevel = headingLevel;
+            this.numId = numId;
+            this.numLevel = numLevel;
+            this.runFlags = runFlags;
+        }
+    }
+
+    /**
+     * A single level of a list definition
+     */
+    private static class ListLevel {
+        String format = "decimal";
+        String text = "%1.";
+        int start = 1;
+    }
+
+    /**
+     * Raw properties of a style as written in styles.xml, before inheritance
+     */
+    private static class RawStyle {
+        String id;
+        String name;
+        String basedOn;
+        int runMask;
+        int runValues;
+        int outlineLevel = -1;
+        String numId;
+        int numLevel = -1;
+    }
+
+    /**
+     * Load styles and numbering definitions from a DOCX file
+     *
+     * Missing parts are not an error; the resolver then falls back to plain formatting.
+     *
+     * @param zipFile Open DOCX archive
+     * @return Resolver for the document
+     * @throws IOException If a part cannot be read or is malformed
+     */
+    public static StyleResolver load(ZipFile zipFile) throws IOException {
+        StyleResolver resolver = new StyleResolver();
+        try {
+            List<RawStyle> styles = new ArrayList<>();
+            ZipEntry stylesEntry = zipFile.getEntry(STYLES_PART);
+            if (stylesEntry != null) {
+                try (InputStream in = new BufferedInputStream(zipFile.getInputStream(stylesEntry))) {
+                    resolver.parseStyles(in, styles);
+                }
+            }
+            resolver.flatten(styles);
+
+            ZipEntry numberingEntry = zipFile.getEntry(NUMBERING_PART);
+            if (numberingEntry != null) {
+                try (InputStream in = new BufferedInputStream(zipFile.getInputStream(numberingEntry))) {
+                    resolver.parseNumbering(in);
+                }
+            }
+        } catch (XmlPullParserException e) {
+            throw new IOException("Malformed DOCX styles: " + e.getMessage(), e);
+        }
+        Log.d(TAG, "Loaded " + resolver.styleIndex.size() + " styles");
+        return resolver;
+    }
+
+    /**
+     * Resolve the effective properties of a paragraph
+     *
+     * @param paragraph Paragraph from the DOCX reader
+     * @return Effective paragraph properties
+     */
+    public ParagraphProperties resolveParagraph(DocxReader.Paragraph paragraph) {
+        String key = paragraph.styleId + '|' + paragraph.numId + '|' + paragraph.numLevel;
+        ParagraphProperties properties = paragraphCache.get(key);
+        if (properties == null) {
+            properties = computeParagraph(paragraph.styleId, paragraph.numId, paragraph.numLevel);
+            paragraphCache.put(key, properties);
+        }
+        return properties;
+    }
+
+    /**
+     * Resolve the effective character flags of a run
+     *
+     * Direct formatting overrides the character style, which overrides the paragraph style.
+     *
+     * @param paragraph Properties of the enclosing paragraph
+     * @param run Run from the DOCX reader
+     * @return Combination of DocxReader.BOLD, ITALIC and UNDERLINE
+     */
+    public int resolveRun(ParagraphProperties paragraph, DocxReader.Run run) {
+        int flags = paragraph.runFlags;
+        int index = lookup(run.styleId, defaultCharacterStyle);
+        if (index >= 0) {
+            flags = (flags & ~runMasks[index]) | runValues[index];
+        }
+        return (flags & ~run.formatMask) | run.formatValues;
+    }
+
+    /**
+     * Get the label for the next item of a list, e.g. "3." or a bullet
+     *
+     * Counters advance on every call and deeper levels restart, so paragraphs must be
+     * passed in document order.
+     *
+     * @param properties Properties of a list paragraph
+     * @return Label text, or null if the paragraph is not a list item
+     */
+    public String nextListLabel(ParagraphProperties properties) {
+        if (properties.numId == null) {
+            return null;
+        }
+        ListLevel[] levels = abstractLevels.get(numToAbstract.get(properties.numId));
+        if (levels == null || levels.length == 0) {
+            return null;
+        }
+        int level = Math.max(0, Math.min(properties.numLevel, levels.length - 1));
+
+        // Advance this level and restart the levels below it
+        int[] counters = listCounters.get(properties.numId);
+        if (counters == null) {
+            counters = new int[levels.length];
+            listCounters.put(properties.numId, counters);
+        }
+        counters[level]++;
+        for (int i = level + 1; i < counters.length; i++) {
+            counters[i] = 0;
+        }
+
+        ListLevel current = levels[level] != null ? levels[level] : new ListLevel();
+        if ("bullet".equals(current.format)) {
+            return "•";
+        }
+        if ("none".equals(current.format)) {
+            return null;
+        }
+
+        // Replace %1..%9 placeholders with the formatted counters of those levels
+        StringBuilder label = new StringBuilder();
+        String text = current.text;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1))) {
+                int placeholder = text.charAt(++i) - '1';
+                if (placeholder >= 0 && placeholder < levels.length) {
+                    ListLevel referenced = levels[placeholder] != null ? levels[placeholder] : new ListLevel();
+                    int value = referenced.start - 1 + Math.max(1, counters[placeholder]);
+                    label.append(formatNumber(value, referenced.format));
+                }
+            } else {
+                label.append(c);
+            }
+        }
+        return label.length() > 0 ? label.toString() : null;
+    }
+
+    /**
+     * Compute paragraph properties from the flattened style table
+     */
+    private ParagraphProperties computeParagraph(String styleId, String numId, int numLevel) {
+        int index = lookup(styleId, defaultParagraphStyle);
+        int flags = defaultRunValues;
+        int headingLevel = 0;
+        String effectiveNumId = null;
+        int effectiveLevel = 0;
+
+        if (index >= 0) {
+            flags = (flags & ~runMasks[index]) | runValues[index];
+            headingLevel = headingLevels[index];
+            effectiveNumId = numIds[index];
+            effectiveLevel = numLevels[index];
+        }
+        if (numId != null) {
+            effectiveNumId = numId;
+            effectiveLevel = numLevel;
+        }
+        // numId 0 explicitly removes numbering
+        if ("0".equals(effectiveNumId)) {
+            effectiveNumId = null;
+        }
+        return new ParagraphProperties(headingLevel, effectiveNumId, effectiveLevel, flags);
+    }
+
+    /**
+     * Look up a style index, falling back to the default style when no id is given
+     */
+    private int lookup(String styleId, int defaultIndex) {
+        if (styleId == null) {
+            return defaultIndex;
+        }
+        Integer index = styleIndex.get(styleId);
+        return index != null ? index : defaultIndex;
+    }
+
+    /**
+     * Parse w:style and w:docDefaults elements from styles.xml
+     */
+    private void parseStyles(InputStream in, List<RawStyle> styles)
+            throws IOException, XmlPullParserException {
+        XmlPullParser parser = newParser(in);
+        RawStyle current = null;
+        boolean inDefaults = false;
+        boolean inRunProperties = false;
+
+        int event = parser.getEventType();
+        while (event != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.START_TAG) {
+                String name = parser.getName();
+                switch (name) {
+                    case "w:docDefaults":
+                        inDefaults = true;
+                        break;
+                    case "w:style":
+                        current = new RawStyle();
+                        current.id = parser.getAttributeValue(null, "w:styleId");
+                        String isDefault = parser.getAttributeValue(null, "w:default");
+                        if (isDefault != null && DocxReader.isToggleOn(isDefault)) {
+                            String type = parser.getAttributeValue(null, "w:type");
+                            if ("paragraph".equals(type)) {
+                                defaultParagraphId = current.id;
+                            } else if ("character".equals(type)) {
+                                defaultCharacterId = current.id;
+                            }
+                        }
+                        break;
+                    case "w:name":
+                        if (current != null) {
+                            current.name = parser.getAttributeValue(null, "w:val");
+                        }
+                        break;
+                    case "w:basedOn":
+                        if (current != null) {
+                            current.basedOn = parser.getAttributeValue(null, "w:val");
+                        }
+                        break;
+                    case "w:rPr":
+                        inRunProperties = true;
+                        break;
+                    case "w:b":
+                    case "w:i":
+                    case "w:u":
+                        if (inRunProperties && (current != null || inDefaults)) {
+                            int flag = "w:b".equals(name) ? DocxReader.BOLD
+                                    : "w:i".equals(name) ? DocxReader.ITALIC : DocxReader.UNDERLINE;
+                            String val = parser.getAttributeValue(null, "w:val");
+                            boolean on = flag == DocxReader.UNDERLINE ? !"none".equals(val) : DocxReader.isToggleOn(val);
+                            if (current != null) {
+                                current.runMask |= flag;
+                                current.runValues = on ? current.runValues | flag : current.runValues & ~flag;
+                            } else if (on) {
+                                defaultRunValues |= flag;
+                            }
+                        }
+                        break;
+                    case "w:outlineLvl":
+                        if (current != null) {
+                            current.outlineLevel = DocxReader.parseInt(parser.getAttributeValue(null, "w:val"), -1);
+                        }
+                        break;
+                    case "w:numId":
+                        if (current != null) {
+                            current.numId = parser.getAttributeValue(null, "w:val");
+                        }
+                        break;
+                    case "w:ilvl":
+                        if (current != null) {
+                            current.numLevel = DocxReader.parseInt(parser.getAttributeValue(null, "w:val"), 0);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } else if (event == XmlPullParser.END_TAG) {
+                switch (parser.getName()) {
+                    case "w:docDefaults":
+                        inDefaults = false;
+                        break;
+                    case "w:rPr":
+                        inRunProperties = false;
+                        break;
+                    case "w:style":
+                        if (current != null && current.id != null) {
+                            styles.add(current);
+                        }
+                        current = null;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            event = parser.next();
+        }
+    }
+
+    /**
+     * Flatten basedOn chains into the per-style tables
+     */
+    private void flatten(List<RawStyle> styles) {
+        int count = styles.size();
+        runMasks = new int[count];
+        runValues = new int[count];
+        headingLevels = new int[count];
+        numIds = new String[count];
+        numLevels = new int[count];
+
+        Map<String, RawStyle> byId = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            RawStyle style = styles.get(i);
+            byId.put(style.id, style);
+            styleIndex.put(style.id, i);
+        }
+
+        List<RawStyle> chain = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Collect the chain from this style up to its root
+            chain.clear();
+            RawStyle style = styles.get(i);
+            while (style != null && chain.size() < MAX_CHAIN_LENGTH) {
+                chain.add(style);
+                style = style.basedOn != null ? byId.get(style.basedOn) : null;
+            }
+
+            // Apply from the root down so children override their parents
+            int mask = 0;
+            int values = 0;
+            int outlineLevel = -1;
+            String numId = null;
+            int numLevel = 0;
+            for (int j = chain.size() - 1; j >= 0; j--) {
+                RawStyle link = chain.get(j);
+                mask |= link.runMask;
+                values = (values & ~link.runMask) | (link.runValues & link.runMask);
+                if (link.outlineLevel >= 0) {
+                    outlineLevel = link.outlineLevel;
+                }
+                if (link.numId != null) {
+                    numId = link.numId;
+                }
+                if (link.numLevel >= 0) {
+                    numLevel = link.numLevel;
+                }
+            }
+
+            runMasks[i] = mask;
+            runValues[i] = values;
+            headingLevels[i] = getHeadingLevel(styles.get(i), outlineLevel);
+            numIds[i] = numId;
+            numLevels[i] = numLevel;
+        }
+
+        defaultParagraphStyle = lookup(defaultParagraphId, -1);
+        defaultCharacterStyle = lookup(defaultCharacterId, -1);
+    }
+
+    /**
+     * Get the heading level of a style from its outline level or built-in name
+     */
+    private static int getHeadingLevel(RawStyle style, int outlineLevel) {
+        if (outlineLevel >= 0 && outlineLevel < 9) {
+            return outlineLevel + 1;
+        }
+        String name = style.name != null ? style.name : style.id;
+        if (name != null) {
+            String lower = name.toLowerCase();
+            if (lower.startsWith("heading") && lower.length() > 7) {
+                int level = DocxReader.parseInt(lower.substring(7), 0);
+                if (level >= 1 && level <= 9) {
+                    return level;
+                }
+            }
+            if ("title".equals(lower)) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parse w:abstractNum and w:num definitions from numbering.xml
+     */
+    private void parseNumbering(InputStream in) throws IOException, XmlPullParserException {
+        XmlPullParser parser = newParser(in);
+        String abstractId = null;
+        List<ListLevel> levels = null;
+        ListLevel level = null;
+        String numId = null;
+
+        int event = parser.getEventType();
+        while (event != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.START_TAG) {
+                switch (parser.getName()) {
+                    case "w:abstractNum":
+                        abstractId = parser.getAttributeValue(null, "w:abstractNumId");
+                        levels = new ArrayList<>();
+                        break;
+                    case "w:lvl":
+                        if (levels != null) {
+                            int ilvl = DocxReader.parseInt(parser.getAttributeValue(null, "w:ilvl"), levels.size());
+                            level = new ListLevel();
+                            while (levels.size() <= ilvl && levels.size() < 9) {
+                                levels.add(null);
+                            }
+                            if (ilvl >= 0 && ilvl < levels.size()) {
+                                levels.set(ilvl, level);
+                            }
+                        }
+                        break;
+                    case "w:numFmt":
+                        if (level != null) {
+                            level.format = parser.getAttributeValue(null, "w:val");
+                        }
+                        break;
+                    case "w:lvlText":
+                        if (level != null) {
+                            String text = parser.getAttributeValue(null, "w:val");
+                            level.text = text != null ? text : "";
+                        }
+                        break;
+                    case "w:start":
+                        if (level != null) {
+                            level.start = DocxReader.parseInt(parser.getAttributeValue(null, "w:val"), 1);
+                        }
+                        break;
+                    case "w:num":
+                        numId = parser.getAttributeValue(null, "w:numId");
+                        break;
+                    case "w:abstractNumId":
+                        if (numId != null) {
+                            numToAbstract.put(numId, parser.getAttributeValue(null, "w:val"));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } else if (event == XmlPullParser.END_TAG) {
+                switch (parser.getName()) {
+                    case "w:lvl":
+                        level = null;
+                        break;
+                    case "w:abstractNum":
+                        if (abstractId != null && levels != null) {
+                            abstractLevels.put(abstractId, levels.toArray(new ListLevel[0]));
+                        }
+                        abstractId = null;
+                        levels = null;
+                        break;
+                    case "w:num":
+                        numId = null;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            event = parser.next();
+        }
+    }
+
+    /**
+     * Format a list counter in the given OOXML number format
+     */
+    private static String formatNumber(int value, String format) {
+        if (format == null) {
+            return Integer.toString(value);
+        }
+        switch (format) {
+            case "lowerLetter":
+                return toLetters(value, 'a');
+            case "upperLetter":
+                return toLetters(value, 'A');
+            case "lowerRoman":
+                return toRoman(value).toLowerCase();
+            case "upperRoman":
+                return toRoman(value);
+            default:
+                return Integer.toString(value);
+        }
+    }
+
+    /**
+     * Format a number as letters the way Word does: a..z, aa..zz, ...
+     */
+    private static String toLetters(int value, char base) {
+        if (value <= 0) {
+            return Integer.toString(value);
+        }
+        char letter = (char) (base + (value - 1) % 26);
+        int repeat = (value - 1) / 26 + 1;
+        StringBuilder result = new StringBuilder(repeat);
+        for (int i = 0; i < repeat; i++) {
+            result.append(letter);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Format a number as upper-case Roman numerals
+     */
+    private static String toRoman(int value) {
+        if (value <= 0 || value >= 4000) {
+            return Integer.toString(value);
+        }
+        int[] numbers = {1000, 900, 500, 400, 100, 90, 50, 40, 10, 9, 5, 4, 1};
+        String[] numerals = {"M", "CM", "D", "CD", "C", "XC", "L", "XL", "X", "IX", "V", "IV", "I"};
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < numbers.length; i++) {
+            while (value >= numbers[i]) {
+                result.append(numerals[i]);
+                value -= numbers[i];
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Create a pull parser with namespace processing off, so tag names keep their prefix
+     */
+    private static XmlPullParser newParser(InputStream in) throws XmlPullParserException {
+        XmlPullParser parser = Xml.newPullParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+        parser.setInput(in, null);
+        return parser;
+    }
+}
@@ -0,0 +1,398 @@
+package com.curosoft.konvert.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * Reader for plain text files of unknown encoding
+ *
+ * The charset is taken from the byte order mark if there is one, and otherwise
+ * guessed from the first {@link #SNIFF_LENGTH} bytes: zero bytes in alternate
+ * positions mean UTF-16, valid multi-byte sequences mean UTF-8, and anything else
+ * is decoded as a legacy single-byte charset. One decoder is used for the whole
+ * stream over buffers borrowed from a small pool, and {@link #readLine(StringBuilder)}
+ * appends each line to a caller's builder, so reading a file allocates no String
+ * per line.
+ */
+public class TextSource extends Reader {
+    private static final String TAG = "TextSource";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // The sniff looks at the first buffer of bytes
+    static final int SNIFF_LENGTH = BUFFER_SIZE;
+    private static final int MAX_POOLED_BUFFERS = 4;
+
+    private static final ArrayDeque<byte[]> BYTE_POOL = new ArrayDeque<>();
+    private static final ArrayDeque<char[]> CHAR_POOL = new ArrayDeque<>();
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final Charset WINDOWS_1251 = Charset.forName("windows-1251");
+
+    private final InputStream in;
+    private final Charset charset;
+    private final CharsetDecoder decoder;
+    private byte[] byteArray;
+    private char[] charArray;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private boolean endOfInput = false;
+    private boolean finished = false;
+    private boolean skipLineFeed = false;
+
+    /**
+     * Open a text file from a content URI
+     *
+     * @param context The application context
+     * @param uri URI of the text file
+     * @return The text source; the caller must close it
+     * @throws IOException If the file cannot be opened or read
+     */
+    public static TextSource open(Context context, Uri uri) throws IOException {
+        InputStream in = context.getContentResolver().openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return open(in);
+    }
+
+    /**
+     * Open a text file
+     *
+     * @param file The text file
+     * @return The text source; the caller must close it
+     * @throws IOException If the file cannot be opened or read
+     */
+    public static TextSource open(File file) throws IOException {
+        return open(new FileInputStream(file));
+    }
+
+    /**
+     * Open a text stream, detecting its charset from the first bytes
+     *
+     * @param in The stream; it is closed with the text source, or if detection fails
+     * @return The text source; the caller must close it
+     * @throws IOException If the stream cannot be read
+     */
+    public static TextSource open(InputStream in) throws IOException {
+        return open(in, null);
+    }
+
+    /**
+     * Open a text stream in a known charset, such as one positioned at a line of a
+     * file whose charset was detected earlier
+     *
+     * @param in The stream; it is closed with the text source
+     * @param charset The charset of the text, or null to detect it from the first bytes
+     * @return The text source; the caller must close it
+     * @throws IOException If the stream cannot be read
+     */
+    public static TextSource open(InputStream in, Charset charset) throws IOException {
+        try {
+            return new TextSource(in, charset);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private TextSource(InputStream in, Charset knownCharset) throws IOException {
+        this.in = in;
+        byteArray = obtainBytes();
+        charArray = obtainChars();
+        bytes = ByteBuffer.wrap(byteArray);
+        chars = CharBuffer.wrap(charArray);
+        chars.limit(0);
+
+        try {
+            // Fill the byte buffer once for the sniff; decoding starts from it
+            int count = 0;
+            int n;
+            while (count < byteArray.length && (n = in.read(byteArray, count, byteArray.length - count)) >= 0) {
+                count += n;
+            }
+            endOfInput = count < byteArray.length;
+            bytes.limit(count);
+
+            if (knownCharset != null) {
+                charset = knownCharset;
+            } else {
+                charset = detectCharset(byteArray, count);
+                bytes.position(bomLength(byteArray, count));
+            }
+        } catch (IOException | RuntimeException e) {
+            releaseBuffers();
+            throw e;
+        }
+
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        Log.d(TAG, "Reading text as " + charset.name());
+    }
+
+    /**
+     * @return The charset the text is decoded with
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Append the next line to a builder, without its terminator
+     *
+     * Lines end at "\n", "\r" or "\r\n", as with {@link java.io.BufferedReader#readLine()}.
+     *
+     * @param line The builder to append the line to
+     * @return false if the end of the text was reached before any line was read
+     * @throws IOException If reading fails
+     */
+    public boolean readLine(StringBuilder line) throws IOException {
+        if (!fill()) {
+            return false;
+        }
+        while (true) {
+            int start = chars.position();
+            int limit = chars.limit();
+            for (int i = start; i < limit; i++) {
+                char c = charArray[i];
+                if (c == '\n' || c == '\r') {
+                    line.append(charArray, start, i - start);
+                    chars.position(i + 1);
+                    skipLineFeed = c == '\r';
+                    return true;
+                }
+            }
+            line.append(charArray, start, limit - start);
+            chars.position(limit);
+            if (!fill()) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, chars.remaining());
+        chars.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            releaseBuffers();
+            finished = true;
+            chars.limit(0);
+        }
+    }
+
+    /**
+     * Make sure decoded characters are available, skipping the "\n" of a "\r\n" pair
+     *
+     * @return false at the end of the text
+     */
+    private boolean fill() throws IOException {
+        while (true) {
+            while (!chars.hasRemaining()) {
+                if (finished) {
+                    return false;
+                }
+                decode();
+            }
+            if (!skipLineFeed) {
+                return true;
+            }
+            skipLineFeed = false;
+            if (charArray[chars.position()] == '\n') {
+                chars.position(chars.position() + 1);
+            }
+        }
+    }
+
+    /**
+     * Decode the next block of characters into the emptied char buffer
+     */
+    private void decode() throws IOException {
+        if (byteArray == null) {
+            throw new IOException("Text source is closed");
+        }
+        chars.clear();
+        if (!endOfInput && bytes.remaining() < byteArray.length) {
+            bytes.compact();
+            int n = in.read(byteArray, bytes.position(), bytes.remaining());
+            if (n < 0) {
+                endOfInput = true;
+            } else {
+                bytes.position(bytes.position() + n);
+            }
+            bytes.flip();
+        }
+        CoderResult result = decoder.decode(bytes, chars, endOfInput);
+        if (endOfInput && result.isUnderflow()) {
+            finished = decoder.flush(chars).isUnderflow();
+        }
+        chars.flip();
+    }
+
+    private void releaseBuffers() {
+        if (byteArray != null) {
+            releaseBytes(byteArray);
+            releaseChars(charArray);
+            byteArray = null;
+            charArray = null;
+        }
+    }
+
+    /**
+     * Detect the charset of text from its first bytes
+     *
+     * @param data The first bytes of the text
+     * @param length The number of valid bytes in data
+     * @return The charset from the byte order mark, or the best guess without one
+     */
+    static Charset detectCharset(byte[] data, int length) {
+        return bomLength(data, length) > 0 ? charsetFromBom(data) : sniff(data, length);
+    }
+
+    /**
+     * @return The length of the byte order mark at the start of data, or 0 if there is none
+     */
+    static int bomLength(byte[] data, int length) {
+        if (length >= 3 && (data[0] & 0xff) == 0xef && (data[1] & 0xff) == 0xbb && (data[2] & 0xff) == 0xbf) {
+            return 3;
+        }
+        if (length >= 2 && ((data[0] & 0xff) == 0xfe && (data[1] & 0xff) == 0xff
+                || (data[0] & 0xff) == 0xff && (data[1] & 0xff) == 0xfe)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private static Charset charsetFromBom(byte[] data) {
+        switch (data[0] & 0xff) {
+            case 0xef: return StandardCharsets.UTF_8;
+            case 0xfe: return StandardCharsets.UTF_16BE;
+            default: return StandardCharsets.UTF_16LE;
+        }
+    }
+
+    /**
+     * Guess the charset of text without a byte order mark
+     */
+    private static Charset sniff(byte[] data, int length) {
+        // ASCII text in UTF-16 has a zero in every other byte
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            if (data[i] == 0) evenZeros++;
+            if (data[i + 1] == 0) oddZeros++;
+        }
+        // Up to one pair in twenty may break the pattern, none in a text under 20 pairs
+        int pairs = length / 2;
+        if (pairs > 0) {
+            if (oddZeros > pairs * 3 / 10 && evenZeros <= pairs / 20) {
+                return StandardCharsets.UTF_16LE;
+            }
+            if (evenZeros > pairs * 3 / 10 && oddZeros <= pairs / 20) {
+                return StandardCharsets.UTF_16BE;
+            }
+        }
+
+        // Pure ASCII is valid UTF-8 too
+        if (isValidUtf8(data, length)) {
+            return StandardCharsets.UTF_8;
+        }
+
+        // Cyrillic windows-1251 text is mostly letters from 0xC0 up, while Western
+        // windows-1252 text only has the odd accented letter among ASCII ones
+        int asciiLetters = 0;
+        int upperHalfLetters = 0;
+        for (int i = 0; i < length; i++) {
+            int b = data[i] & 0xff;
+            if (b >= 0xc0) {
+                upperHalfLetters++;
+            } else if (b >= 'A' && b <= 'Z' || b >= 'a' && b <= 'z') {
+                asciiLetters++;
+            }
+        }
+        return upperHalfLetters > asciiLetters ? WINDOWS_1251 : WINDOWS_1252;
+    }
+
+    /**
+     * Check for well-formed UTF-8; a sequence cut off by the end of the window is allowed
+     */
+    private static boolean isValidUtf8(byte[] data, int length) {
+        int i = 0;
+        while (i < length) {
+            int b = data[i] & 0xff;
+            int continuation;
+            if (b < 0x80) {
+                i++;
+                continue;
+            } else if (b >= 0xc2 && b <= 0xdf) {
+                continuation = 1;
+            } else if (b >= 0xe0 && b <= 0xef) {
+                continuation = 2;
+            } else if (b >= 0xf0 && b <= 0xf4) {
+                continuation = 3;
+            } else {
+                return false;
+            }
+            for (int j = 1; j <= continuation; j++) {
+                if (i + j >= length) {
+                    return true;
+                }
+                if ((data[i + j] & 0xc0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+
+    private static synchronized byte[] obtainBytes() {
+        byte[] buffer = BYTE_POOL.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    private static synchronized char[] obtainChars() {
+        char[] buffer = CHAR_POOL.poll();
+        return buffer != null ? buffer : new char[BUFFER_SIZE];
+    }
+
+    private static synchronized void releaseBytes(byte[] buffer) {
+        if (BYTE_POOL.size() < MAX_POOLED_BUFFERS) {
+            BYTE_POOL.push(buffer);
+        }
+    }
+
+    private static synchronized void releaseChars(char[] buffer) {
+        if (CHAR_POOL.size() < MAX_POOLED_BUFFERS) {
+            CHAR_POOL.push(buffer);
+        }
+    }
+}
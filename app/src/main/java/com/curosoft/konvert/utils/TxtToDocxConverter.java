@@ -8,17 +8,10 @@ import android.os.Build;
 import android.provider.MediaStore;
 import android.util.Log;
 
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
-
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 
 /**
@@ -54,15 +47,11 @@ public class TxtToDocxConverter {
                 outputDir.mkdirs();
             }
 
-            // Read text content from the TXT file
-            String textContent = readTextFromUri(context, txtUri);
-            if (textContent == null) {
-                Log.e(TAG, "Failed to read text content from TXT file");
-                return null;
+            // Write the DOCX file as the text is read
+            boolean success;
+            try (TextSource text = TextSource.open(context, txtUri)) {
+                success = createDocxFromText(text, outputFile);
             }
-
-            // Create DOCX file
-            boolean success = createDocxFromText(textContent, outputFile);
             if (!success) {
                 Log.e(TAG, "Failed to create DOCX file");
                 return null;
@@ -80,56 +69,25 @@ public class TxtToDocxConverter {
     }
 
     /**
-     * Read text from a URI pointing to a text file
+     * Create a DOCX file from text, one paragraph per line
      * 
-     * @param context Application context
-     * @param uri URI of the text file
-     * @return String containing the text content
-     */
-    private static String readTextFromUri(Context context, Uri uri) {
-        StringBuilder stringBuilder = new StringBuilder();
-        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line).append("\n");
-            }
-            return stringBuilder.toString();
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading text from URI", e);
-            return null;
-        }
-    }
-
-    /**
-     * Create a DOCX file from text content
-     * 
-     * @param textContent The text content to convert
+     * @param text The text to convert
      * @param outputFile The output DOCX file
      * @return true if successful, false otherwise
      */
-    private static boolean createDocxFromText(String textContent, File outputFile) {
-        try (XWPFDocument document = new XWPFDocument();
-             FileOutputStream out = new FileOutputStream(outputFile)) {
-            
-            // Split text into paragraphs
-            String[] paragraphs = textContent.split("\n");
+    private static boolean createDocxFromText(TextSource text, File outputFile) {
+        try (DocxWriter writer = new DocxWriter(new FileOutputStream(outputFile))) {
+            writer.writeHeader();
             
-            // Add each paragraph to the document
-            for (String paragraphText : paragraphs) {
-                XWPFParagraph paragraph = document.createParagraph();
-                XWPFRun run = paragraph.createRun();
-                run.setText(paragraphText);
-                run.setFontFamily("Calibri");
-                run.setFontSize(11);
+            StringBuilder line = new StringBuilder();
+            while (text.readLine(line)) {
+                writer.writeParagraph(line);
+                line.setLength(0);
             }
-            
-            // Write the document to file
-            document.write(out);
             return true;
         } catch (Exception e) {
             Log.e(TAG, "Error creating DOCX file", e);
+            outputFile.delete();
             return false;
         }
     }
@@ -0,0 +1,177 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Utility class to convert TXT files to EPUB e-books
+ */
+public class TxtToEpubConverter {
+    private static final String TAG = "TxtToEpubConverter";
+
+    /**
+     * Convert a TXT file to EPUB format
+     * 
+     * @param context Application context
+     * @param txtUri URI of the TXT file to convert
+     * @return Path to the generated EPUB file or null if conversion failed
+     */
+    public static String convertTxtToEpub(Context context, Uri txtUri) {
+        Log.d(TAG, "Starting TXT to EPUB conversion");
+
+        try {
+            // Get the file name from the URI
+            String fileName = EnhancedFilePickerUtils.getFileName(context, txtUri);
+            Log.d(TAG, "Converting TXT file: " + fileName);
+
+            // Create output file name
+            String outputFileName = getOutputFileName(fileName);
+
+            // Get the output directory
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            File outputFile = new File(outputDir, outputFileName);
+
+            // Make sure the output directory exists
+            if (!outputDir.exists()) {
+                outputDir.mkdirs();
+            }
+
+            // Write the EPUB file as the text is read
+            try (TextSource text = TextSource.open(context, txtUri)) {
+                createEpubFromText(text, outputFile, getTitle(fileName));
+            } catch (IOException e) {
+                outputFile.delete();
+                throw e;
+            }
+            
+            // Add the file to MediaStore so it appears in Gallery apps
+            addToMediaStore(context, outputFile, EpubPackageWriter.MIME_TYPE);
+            
+            Log.d(TAG, "TXT to EPUB conversion completed successfully");
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting TXT to EPUB", e);
+            return null;
+        }
+    }
+
+    /**
+     * Create an EPUB file from text, one paragraph per line
+     *
+     * Blank lines only separate paragraphs, and chapters are split by size.
+     *
+     * @param text       The text to convert
+     * @param outputFile The output EPUB file
+     * @param title      The title of the book
+     * @throws IOException if there's an error reading the text or writing the file
+     */
+    private static void createEpubFromText(TextSource text, File outputFile, String title) throws IOException {
+        Log.d(TAG, "Creating EPUB file");
+        
+        try (EpubPackageWriter writer = new EpubPackageWriter(new FileOutputStream(outputFile),
+                title, Locale.getDefault().toLanguageTag())) {
+            writer.writeHeader();
+            
+            StringBuilder line = new StringBuilder();
+            while (text.readLine(line)) {
+                writer.writeParagraph(line);
+                line.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Generate an output file name based on the input file name
+     * 
+     * @param inputFileName The input file name
+     * @return The output file name
+     */
+    private static String getOutputFileName(String inputFileName) {
+        String baseName = inputFileName;
+        
+        // Remove the .txt extension if present
+        if (baseName.toLowerCase().endsWith(".txt")) {
+            baseName = baseName.substring(0, baseName.length() - 4);
+        }
+        
+        return baseName + ".epub";
+    }
+
+    /**
+     * Use the input file name without its extension as the title of the book
+     */
+    private static String getTitle(String inputFileName) {
+        int dot = inputFileName.lastIndexOf('.');
+        return dot > 0 ? inputFileName.substring(0, dot) : inputFileName;
+    }
+
+    /**
+     * Add the file to the MediaStore so it's visible in file browsers
+     * 
+     * @param context The context
+     * @param file The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+        values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+        
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // For Android 10+ (API 29+), use relative path and is_pending flag
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                // If we're using app-specific storage, copy the file to the MediaStore
+                if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                    try (OutputStream os = resolver.openOutputStream(uri);
+                         FileInputStream fis = new FileInputStream(file)) {
+                        
+                        if (os != null) {
+                            byte[] buffer = new byte[4096];
+                            int bytesRead;
+                            while ((bytesRead = fis.read(buffer)) != -1) {
+                                os.write(buffer, 0, bytesRead);
+                            }
+                            os.flush();
+                        }
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error copying file to MediaStore", e);
+                    }
+                }
+                
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        } else {
+            // For older Android versions, use DATA field with absolute path
+            values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        }
+    }
+}
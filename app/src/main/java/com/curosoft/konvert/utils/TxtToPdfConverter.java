@@ -9,24 +9,28 @@ import android.provider.MediaStore;
 import android.util.Log;
 
 import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.properties.TextAlignment;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Utility class to convert TXT files to PDF format
@@ -34,6 +38,12 @@ import java.util.List;
 public class TxtToPdfConverter {
     private static final String TAG = "TxtToPdfConverter";
 
+    /** Approximate size of each chunk laid out in parallel */
+    private static final int CHUNK_CHARS = 256 * 1024;
+
+    /** Text shorter than this is laid out on one thread, where splitting costs more than it saves */
+    private static final int PARALLEL_THRESHOLD_CHARS = 1024 * 1024;
+
     /**
      * Convert a TXT file to PDF format
      * 
@@ -61,15 +71,12 @@ public class TxtToPdfConverter {
                 outputDir.mkdirs();
             }
 
-            // Read text content from the TXT file
-            String textContent = readTextFromUri(context, txtUri);
-            if (textContent == null) {
-                Log.e(TAG, "Failed to read text content from TXT file");
-                return null;
+            // Lay out the text as it is read
+            boolean success;
+            try (TextSource text = TextSource.open(context, txtUri)) {
+                success = createPdfFromText(text, outputFile, PdfOutputProfile.fromSettings(context),
+                        context.getCacheDir());
             }
-
-            // Create PDF file
-            boolean success = createPdfFromText(textContent, outputFile);
             if (!success) {
                 Log.e(TAG, "Failed to create PDF file");
                 return null;
@@ -87,59 +94,233 @@ public class TxtToPdfConverter {
     }
 
     /**
-     * Read text from a URI pointing to a text file
+     * Create a PDF file from text read line by line
      * 
-     * @param context Application context
-     * @param uri URI of the text file
-     * @return String containing the text content
+     * Up to {@link #PARALLEL_THRESHOLD_CHARS} characters are read ahead in chunks. Text
+     * longer than that is laid out in parallel when more than one core is available.
+     * Otherwise lines are added to the document as they are read, and finished pages
+     * are written out as they fill, so memory use doesn't depend on the size of the
+     * text either way.
+     * 
+     * @param text The text to convert
+     * @param outputFile The output PDF file
+     * @param profile The output profile for the PDF writer
+     * @param tempDir Directory for the partial PDFs of a parallel layout
+     * @return true if successful, false otherwise
      */
-    private static String readTextFromUri(Context context, Uri uri) {
-        StringBuilder stringBuilder = new StringBuilder();
-        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line).append("\n");
+    private static boolean createPdfFromText(TextSource text, File outputFile, PdfOutputProfile profile,
+                                             File tempDir) {
+        try {
+            // Read ahead to decide whether the text is long enough to split
+            ArrayDeque<String> readAhead = new ArrayDeque<>();
+            long readAheadChars = 0;
+            boolean more = true;
+            while (more && readAheadChars < PARALLEL_THRESHOLD_CHARS) {
+                StringBuilder chunk = new StringBuilder();
+                more = readChunk(text, chunk);
+                if (chunk.length() > 0) {
+                    readAhead.add(chunk.toString());
+                    readAheadChars += chunk.length();
+                }
             }
-            return stringBuilder.toString();
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading text from URI", e);
-            return null;
+            if (more && ConversionExecutor.getParallelism() > 1) {
+                return createPdfInParallel(readAhead, text, outputFile, profile, tempDir);
+            }
+
+            try (PdfWriter writer = profile.createWriter(outputFile);
+                 PdfDocument pdf = new PdfDocument(writer)) {
+                
+                TextLayout layout = new TextLayout(pdf);
+                while (!readAhead.isEmpty()) {
+                    layout.addLines(readAhead.poll());
+                }
+                StringBuilder line = new StringBuilder();
+                while (text.readLine(line)) {
+                    layout.addLine(line.toString());
+                    line.setLength(0);
+                }
+                layout.close();
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error creating PDF file", e);
+            outputFile.delete();
+            return false;
         }
     }
 
     /**
-     * Create a PDF file from text content
+     * Lay out chunks of the text into partial PDFs on the CPU pool and stitch them in order
      * 
-     * @param textContent The text content to convert
-     * @param outputFile The output PDF file
-     * @return true if successful, false otherwise
+     * Chunks are cut at line breaks and each starts on a new page. The chunks already
+     * read ahead are submitted first, and only a few more are read ahead of the one
+     * being stitched. The parts all use the same standard font, and the output is
+     * written in smart mode so the font and other shared resources are stored once.
      */
-    private static boolean createPdfFromText(String textContent, File outputFile) {
-        try (PdfWriter writer = new PdfWriter(outputFile);
-             PdfDocument pdf = new PdfDocument(writer)) {
-            
-            Document document = new Document(pdf, PageSize.A4);
-            document.setMargins(36, 36, 36, 36); // 0.5 inch margins
-            
-            // Split text into paragraphs
-            String[] paragraphs = textContent.split("\n");
-            
-            // Add each paragraph to the document
-            for (String paragraphText : paragraphs) {
-                Paragraph paragraph = new Paragraph(paragraphText)
-                        .setFontSize(11)
-                        .setTextAlignment(TextAlignment.LEFT)
-                        .setFontColor(ColorConstants.BLACK);
-                document.add(paragraph);
+    private static boolean createPdfInParallel(ArrayDeque<String> readAhead, TextSource text, File outputFile,
+                                               PdfOutputProfile profile, File tempDir) {
+        int maxPartsInFlight = ConversionExecutor.getParallelism() * 2;
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        ExecutorService pool = ConversionExecutor.getCpuPool();
+        ArrayDeque<Future<File>> parts = new ArrayDeque<>();
+        int partCount = 0;
+
+        WriterProperties properties = profile.toWriterProperties().useSmartMode();
+        try (PdfDocument destination = new PdfDocument(new PdfWriter(outputFile.getAbsolutePath(), properties))) {
+            StringBuilder chunk = new StringBuilder();
+            boolean more = true;
+            while (!readAhead.isEmpty() || chunk.length() > 0) {
+                String chunkText = readAhead.isEmpty() ? chunk.toString() : readAhead.poll();
+                parts.add(pool.submit(() -> {
+                    // Chunks still queued when the conversion fails are skipped
+                    if (aborted.get()) {
+                        return null;
+                    }
+                    return layoutPart(chunkText, profile, tempDir);
+                }));
+                partCount++;
+
+                // Parts are appended while later ones are still laid out
+                if (parts.size() >= maxPartsInFlight) {
+                    appendPart(parts.poll(), destination);
+                }
+                chunk.setLength(0);
+                if (readAhead.isEmpty() && more) {
+                    more = readChunk(text, chunk);
+                }
             }
-            
-            document.close();
+            while (!parts.isEmpty()) {
+                appendPart(parts.poll(), destination);
+            }
+            Log.d(TAG, "Laid out " + partCount + " chunks in parallel");
             return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.e(TAG, "Interrupted while creating PDF file");
         } catch (Exception e) {
             Log.e(TAG, "Error creating PDF file", e);
-            return false;
+        }
+
+        // The parts are not cancelled: a cancelled future reports done while its task
+        // may still be writing, and that part would be left in the temp directory
+        aborted.set(true);
+        boolean interrupted = false;
+        for (Future<File> future : parts) {
+            while (true) {
+                try {
+                    File part = future.get();
+                    if (part != null) {
+                        part.delete();
+                    }
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // The part was never written
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        outputFile.delete();
+        return false;
+    }
+
+    /**
+     * Read whole lines until the chunk holds at least {@link #CHUNK_CHARS} characters
+     * 
+     * @return true if the chunk is full and more text may follow, false at the end of the text
+     */
+    private static boolean readChunk(TextSource text, StringBuilder chunk) throws IOException {
+        while (chunk.length() < CHUNK_CHARS) {
+            if (!text.readLine(chunk)) {
+                return false;
+            }
+            chunk.append('\n');
+        }
+        return true;
+    }
+
+    /**
+     * Lay out a chunk of text into a temporary PDF
+     */
+    private static File layoutPart(String text, PdfOutputProfile profile, File tempDir) throws IOException {
+        File part = File.createTempFile("txt_part", ".pdf", tempDir);
+        // Content streams are copied as they are, so compress them as the output would
+        WriterProperties properties = new WriterProperties().setCompressionLevel(profile.getCompressionLevel());
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(part.getAbsolutePath(), properties))) {
+            TextLayout layout = new TextLayout(pdf);
+            layout.addLines(text);
+            layout.close();
+        } catch (IOException | RuntimeException e) {
+            part.delete();
+            throw e;
+        }
+        return part;
+    }
+
+    /**
+     * Wait for a partial PDF, copy its pages to the end of the output and delete it
+     */
+    private static void appendPart(Future<File> future, PdfDocument destination)
+            throws IOException, InterruptedException, ExecutionException {
+        File part = future.get();
+        try (PdfDocument source = new PdfDocument(new PdfReader(part))) {
+            int numberOfPages = source.getNumberOfPages();
+            for (int i = 1; i <= numberOfPages; i++) {
+                for (PdfPage page : source.copyPagesTo(i, i, destination)) {
+                    page.flush(true);
+                }
+            }
+        } finally {
+            part.delete();
+        }
+    }
+
+    /**
+     * Adds one paragraph per line of text to a document
+     * 
+     * The font and text style are set once on the document and inherited by every
+     * paragraph, and the document is flushed immediately so finished pages are written
+     * out and released.
+     */
+    private static class TextLayout {
+        private final Document document;
+
+        TextLayout(PdfDocument pdf) throws IOException {
+            PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+            document = new Document(pdf, PageSize.A4, true);
+            document.setMargins(36, 36, 36, 36); // 0.5 inch margins
+            document.setFont(font)
+                    .setFontSize(11)
+                    .setTextAlignment(TextAlignment.LEFT)
+                    .setFontColor(ColorConstants.BLACK);
+        }
+
+        void addLine(String line) {
+            document.add(new Paragraph(line));
+        }
+
+        /**
+         * Add each line of a block of text
+         */
+        void addLines(String text) {
+            int start = 0;
+            int length = text.length();
+            while (start < length) {
+                int lineEnd = text.indexOf('\n', start);
+                if (lineEnd < 0) {
+                    lineEnd = length;
+                }
+                addLine(text.substring(start, lineEnd));
+                start = lineEnd + 1;
+            }
+        }
+
+        void close() {
+            document.close();
         }
     }
 
@@ -8,16 +8,12 @@ import android.os.Build;
 import android.provider.MediaStore;
 import android.util.Log;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.Reader;
 
 /**
  * Utility class to convert TXT files to RTF format
@@ -52,15 +48,11 @@ public class TxtToRtfConverter {
                 outputDir.mkdirs();
             }
 
-            // Read text content from the TXT file
-            String textContent = readTextFromUri(context, txtUri);
-            if (textContent == null) {
-                Log.e(TAG, "Failed to read text content from TXT file");
-                return null;
+            // Convert to RTF as the text is read
+            boolean success;
+            try (TextSource text = TextSource.open(context, txtUri)) {
+                success = convertToRtfAndSave(text, outputFile);
             }
-
-            // Convert to RTF and save
-            boolean success = convertToRtfAndSave(textContent, outputFile);
             if (!success) {
                 Log.e(TAG, "Failed to create RTF file");
                 return null;
@@ -77,81 +69,23 @@ public class TxtToRtfConverter {
         }
     }
 
-    /**
-     * Read text from a URI pointing to a text file
-     * 
-     * @param context Application context
-     * @param uri URI of the text file
-     * @return String containing the text content
-     */
-    private static String readTextFromUri(Context context, Uri uri) {
-        StringBuilder stringBuilder = new StringBuilder();
-        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line).append("\n");
-            }
-            return stringBuilder.toString();
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading text from URI", e);
-            return null;
-        }
-    }
-
     /**
      * Convert text to RTF format and save to file
      * 
-     * @param textContent The text content to convert
+     * @param reader The text to convert
      * @param outputFile The output RTF file
      * @return true if successful, false otherwise
      */
-    private static boolean convertToRtfAndSave(String textContent, File outputFile) {
-        try (FileOutputStream fos = new FileOutputStream(outputFile);
-             OutputStreamWriter writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8)) {
-            
-            // Create the RTF header
-            StringBuilder rtfContent = new StringBuilder();
-            rtfContent.append("{\\rtf1\\ansi\\ansicpg1252\\cocoartf1671\\cocoasubrtf600\n");
-            rtfContent.append("\\cocoascreenfonts1{\\fonttbl\\f0\\fswiss\\fcharset0 Helvetica;}\n");
-            rtfContent.append("{\\colortbl;\\red255\\green255\\blue255;}\n");
-            rtfContent.append("\\margl1440\\margr1440\\vieww10800\\viewh8400\\viewkind0\n");
-            rtfContent.append("\\pard\\tx720\\tx1440\\tx2160\\tx2880\\tx3600\\tx4320\\tx5040\\tx5760\\tx6480\\tx7200\\tx7920\\tx8640\\pardirnatural\\partightenfactor0\n\n");
-            rtfContent.append("\\f0\\fs24 \\cf0 ");
-            
-            // Process the text content, escaping special characters and handling line breaks
-            String[] lines = textContent.split("\n");
-            for (int i = 0; i < lines.length; i++) {
-                String line = lines[i];
-                
-                // Escape special RTF characters
-                line = line.replace("\\", "\\\\")
-                           .replace("{", "\\{")
-                           .replace("}", "\\}")
-                           .replace("\t", "\\tab ")
-                           .replace("&", "\\&")
-                           .replace("<", "\\<")
-                           .replace(">", "\\>");
-                
-                rtfContent.append(line);
-                
-                // Add line break if not the last line
-                if (i < lines.length - 1) {
-                    rtfContent.append("\\par\n");
-                }
-            }
-            
-            // Close the RTF document
-            rtfContent.append("}");
-            
-            // Write the RTF content to the file
-            writer.write(rtfContent.toString());
-            writer.flush();
+    private static boolean convertToRtfAndSave(Reader reader, File outputFile) {
+        try (RtfWriter writer = new RtfWriter(new FileOutputStream(outputFile))) {
+            writer.writeHeader();
             
+            // Write each line as its own paragraph; RtfWriter escapes special characters
+            writer.writeParagraphs(reader);
             return true;
         } catch (IOException e) {
             Log.e(TAG, "Error creating RTF file", e);
+            outputFile.delete();
             return false;
         }
     }
@@ -0,0 +1,380 @@
+package com.curosoft.konvert.utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Streaming reader for the cell text of XLSX workbooks
+ *
+ * Sheets are parsed with POI's SAX event model ({@link XSSFSheetXMLHandler}), so no
+ * sheet is ever held as a DOM; each row is handed to a {@link RowHandler} as soon as
+ * it has been read. The shared strings are kept as bytes in fixed-size blocks with
+ * an offset table instead of a list of string objects, and the package is opened
+ * from a file so parts are read straight from the zip.
+ */
+public class XlsxReader implements Closeable {
+    private final OPCPackage pkg;
+    private final XSSFReader reader;
+    private final StylesTable styles;
+    private final CompactSharedStrings strings;
+
+    /**
+     * Receives the rows of each sheet in order
+     */
+    public interface RowHandler {
+        /**
+         * Called before the rows of a sheet
+         *
+         * @param name The sheet name
+         * @param index Index of the sheet, from 0
+         */
+        void startSheet(String name, int index) throws IOException;
+
+        /**
+         * Called for each row that has at least one cell
+         *
+         * @param rowNum Index of the row, from 0; rows without cells are skipped
+         * @param cells Formatted cell text by column, null for empty cells; the array is
+         *              reused for the next row
+         * @param cellCount Number of columns up to and including the last cell
+         */
+        void row(int rowNum, String[] cells, int cellCount) throws IOException;
+    }
+
+    /**
+     * Open a workbook
+     *
+     * @param file The XLSX file
+     * @throws IOException If the file cannot be read or is not a workbook
+     */
+    public XlsxReader(File file) throws IOException {
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException | RuntimeException e) {
+            throw new IOException("Not a valid XLSX file", e);
+        }
+        try {
+            reader = new XSSFReader(pkg);
+            styles = reader.getStylesTable();
+            strings = new CompactSharedStrings();
+            try (InputStream in = reader.getSharedStringsData()) {
+                strings.read(in);
+            }
+        } catch (IOException | OpenXML4JException | SAXException | RuntimeException e) {
+            pkg.revert();
+            throw e instanceof IOException ? (IOException) e : new IOException("Not a valid XLSX file", e);
+        }
+    }
+
+    /**
+     * @return The names of the sheets in workbook order
+     * @throws IOException If the workbook cannot be read
+     */
+    public List<String> getSheetNames() throws IOException {
+        List<String> names = new ArrayList<>();
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+        } catch (OpenXML4JException e) {
+            throw new IOException("Error reading XLSX workbook", e);
+        }
+        return names;
+    }
+
+    /**
+     * @return The number of distinct shared strings in the workbook
+     */
+    public int getSharedStringCount() {
+        return strings.getUniqueCount();
+    }
+
+    /**
+     * Read every sheet in workbook order
+     *
+     * @param handler Receives the rows
+     * @throws IOException If reading fails or the handler throws
+     */
+    public void readSheets(RowHandler handler) throws IOException {
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            DataFormatter formatter = new DataFormatter();
+            RowCollector collector = new RowCollector(handler);
+            int index = 0;
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    handler.startSheet(sheets.getSheetName(), index++);
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, collector, formatter, false));
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Error reading XLSX sheet", e);
+        }
+    }
+
+    /**
+     * Close the package without saving anything
+     */
+    @Override
+    public void close() {
+        pkg.revert();
+    }
+
+    /**
+     * Column index of a cell reference such as "AB12", from 0
+     */
+    static int getColumn(String cellRef) {
+        int column = 0;
+        for (int i = 0, length = cellRef.length(); i < length; i++) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Collects the cells of a row by column and passes the row on when it ends
+     */
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private String[] cells = new String[16];
+        private int cellCount = 0;
+        private int nextColumn = 0;
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cellCount = 0;
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellRef, String formattedValue, XSSFComment comment) {
+            // Cells without a reference follow the previous one
+            int column = cellRef != null ? getColumn(cellRef) : nextColumn;
+            if (column < 0 || formattedValue == null || formattedValue.isEmpty()) {
+                return;
+            }
+            if (column >= cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+            }
+            if (column > cellCount) {
+                Arrays.fill(cells, cellCount, column, null);
+            }
+            cells[column] = formattedValue;
+            cellCount = Math.max(cellCount, column + 1);
+            nextColumn = column + 1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (cellCount == 0) {
+                return;
+            }
+            try {
+                handler.row(rowNum, cells, cellCount);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Shared strings table stored as bytes in fixed-size blocks
+     *
+     * Each string is encoded with one to three bytes per UTF-16 unit, like modified
+     * UTF-8, so mostly-Latin text takes about a byte per character. Blocks are never
+     * resized, so growing the table never copies the strings already read. Rich text
+     * runs are flattened to plain text, and phonetic guides are left out.
+     */
+    static class CompactSharedStrings extends DefaultHandler implements SharedStrings {
+        // Large enough for the longest cell text (32767 units of 3 bytes), so no string spans blocks
+        private static final int BLOCK_SIZE = 128 * 1024;
+        private static final int BLOCK_SHIFT = 17;
+
+        private byte[][] blocks = new byte[16][];
+        private int blockCount = 0;
+        private int blockPosition = BLOCK_SIZE;
+        // Block and position of each string, and its length in UTF-16 units
+        private int[] positions = new int[1024];
+        private int[] lengths = new int[1024];
+        private int count = 0;
+        private int totalCount = 0;
+
+        // Text of the string being read
+        private final StringBuilder current = new StringBuilder();
+        private boolean inString = false;
+        private boolean inText = false;
+        private int phoneticDepth = 0;
+
+        void read(InputStream in) throws IOException, SAXException {
+            if (in == null) {
+                return;
+            }
+            try {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(this);
+                parser.parse(new InputSource(in));
+            } catch (ParserConfigurationException e) {
+                throw new IOException(e);
+            }
+        }
+
+        String getString(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Shared string " + index + " of " + count);
+            }
+            byte[] block = blocks[positions[index] >>> BLOCK_SHIFT];
+            int position = positions[index] & (BLOCK_SIZE - 1);
+            char[] chars = new char[lengths[index]];
+            for (int i = 0; i < chars.length; i++) {
+                int b = block[position++] & 0xff;
+                if (b < 0x80) {
+                    chars[i] = (char) b;
+                } else if (b < 0xe0) {
+                    chars[i] = (char) ((b & 0x1f) << 6 | (block[position++] & 0x3f));
+                } else {
+                    chars[i] = (char) ((b & 0x0f) << 12 | (block[position++] & 0x3f) << 6
+                            | (block[position++] & 0x3f));
+                }
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public RichTextString getItemAt(int index) {
+            return new XSSFRichTextString(getString(index));
+        }
+
+        @Override
+        public int getCount() {
+            return totalCount;
+        }
+
+        @Override
+        public int getUniqueCount() {
+            return count;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "sst":
+                    String total = attributes.getValue("count");
+                    if (total != null) {
+                        try {
+                            totalCount = Integer.parseInt(total);
+                        } catch (NumberFormatException ignored) {
+                            // Only informational
+                        }
+                    }
+                    break;
+                case "si":
+                    inString = true;
+                    current.setLength(0);
+                    break;
+                case "rPh":
+                    phoneticDepth++;
+                    break;
+                case "t":
+                    inText = inString && phoneticDepth == 0;
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "si":
+                    inString = false;
+                    add(current);
+                    break;
+                case "rPh":
+                    phoneticDepth--;
+                    break;
+                case "t":
+                    inText = false;
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                current.append(ch, start, length);
+            }
+        }
+
+        private void add(CharSequence text) {
+            // Cells hold at most 32767 characters, which keeps the string within a block
+            int length = Math.min(text.length(), BLOCK_SIZE / 3);
+            if (blockPosition + length * 3 > BLOCK_SIZE) {
+                if (blockCount == blocks.length) {
+                    blocks = Arrays.copyOf(blocks, blockCount * 2);
+                }
+                blocks[blockCount++] = new byte[BLOCK_SIZE];
+                blockPosition = 0;
+            }
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            positions[count] = (blockCount - 1) << BLOCK_SHIFT | blockPosition;
+            lengths[count] = length;
+            count++;
+
+            byte[] block = blocks[blockCount - 1];
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    block[blockPosition++] = (byte) c;
+                } else if (c < 0x800) {
+                    block[blockPosition++] = (byte) (0xc0 | c >> 6);
+                    block[blockPosition++] = (byte) (0x80 | c & 0x3f);
+                } else {
+                    block[blockPosition++] = (byte) (0xe0 | c >> 12);
+                    block[blockPosition++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    block[blockPosition++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+        }
+    }
+}
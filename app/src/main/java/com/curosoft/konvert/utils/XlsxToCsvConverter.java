@@ -0,0 +1,267 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Utility class to convert XLSX workbooks to CSV files
+ *
+ * Rows are read with the streaming {@link XlsxReader} and written straight to the
+ * output, so no sheet is loaded into memory. A workbook with one sheet becomes one
+ * CSV file; each sheet of a larger workbook is written to its own file, named after
+ * the sheet. Sheet names that map to the same file name get the sheet number added.
+ */
+public class XlsxToCsvConverter {
+    private static final String TAG = "XlsxToCsvConverter";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Convert an XLSX file to CSV format
+     *
+     * @param context Application context
+     * @param xlsxUri URI of the XLSX file to convert
+     * @return Path to the CSV file of the first sheet or null if conversion failed
+     */
+    public static String convertXlsxToCsv(Context context, Uri xlsxUri) {
+        Log.d(TAG, "Starting XLSX to CSV conversion");
+
+        File tempInput = null;
+        List<File> outputFiles = new ArrayList<>();
+        try {
+            // Get the file name from the URI
+            String fileName = EnhancedFilePickerUtils.getFileName(context, xlsxUri);
+            Log.d(TAG, "Converting XLSX file: " + fileName);
+            String baseName = getBaseName(fileName);
+
+            // Get the output directory
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            if (!outputDir.exists()) {
+                outputDir.mkdirs();
+            }
+
+            tempInput = copyToTempFile(context, xlsxUri);
+            try (XlsxReader reader = new XlsxReader(tempInput)) {
+                boolean singleSheet = reader.getSheetNames().size() <= 1;
+                SheetWriter writer = new SheetWriter(outputDir, baseName, singleSheet, outputFiles);
+                try {
+                    reader.readSheets(writer);
+                } finally {
+                    writer.close();
+                }
+            }
+            if (outputFiles.isEmpty()) {
+                Log.e(TAG, "The workbook has no sheets");
+                return null;
+            }
+
+            // Add the files to MediaStore so they appear in file browsers
+            for (File outputFile : outputFiles) {
+                addToMediaStore(context, outputFile, "text/csv");
+            }
+
+            Log.d(TAG, "XLSX to CSV conversion completed successfully");
+            return outputFiles.get(0).getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting XLSX to CSV", e);
+            for (File outputFile : outputFiles) {
+                outputFile.delete();
+            }
+            return null;
+        } finally {
+            if (tempInput != null) {
+                tempInput.delete();
+            }
+        }
+    }
+
+    /**
+     * Writes each sheet to its own CSV file
+     *
+     * Empty rows before and between rows with cells are kept so the rows stay where
+     * they were.
+     */
+    private static class SheetWriter implements XlsxReader.RowHandler {
+        private final File outputDir;
+        private final String baseName;
+        private final boolean singleSheet;
+        private final List<File> outputFiles;
+        private final Set<String> usedNames = new HashSet<>();
+        private CsvWriter csv;
+        private int nextRow;
+
+        SheetWriter(File outputDir, String baseName, boolean singleSheet, List<File> outputFiles) {
+            this.outputDir = outputDir;
+            this.baseName = baseName;
+            this.singleSheet = singleSheet;
+            this.outputFiles = outputFiles;
+        }
+
+        @Override
+        public void startSheet(String name, int index) throws IOException {
+            close();
+            String outputName = singleSheet
+                    ? baseName
+                    : getUniqueName(baseName + "_" + toFileName(name, index), index);
+            File outputFile = new File(outputDir, outputName + ".csv");
+            outputFiles.add(outputFile);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(outputFile), StandardCharsets.UTF_8), BUFFER_SIZE);
+            csv = new CsvWriter(writer, ',');
+            nextRow = 0;
+        }
+
+        @Override
+        public void row(int rowNum, String[] cells, int cellCount) throws IOException {
+            for (; nextRow < rowNum; nextRow++) {
+                csv.endRecord();
+            }
+            for (int i = 0; i < cellCount; i++) {
+                csv.writeField(cells[i]);
+            }
+            csv.endRecord();
+            nextRow = rowNum + 1;
+        }
+
+        void close() throws IOException {
+            if (csv != null) {
+                csv.close();
+                csv = null;
+            }
+        }
+
+        /**
+         * Append the sheet number to a name an earlier sheet already took, such as
+         * "Q1_Q2" for both "Q1/Q2" and "Q1:Q2"
+         */
+        private String getUniqueName(String outputName, int index) {
+            String name = outputName;
+            // Compared without case, as shared storage file names are case-insensitive
+            for (int number = index + 1; !usedNames.add(name.toLowerCase(Locale.ROOT)); number++) {
+                name = outputName + "_" + number;
+            }
+            return name;
+        }
+
+        /**
+         * Make a sheet name safe to use in a file name
+         */
+        private static String toFileName(String sheetName, int index) {
+            String name = sheetName != null ? sheetName.replaceAll("[\\\\/:*?\"<>|]", "_").trim() : "";
+            return name.isEmpty() ? "Sheet" + (index + 1) : name;
+        }
+    }
+
+    /**
+     * Copy the workbook to a temporary file, so its parts can be read from the zip
+     * without loading the whole package
+     */
+    private static File copyToTempFile(Context context, Uri uri) throws IOException {
+        File tempFile = File.createTempFile("xlsx_input", ".xlsx", context.getCacheDir());
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
+             OutputStream outputStream = new FileOutputStream(tempFile)) {
+            if (inputStream == null) {
+                throw new IOException("Cannot open input stream for XLSX file");
+            }
+            byte[] buffer = new byte[16 * 1024];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * Get the base name of the input file, without its .xlsx extension
+     */
+    private static String getBaseName(String inputFileName) {
+        String baseName = inputFileName;
+        if (baseName.toLowerCase().endsWith(".xlsx")) {
+            baseName = baseName.substring(0, baseName.length() - 5);
+        }
+        return baseName;
+    }
+
+    /**
+     * Add the file to the MediaStore so it's visible in file browsers
+     * 
+     * @param context The context
+     * @param file The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+        values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+        
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // For Android 10+ (API 29+), use relative path and is_pending flag
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                // If we're using app-specific storage, copy the file to the MediaStore
+                if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                    try (OutputStream os = resolver.openOutputStream(uri);
+                         FileInputStream fis = new FileInputStream(file)) {
+                        
+                        if (os != null) {
+                            byte[] buffer = new byte[4096];
+                            int bytesRead;
+                            while ((bytesRead = fis.read(buffer)) != -1) {
+                                os.write(buffer, 0, bytesRead);
+                            }
+                            os.flush();
+                        }
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error copying file to MediaStore", e);
+                    }
+                }
+                
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        } else {
+            // For older Android versions, use DATA field with absolute path
+            values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.curosoft.konvert.utils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class to convert XLSX workbooks to plain text
+ *
+ * Rows are read with the streaming {@link XlsxReader} and written straight to the
+ * output, so no sheet is loaded into memory. Cells are separated by tabs, and the
+ * sheets of a workbook with more than one are headed by their names.
+ */
+public class XlsxToTxtConverter {
+    private static final String TAG = "XlsxToTxtConverter";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Convert an XLSX file to TXT format
+     *
+     * @param context Application context
+     * @param xlsxUri URI of the XLSX file to convert
+     * @return Path to the generated TXT file or null if conversion failed
+     */
+    public static String convertXlsxToTxt(Context context, Uri xlsxUri) {
+        Log.d(TAG, "Starting XLSX to TXT conversion");
+
+        File tempInput = null;
+        File outputFile = null;
+        try {
+            // Get the file name from the URI
+            String fileName = EnhancedFilePickerUtils.getFileName(context, xlsxUri);
+            Log.d(TAG, "Converting XLSX file: " + fileName);
+
+            // Get the output directory
+            File outputDir = FileStorageUtils.getOutputDirectory(context);
+            if (!outputDir.exists()) {
+                outputDir.mkdirs();
+            }
+            outputFile = new File(outputDir, getBaseName(fileName) + ".txt");
+
+            tempInput = copyToTempFile(context, xlsxUri);
+            try (XlsxReader reader = new XlsxReader(tempInput);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(
+                         new FileOutputStream(outputFile), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                boolean singleSheet = reader.getSheetNames().size() <= 1;
+                reader.readSheets(new SheetWriter(writer, singleSheet));
+            }
+
+            // Add the file to MediaStore so it appears in file browsers
+            addToMediaStore(context, outputFile, "text/plain");
+
+            Log.d(TAG, "XLSX to TXT conversion completed successfully");
+            return outputFile.getAbsolutePath();
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting XLSX to TXT", e);
+            if (outputFile != null) {
+                outputFile.delete();
+            }
+            return null;
+        } finally {
+            if (tempInput != null) {
+                tempInput.delete();
+            }
+        }
+    }
+
+    /**
+     * Writes rows as tab-separated lines
+     *
+     * Tabs and line breaks inside cells become spaces so each row stays on one line.
+     */
+    private static class SheetWriter implements XlsxReader.RowHandler {
+        private final Writer writer;
+        private final boolean singleSheet;
+        private int nextRow;
+
+        SheetWriter(Writer writer, boolean singleSheet) {
+            this.writer = writer;
+            this.singleSheet = singleSheet;
+        }
+
+        @Override
+        public void startSheet(String name, int index) throws IOException {
+            if (!singleSheet) {
+                if (index > 0) {
+                    writer.write('\n');
+                }
+                writer.write("=== " + name + " ===\n\n");
+            }
+            nextRow = 0;
+        }
+
+        @Override
+        public void row(int rowNum, String[] cells, int cellCount) throws IOException {
+            for (; nextRow < rowNum; nextRow++) {
+                writer.write('\n');
+            }
+            for (int i = 0; i < cellCount; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                String cell = cells[i];
+                if (cell != null) {
+                    for (int j = 0, length = cell.length(); j < length; j++) {
+                        char c = cell.charAt(j);
+                        writer.write(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+                    }
+                }
+            }
+            writer.write('\n');
+            nextRow = rowNum + 1;
+        }
+    }
+
+    /**
+     * Copy the workbook to a temporary file, so its parts can be read from the zip
+     * without loading the whole package
+     */
+    private static File copyToTempFile(Context context, Uri uri) throws IOException {
+        File tempFile = File.createTempFile("xlsx_input", ".xlsx", context.getCacheDir());
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
+             OutputStream outputStream = new FileOutputStream(tempFile)) {
+            if (inputStream == null) {
+                throw new IOException("Cannot open input stream for XLSX file");
+            }
+            byte[] buffer = new byte[16 * 1024];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * Get the base name of the input file, without its .xlsx extension
+     */
+    private static String getBaseName(String inputFileName) {
+        String baseName = inputFileName;
+        if (baseName.toLowerCase().endsWith(".xlsx")) {
+            baseName = baseName.substring(0, baseName.length() - 5);
+        }
+        return baseName;
+    }
+
+    /**
+     * Add the file to the MediaStore so it's visible in file browsers
+     * 
+     * @param context The context
+     * @param file The file to add
+     * @param mimeType The MIME type of the file
+     */
+    private static void addToMediaStore(Context context, File file, String mimeType) {
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, file.getName());
+        values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+        
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // For Android 10+ (API 29+), use relative path and is_pending flag
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, "Documents/Konvert/Converted");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                // If we're using app-specific storage, copy the file to the MediaStore
+                if (file.getAbsolutePath().contains(context.getExternalFilesDir(null).getAbsolutePath())) {
+                    try (OutputStream os = resolver.openOutputStream(uri);
+                         FileInputStream fis = new FileInputStream(file)) {
+                        
+                        if (os != null) {
+                            byte[] buffer = new byte[4096];
+                            int bytesRead;
+                            while ((bytesRead = fis.read(buffer)) != -1) {
+                                os.write(buffer, 0, bytesRead);
+                            }
+                            os.flush();
+                        }
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error copying file to MediaStore", e);
+                    }
+                }
+                
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        } else {
+            // For older Android versions, use DATA field with absolute path
+            values.put(MediaStore.MediaColumns.DATA, file.getAbsolutePath());
+            
+            ContentResolver resolver = context.getContentResolver();
+            Uri uri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            
+            if (uri != null) {
+                Log.d(TAG, "Added file to MediaStore: " + uri);
+            } else {
+                Log.w(TAG, "Failed to add file to MediaStore");
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.curosoft.konvert.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Base class for writers of zip-packaged documents such as ODT
+ *
+ * The mimetype entry goes first and is stored uncompressed, so readers can identify
+ * the package from its first bytes. Fixed parts are written from byte arrays, and XML
+ * parts are streamed into their entry through one buffered UTF-8 writer, so no part
+ * is built in memory or staged in a temporary directory.
+ */
+public class ZipPackageWriter implements Closeable {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final ZipOutputStream zip;
+    private final Writer xml;
+    private boolean entryOpen = false;
+
+    /**
+     * Create a writer over the given output stream
+     *
+     * @param out Destination stream for the package; it is closed by {@link #close()}
+     */
+    public ZipPackageWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(out instanceof BufferedOutputStream
+                ? out : new BufferedOutputStream(out, BUFFER_SIZE));
+        this.xml = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Write the uncompressed mimetype entry; it must be the first entry
+     *
+     * @param mimeType The media type of the package
+     * @throws IOException If writing fails
+     */
+    protected void writeMimetype(String mimeType) throws IOException {
+        byte[] content = mimeType.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        ZipEntry entry = new ZipEntry("mimetype");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    /**
+     * Write a complete entry
+     *
+     * @param name Path of the entry in the package
+     * @param content Content of the entry
+     * @throws IOException If writing fails
+     */
+    protected void writeEntry(String name, byte[] content) throws IOException {
+        endEntry();
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    /**
+     * Start an entry whose content is streamed through the returned writer
+     *
+     * @param name Path of the entry in the package
+     * @return Writer for the entry content, valid until the next entry is started
+     * @throws IOException If writing fails
+     */
+    protected Writer beginEntry(String name) throws IOException {
+        endEntry();
+        zip.putNextEntry(new ZipEntry(name));
+        entryOpen = true;
+        return xml;
+    }
+
+    /**
+     * Finish the entry started with {@link #beginEntry(String)}, if any
+     *
+     * @throws IOException If writing fails
+     */
+    protected void endEntry() throws IOException {
+        if (entryOpen) {
+            xml.flush();
+            zip.closeEntry();
+            entryOpen = false;
+        }
+    }
+
+    /**
+     * Finish the package and close the underlying stream
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            endEntry();
+            zip.finish();
+        } finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Write text with XML special characters escaped, in a single pass
+     *
+     * Control characters that XML 1.0 does not allow are dropped.
+     *
+     * @param writer The writer
+     * @param text The text to write
+     * @throws IOException If writing fails
+     */
+    public static void writeEscaped(Writer writer, CharSequence text) throws IOException {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            writeEscaped(writer, text.charAt(i));
+        }
+    }
+
+    /**
+     * Write one character with XML special characters escaped
+     *
+     * @param writer The writer
+     * @param c The character to write
+     * @throws IOException If writing fails
+     */
+    public static void writeEscaped(Writer writer, char c) throws IOException {
+        switch (c) {
+            case '&': writer.write("&amp;"); break;
+            case '<': writer.write("&lt;"); break;
+            case '>': writer.write("&gt;"); break;
+            case '"': writer.write("&quot;"); break;
+            case '\'': writer.write("&apos;"); break;
+            default:
+                if (c >= 0x20 ? c != 0xfffe && c != 0xffff : c == '\t' || c == '\n' || c == '\r') {
+                    writer.write(c);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Check whether text is empty or only whitespace, without creating a String
+     *
+     * @param text The text to check
+     * @return true if the text has no other characters
+     */
+    public static boolean isBlank(CharSequence text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
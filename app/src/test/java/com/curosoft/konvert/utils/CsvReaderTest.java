@@ -0,0 +1,149 @@
+package com.curosoft.konvert.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the RFC 4180 tokenizing and delimiter detection of {@link CsvReader}
+ */
+public class CsvReaderTest {
+
+    @Test
+    public void plainFields() throws IOException {
+        assertEquals(Arrays.asList(
+                Arrays.asList("a", "b", "c"),
+                Arrays.asList("1", "", "3")),
+                readAll("a,b,c\n1,,3\n", ','));
+    }
+
+    @Test
+    public void quotedFieldsWithDelimitersAndDoubledQuotes() throws IOException {
+        assertEquals(Arrays.asList(
+                Arrays.asList("a,b", "say \"hi\"", ""),
+                Arrays.asList("\"", "x")),
+                readAll("\"a,b\",\"say \"\"hi\"\"\",\"\"\n\"\"\"\",x", ','));
+    }
+
+    @Test
+    public void quotedFieldsWithEmbeddedLineBreaks() throws IOException {
+        List<List<String>> records = readAll("id,note\r\n1,\"first\r\nsecond\nthird\"\r\n2,done\r\n", ',');
+        assertEquals(Arrays.asList(
+                Arrays.asList("id", "note"),
+                Arrays.asList("1", "first\r\nsecond\nthird"),
+                Arrays.asList("2", "done")),
+                records);
+    }
+
+    @Test
+    public void allRecordEnds() throws IOException {
+        assertEquals(Arrays.asList(
+                Arrays.asList("a"),
+                Arrays.asList("b"),
+                Arrays.asList("c"),
+                Arrays.asList(""),
+                Arrays.asList("d")),
+                readAll("a\r\nb\nc\r\rd", ','));
+    }
+
+    @Test
+    public void crlfSplitAcrossReads() throws IOException {
+        // The reader hands out one character at a time, so the LF is read after the
+        // buffer holding the CR is used up
+        try (CsvReader reader = new CsvReader(new TrickleReader("a;b\r\nc;d\r\n"), ';')) {
+            assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), readAll(reader));
+            assertEquals(2, reader.getRecordNumber());
+        }
+    }
+
+    @Test
+    public void trailingDelimiterGivesEmptyField() throws IOException {
+        assertEquals(Arrays.asList(
+                Arrays.asList("a", ""),
+                Arrays.asList("b", "")),
+                readAll("a,\nb,", ','));
+    }
+
+    @Test
+    public void textAfterClosingQuoteIsKept() throws IOException {
+        assertEquals(Arrays.asList(Arrays.asList("quoted tail", "x")),
+                readAll("\"quoted\" tail,x", ','));
+    }
+
+    @Test
+    public void manyFieldsAndFieldAccessors() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append(i == 0 ? "" : "\t").append("f").append(i);
+        }
+        try (CsvReader reader = new CsvReader(new StringReader(text.toString()), '\t')) {
+            assertTrue(reader.nextRecord());
+            assertEquals(100, reader.getFieldCount());
+            assertEquals("f99", reader.getField(99));
+            assertEquals(3, reader.getFieldLength(99));
+            assertEquals('9', reader.charAt(99, 2));
+            assertFalse(reader.nextRecord());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getField_pastTheLastField() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("a,b"), ',')) {
+            reader.nextRecord();
+            reader.getField(2);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void quoteIsNotADelimiter() {
+        new CsvReader(new StringReader(""), '"');
+    }
+
+    @Test
+    public void detectDelimiter_countsOnlyOutsideQuotes() {
+        assertEquals(',', CsvReader.detectDelimiter("a,b,c\n1,2,3\n"));
+        assertEquals(';', CsvReader.detectDelimiter("a;b;c\n\"1,5\";\"2,5\";3\n"));
+        assertEquals('\t', CsvReader.detectDelimiter("a\tb\n\"x,y,z\"\tc\n"));
+        assertEquals('|', CsvReader.detectDelimiter("a|b|c"));
+        assertEquals(',', CsvReader.detectDelimiter("single column"));
+    }
+
+    private static List<List<String>> readAll(String text, char delimiter) throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(text), delimiter)) {
+            return readAll(reader);
+        }
+    }
+
+    private static List<List<String>> readAll(CsvReader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        while (reader.nextRecord()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < reader.getFieldCount(); i++) {
+                fields.add(reader.getField(i));
+            }
+            records.add(fields);
+        }
+        return records;
+    }
+
+    /**
+     * A reader that returns at most one character per read
+     */
+    private static class TrickleReader extends StringReader {
+        TrickleReader(String text) {
+            super(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(1, length));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.curosoft.konvert.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for building, querying and caching a {@link LineIndex}
+ */
+public class LineIndexTest {
+    private static final long MODIFIED = 1234567890L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void build_offsetsMatchEveryLineEnd() throws IOException {
+        byte[] data = "a\nbb\r\nccc\rdddd\r\r\n\neee".getBytes(StandardCharsets.US_ASCII);
+        LineIndex index = build(data);
+
+        assertOffsets(new long[] {0, 2, 6, 10, 15, 17, 18}, index);
+        assertEquals(data.length, index.getLineOffset(index.getLineCount()));
+    }
+
+    @Test
+    public void build_varintDeltasAcrossCheckpoints() throws IOException {
+        // Line lengths from 1 byte to past 2^14 need one to three varint bytes, and 1000
+        // lines span many checkpoints
+        Random random = new Random(42);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        List<Long> expected = new ArrayList<>();
+        for (int line = 0; line < 1000; line++) {
+            expected.add((long) text.size());
+            int length = line % 97 == 0 ? 20000 : random.nextInt(300);
+            for (int i = 0; i < length; i++) {
+                text.write('a' + i % 26);
+            }
+            text.write('\n');
+        }
+        LineIndex index = build(text.toByteArray());
+
+        assertEquals(expected.size(), index.getLineCount());
+        for (int line = 0; line < expected.size(); line++) {
+            assertEquals("line " + line, (long) expected.get(line), index.getLineOffset(line));
+        }
+    }
+
+    @Test
+    public void build_crlfSplitAcrossScanBuffers() throws IOException {
+        // The scan reads 64 KB at a time; the CR ends one buffer and the LF starts the next
+        int split = 64 * 1024;
+        byte[] data = new byte[split + 5];
+        Arrays.fill(data, (byte) 'x');
+        data[split - 1] = '\r';
+        data[split] = '\n';
+        data[split + 4] = '\n';
+        LineIndex index = build(data);
+
+        assertOffsets(new long[] {0, split + 1}, index);
+    }
+
+    @Test
+    public void build_noTrailingNewlineAndEmptyFile() throws IOException {
+        assertOffsets(new long[] {0, 4}, build("one\ntwo".getBytes(StandardCharsets.US_ASCII)));
+        assertOffsets(new long[] {0, 4}, build("one\ntwo\n".getBytes(StandardCharsets.US_ASCII)));
+        assertOffsets(new long[0], build(new byte[0]));
+    }
+
+    @Test
+    public void build_utf16WithBom() throws IOException {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        text.write(0xff);
+        text.write(0xfe);
+        // U+0A0D has a 0x0d byte that is not a carriage return
+        text.write("first\r\n਍second\nthird".getBytes(StandardCharsets.UTF_16LE));
+        LineIndex index = build(text.toByteArray());
+
+        assertEquals(StandardCharsets.UTF_16LE, index.getCharset());
+        assertOffsets(new long[] {2, 2 + 14, 2 + 30}, index);
+    }
+
+    @Test
+    public void getLineAt_findsContainingLine() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 200; line++) {
+            text.append("line ").append(line).append('\n');
+        }
+        byte[] data = text.toString().getBytes(StandardCharsets.US_ASCII);
+        LineIndex index = build(data);
+
+        for (long line = 0; line < index.getLineCount(); line++) {
+            long start = index.getLineOffset(line);
+            long end = index.getLineOffset(line + 1);
+            assertEquals(line, index.getLineAt(start));
+            assertEquals(line, index.getLineAt(end - 1));
+        }
+        assertEquals(index.getLineCount(), index.getLineAt(data.length));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getLineOffset_pastTheEnd() throws IOException {
+        LineIndex index = build("a\nb\n".getBytes(StandardCharsets.US_ASCII));
+        index.getLineOffset(index.getLineCount() + 1);
+    }
+
+    @Test
+    public void saveAndLoad_roundTrip() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 500; line++) {
+            text.append("line ").append(line).append(line % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] data = text.toString().getBytes(StandardCharsets.US_ASCII);
+        LineIndex index = build(data);
+        File cacheFile = new File(folder.getRoot(), "cache/index.idx");
+        index.save(cacheFile);
+
+        LineIndex loaded = LineIndex.load(cacheFile, data.length, MODIFIED);
+        assertNotNull(loaded);
+        assertEquals(index.getCharset(), loaded.getCharset());
+        assertEquals(index.getLineCount(), loaded.getLineCount());
+        for (long line = 0; line <= index.getLineCount(); line++) {
+            assertEquals(index.getLineOffset(line), loaded.getLineOffset(line));
+        }
+    }
+
+    @Test
+    public void load_rejectsStaleOrDamagedIndex() throws IOException {
+        byte[] data = "a\nb\n".getBytes(StandardCharsets.US_ASCII);
+        File cacheFile = new File(folder.getRoot(), "index.idx");
+        build(data).save(cacheFile);
+
+        assertNull(LineIndex.load(cacheFile, data.length + 1, MODIFIED));
+        assertNull(LineIndex.load(cacheFile, data.length, MODIFIED + 1));
+        assertNull(LineIndex.load(new File(folder.getRoot(), "missing.idx"), data.length, MODIFIED));
+
+        byte[] saved = Files.readAllBytes(cacheFile.toPath());
+        Files.write(cacheFile.toPath(), Arrays.copyOf(saved, saved.length - 3));
+        assertNull(LineIndex.load(cacheFile, data.length, MODIFIED));
+    }
+
+    private LineIndex build(byte[] data) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), data);
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            return LineIndex.build(channel, MODIFIED);
+        }
+    }
+
+    private static void assertOffsets(long[] expected, LineIndex index) {
+        assertEquals(expected.length, index.getLineCount());
+        for (int line = 0; line < expected.length; line++) {
+            assertEquals("line " + line, expected[line], index.getLineOffset(line));
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.curosoft.konvert.utils;
+
+import com.curosoft.konvert.utils.PdfMetadataProbe.PdfMetadata;
+import com.itextpdf.kernel.pdf.EncryptionConstants;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the cross-reference parsing of {@link PdfMetadataProbe}
+ *
+ * Fixtures are small PDFs written byte by byte, so each test controls exactly which
+ * kind of cross-reference section the probe has to read.
+ */
+public class PdfMetadataProbeTest {
+    private static final String PAGE = "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] >>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void classicXrefTable_19ByteEntries() throws IOException {
+        File file = write(classicPdf("\n"));
+
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(file);
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("Classic", metadata.getTitle());
+        assertFalse(metadata.isEncrypted());
+    }
+
+    @Test
+    public void classicXrefTable_20ByteEntries() throws IOException {
+        File file = write(classicPdf("\r\n"));
+
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(file);
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("Classic", metadata.getTitle());
+    }
+
+    @Test
+    public void xrefStream_pngUpPredictor() throws IOException {
+        PdfBuilder pdf = new PdfBuilder();
+        pdf.object(1, "<< /Type /Catalog /Pages 2 0 R >>");
+        pdf.object(2, "<< /Type /Pages /Kids [4 0 R 5 0 R] /Count 2 >>");
+        pdf.object(3, "<< /Title (Streamed) >>");
+        pdf.object(4, PAGE);
+        pdf.object(5, PAGE);
+        long xref = pdf.xrefStream(6, new int[] {1, 2, 1}, true, "/Size 7 /Root 1 0 R /Info 3 0 R",
+                free(),
+                inUse(pdf, 1), inUse(pdf, 2), inUse(pdf, 3), inUse(pdf, 4), inUse(pdf, 5),
+                new long[] {1, pdf.position(), 0});
+        pdf.startxref(xref);
+
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(write(pdf));
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("Streamed", metadata.getTitle());
+    }
+
+    @Test
+    public void xrefStream_catalogAndPagesInObjectStream() throws IOException {
+        PdfBuilder pdf = new PdfBuilder();
+        pdf.object(3, "<< /Title (Packed) >>");
+        pdf.object(4, PAGE);
+        pdf.object(5, PAGE);
+        pdf.objectStream(6, new int[] {1, 2}, new String[] {
+                "<< /Type /Catalog /Pages 2 0 R >>",
+                "<< /Type /Pages /Kids [4 0 R 5 0 R] /Count 2 >>"});
+        long xref = pdf.xrefStream(7, new int[] {1, 4, 2}, false, "/Size 8 /Root 1 0 R /Info 3 0 R",
+                free(),
+                new long[] {2, 6, 0}, new long[] {2, 6, 1},
+                inUse(pdf, 3), inUse(pdf, 4), inUse(pdf, 5), inUse(pdf, 6),
+                new long[] {1, pdf.position(), 0});
+        pdf.startxref(xref);
+
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(write(pdf));
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("Packed", metadata.getTitle());
+    }
+
+    @Test
+    public void hybridFile_readsObjectsMissingFromTableFromXRefStm() throws IOException {
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(write(hybridPdf(false)));
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("Hybrid", metadata.getTitle());
+    }
+
+    @Test
+    public void hybridFile_readsObjectsFreeInTableFromXRefStm() throws IOException {
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(write(hybridPdf(true)));
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("Hybrid", metadata.getTitle());
+    }
+
+    @Test
+    public void incrementalUpdate_freedObjectHidesOlderDefinition() throws IOException {
+        PdfBuilder pdf = classicPdf("\r\n");
+        freeInfo(pdf);
+
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(write(pdf));
+        assertEquals(2, metadata.getPageCount());
+        assertNull(metadata.getTitle());
+    }
+
+    @Test
+    public void incrementalUpdate_redefinedObjectReplacesFreedOne() throws IOException {
+        PdfBuilder pdf = classicPdf("\r\n");
+        long previous = freeInfo(pdf);
+
+        // The second update reuses the freed number and adds a page
+        pdf.object(3, 1, "<< /Title (Updated) >>");
+        pdf.object(2, "<< /Type /Pages /Kids [4 0 R 5 0 R 6 0 R] /Count 3 >>");
+        pdf.object(6, PAGE);
+        Map<Integer, String> entries = new TreeMap<>();
+        entries.put(2, PdfBuilder.entry(pdf.offset(2), 0, 'n'));
+        entries.put(3, PdfBuilder.entry(pdf.offset(3), 1, 'n'));
+        entries.put(6, PdfBuilder.entry(pdf.offset(6), 0, 'n'));
+        long xref = pdf.xrefTable(entries, "\r\n");
+        pdf.trailer("/Size 7 /Root 1 0 R /Info 3 1 R /Prev " + previous, xref);
+
+        PdfMetadata metadata = PdfMetadataProbe.readQuickly(write(pdf));
+        assertEquals(3, metadata.getPageCount());
+        assertEquals("Updated", metadata.getTitle());
+    }
+
+    @Test
+    public void encryptedFile_reportsEncryptionWithoutTitle() throws IOException {
+        File file = writeEncrypted(null, false);
+
+        PdfMetadata metadata = PdfMetadataProbe.read(file);
+        assertTrue(metadata.isEncrypted());
+        assertEquals(2, metadata.getPageCount());
+        assertNull(metadata.getTitle());
+    }
+
+    @Test
+    public void encryptedObjectStreams_fallBackToITextWithoutPassword() throws IOException {
+        File file = writeEncrypted("user", true);
+
+        try {
+            PdfMetadataProbe.readQuickly(file);
+            fail("Encrypted object streams can't be decoded without the key");
+        } catch (IOException expected) {
+            // The probe leaves these files to iText
+        }
+
+        PdfMetadata metadata = PdfMetadataProbe.read(file);
+        assertTrue(metadata.isEncrypted());
+        assertFalse(metadata.hasPageCount());
+        assertNull(metadata.getTitle());
+    }
+
+    @Test
+    public void brokenStartxref_fallsBackToIText() throws IOException {
+        PdfBuilder pdf = classicPdf("\r\n");
+        String text = new String(pdf.toByteArray(), StandardCharsets.ISO_8859_1);
+        text = text.replaceFirst("startxref\n\\d+", "startxref\n99999");
+        File file = folder.newFile("broken.pdf");
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.ISO_8859_1));
+
+        try {
+            PdfMetadataProbe.readQuickly(file);
+            fail("startxref points past the end of the file");
+        } catch (IOException expected) {
+            // iText rebuilds the cross-references by scanning the file
+        }
+
+        PdfMetadata metadata = PdfMetadataProbe.read(file);
+        assertEquals(2, metadata.getPageCount());
+        assertEquals("Classic", metadata.getTitle());
+    }
+
+    @Test
+    public void probe_cachesUntilFileChanges() throws IOException {
+        File file = write(classicPdf("\r\n"));
+        assertNull(PdfMetadataProbe.getCached(file));
+
+        PdfMetadata metadata = PdfMetadataProbe.probe(file);
+        assertSame(metadata, PdfMetadataProbe.getCached(file));
+        assertSame(metadata, PdfMetadataProbe.probe(file));
+
+        try (OutputStream os = new FileOutputStream(file, true)) {
+            os.write('\n');
+        }
+        assertNull(PdfMetadataProbe.getCached(file));
+    }
+
+    /**
+     * A two-page file with a classic cross-reference table whose entries end with eol
+     */
+    private static PdfBuilder classicPdf(String eol) {
+        PdfBuilder pdf = new PdfBuilder();
+        pdf.object(1, "<< /Type /Catalog /Pages 2 0 R >>");
+        pdf.object(2, "<< /Type /Pages /Kids [4 0 R 5 0 R] /Count 2 >>");
+        pdf.object(3, "<< /Title (Classic) /Producer (PdfMetadataProbeTest) >>");
+        pdf.object(4, PAGE);
+        pdf.object(5, PAGE);
+
+        Map<Integer, String> entries = new TreeMap<>();
+        entries.put(0, PdfBuilder.entry(0, 65535, 'f'));
+        for (int number = 1; number <= 5; number++) {
+            entries.put(number, PdfBuilder.entry(pdf.offset(number), 0, 'n'));
+        }
+        long xref = pdf.xrefTable(entries, eol);
+        pdf.trailer("/Size 6 /Root 1 0 R /Info 3 0 R", xref);
+        return pdf;
+    }
+
+    /**
+     * A file whose Catalog and Pages root are only listed in its /XRefStm stream
+     *
+     * @param freePlaceholders Whether the table lists them as free, as some writers do,
+     *                         rather than leaving a gap
+     */
+    private static PdfBuilder hybridPdf(boolean freePlaceholders) {
+        PdfBuilder pdf = new PdfBuilder();
+        pdf.object(3, "<< /Title (Hybrid) >>");
+        pdf.object(4, PAGE);
+        pdf.object(5, PAGE);
+        pdf.objectStream(6, new int[] {1, 2}, new String[] {
+                "<< /Type /Catalog /Pages 2 0 R >>",
+                "<< /Type /Pages /Kids [4 0 R 5 0 R] /Count 2 >>"});
+        long xrefStream = pdf.xrefStreamWithIndex(7, new int[] {1, 2, 1}, "/Size 8 /Index [1 2]",
+                new long[] {2, 6, 0}, new long[] {2, 6, 1});
+
+        Map<Integer, String> entries = new TreeMap<>();
+        entries.put(0, PdfBuilder.entry(0, 65535, 'f'));
+        if (freePlaceholders) {
+            entries.put(1, PdfBuilder.entry(0, 0, 'f'));
+            entries.put(2, PdfBuilder.entry(0, 0, 'f'));
+        }
+        for (int number = 3; number <= 7; number++) {
+            entries.put(number, PdfBuilder.entry(pdf.offset(number), 0, 'n'));
+        }
+        long xref = pdf.xrefTable(entries, "\r\n");
+        pdf.trailer("/Size 8 /Root 1 0 R /Info 3 0 R /XRefStm " + xrefStream, xref);
+        return pdf;
+    }
+
+    /**
+     * Append an update that frees the Info dictionary and drops it from the trailer
+     *
+     * @return The offset of the update's cross-reference table
+     */
+    private static long freeInfo(PdfBuilder pdf) {
+        Map<Integer, String> entries = new TreeMap<>();
+        entries.put(0, PdfBuilder.entry(3, 65535, 'f'));
+        entries.put(3, PdfBuilder.entry(0, 1, 'f'));
+        long xref = pdf.xrefTable(entries, "\r\n");
+        pdf.trailer("/Size 6 /Root 1 0 R /Prev " + pdf.lastXref(), xref);
+        return xref;
+    }
+
+    private static long[] free() {
+        return new long[] {0, 0, 0};
+    }
+
+    private static long[] inUse(PdfBuilder pdf, int number) {
+        return new long[] {1, pdf.offset(number), 0};
+    }
+
+    private File write(PdfBuilder pdf) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), pdf.toByteArray());
+        return file;
+    }
+
+    /**
+     * Write a titled two-page PDF with standard AES encryption
+     */
+    private File writeEncrypted(String userPassword, boolean fullCompression) throws IOException {
+        File file = folder.newFile();
+        byte[] user = userPassword == null ? null : userPassword.getBytes(StandardCharsets.US_ASCII);
+        WriterProperties properties = new WriterProperties()
+                .setStandardEncryption(user, "owner".getBytes(StandardCharsets.US_ASCII),
+                        EncryptionConstants.ALLOW_PRINTING, EncryptionConstants.ENCRYPTION_AES_128)
+                .setFullCompressionMode(fullCompression);
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(file.getAbsolutePath(), properties))) {
+            pdf.getDocumentInfo().setTitle("Secret");
+            pdf.addNewPage();
+            pdf.addNewPage();
+        }
+        return file;
+    }
+
+    /**
+     * Writes PDF objects and cross-reference sections and records their offsets
+     */
+    private static class PdfBuilder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final Map<Integer, Long> offsets = new TreeMap<>();
+        private long lastXref = -1;
+
+        PdfBuilder() {
+            write("%PDF-1.5\n%\u00e2\u00e3\u00cf\u00d3\n");
+        }
+
+        static String entry(long offset, int generation, char type) {
+            return String.format("%010d %05d %c", offset, generation, type);
+        }
+
+        long position() {
+            return out.size();
+        }
+
+        long offset(int number) {
+            return offsets.get(number);
+        }
+
+        long lastXref() {
+            return lastXref;
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        void object(int number, String body) {
+            object(number, 0, body);
+        }
+
+        void object(int number, int generation, String body) {
+            offsets.put(number, position());
+            write(number + " " + generation + " obj\n" + body + "\nendobj\n");
+        }
+
+        void stream(int number, String dictionary, byte[] data) {
+            offsets.put(number, position());
+            write(number + " 0 obj\n<< " + dictionary + " /Length " + data.length + " >>\nstream\n");
+            write(data);
+            write("\nendstream\nendobj\n");
+        }
+
+        void objectStream(int number, int[] numbers, String[] bodies) {
+            StringBuilder header = new StringBuilder();
+            StringBuilder objects = new StringBuilder();
+            for (int i = 0; i < numbers.length; i++) {
+                header.append(numbers[i]).append(' ').append(objects.length()).append(' ');
+                objects.append(bodies[i]).append('\n');
+            }
+            byte[] data = (header.toString() + objects).getBytes(StandardCharsets.ISO_8859_1);
+            stream(number, "/Type /ObjStm /N " + numbers.length + " /First " + header.length()
+                    + " /Filter /FlateDecode", deflate(data));
+        }
+
+        /**
+         * Write a classic table with one subsection per run of consecutive numbers
+         */
+        long xrefTable(Map<Integer, String> entries, String eol) {
+            long start = position();
+            StringBuilder table = new StringBuilder("xref\n");
+            Integer[] numbers = entries.keySet().toArray(new Integer[0]);
+            int run = 0;
+            while (run < numbers.length) {
+                int end = run + 1;
+                while (end < numbers.length && numbers[end] == numbers[end - 1] + 1) {
+                    end++;
+                }
+                table.append(numbers[run]).append(' ').append(end - run).append('\n');
+                for (int i = run; i < end; i++) {
+                    table.append(entries.get(numbers[i])).append(eol);
+                }
+                run = end;
+            }
+            write(table.toString());
+            return start;
+        }
+
+        void trailer(String dictionary, long xref) {
+            write("trailer\n<< " + dictionary + " >>\n");
+            startxref(xref);
+        }
+
+        void startxref(long xref) {
+            lastXref = xref;
+            write("startxref\n" + xref + "\n%%EOF\n");
+        }
+
+        /**
+         * Write a cross-reference stream for objects 0 to rows.length - 1
+         *
+         * @return The offset of the stream object
+         */
+        long xrefStream(int number, int[] widths, boolean predictor, String dictionary, long[]... rows) {
+            long start = position();
+            int columns = widths[0] + widths[1] + widths[2];
+            byte[] data = encodeRows(widths, rows);
+            String parameters = "";
+            if (predictor) {
+                data = predictUp(data, columns);
+                parameters = " /DecodeParms << /Predictor 12 /Columns " + columns + " >>";
+            }
+            stream(number, "/Type /XRef /W [" + widths[0] + " " + widths[1] + " " + widths[2] + "] "
+                    + dictionary + " /Filter /FlateDecode" + parameters, deflate(data));
+            return start;
+        }
+
+        /**
+         * Write a cross-reference stream whose dictionary carries its own /Index
+         */
+        long xrefStreamWithIndex(int number, int[] widths, String dictionary, long[]... rows) {
+            long start = position();
+            stream(number, "/Type /XRef /W [" + widths[0] + " " + widths[1] + " " + widths[2] + "] "
+                    + dictionary, encodeRows(widths, rows));
+            return start;
+        }
+
+        private static byte[] encodeRows(int[] widths, long[][] rows) {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            for (long[] row : rows) {
+                for (int field = 0; field < 3; field++) {
+                    for (int i = widths[field] - 1; i >= 0; i--) {
+                        data.write((int) (row[field] >>> (8 * i)));
+                    }
+                }
+            }
+            return data.toByteArray();
+        }
+
+        /**
+         * Apply the PNG Up filter to every row, as Predictor 12 expects
+         */
+        private static byte[] predictUp(byte[] data, int columns) {
+            ByteArrayOutputStream predicted = new ByteArrayOutputStream();
+            byte[] previous = new byte[columns];
+            for (int row = 0; row < data.length; row += columns) {
+                predicted.write(2);
+                for (int i = 0; i < columns; i++) {
+                    predicted.write(data[row + i] - previous[i]);
+                    previous[i] = data[row + i];
+                }
+            }
+            return predicted.toByteArray();
+        }
+
+        private static byte[] deflate(byte[] data) {
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+            try (DeflaterOutputStream os = new DeflaterOutputStream(deflated)) {
+                os.write(data);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return deflated.toByteArray();
+        }
+
+        private void write(String text) {
+            write(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        private void write(byte[] data) {
+            out.write(data, 0, data.length);
+        }
+    }
+}
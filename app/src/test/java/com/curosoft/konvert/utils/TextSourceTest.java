@@ -0,0 +1,165 @@
+package com.curosoft.konvert.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the charset detection and line splitting of {@link TextSource}
+ */
+public class TextSourceTest {
+
+    @Test
+    public void sniff_shortUtf16WithoutBom() {
+        assertEquals(StandardCharsets.UTF_16LE, detect("hello\nworld", StandardCharsets.UTF_16LE));
+        assertEquals(StandardCharsets.UTF_16BE, detect("hello\nworld", StandardCharsets.UTF_16BE));
+        assertEquals(StandardCharsets.UTF_16LE, detect("a", StandardCharsets.UTF_16LE));
+    }
+
+    @Test
+    public void sniff_longUtf16WithoutBom() {
+        String text = repeat("The quick brown fox jumps over the lazy dog.\n", 500);
+        assertEquals(StandardCharsets.UTF_16LE, detect(text, StandardCharsets.UTF_16LE));
+        assertEquals(StandardCharsets.UTF_16BE, detect(text, StandardCharsets.UTF_16BE));
+    }
+
+    @Test
+    public void sniff_utf16WithSomeNonLatinCharacters() {
+        // A few characters outside Latin-1 have no zero byte in either half
+        String text = repeat("plain text ", 40) + "ЖЗИ";
+        assertEquals(StandardCharsets.UTF_16LE, detect(text, StandardCharsets.UTF_16LE));
+    }
+
+    @Test
+    public void sniff_utf8AndLegacyCharsets() {
+        assertEquals(StandardCharsets.UTF_8, detect("plain ASCII", StandardCharsets.UTF_8));
+        assertEquals(StandardCharsets.UTF_8, detect("café €", StandardCharsets.UTF_8));
+        assertEquals(Charset.forName("windows-1252"),
+                detect("café crème brûlée", Charset.forName("windows-1252")));
+        assertEquals(Charset.forName("windows-1251"),
+                detect("Привет мир", Charset.forName("windows-1251")));
+    }
+
+    @Test
+    public void bom_selectsCharsetAndIsSkipped() throws IOException {
+        byte[] utf8 = concat(new byte[] {(byte) 0xef, (byte) 0xbb, (byte) 0xbf},
+                "first\nsecond".getBytes(StandardCharsets.UTF_8));
+        byte[] utf16le = concat(new byte[] {(byte) 0xff, (byte) 0xfe},
+                "first\nsecond".getBytes(StandardCharsets.UTF_16LE));
+        byte[] utf16be = concat(new byte[] {(byte) 0xfe, (byte) 0xff},
+                "first\nsecond".getBytes(StandardCharsets.UTF_16BE));
+
+        assertEquals(Arrays.asList("first", "second"), readLines(new ByteArrayInputStream(utf8)));
+        assertEquals(Arrays.asList("first", "second"), readLines(new ByteArrayInputStream(utf16le)));
+        assertEquals(Arrays.asList("first", "second"), readLines(new ByteArrayInputStream(utf16be)));
+    }
+
+    @Test
+    public void readLine_allLineEnds() throws IOException {
+        byte[] data = "a\nb\r\nc\rd\r\re\n".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(Arrays.asList("a", "b", "c", "d", "", "e"), readLines(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    public void readLine_crlfSplitAcrossBuffers() throws IOException {
+        // Past the first buffer the stream hands out one byte per read, so each "\r" and
+        // "\n" is decoded in a block of its own
+        String filler = repeat("x", TextSource.SNIFF_LENGTH);
+        byte[] data = (filler + "\none\r\ntwo\r\n\r\nthree").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(Arrays.asList(filler, "one", "two", "", "three"), readLines(new TrickleInputStream(data)));
+    }
+
+    @Test
+    public void readLine_crlfAtSniffBoundary() throws IOException {
+        // The CR is the last byte of the first buffer and the LF the first of the next
+        StringBuilder text = new StringBuilder();
+        text.append(repeat("x", TextSource.SNIFF_LENGTH - 1)).append("\r\nnext");
+        List<String> lines = readLines(new ByteArrayInputStream(
+                text.toString().getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(2, lines.size());
+        assertEquals(TextSource.SNIFF_LENGTH - 1, lines.get(0).length());
+        assertEquals("next", lines.get(1));
+    }
+
+    @Test
+    public void readLine_multiByteCharacterSplitAcrossReads() throws IOException {
+        String filler = repeat("x", TextSource.SNIFF_LENGTH - 1);
+        byte[] data = (filler + "€1\néè").getBytes(StandardCharsets.UTF_8);
+        try (TextSource text = TextSource.open(new TrickleInputStream(data), StandardCharsets.UTF_8)) {
+            assertEquals(Arrays.asList(filler + "€1", "éè"), readLines(text));
+        }
+    }
+
+    @Test
+    public void read_returnsDecodedText() throws IOException {
+        byte[] data = "hello\nworld".getBytes(StandardCharsets.UTF_16LE);
+        try (TextSource text = TextSource.open(new ByteArrayInputStream(data))) {
+            assertEquals(StandardCharsets.UTF_16LE, text.getCharset());
+            char[] buffer = new char[64];
+            StringBuilder result = new StringBuilder();
+            int n;
+            while ((n = text.read(buffer, 0, buffer.length)) != -1) {
+                result.append(buffer, 0, n);
+            }
+            assertEquals("hello\nworld", result.toString());
+        }
+    }
+
+    private static Charset detect(String text, Charset charset) {
+        byte[] data = text.getBytes(charset);
+        return TextSource.detectCharset(data, data.length);
+    }
+
+    private static List<String> readLines(InputStream in) throws IOException {
+        try (TextSource text = TextSource.open(in)) {
+            return readLines(text);
+        }
+    }
+
+    private static List<String> readLines(TextSource text) throws IOException {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        while (text.readLine(line)) {
+            lines.add(line.toString());
+            line.setLength(0);
+        }
+        return lines;
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder result = new StringBuilder(text.length() * count);
+        for (int i = 0; i < count; i++) {
+            result.append(text);
+        }
+        return result.toString();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * A stream that returns at most one byte per read
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        TrickleInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            return super.read(buffer, offset, Math.min(1, length));
+        }
+    }
+}